@@ -8,6 +8,6 @@ import java.util.List;
 
 public interface HolidayOverrideRepository extends JpaRepository<HolidayOverride, Long> {
     List<HolidayOverride> findByHolidayDate(LocalDate date);
-}
-
 
+    List<HolidayOverride> findByHolidayDateBetweenAndClosedYn(LocalDate from, LocalDate to, String closedYn);
+}
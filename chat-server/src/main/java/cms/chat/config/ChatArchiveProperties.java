@@ -0,0 +1,32 @@
+package cms.chat.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 채팅 메시지 보관/정리 설정 (chat.archive.*)
+ * - 마지막 메시지가 afterDays 보다 오래된 스레드의 메시지를 chat_message_archive 로 이동
+ * - 소프트 삭제 후 purgeAfterDays 가 지난 메시지는 물리 삭제
+ */
+@Component
+@ConfigurationProperties(prefix = "chat.archive")
+@Getter
+@Setter
+public class ChatArchiveProperties {
+
+    private boolean enabled = true;
+
+    // 스레드 비활성 기준 (일)
+    private int afterDays = 180;
+
+    // 소프트 삭제 메시지 보존 기간 (일)
+    private int purgeAfterDays = 30;
+
+    // 1회 실행당 보관할 최대 스레드 수
+    private int threadsPerRun = 200;
+
+    // 한 트랜잭션에서 이동/삭제할 메시지 수
+    private int chunkSize = 1000;
+}
@@ -0,0 +1,35 @@
+package cms.chat.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 채팅 메시지 write-behind 적재 설정 (chat.ingest.*)
+ * - enabled=false 이면 기존처럼 요청 스레드에서 동기 저장
+ * - 비정상 종료 시 유실 상한 = queueCapacity + batchSize
+ */
+@Component
+@ConfigurationProperties(prefix = "chat.ingest")
+@Getter
+@Setter
+public class ChatIngestProperties {
+
+    private boolean enabled = true;
+
+    // 대기 큐 용량 (가득 차면 호출 스레드에서 동기 저장)
+    private int queueCapacity = 2000;
+
+    // 한 트랜잭션에 묶는 최대 건수 (hibernate.jdbc.batch_size 와 맞춤)
+    private int batchSize = 50;
+
+    // 배치가 차지 않아도 기다리는 최대 시간
+    private long flushIntervalMs = 20;
+
+    // 종료 시 큐 drain 대기 시간
+    private long shutdownTimeoutMs = 10000;
+
+    // 즉시 저장 경로가 같은 대화의 큐 적재분 커밋을 기다리는 최대 시간
+    private long flushWaitMs = 5000;
+}
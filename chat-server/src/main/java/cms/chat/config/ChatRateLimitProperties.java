@@ -0,0 +1,46 @@
+package cms.chat.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 채팅 전송 속도 제한 기본값 (chat.rate-limit.*)
+ * - 스레드/사용자(userIdentifier)/클라이언트 IP 별 토큰 버킷: burst 만큼 연속 허용, 이후 분당 perMinute 로 회복
+ * - 채널 설정(JSON)의 rateLimit 항목이 있으면 해당 채널은 그 값을 우선 사용
+ */
+@Component
+@ConfigurationProperties(prefix = "chat.rate-limit")
+@Getter
+@Setter
+public class ChatRateLimitProperties {
+
+    private boolean enabled = true;
+
+    // 키(버킷) 최대 보관 수, 마지막 사용 후 idleMinutes 가 지나면 제거
+    private long maxKeys = 200000;
+    private long idleMinutes = 10;
+
+    private Limit thread = new Limit(10, 30);
+    private Limit user = new Limit(20, 60);
+    private Limit ip = new Limit(40, 120);
+
+    @Getter
+    @Setter
+    public static class Limit {
+
+        private int burst;
+
+        // 0 이하이면 제한 없음
+        private int perMinute;
+
+        public Limit() {
+        }
+
+        public Limit(int burst, int perMinute) {
+            this.burst = burst;
+            this.perMinute = perMinute;
+        }
+    }
+}
@@ -37,6 +37,10 @@ public class ChatChannel {
     @Column(name = "owner_user_uuid", length = 36)
     private String ownerUserUuid;
 
+    // 채널 내 스레드 미읽음 합계 (ChatUnreadCounterService 의 원자적 UPDATE 로만 변경)
+    @Column(name = "unread_count", insertable = false, updatable = false)
+    private int unreadCount;
+
     @Column(name = "created_by", length = 50)
     private String createdBy;
 
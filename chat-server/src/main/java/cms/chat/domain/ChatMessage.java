@@ -85,6 +85,14 @@ public class ChatMessage {
     @Column(name = "deleted_by", length = 64)
     private String deletedBy;
 
+    // trackReplyState 가 계산한 첫 응답 시간(ms). 저장하지 않고 커밋 이벤트로만 전달한다
+    @Transient
+    private Long firstResponseMs;
+
+    // 답변한 인증된 관리자 id (응답 시간 상담원 태그용, 저장하지 않음). created_by 는 요청 값이라 태그로 쓰지 않는다
+    @Transient
+    private String respondingAgent;
+
     public static ChatMessage createText(ChatThread thread, String senderType, String content, String actor) {
         ChatMessage message = new ChatMessage();
         message.thread = thread;
@@ -0,0 +1,89 @@
+package cms.chat.domain;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 보관(콜드) 메시지. chat_message 에서 id 그대로 이동되며 조회 전용으로만 사용한다.
+ */
+@Entity
+@Table(name = "chat_message_archive",
+       indexes = {
+           @Index(name = "idx_chat_message_archive_thread_id", columnList = "thread_id, id")
+       })
+@Getter
+@NoArgsConstructor
+public class ChatMessageArchive {
+
+    @Id
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "thread_id", nullable = false)
+    private Long threadId;
+
+    @Column(name = "sender_type", nullable = false, length = 20)
+    private String senderType;
+
+    @Column(name = "sender_name", nullable = false, length = 100)
+    private String senderName;
+
+    @Column(name = "message_type", nullable = false, length = 20)
+    private String messageType;
+
+    @Column(name = "content", columnDefinition = "TEXT")
+    private String content;
+
+    @Column(name = "file_name", length = 255)
+    private String fileName;
+
+    @Column(name = "file_url", length = 512)
+    private String fileUrl;
+
+    @Column(name = "is_read", nullable = false)
+    private boolean isRead;
+
+    @Column(name = "read_at")
+    private LocalDateTime readAt;
+
+    @Column(name = "created_by", length = 50)
+    private String createdBy;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_by", length = 50)
+    private String updatedBy;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+    /**
+     * 기존 매핑/응답 코드를 그대로 쓰기 위한 (비영속) ChatMessage 변환
+     */
+    public ChatMessage toMessage(ChatThread thread) {
+        ChatMessage message = new ChatMessage();
+        message.setId(id);
+        message.setThread(thread);
+        message.setSenderType(senderType);
+        message.setSenderName(senderName);
+        message.setMessageType(messageType);
+        message.setContent(content);
+        message.setFileName(fileName);
+        message.setFileUrl(fileUrl);
+        message.setRead(isRead);
+        message.setReadAt(readAt);
+        message.setCreatedBy(createdBy);
+        message.setCreatedAt(createdAt);
+        message.setUpdatedBy(updatedBy);
+        message.setUpdatedAt(updatedAt);
+        message.setDeletedYn("N");
+        return message;
+    }
+}
@@ -47,6 +47,13 @@ public class ChatParticipant {
     @Column(name = "left_at")
     private LocalDateTime leftAt;
 
+    // 참여자별 읽음 커서
+    @Column(name = "last_read_message_id")
+    private Long lastReadMessageId;
+
+    @Column(name = "last_read_at")
+    private LocalDateTime lastReadAt;
+
     @Column(name = "created_by", length = 50)
     private String createdBy;
 
@@ -70,9 +77,16 @@ public class ChatParticipant {
         p.createdBy = actor;
         return p;
     }
-}
-
-
-
-
 
+    /**
+     * 커서는 앞으로만 이동한다. 이동했으면 true.
+     */
+    public boolean advanceReadCursor(Long messageId, LocalDateTime readAt) {
+        if (messageId == null || (this.lastReadMessageId != null && this.lastReadMessageId >= messageId)) {
+            return false;
+        }
+        this.lastReadMessageId = messageId;
+        this.lastReadAt = readAt;
+        return true;
+    }
+}
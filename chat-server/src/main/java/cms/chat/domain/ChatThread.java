@@ -68,6 +68,21 @@ public class ChatThread {
     @Column(name = "last_read_at")
     private LocalDateTime lastReadAt;
 
+    // 관리자 측 읽음 커서: 이 id 이하의 메시지는 읽은 것으로 본다
+    @Column(name = "last_read_message_id")
+    private Long lastReadMessageId;
+
+    // 미읽음 USER 메시지 수 (ChatUnreadCounterService 의 원자적 UPDATE 로만 변경)
+    @Column(name = "unread_count", insertable = false, updatable = false)
+    private int unreadCount;
+
+    // 답변 대기 시작 시각 / 첫 관리자 답변 시각 (ChatService.trackReplyState 의 원자적 UPDATE 로만 변경)
+    @Column(name = "awaiting_reply_since", insertable = false, updatable = false)
+    private LocalDateTime awaitingReplySince;
+
+    @Column(name = "first_admin_response_at", insertable = false, updatable = false)
+    private LocalDateTime firstAdminResponseAt;
+
     public static ChatThread create(ChatChannel channel, String userIdentifier, String userName, String userIp, String actor) {
         ChatThread thread = new ChatThread();
         thread.channel = channel;
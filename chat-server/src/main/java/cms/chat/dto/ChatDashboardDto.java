@@ -0,0 +1,47 @@
+package cms.chat.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * CS 대시보드 KPI 스냅샷 (GET /cms/chat/dashboard)
+ */
+@Getter
+@AllArgsConstructor
+public class ChatDashboardDto {
+
+    private final String generatedAt;
+    private final long activeConversations;
+    private final long todayInquiries;
+    // 오늘 첫 응답 시간 평균 (초), 측정 건이 없으면 null
+    private final Long avgFirstResponseSeconds;
+    // 업로드 저장소 디스크 사용률 (%), 확인 불가 시 null
+    private final Integer diskUsagePercent;
+    // 첨부 blob 저장량 / 중복 제거로 절약한 바이트, 기동 이후 중복 업로드 수 (확인 불가 시 null)
+    private final Long attachmentStoredBytes;
+    private final Long dedupSavedBytes;
+    private final Long dedupHits;
+    // 최근 7일 시간대별 문의량 (오래된 시간부터)
+    private final List<HourlyVolume> hourly;
+    // 최근 7일 채널별 문의 비중 (많은 순)
+    private final List<ChannelShare> channelShare;
+
+    @Getter
+    @AllArgsConstructor
+    public static class HourlyVolume {
+        private final String hour;
+        private final long inquiries;
+        private final long adminReplies;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class ChannelShare {
+        private final Long channelId;
+        private final String cmsName;
+        private final long inquiries;
+        private final double ratio;
+    }
+}
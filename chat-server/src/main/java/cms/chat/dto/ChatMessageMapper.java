@@ -0,0 +1,141 @@
+package cms.chat.dto;
+
+import cms.chat.domain.ChatChannel;
+import cms.chat.domain.ChatMessage;
+import cms.chat.domain.ChatThread;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ChatMessage -> 응답/브로드캐스트 페이로드 매핑 (REST 목록, 소켓 OutboundMessage, 환영 메시지 공용).
+ * 스레드 정보(channelId, userName, userIdentifier)는 ThreadInfo 로 페이지당 한 번만 읽는다.
+ */
+public final class ChatMessageMapper {
+
+    private ChatMessageMapper() {
+    }
+
+    public static ChatMessageDto toDto(ChatMessage m, ThreadInfo thread) {
+        ChatMessageDto dto = new ChatMessageDto();
+        dto.setId(m.getId());
+        dto.setThreadId(thread.getThreadId());
+        dto.setChannelId(thread.getChannelId());
+        dto.setUserName(thread.getUserName());
+        dto.setUserIdentifier(thread.getUserIdentifier());
+        dto.setSenderType(m.getSenderType());
+        dto.setSenderName(m.getSenderName());
+        dto.setMessageType(m.getMessageType());
+        dto.setContent(m.getContent());
+        dto.setFileName(m.getFileName());
+        dto.setFileUrl(m.getFileUrl());
+        dto.setRead(m.isRead());
+        dto.setReadAt(m.getReadAt() != null ? m.getReadAt().toString() : null);
+        dto.setCreatedAt(m.getCreatedAt() != null ? m.getCreatedAt().toString() : null);
+        dto.setEdited(isEdited(m));
+        return dto;
+    }
+
+    public static List<ChatMessageDto> toDtos(List<ChatMessage> messages, ThreadInfo thread) {
+        List<ChatMessageDto> result = new ArrayList<>(messages.size());
+        for (ChatMessage m : messages) {
+            result.add(toDto(m, thread));
+        }
+        return result;
+    }
+
+    /**
+     * 소켓 브로드캐스트용 Map 페이로드 (기존 환영 메시지 키 구성 유지)
+     */
+    public static Map<String, Object> toBroadcastMap(ChatMessage m, ThreadInfo thread) {
+        Map<String, Object> dto = new HashMap<>();
+        dto.put("id", m.getId());
+        dto.put("threadId", thread.getThreadId());
+        dto.put("senderType", m.getSenderType());
+        dto.put("senderName", m.getSenderName());
+        dto.put("messageType", m.getMessageType());
+        dto.put("content", m.getContent());
+        dto.put("isRead", m.isRead());
+        dto.put("createdAt", m.getCreatedAt());
+        dto.put("edited", isEdited(m));
+        if (thread.getChannelId() != null) {
+            dto.put("channelId", thread.getChannelId());
+        }
+        if (thread.getUserName() != null && !thread.getUserName().isEmpty()) {
+            dto.put("userName", thread.getUserName());
+        }
+        if (thread.getUserIdentifier() != null && !thread.getUserIdentifier().isEmpty()) {
+            dto.put("userIdentifier", thread.getUserIdentifier());
+        }
+        return dto;
+    }
+
+    /**
+     * 수정된 것으로 간주하려면 생성 시간보다 최소 1초 이상 늦어야 함
+     * (@UpdateTimestamp 가 없으므로 실제 수정 시에만 updatedAt 이 변경됨)
+     */
+    public static boolean isEdited(ChatMessage m) {
+        LocalDateTime created = m.getCreatedAt();
+        LocalDateTime updated = m.getUpdatedAt();
+        if (created == null || updated == null) {
+            return false;
+        }
+        return Duration.between(created, updated).getSeconds() > 1;
+    }
+
+    /**
+     * 매핑에 필요한 스레드 값 스냅샷. 지연 로딩 실패 시 해당 값은 null.
+     */
+    public static final class ThreadInfo {
+        private final Long threadId;
+        private final Long channelId;
+        private final String userName;
+        private final String userIdentifier;
+
+        public ThreadInfo(Long threadId, Long channelId, String userName, String userIdentifier) {
+            this.threadId = threadId;
+            this.channelId = channelId;
+            this.userName = userName;
+            this.userIdentifier = userIdentifier;
+        }
+
+        public static ThreadInfo of(ChatThread thread) {
+            return of(thread, thread != null ? thread.getId() : null);
+        }
+
+        public static ThreadInfo of(ChatThread thread, Long threadId) {
+            if (thread == null) {
+                return new ThreadInfo(threadId, null, null, null);
+            }
+            try {
+                ChatChannel channel = thread.getChannel();
+                return new ThreadInfo(threadId != null ? threadId : thread.getId(),
+                        channel != null ? channel.getId() : null,
+                        thread.getUserName(),
+                        thread.getUserIdentifier());
+            } catch (Exception e) {
+                return new ThreadInfo(threadId, null, null, null);
+            }
+        }
+
+        public Long getThreadId() {
+            return threadId;
+        }
+
+        public Long getChannelId() {
+            return channelId;
+        }
+
+        public String getUserName() {
+            return userName;
+        }
+
+        public String getUserIdentifier() {
+            return userIdentifier;
+        }
+    }
+}
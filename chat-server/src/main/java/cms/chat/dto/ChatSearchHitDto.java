@@ -0,0 +1,25 @@
+package cms.chat.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * 채팅 검색 결과 1건. snippet 은 HTML 이스케이프된 본문 일부이며 일치 구간만 &lt;mark&gt; 로 감싼다.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatSearchHitDto {
+    private Long messageId;
+    private Long threadId;
+    private Long channelId;
+    private String senderType;
+    private String senderName;
+    private String messageType;
+    private String createdAt;
+    private long score;
+    private String snippet;
+}
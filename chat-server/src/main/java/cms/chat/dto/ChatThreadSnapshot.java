@@ -0,0 +1,72 @@
+package cms.chat.dto;
+
+import cms.chat.domain.ChatChannel;
+import cms.chat.domain.ChatThread;
+import lombok.Getter;
+
+/**
+ * 생성 후 거의 바뀌지 않는 스레드 값 스냅샷 (ChatThreadCache 저장 단위).
+ */
+@Getter
+public final class ChatThreadSnapshot {
+
+    private final Long threadId;
+    private final Long channelId;
+    // 채널 코드/이름 (채널 변경 시 ChatThreadCache.evictChannel 로 함께 무효화)
+    private final String channelCode;
+    private final String channelName;
+    private final String userName;
+    private final String userIdentifier;
+    private final String userIp;
+
+    public ChatThreadSnapshot(Long threadId, Long channelId, String channelCode, String channelName,
+            String userName, String userIdentifier, String userIp) {
+        this.threadId = threadId;
+        this.channelId = channelId;
+        this.channelCode = channelCode;
+        this.channelName = channelName;
+        this.userName = userName;
+        this.userIdentifier = userIdentifier;
+        this.userIp = userIp;
+    }
+
+    public static ChatThreadSnapshot of(ChatThread thread) {
+        ChatChannel channel = thread.getChannel();
+        String code = null;
+        String name = null;
+        if (channel != null) {
+            try {
+                code = channel.getCmsCode();
+                name = channel.getCmsName();
+            } catch (RuntimeException e) {
+                // 초기화되지 않은 지연 로딩 프록시 (세션 밖) - id 만 사용
+            }
+        }
+        return new ChatThreadSnapshot(thread.getId(), channel != null ? channel.getId() : null, code, name,
+                thread.getUserName(), thread.getUserIdentifier(), thread.getUserIp());
+    }
+
+    /**
+     * id 와 스냅샷 값만 채운 detached ChatThread (채널은 id/코드/이름만).
+     * 메시지 저장 시 FK 참조, 스레드 조건 쿼리 바인딩, 매핑용으로만 사용한다 (save/merge 금지).
+     */
+    public ChatThread toThreadRef() {
+        ChatThread thread = new ChatThread();
+        thread.setId(threadId);
+        thread.setUserName(userName);
+        thread.setUserIdentifier(userIdentifier);
+        thread.setUserIp(userIp);
+        if (channelId != null) {
+            ChatChannel channel = new ChatChannel();
+            channel.setId(channelId);
+            channel.setCmsCode(channelCode);
+            channel.setCmsName(channelName);
+            thread.setChannel(channel);
+        }
+        return thread;
+    }
+
+    public ChatMessageMapper.ThreadInfo toThreadInfo() {
+        return new ChatMessageMapper.ThreadInfo(threadId, channelId, userName, userIdentifier);
+    }
+}
@@ -0,0 +1,32 @@
+package cms.chat.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * 읽음 커서 브로드캐스트 페이로드 (/sub/chat/{threadId}, type=read.cursor)
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReadCursorDto {
+    private String type = "read.cursor";
+    private Long threadId;
+    private String readerType;
+    private String readerIdentifier;
+    private Long lastReadMessageId;
+    private LocalDateTime lastReadAt;
+
+    public ReadCursorDto(Long threadId, String readerType, String readerIdentifier, Long lastReadMessageId, LocalDateTime lastReadAt) {
+        this.threadId = threadId;
+        this.readerType = readerType;
+        this.readerIdentifier = readerIdentifier;
+        this.lastReadMessageId = lastReadMessageId;
+        this.lastReadAt = lastReadAt;
+    }
+}
@@ -0,0 +1,60 @@
+package cms.chat.event;
+
+import cms.chat.domain.ChatMessage;
+import cms.chat.domain.ChatThread;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * 채팅 메시지가 DB 에 커밋된 뒤 발행되는 이벤트.
+ * 엔티티 대신 필요한 값만 스냅샷으로 담아 리스너가 세션/지연로딩에 의존하지 않게 한다.
+ */
+@Getter
+public class ChatMessagePersistedEvent {
+
+    private final Long messageId;
+    private final Long threadId;
+    private final Long channelId;
+    private final String clientMessageId;
+    private final String senderType;
+    private final String senderName;
+    private final String messageType;
+    private final String content;
+    private final String actor;
+    private final LocalDateTime createdAt;
+    // 이 메시지가 답변 대기를 해제한 관리자 답변이면 첫 응답 시간(ms), 아니면 null
+    private final Long firstResponseMs;
+
+    public ChatMessagePersistedEvent(Long messageId, Long threadId, Long channelId, String clientMessageId,
+            String senderType, String senderName, String messageType, String content,
+            String actor, LocalDateTime createdAt, Long firstResponseMs) {
+        this.messageId = messageId;
+        this.threadId = threadId;
+        this.channelId = channelId;
+        this.clientMessageId = clientMessageId;
+        this.senderType = senderType;
+        this.senderName = senderName;
+        this.messageType = messageType;
+        this.content = content;
+        this.actor = actor;
+        this.createdAt = createdAt;
+        this.firstResponseMs = firstResponseMs;
+    }
+
+    public static ChatMessagePersistedEvent of(ChatMessage message, String clientMessageId) {
+        ChatThread thread = message.getThread();
+        Long threadId = thread != null ? thread.getId() : null;
+        Long channelId = null;
+        if (thread != null && thread.getChannel() != null) {
+            channelId = thread.getChannel().getId();
+        }
+        return new ChatMessagePersistedEvent(message.getId(), threadId, channelId, clientMessageId,
+                message.getSenderType(), message.getSenderName(), message.getMessageType(),
+                message.getContent(), message.getCreatedBy(), message.getCreatedAt(), message.getFirstResponseMs());
+    }
+
+    public boolean isFromUser() {
+        return "USER".equalsIgnoreCase(senderType);
+    }
+}
@@ -2,7 +2,9 @@ package cms.chat.repository;
 
 import cms.chat.domain.ChatChannel;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -24,4 +26,24 @@ public interface ChatChannelRepository extends JpaRepository<ChatChannel, Long>
     // 복합 조건 쿼리 - 생성일 기준 오래된 순 (처음 만든 것이 위로)
     @Query("SELECT c FROM ChatChannel c WHERE c.deletedYn = :deletedYn ORDER BY c.createdAt ASC")
     List<ChatChannel> findActiveChannelsOrderByCreatedAtAsc(String deletedYn);
+
+    @Query("SELECT c.id FROM ChatChannel c WHERE c.deletedYn = 'N'")
+    List<Long> findActiveChannelIds();
+
+    @Query("SELECT c.ownerUserUuid FROM ChatChannel c WHERE c.id = :channelId")
+    Optional<String> findOwnerUserUuidById(@Param("channelId") Long channelId);
+
+    // 미읽음 카운터 원자적 증감 (0 미만으로 내려가지 않음)
+    @Modifying
+    @Query(value = "UPDATE chat_channel SET unread_count = GREATEST(unread_count + :delta, 0) WHERE id = :channelId",
+           nativeQuery = true)
+    int adjustUnreadCount(@Param("channelId") Long channelId, @Param("delta") int delta);
+
+    // drift 보정: 스레드 카운터 합계로 재계산
+    @Modifying
+    @Query(value = "UPDATE chat_channel c SET c.unread_count = (" +
+                   "  SELECT COALESCE(SUM(t.unread_count), 0) FROM chat_thread t WHERE t.channel_id = c.id) " +
+                   "WHERE c.id = :channelId",
+           nativeQuery = true)
+    int reconcileUnreadCount(@Param("channelId") Long channelId);
 }
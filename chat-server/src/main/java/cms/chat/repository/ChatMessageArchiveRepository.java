@@ -0,0 +1,24 @@
+package cms.chat.repository;
+
+import cms.chat.domain.ChatMessageArchive;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ChatMessageArchiveRepository extends JpaRepository<ChatMessageArchive, Long> {
+
+    // keyset 히스토리 (ChatService.getMessagesByCursor read-through)
+    List<ChatMessageArchive> findByThreadIdOrderByIdDesc(Long threadId, Pageable pageable);
+
+    List<ChatMessageArchive> findByThreadIdAndIdLessThanOrderByIdDesc(Long threadId, Long id, Pageable pageable);
+
+    List<ChatMessageArchive> findByThreadIdAndIdGreaterThanOrderByIdAsc(Long threadId, Long id, Pageable pageable);
+
+    // 오프셋 페이지 (ChatService.getMessages read-through)
+    List<ChatMessageArchive> findByThreadIdOrderByIdAsc(Long threadId, Pageable pageable);
+
+    long countByThreadId(Long threadId);
+}
@@ -5,6 +5,7 @@ import cms.chat.domain.ChatThread;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -16,17 +17,47 @@ import java.util.List;
 @Repository
 public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long> {
     Page<ChatMessage> findByThreadAndDeletedYnOrderByCreatedAtAsc(ChatThread thread, String deletedYn, Pageable pageable);
+
+    // keyset 페이지네이션 (List 반환이라 COUNT 쿼리 없음)
+    List<ChatMessage> findByThreadAndDeletedYnOrderByIdDesc(ChatThread thread, String deletedYn, Pageable pageable);
+    List<ChatMessage> findByThreadAndDeletedYnAndIdLessThanOrderByIdDesc(ChatThread thread, String deletedYn, Long id, Pageable pageable);
+    List<ChatMessage> findByThreadAndDeletedYnAndIdGreaterThanOrderByIdAsc(ChatThread thread, String deletedYn, Long id, Pageable pageable);
+
+    // 보관 메시지와 이어 붙이는 오프셋 페이지용 (ChatService.getMessages)
+    long countByThreadAndDeletedYn(ChatThread thread, String deletedYn);
+
+    @Query(value = "SELECT * FROM chat_message WHERE thread_id = :threadId AND deleted_yn = 'N' " +
+                   "ORDER BY created_at ASC, id ASC LIMIT :limit OFFSET :offset", nativeQuery = true)
+    List<ChatMessage> findActiveSlice(@Param("threadId") Long threadId,
+                                      @Param("offset") long offset,
+                                      @Param("limit") int limit);
     long countByThreadAndIsReadIsFalseAndDeletedYn(ChatThread thread, String deletedYn);
     long countByThreadAndCreatedAtAfterAndDeletedYn(ChatThread thread, LocalDateTime createdAt, String deletedYn);
     
     // USER 메시지만 카운트하는 메서드들 (ADMIN 메시지는 뱃지에 포함하지 않음)
     long countByThreadAndSenderTypeAndIsReadIsFalseAndDeletedYn(ChatThread thread, String senderType, String deletedYn);
     long countByThreadAndSenderTypeAndCreatedAtAfterAndDeletedYn(ChatThread thread, String senderType, LocalDateTime createdAt, String deletedYn);
+    long countByThreadAndSenderTypeAndDeletedYn(ChatThread thread, String senderType, String deletedYn);
+    long countByThreadAndSenderTypeAndIdGreaterThanAndDeletedYn(ChatThread thread, String senderType, Long id, String deletedYn);
+
+    @Query("SELECT MAX(m.id) FROM ChatMessage m WHERE m.thread = :thread AND m.deletedYn = 'N'")
+    Long findLastMessageId(@Param("thread") ChatThread thread);
+
+    // 레거시 is_read 소비자용: 커서 이하 메시지를 한 번의 UPDATE 로 읽음 처리 (senderType 이 null 이면 전체)
+    @Modifying
+    @Query("UPDATE ChatMessage m SET m.isRead = true, m.readAt = :readAt, m.updatedBy = :actor, m.updatedAt = :readAt " +
+           "WHERE m.thread = :thread AND m.isRead = false AND m.id <= :upToId " +
+           "AND (:senderType IS NULL OR m.senderType = :senderType)")
+    int markReadUpTo(@Param("thread") ChatThread thread,
+                     @Param("upToId") Long upToId,
+                     @Param("senderType") String senderType,
+                     @Param("readAt") LocalDateTime readAt,
+                     @Param("actor") String actor);
     
     // 배치로 여러 스레드의 unreadCount를 한 번에 계산하는 메서드
     @Query("SELECT t.id, COUNT(m.id) FROM ChatThread t LEFT JOIN ChatMessage m ON t.id = m.thread.id " +
            "WHERE t IN :threads AND m.senderType = 'USER' AND m.deletedYn = 'N' " +
-           "AND (t.lastReadAt IS NULL OR m.createdAt > t.lastReadAt) " +
+           "AND (t.lastReadMessageId IS NULL OR m.id > t.lastReadMessageId) " +
            "GROUP BY t.id")
     List<Object[]> countUnreadMessagesByThreads(@Param("threads") List<ChatThread> threads);
 }
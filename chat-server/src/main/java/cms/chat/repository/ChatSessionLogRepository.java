@@ -3,13 +3,22 @@ package cms.chat.repository;
 import cms.chat.domain.ChatSessionLog;
 import cms.chat.domain.ChatThread;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface ChatSessionLogRepository extends JpaRepository<ChatSessionLog, Long> {
     List<ChatSessionLog> findByThreadOrderByStartedAtDesc(ChatThread thread);
-}
-
 
+    @Modifying
+    @Query("UPDATE ChatSessionLog l SET l.endedAt = :endedAt, l.endedReason = :reason " +
+           "WHERE l.id = :id AND l.endedAt IS NULL")
+    int finish(@Param("id") Long id,
+               @Param("endedAt") LocalDateTime endedAt,
+               @Param("reason") String reason);
+}
@@ -3,8 +3,16 @@ package cms.chat.repository;
 import cms.chat.domain.ChatChannel;
 import cms.chat.domain.ChatThread;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.LockModeType;
+
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,5 +20,78 @@ import java.util.Optional;
 public interface ChatThreadRepository extends JpaRepository<ChatThread, Long> {
     Optional<ChatThread> findByChannelAndUserIdentifier(ChatChannel channel, String userIdentifier);
     List<ChatThread> findByChannelOrderByUpdatedAtDesc(ChatChannel channel);
-}
 
+    // 스레드 스냅샷 캐시 적재용 (채널 코드/이름까지 한 번에)
+    @Query("SELECT t FROM ChatThread t JOIN FETCH t.channel WHERE t.id = :threadId")
+    Optional<ChatThread> findWithChannelById(@Param("threadId") Long threadId);
+
+    // 읽음 커서는 앞으로만 이동 (동시 요청 시에도 역행하지 않음, updated_at 은 건드리지 않음)
+    @Modifying
+    @Query("UPDATE ChatThread t SET t.lastReadMessageId = :messageId, t.lastReadAt = :readAt " +
+           "WHERE t.id = :threadId AND (t.lastReadMessageId IS NULL OR t.lastReadMessageId < :messageId)")
+    int advanceReadCursor(@Param("threadId") Long threadId,
+                          @Param("messageId") Long messageId,
+                          @Param("readAt") LocalDateTime readAt);
+
+    // 읽음 커서 이후 메시지일 때만 미읽음 카운터 조정 (0 미만으로 내려가지 않음)
+    @Modifying
+    @Query(value = "UPDATE chat_thread SET unread_count = GREATEST(unread_count + :delta, 0) " +
+                   "WHERE id = :threadId AND (last_read_message_id IS NULL OR last_read_message_id < :messageId)",
+           nativeQuery = true)
+    int adjustUnreadAfterCursor(@Param("threadId") Long threadId,
+                                @Param("messageId") Long messageId,
+                                @Param("delta") int delta);
+
+    @Query(value = "SELECT unread_count FROM chat_thread WHERE id = :threadId FOR UPDATE", nativeQuery = true)
+    Integer lockUnreadCount(@Param("threadId") Long threadId);
+
+    @Modifying
+    @Query(value = "UPDATE chat_thread SET unread_count = :count WHERE id = :threadId", nativeQuery = true)
+    int setUnreadCount(@Param("threadId") Long threadId, @Param("count") int count);
+
+    // drift 보정: 커서 기준 실제 미읽음 수와 다른 스레드만 갱신
+    @Modifying
+    @Query(value = "UPDATE chat_thread t SET t.unread_count = (" +
+                   "  SELECT COUNT(*) FROM chat_message m WHERE m.thread_id = t.id AND m.sender_type = 'USER' " +
+                   "  AND m.deleted_yn = 'N' AND (t.last_read_message_id IS NULL OR m.id > t.last_read_message_id)) " +
+                   "WHERE t.channel_id = :channelId AND t.unread_count <> (" +
+                   "  SELECT COUNT(*) FROM chat_message m WHERE m.thread_id = t.id AND m.sender_type = 'USER' " +
+                   "  AND m.deleted_yn = 'N' AND (t.last_read_message_id IS NULL OR m.id > t.last_read_message_id))",
+           nativeQuery = true)
+    int reconcileUnreadCounts(@Param("channelId") Long channelId);
+
+    // 응답 대기 시작 (이미 대기 중이면 가장 이른 시각 유지)
+    @Modifying
+    @Query(value = "UPDATE chat_thread SET awaiting_reply_since = :at WHERE id = :threadId AND awaiting_reply_since IS NULL",
+           nativeQuery = true)
+    int markAwaitingReply(@Param("threadId") Long threadId, @Param("at") LocalDateTime at);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t.awaitingReplySince FROM ChatThread t WHERE t.id = :threadId")
+    LocalDateTime lockAwaitingReplySince(@Param("threadId") Long threadId);
+
+    // 답변: 대기 해제 + 첫 답변 시각 기록 (대기 중이 아니면 변경 없음)
+    @Modifying
+    @Query(value = "UPDATE chat_thread SET awaiting_reply_since = NULL, " +
+                   "first_admin_response_at = COALESCE(first_admin_response_at, :at) " +
+                   "WHERE id = :threadId AND awaiting_reply_since IS NOT NULL",
+           nativeQuery = true)
+    int clearAwaitingReply(@Param("threadId") Long threadId, @Param("at") LocalDateTime at);
+
+    // SLA 초과 대기 스레드 중 이번 대기 구간을 아직 알리지 않은 것 (id, channel_id, awaiting_reply_since, user_name, user_identifier)
+    @Query(value = "SELECT id, channel_id, awaiting_reply_since, user_name, user_identifier FROM chat_thread " +
+                   "WHERE awaiting_reply_since IS NOT NULL AND awaiting_reply_since < :before " +
+                   "AND (sla_alerted_since IS NULL OR sla_alerted_since <> awaiting_reply_since) " +
+                   "ORDER BY awaiting_reply_since LIMIT :limit",
+           nativeQuery = true)
+    List<Object[]> findAwaitingReplyBefore(@Param("before") LocalDateTime before, @Param("limit") int limit);
+
+    // SLA 알림 선점: 아직 대기 중이고 이번 대기 구간을 알리지 않았을 때만 1 (노드 간 중복 알림 방지, 자체 트랜잭션으로 바로 커밋)
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE chat_thread SET sla_alerted_since = awaiting_reply_since " +
+                   "WHERE id = :threadId AND awaiting_reply_since IS NOT NULL AND awaiting_reply_since < :before " +
+                   "AND (sla_alerted_since IS NULL OR sla_alerted_since <> awaiting_reply_since)",
+           nativeQuery = true)
+    int claimSlaAlert(@Param("threadId") Long threadId, @Param("before") LocalDateTime before);
+}
@@ -0,0 +1,97 @@
+package cms.chat.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
+
+/**
+ * 여러 토픽(/sub/chat/{threadId}, /sub/chat/channel/{channelId} 등)으로 같은 페이로드를 보낼 때
+ * JSON 직렬화를 한 번만 하고, 인코딩된 byte[] 를 공유하는 Message 로 각 목적지에 발행한다.
+ * (브로커 메시지 컨버터와 같은 ObjectMapper 를 사용하므로 수신 측 JSON 형태는 convertAndSend 와 동일)
+ * 지표: chat.broadcast.serializations / chat.broadcast.sends / chat.broadcast.bytes{kind=encoded|saved}
+ */
+@Service
+public class ChatBroadcaster {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatBroadcaster.class);
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ObjectMapper objectMapper;
+
+    private final Counter serializations;
+    private final Counter sends;
+    private final Counter bytesEncoded;
+    private final Counter bytesSaved;
+
+    public ChatBroadcaster(SimpMessagingTemplate messagingTemplate,
+            ObjectMapper objectMapper,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        this.messagingTemplate = messagingTemplate;
+        this.objectMapper = objectMapper;
+        MeterRegistry registry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+        this.serializations = Counter.builder("chat.broadcast.serializations")
+                .description("Outbound chat payloads serialized to JSON")
+                .register(registry);
+        this.sends = Counter.builder("chat.broadcast.sends")
+                .description("Pre-encoded chat messages published to broker destinations")
+                .register(registry);
+        this.bytesEncoded = Counter.builder("chat.broadcast.bytes")
+                .tag("kind", "encoded")
+                .baseUnit("bytes")
+                .register(registry);
+        this.bytesSaved = Counter.builder("chat.broadcast.bytes")
+                .tag("kind", "saved")
+                .description("Serialization bytes avoided by reusing the encoded payload")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    /**
+     * payload 를 한 번 직렬화해 destinations 모두에 발행한다. null 목적지는 건너뛴다.
+     * 직렬화 실패 시 목적지별 convertAndSend 로 대체한다.
+     */
+    public void broadcast(Object payload, String... destinations) {
+        byte[] encoded;
+        try {
+            encoded = objectMapper.writeValueAsBytes(payload);
+        } catch (Exception e) {
+            logger.warn("chat broadcast: pre-encoding failed, falling back to per-destination conversion: {}", e.getMessage());
+            for (String destination : destinations) {
+                if (destination != null) {
+                    messagingTemplate.convertAndSend(destination, payload);
+                }
+            }
+            return;
+        }
+        serializations.increment();
+        bytesEncoded.increment(encoded.length);
+
+        int sent = 0;
+        for (String destination : destinations) {
+            if (destination == null) {
+                continue;
+            }
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+            accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+            accessor.setLeaveMutable(true);
+            Message<byte[]> message = MessageBuilder.createMessage(encoded, accessor.getMessageHeaders());
+            messagingTemplate.send(destination, message);
+            sent++;
+        }
+        sends.increment(sent);
+        if (sent > 1) {
+            bytesSaved.increment((double) encoded.length * (sent - 1));
+        }
+    }
+}
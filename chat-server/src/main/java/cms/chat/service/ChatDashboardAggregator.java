@@ -0,0 +1,541 @@
+package cms.chat.service;
+
+import cms.chat.dto.ChatDashboardDto;
+import cms.chat.event.ChatMessagePersistedEvent;
+import cms.file.service.FileBlobStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * CS 대시보드 KPI 증분 집계기.
+ * - 메시지 커밋 이벤트마다 (시간, 채널) 버킷의 문의/답변/첫 응답 시간을 메모리에서 갱신 (최근 7일 = 168 시간)
+ * - 활성 대화: active-window 안에 메시지가 있었던 스레드 수, 오늘 문의: 오늘 USER 메시지가 온 스레드 수
+ * - 첫 응답 시간: 스레드의 미응답 USER 메시지 중 가장 이른 시각 -> 다음 관리자 메시지까지 (system 자동응답 제외).
+ *   답변 대기 상태는 chat_thread 에 있으므로 저장 시 계산된 값(이벤트의 firstResponseMs)을 그대로 쓴다
+ * - 조회는 refresh() 가 주기적으로 만든 스냅샷을 그대로 반환 (상수 시간), 변경분은 /sub/dashboard 로 푸시
+ * - 디스크 KPI: 업로드 디렉터리 사용률 + 첨부 blob 저장량/중복 제거 절약분 (FileBlobStore, 1분 캐시)
+ * - 버킷은 노드별 행(node_id)으로 chat_dashboard_hourly 에 저장하고, 다른 노드 행의 합을 주기적으로 읽어 더한다
+ *   (노드끼리 같은 행을 덮어쓰지 않음, 다른 노드 수치는 저장 주기만큼 늦음)
+ * - 클러스터 모드의 활성 대화/오늘 문의는 스레드 단위 중복 제거가 필요하므로 같은 주기로 chat_message 에서 센다
+ * - 기동 시 저장분 + 이후 구간의 chat_message 로 복원
+ */
+@Service
+public class ChatDashboardAggregator {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatDashboardAggregator.class);
+
+    static final int HOURS = 24 * 7;
+    private static final String TOPIC = "/sub/dashboard";
+
+    // 재시작 시 복구: 저장 주기(1분)보다 충분히 지난 시간대만 chat_message 재집계분으로 보충 (살아 있는 노드의 미저장분 중복 방지)
+    private static final Duration REPAIR_GRACE = Duration.ofMinutes(5);
+
+    private static final String UPSERT_BUCKET =
+            "INSERT INTO chat_dashboard_hourly (bucket_hour, channel_id, node_id, inquiries, admin_replies, " +
+            "first_response_count, first_response_sum_ms) " +
+            "VALUES (:hour, :channelId, :nodeId, :inquiries, :adminReplies, :frCount, :frSum) " +
+            "ON DUPLICATE KEY UPDATE inquiries = VALUES(inquiries), admin_replies = VALUES(admin_replies), " +
+            "first_response_count = VALUES(first_response_count), first_response_sum_ms = VALUES(first_response_sum_ms)";
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final FileBlobStore fileBlobStore;
+    private final long activeWindowMillis;
+    private final String storagePath;
+    private final String nodeId;
+    private final boolean clusterMode;
+
+    // 이 노드가 받은 이벤트만 집계한 버킷 (node_id = nodeId 행)
+    private final ConcurrentHashMap<Key, Bucket> buckets = new ConcurrentHashMap<>();
+    // 다른 노드(및 이전 기동분) 행의 합: {inquiries, adminReplies, frCount, frSumMs}
+    private volatile Map<Key, long[]> peerBuckets = new HashMap<>();
+    // 클러스터 전체 활성 대화/오늘 문의 스레드 수 (syncPeers 시점, 미집계면 -1)
+    private volatile long clusterActive = -1;
+    private volatile long clusterToday = -1;
+    // 마지막 푸시 이후 변경분
+    private volatile ConcurrentHashMap<Key, Bucket> pending = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Long> lastActivity = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Long> threadChannels = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, String> channelNames = new ConcurrentHashMap<>();
+    private volatile LocalDate today = LocalDate.now();
+    private volatile Set<Long> todayThreads = ConcurrentHashMap.newKeySet();
+
+    private volatile ChatDashboardDto snapshot;
+
+    public ChatDashboardAggregator(NamedParameterJdbcTemplate jdbc,
+            SimpMessagingTemplate messagingTemplate,
+            FileBlobStore fileBlobStore,
+            @Value("${chat.dashboard.active-window-minutes:1440}") long activeWindowMinutes,
+            @Value("${spring.file.storage.local.base-path:./uploads}") String storagePath,
+            @Value("${chat.broker.cluster.node-id:local}") String nodeId,
+            @Value("${chat.broker.mode:simple}") String brokerMode) {
+        this.jdbc = jdbc;
+        this.messagingTemplate = messagingTemplate;
+        this.fileBlobStore = fileBlobStore;
+        this.activeWindowMillis = Duration.ofMinutes(activeWindowMinutes).toMillis();
+        this.storagePath = storagePath;
+        this.nodeId = nodeId;
+        this.clusterMode = "cluster".equalsIgnoreCase(brokerMode);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        try {
+            restore();
+        } catch (Exception e) {
+            logger.warn("chat dashboard: restore failed, starting empty: {}", e.getMessage());
+        }
+        refresh();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMessagePersisted(ChatMessagePersistedEvent event) {
+        Long threadId = event.getThreadId();
+        if (threadId == null) {
+            return;
+        }
+        try {
+            Long channelId = event.getChannelId() != null ? event.getChannelId() : channelOf(threadId);
+            if (channelId == null) {
+                return;
+            }
+            threadChannels.putIfAbsent(threadId, channelId);
+            LocalDateTime at = event.getCreatedAt() != null ? event.getCreatedAt() : LocalDateTime.now();
+            lastActivity.merge(threadId, Timestamp.valueOf(at).getTime(), Math::max);
+
+            Key key = new Key(at.truncatedTo(ChronoUnit.HOURS), channelId);
+            if (event.isFromUser()) {
+                add(key, 1, 0, 0, 0);
+                rollDay();
+                if (at.toLocalDate().equals(today)) {
+                    todayThreads.add(threadId);
+                }
+            } else if ("ADMIN".equalsIgnoreCase(event.getSenderType()) && !"system".equals(event.getActor())) {
+                Long responseMs = event.getFirstResponseMs();
+                add(key, 0, 1, responseMs != null ? 1 : 0, responseMs != null ? responseMs : 0);
+            }
+        } catch (Exception e) {
+            logger.warn("chat dashboard: event for message {} ignored: {}", event.getMessageId(), e.getMessage());
+        }
+    }
+
+    /**
+     * 마지막 refresh 시점의 KPI 스냅샷
+     */
+    public ChatDashboardDto current() {
+        ChatDashboardDto s = snapshot;
+        return s != null ? s : refresh();
+    }
+
+    /**
+     * 만료 버킷/스레드 정리 후 스냅샷 재계산 (버킷 수는 최대 168 x 채널 수)
+     */
+    public synchronized ChatDashboardDto refresh() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime firstHour = now.truncatedTo(ChronoUnit.HOURS).minusHours(HOURS - 1);
+        buckets.keySet().removeIf(k -> k.hour.isBefore(firstHour));
+        long activeFrom = System.currentTimeMillis() - activeWindowMillis;
+        lastActivity.values().removeIf(t -> t < activeFrom);
+        threadChannels.keySet().removeIf(threadId -> !lastActivity.containsKey(threadId));
+        rollDay();
+
+        long[] hourlyInquiries = new long[HOURS];
+        long[] hourlyReplies = new long[HOURS];
+        Map<Long, Long> perChannel = new HashMap<>();
+        long frCount = 0;
+        long frSum = 0;
+        LocalDateTime todayStart = today.atStartOfDay();
+        for (Map.Entry<Key, Bucket> e : buckets.entrySet()) {
+            Key k = e.getKey();
+            Bucket b = e.getValue();
+            int idx = (int) ChronoUnit.HOURS.between(firstHour, k.hour);
+            if (idx < 0 || idx >= HOURS) {
+                continue;
+            }
+            long inquiries = b.inquiries.get();
+            hourlyInquiries[idx] += inquiries;
+            hourlyReplies[idx] += b.adminReplies.get();
+            perChannel.merge(k.channelId, inquiries, Long::sum);
+            if (!k.hour.isBefore(todayStart)) {
+                frCount += b.firstResponseCount.get();
+                frSum += b.firstResponseSumMs.get();
+            }
+        }
+        for (Map.Entry<Key, long[]> e : peerBuckets.entrySet()) {
+            Key k = e.getKey();
+            long[] v = e.getValue();
+            int idx = (int) ChronoUnit.HOURS.between(firstHour, k.hour);
+            if (idx < 0 || idx >= HOURS) {
+                continue;
+            }
+            hourlyInquiries[idx] += v[0];
+            hourlyReplies[idx] += v[1];
+            perChannel.merge(k.channelId, v[0], Long::sum);
+            if (!k.hour.isBefore(todayStart)) {
+                frCount += v[2];
+                frSum += v[3];
+            }
+        }
+
+        List<ChatDashboardDto.HourlyVolume> hourly = new ArrayList<>(HOURS);
+        for (int i = 0; i < HOURS; i++) {
+            hourly.add(new ChatDashboardDto.HourlyVolume(firstHour.plusHours(i).toString(),
+                    hourlyInquiries[i], hourlyReplies[i]));
+        }
+        long total = 0;
+        for (Long v : perChannel.values()) {
+            total += v;
+        }
+        resolveChannelNames(perChannel.keySet());
+        List<ChatDashboardDto.ChannelShare> share = new ArrayList<>(perChannel.size());
+        for (Map.Entry<Long, Long> e : perChannel.entrySet()) {
+            if (e.getValue() == 0) {
+                continue;
+            }
+            share.add(new ChatDashboardDto.ChannelShare(e.getKey(), channelNames.get(e.getKey()), e.getValue(),
+                    total > 0 ? Math.round(e.getValue() * 10000.0 / total) / 100.0 : 0));
+        }
+        share.sort((a, b) -> Long.compare(b.getInquiries(), a.getInquiries()));
+
+        FileBlobStore.Usage usage = fileBlobStore.usage();
+        // 클러스터 수치는 syncPeers 시점 기준이므로 그 뒤 이 노드에서 늘어난 만큼은 로컬 값으로 보정
+        long active = Math.max(lastActivity.size(), clusterActive);
+        long askedToday = Math.max(todayThreads.size(), clusterToday);
+        ChatDashboardDto dto = new ChatDashboardDto(now.toString(), active, askedToday,
+                frCount > 0 ? Math.round(frSum / (double) frCount / 1000.0) : null,
+                diskUsagePercent(),
+                usage != null ? usage.getStoredBytes() : null,
+                usage != null ? usage.getSavedBytes() : null,
+                usage != null ? usage.getDedupHits() : null,
+                hourly, share);
+        snapshot = dto;
+        return dto;
+    }
+
+    /**
+     * 마지막 푸시 이후 바뀐 버킷과 현재 KPI 를 /sub/dashboard 로 전송. 변경이 없으면 보내지 않는다.
+     */
+    public void pushDelta() {
+        ChatDashboardDto before = snapshot;
+        ChatDashboardDto dto = refresh();
+        ConcurrentHashMap<Key, Bucket> changes = pending;
+        pending = new ConcurrentHashMap<>();
+        boolean kpiChanged = before == null
+                || before.getActiveConversations() != dto.getActiveConversations()
+                || before.getTodayInquiries() != dto.getTodayInquiries()
+                || !Objects.equals(before.getAvgFirstResponseSeconds(), dto.getAvgFirstResponseSeconds());
+        if (changes.isEmpty() && !kpiChanged) {
+            return;
+        }
+        List<Map<String, Object>> deltas = new ArrayList<>(changes.size());
+        for (Map.Entry<Key, Bucket> e : changes.entrySet()) {
+            Map<String, Object> d = new LinkedHashMap<>();
+            d.put("hour", e.getKey().hour.toString());
+            d.put("channelId", e.getKey().channelId);
+            d.put("inquiries", e.getValue().inquiries.get());
+            d.put("adminReplies", e.getValue().adminReplies.get());
+            deltas.add(d);
+        }
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("type", "delta");
+        payload.put("generatedAt", dto.getGeneratedAt());
+        payload.put("activeConversations", dto.getActiveConversations());
+        payload.put("todayInquiries", dto.getTodayInquiries());
+        payload.put("avgFirstResponseSeconds", dto.getAvgFirstResponseSeconds());
+        payload.put("buckets", deltas);
+        try {
+            messagingTemplate.convertAndSend(TOPIC, payload);
+        } catch (Exception e) {
+            logger.debug("chat dashboard: push failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 변경된 이 노드의 버킷을 chat_dashboard_hourly 의 (시간, 채널, node_id) 행에 저장 (절대값 upsert). 저장한 버킷 수 반환
+     */
+    public int persistSnapshot() {
+        List<SqlParameterSource> batch = new ArrayList<>();
+        for (Map.Entry<Key, Bucket> e : buckets.entrySet()) {
+            Bucket b = e.getValue();
+            if (!b.dirty) {
+                continue;
+            }
+            // 읽기 전에 내려야 저장 도중 들어온 증가분이 다음 저장에서 누락되지 않는다
+            b.dirty = false;
+            batch.add(new MapSqlParameterSource()
+                    .addValue("hour", Timestamp.valueOf(e.getKey().hour))
+                    .addValue("channelId", e.getKey().channelId)
+                    .addValue("nodeId", nodeId)
+                    .addValue("inquiries", b.inquiries.get())
+                    .addValue("adminReplies", b.adminReplies.get())
+                    .addValue("frCount", b.firstResponseCount.get())
+                    .addValue("frSum", b.firstResponseSumMs.get()));
+        }
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        try {
+            jdbc.batchUpdate(UPSERT_BUCKET, batch.toArray(new SqlParameterSource[0]));
+        } catch (RuntimeException e) {
+            for (Bucket b : buckets.values()) {
+                b.dirty = true;
+            }
+            throw e;
+        }
+        jdbc.update("DELETE FROM chat_dashboard_hourly WHERE bucket_hour < :before",
+                new MapSqlParameterSource("before",
+                        Timestamp.valueOf(LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).minusHours(HOURS))));
+        return batch.size();
+    }
+
+    /**
+     * 다른 노드(및 node_id 가 바뀐 이전 기동분) 행의 합을 다시 읽는다. 클러스터 모드면 스레드 단위 KPI 도 다시 센다.
+     */
+    public void syncPeers() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime firstHour = now.truncatedTo(ChronoUnit.HOURS).minusHours(HOURS - 1);
+        Map<Key, long[]> peers = new HashMap<>();
+        for (Map<String, Object> row : jdbc.queryForList(
+                "SELECT bucket_hour, channel_id, SUM(inquiries) AS inquiries, SUM(admin_replies) AS admin_replies, " +
+                "SUM(first_response_count) AS first_response_count, SUM(first_response_sum_ms) AS first_response_sum_ms " +
+                "FROM chat_dashboard_hourly WHERE bucket_hour >= :from AND node_id <> :nodeId " +
+                "GROUP BY bucket_hour, channel_id",
+                new MapSqlParameterSource("from", Timestamp.valueOf(firstHour)).addValue("nodeId", nodeId))) {
+            peers.put(new Key(((Timestamp) row.get("bucket_hour")).toLocalDateTime(), ((Number) row.get("channel_id")).longValue()),
+                    new long[] {
+                            ((Number) row.get("inquiries")).longValue(),
+                            ((Number) row.get("admin_replies")).longValue(),
+                            ((Number) row.get("first_response_count")).longValue(),
+                            ((Number) row.get("first_response_sum_ms")).longValue()});
+        }
+        peerBuckets = peers;
+        if (!clusterMode) {
+            return;
+        }
+        LocalDateTime activeFrom = now.minus(Duration.ofMillis(activeWindowMillis));
+        LocalDateTime todayStart = LocalDate.now().atStartOfDay();
+        Map<String, Object> counts = jdbc.queryForMap(
+                "SELECT COUNT(DISTINCT CASE WHEN m.created_at >= :activeFrom THEN m.thread_id END) AS active, " +
+                "COUNT(DISTINCT CASE WHEN m.sender_type = 'USER' AND m.created_at >= :today THEN m.thread_id END) AS asked_today " +
+                "FROM chat_message m WHERE m.created_at >= :from AND m.deleted_yn = 'N'",
+                new MapSqlParameterSource()
+                        .addValue("activeFrom", Timestamp.valueOf(activeFrom))
+                        .addValue("today", Timestamp.valueOf(todayStart))
+                        .addValue("from", Timestamp.valueOf(activeFrom.isBefore(todayStart) ? activeFrom : todayStart)));
+        clusterActive = ((Number) counts.get("active")).longValue();
+        clusterToday = ((Number) counts.get("asked_today")).longValue();
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        try {
+            persistSnapshot();
+        } catch (Exception e) {
+            logger.warn("chat dashboard: final snapshot failed: {}", e.getMessage());
+        }
+    }
+
+    private void restore() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime firstHour = now.truncatedTo(ChronoUnit.HOURS).minusHours(HOURS - 1);
+        syncPeers();
+        LocalDateTime lastSaved = null;
+        for (Key k : peerBuckets.keySet()) {
+            if (lastSaved == null || k.hour.isAfter(lastSaved)) {
+                lastSaved = k.hour;
+            }
+        }
+        // node-id 를 고정해 둔 노드는 자기 행을 로컬 버킷으로 이어받는다
+        for (Map<String, Object> row : jdbc.queryForList(
+                "SELECT bucket_hour, channel_id, inquiries, admin_replies, first_response_count, first_response_sum_ms " +
+                "FROM chat_dashboard_hourly WHERE bucket_hour >= :from AND node_id = :nodeId",
+                new MapSqlParameterSource("from", Timestamp.valueOf(firstHour)).addValue("nodeId", nodeId))) {
+            LocalDateTime hour = ((Timestamp) row.get("bucket_hour")).toLocalDateTime();
+            Bucket b = buckets.computeIfAbsent(new Key(hour, ((Number) row.get("channel_id")).longValue()), k -> new Bucket());
+            b.inquiries.set(((Number) row.get("inquiries")).longValue());
+            b.adminReplies.set(((Number) row.get("admin_replies")).longValue());
+            b.firstResponseCount.set(((Number) row.get("first_response_count")).longValue());
+            b.firstResponseSumMs.set(((Number) row.get("first_response_sum_ms")).longValue());
+            if (lastSaved == null || hour.isAfter(lastSaved)) {
+                lastSaved = hour;
+            }
+        }
+
+        // 마지막 저장 시간대(부분 집계일 수 있음)부터 지금까지는 chat_message 에서 문의/답변 수를 다시 세고 (created_at 범위 조회)
+        // 모든 노드 행의 합보다 많은 만큼(저장 전에 멈춘 노드의 누락분)을 이 노드 버킷에 더한다
+        LocalDateTime gapFrom = lastSaved != null ? lastSaved : firstHour;
+        LocalDateTime repairBefore = clusterMode ? now.minus(REPAIR_GRACE) : now.plusHours(1);
+        MapSqlParameterSource gap = new MapSqlParameterSource("from", Timestamp.valueOf(gapFrom));
+        for (Map<String, Object> row : jdbc.queryForList(
+                "SELECT DATE_FORMAT(m.created_at, '%Y-%m-%d %H:00:00') AS bucket_hour, t.channel_id, " +
+                "SUM(CASE WHEN m.sender_type = 'USER' THEN 1 ELSE 0 END) AS inquiries, " +
+                "SUM(CASE WHEN m.sender_type = 'ADMIN' AND COALESCE(m.created_by, '') <> 'system' THEN 1 ELSE 0 END) AS admin_replies " +
+                "FROM chat_message m JOIN chat_thread t ON t.id = m.thread_id " +
+                "WHERE m.created_at >= :from AND m.deleted_yn = 'N' " +
+                "GROUP BY DATE_FORMAT(m.created_at, '%Y-%m-%d %H:00:00'), t.channel_id", gap)) {
+            LocalDateTime hour = Timestamp.valueOf((String) row.get("bucket_hour")).toLocalDateTime();
+            if (hour.plusHours(1).isAfter(repairBefore)) {
+                continue;
+            }
+            Key key = new Key(hour, ((Number) row.get("channel_id")).longValue());
+            long[] peer = peerBuckets.get(key);
+            Bucket b = buckets.computeIfAbsent(key, k -> new Bucket());
+            long missingInquiries = ((Number) row.get("inquiries")).longValue()
+                    - b.inquiries.get() - (peer != null ? peer[0] : 0);
+            long missingReplies = ((Number) row.get("admin_replies")).longValue()
+                    - b.adminReplies.get() - (peer != null ? peer[1] : 0);
+            if (missingInquiries > 0 || missingReplies > 0) {
+                b.add(Math.max(0, missingInquiries), Math.max(0, missingReplies), 0, 0);
+            }
+        }
+
+        LocalDateTime activeFrom = now.minus(Duration.ofMillis(activeWindowMillis));
+        LocalDateTime todayStart = today.atStartOfDay();
+        MapSqlParameterSource recent = new MapSqlParameterSource()
+                .addValue("from", Timestamp.valueOf(activeFrom.isBefore(todayStart) ? activeFrom : todayStart))
+                .addValue("today", Timestamp.valueOf(todayStart));
+        for (Map<String, Object> row : jdbc.queryForList(
+                "SELECT m.thread_id, t.channel_id, MAX(m.created_at) AS last_at, " +
+                "MAX(CASE WHEN m.sender_type = 'USER' AND m.created_at >= :today THEN 1 ELSE 0 END) AS asked_today " +
+                "FROM chat_message m JOIN chat_thread t ON t.id = m.thread_id " +
+                "WHERE m.created_at >= :from AND m.deleted_yn = 'N' GROUP BY m.thread_id, t.channel_id", recent)) {
+            Long threadId = ((Number) row.get("thread_id")).longValue();
+            long lastAt = ((Timestamp) row.get("last_at")).getTime();
+            if (lastAt >= Timestamp.valueOf(activeFrom).getTime()) {
+                lastActivity.merge(threadId, lastAt, Math::max);
+                threadChannels.put(threadId, ((Number) row.get("channel_id")).longValue());
+            }
+            if (((Number) row.get("asked_today")).intValue() == 1) {
+                todayThreads.add(threadId);
+            }
+        }
+        logger.info("chat dashboard: restored {} local and {} peer buckets (node {}), {} active threads",
+                buckets.size(), peerBuckets.size(), nodeId, lastActivity.size());
+    }
+
+    private void add(Key key, long inquiries, long adminReplies, long frCount, long frSumMs) {
+        buckets.computeIfAbsent(key, k -> new Bucket()).add(inquiries, adminReplies, frCount, frSumMs);
+        pending.computeIfAbsent(key, k -> new Bucket()).add(inquiries, adminReplies, frCount, frSumMs);
+    }
+
+    private void rollDay() {
+        LocalDate now = LocalDate.now();
+        if (!now.equals(today)) {
+            synchronized (this) {
+                if (!now.equals(today)) {
+                    todayThreads = ConcurrentHashMap.newKeySet();
+                    today = now;
+                }
+            }
+        }
+    }
+
+    private Long channelOf(Long threadId) {
+        Long cached = threadChannels.get(threadId);
+        if (cached != null) {
+            return cached;
+        }
+        List<Long> ids = jdbc.queryForList("SELECT channel_id FROM chat_thread WHERE id = :threadId",
+                new MapSqlParameterSource("threadId", threadId), Long.class);
+        return ids.isEmpty() ? null : ids.get(0);
+    }
+
+    private void resolveChannelNames(Set<Long> channelIds) {
+        List<Long> missing = new ArrayList<>();
+        for (Long id : channelIds) {
+            if (!channelNames.containsKey(id)) {
+                missing.add(id);
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        try {
+            for (Map<String, Object> row : jdbc.queryForList(
+                    "SELECT id, cms_name FROM chat_channel WHERE id IN (:ids)", new MapSqlParameterSource("ids", missing))) {
+                Object name = row.get("cms_name");
+                channelNames.put(((Number) row.get("id")).longValue(), name != null ? name.toString() : "");
+            }
+        } catch (Exception e) {
+            logger.debug("chat dashboard: channel name lookup failed: {}", e.getMessage());
+        }
+    }
+
+    private Integer diskUsagePercent() {
+        File root = new File(storagePath);
+        long total = root.getTotalSpace();
+        if (total <= 0) {
+            return null;
+        }
+        return (int) Math.round((total - root.getUsableSpace()) * 100.0 / total);
+    }
+
+    private static final class Key {
+        final LocalDateTime hour;
+        final long channelId;
+
+        Key(LocalDateTime hour, long channelId) {
+            this.hour = hour;
+            this.channelId = channelId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key k = (Key) o;
+            return channelId == k.channelId && hour.equals(k.hour);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * hour.hashCode() + Long.hashCode(channelId);
+        }
+    }
+
+    private static final class Bucket {
+        final AtomicLong inquiries = new AtomicLong();
+        final AtomicLong adminReplies = new AtomicLong();
+        final AtomicLong firstResponseCount = new AtomicLong();
+        final AtomicLong firstResponseSumMs = new AtomicLong();
+        volatile boolean dirty;
+
+        void add(long inquiries, long adminReplies, long frCount, long frSumMs) {
+            this.inquiries.addAndGet(inquiries);
+            this.adminReplies.addAndGet(adminReplies);
+            this.firstResponseCount.addAndGet(frCount);
+            this.firstResponseSumMs.addAndGet(frSumMs);
+            this.dirty = true;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package cms.chat.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 키(스레드 id) 단위 순서 보장 실행기.
+ * - 키를 고정 개수의 단일 스레드 lane 으로 스트라이핑: 같은 대화는 제출 순서대로 직렬 실행, 다른 대화는 lane 간 병렬 실행
+ * - lane 큐가 가득 차면 RejectedExecutionException (호출 스레드 실행은 순서를 깨므로 하지 않음)
+ * 지표: chat.ordering.queued (전체 대기 작업), chat.ordering.queued.max (가장 밀린 lane)
+ */
+@Component
+public class ChatKeyedExecutor implements DisposableBean {
+
+    private final ThreadPoolExecutor[] lanes;
+    // 현재 스레드가 실행 중인 lane 번호 (lane 워커 스레드에서만 설정)
+    private final ThreadLocal<Integer> currentLane = new ThreadLocal<>();
+
+    public ChatKeyedExecutor(@Value("${chat.ordering.lanes:0}") int lanes,
+            @Value("${chat.ordering.lane-queue-capacity:1000}") int laneQueueCapacity,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        int count = lanes > 0 ? lanes : Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+        this.lanes = new ThreadPoolExecutor[count];
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("chat-ordered-");
+        threadFactory.setDaemon(true);
+        for (int i = 0; i < count; i++) {
+            Integer lane = i;
+            ThreadFactory laneThreads = r -> threadFactory.newThread(() -> {
+                currentLane.set(lane);
+                r.run();
+            });
+            this.lanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(Math.max(1, laneQueueCapacity)), laneThreads);
+        }
+        meterRegistry.ifAvailable(registry -> {
+            Gauge.builder("chat.ordering.queued", this, ChatKeyedExecutor::queued)
+                    .description("Tasks waiting in per-conversation ordered lanes")
+                    .register(registry);
+            Gauge.builder("chat.ordering.queued.max", this, ChatKeyedExecutor::maxLaneQueued)
+                    .register(registry);
+        });
+    }
+
+    public void execute(Object key, Runnable task) {
+        laneOf(key).execute(task);
+    }
+
+    public <T> Future<T> submit(Object key, Callable<T> task) {
+        return laneOf(key).submit(task);
+    }
+
+    /**
+     * 같은 키의 앞선 작업이 끝난 뒤 task 를 실행하고 결과를 기다린다. task 예외는 그대로 다시 던진다.
+     * 이미 그 키의 lane 스레드 안이면(재진입) 앞선 작업이 끝난 상태이므로 교착을 피하기 위해 바로 실행한다.
+     */
+    public <T> T call(Object key, Callable<T> task) throws Exception {
+        if (inLane(key)) {
+            return task.call();
+        }
+        try {
+            return submit(key, task).get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    public int laneCount() {
+        return lanes.length;
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * 현재 스레드가 key 의 lane 에서 실행 중인지 여부
+     */
+    public boolean inLane(Object key) {
+        Integer lane = currentLane.get();
+        return lane != null && lane == laneIndex(key);
+    }
+
+    private ThreadPoolExecutor laneOf(Object key) {
+        return lanes[laneIndex(key)];
+    }
+
+    private int laneIndex(Object key) {
+        int h = key != null ? key.hashCode() : 0;
+        h ^= (h >>> 16);
+        return (h & 0x7fffffff) % lanes.length;
+    }
+
+    private double queued() {
+        long total = 0;
+        for (ThreadPoolExecutor lane : lanes) {
+            total += lane.getQueue().size();
+        }
+        return total;
+    }
+
+    private double maxLaneQueued() {
+        int max = 0;
+        for (ThreadPoolExecutor lane : lanes) {
+            max = Math.max(max, lane.getQueue().size());
+        }
+        return max;
+    }
+}
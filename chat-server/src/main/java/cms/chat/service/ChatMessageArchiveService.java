@@ -0,0 +1,137 @@
+package cms.chat.service;
+
+import cms.chat.config.ChatArchiveProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * chat_message 핫/콜드 분리.
+ * - 마지막 메시지가 afterDays 이전인 스레드(비활성 스레드)의 메시지를 chat_message_archive 로 이동 (id 유지)
+ * - 이동은 chunkSize 단위의 짧은 트랜잭션으로 나눠 chat_message 잠금 시간을 제한한다
+ * - 소프트 삭제 후 purgeAfterDays 가 지난 메시지는 검색 토큰과 함께 물리 삭제
+ * 보관된 메시지는 ChatService 히스토리 조회와 검색 결과에서 그대로 읽힌다 (read-through).
+ */
+@Service
+public class ChatMessageArchiveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatMessageArchiveService.class);
+
+    private static final String FIND_IDLE_THREADS =
+            "SELECT t.id FROM chat_thread t " +
+            "WHERE EXISTS (SELECT 1 FROM chat_message m WHERE m.thread_id = t.id AND m.deleted_yn = 'N') " +
+            "AND NOT EXISTS (SELECT 1 FROM chat_message m WHERE m.thread_id = t.id AND m.created_at >= :cutoff) " +
+            "ORDER BY t.id LIMIT :limit";
+
+    private static final String COPY_TO_ARCHIVE =
+            "INSERT INTO chat_message_archive (id, thread_id, sender_type, sender_name, message_type, content, " +
+            "file_name, file_url, is_read, read_at, created_by, created_ip, created_at, updated_by, updated_at, " +
+            "updated_ip, archived_at) " +
+            "SELECT id, thread_id, sender_type, sender_name, message_type, content, file_name, file_url, is_read, " +
+            "read_at, created_by, created_ip, created_at, updated_by, updated_at, updated_ip, :now " +
+            "FROM chat_message WHERE id IN (:ids)";
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final ChatArchiveProperties properties;
+
+    public ChatMessageArchiveService(NamedParameterJdbcTemplate jdbc,
+                                     PlatformTransactionManager transactionManager,
+                                     ChatArchiveProperties properties) {
+        this.jdbc = jdbc;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+    }
+
+    /**
+     * 비활성 스레드 메시지 보관. 이동한 메시지 수 반환
+     */
+    public int archiveIdleThreads() {
+        if (!properties.isEnabled()) {
+            return 0;
+        }
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minusDays(properties.getAfterDays()));
+        List<Long> threadIds = jdbc.queryForList(FIND_IDLE_THREADS,
+                new MapSqlParameterSource()
+                        .addValue("cutoff", cutoff)
+                        .addValue("limit", properties.getThreadsPerRun()),
+                Long.class);
+        int moved = 0;
+        for (Long threadId : threadIds) {
+            try {
+                moved += archiveThread(threadId, cutoff);
+            } catch (Exception e) {
+                logger.warn("chat archive: thread {} failed: {}", threadId, e.getMessage());
+            }
+        }
+        return moved;
+    }
+
+    private int archiveThread(Long threadId, Timestamp cutoff) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("threadId", threadId)
+                .addValue("cutoff", cutoff)
+                .addValue("limit", Math.max(1, properties.getChunkSize()));
+        int moved = 0;
+        while (true) {
+            Integer n = tx.execute(status -> {
+                // 청크 도중 새 메시지가 들어온 경우에도 cutoff 이전 메시지만 이동하므로 핫 데이터는 건드리지 않는다
+                List<Long> ids = jdbc.queryForList(
+                        "SELECT id FROM chat_message WHERE thread_id = :threadId AND deleted_yn = 'N' " +
+                        "AND created_at < :cutoff ORDER BY id LIMIT :limit FOR UPDATE",
+                        params, Long.class);
+                if (ids.isEmpty()) {
+                    return 0;
+                }
+                MapSqlParameterSource chunk = new MapSqlParameterSource()
+                        .addValue("ids", ids)
+                        .addValue("now", Timestamp.valueOf(LocalDateTime.now()));
+                jdbc.update(COPY_TO_ARCHIVE, chunk);
+                jdbc.update("DELETE FROM chat_message WHERE id IN (:ids)", chunk);
+                return ids.size();
+            });
+            if (n == null || n == 0) {
+                return moved;
+            }
+            moved += n;
+        }
+    }
+
+    /**
+     * 보존 기간이 지난 소프트 삭제 메시지 물리 삭제. 삭제한 메시지 수 반환
+     */
+    public int purgeSoftDeleted() {
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minusDays(properties.getPurgeAfterDays()));
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("cutoff", cutoff)
+                .addValue("limit", Math.max(1, properties.getChunkSize()));
+        int purged = 0;
+        while (true) {
+            Integer n = tx.execute(status -> {
+                List<Long> ids = jdbc.queryForList(
+                        "SELECT id FROM chat_message WHERE deleted_yn = 'Y' " +
+                        "AND COALESCE(deleted_at, updated_at) < :cutoff ORDER BY id LIMIT :limit",
+                        params, Long.class);
+                if (ids.isEmpty()) {
+                    return 0;
+                }
+                MapSqlParameterSource chunk = new MapSqlParameterSource("ids", ids);
+                jdbc.update("DELETE FROM chat_message_token WHERE message_id IN (:ids)", chunk);
+                jdbc.update("DELETE FROM chat_message WHERE id IN (:ids) AND deleted_yn = 'Y'", chunk);
+                return ids.size();
+            });
+            if (n == null || n == 0) {
+                return purged;
+            }
+            purged += n;
+        }
+    }
+}
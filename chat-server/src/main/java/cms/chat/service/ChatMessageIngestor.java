@@ -0,0 +1,320 @@
+package cms.chat.service;
+
+import cms.chat.config.ChatIngestProperties;
+import cms.chat.domain.ChatMessage;
+import cms.chat.event.ChatMessagePersistedEvent;
+import cms.chat.repository.ChatMessageRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 채팅 메시지 write-behind 적재기.
+ * - 소켓 핸들러는 임시(clientMessageId) 메시지를 먼저 브로드캐스트하고 여기에 enqueue 만 한다.
+ * - 단일 writer 스레드가 큐를 batchSize 단위로 꺼내 한 트랜잭션으로 저장한다.
+ * - 커밋 후 ChatMessagePersistedEvent 발행 + /sub/chat/{threadId} 로 message.persisted ack 전송
+ *   (브로드캐스트의 clientMessageId 와 확정된 id, 구독자는 pending 메시지를 이 ack 로 교체한다).
+ * - 큐가 가득 차면 호출 스레드에서 동기 저장(유실 없음), 정상 종료 시 큐를 모두 비운 뒤 멈춘다.
+ * - 대화별 미저장 건수를 추적: 즉시 저장하는 경로(REST 전송, 큐 초과 동기 저장)는 awaitPersisted 로
+ *   앞서 큐에 들어간 같은 대화 메시지가 커밋될 때까지 기다린 뒤 저장해 id 순서가 전달 순서와 같게 한다.
+ */
+@Service
+public class ChatMessageIngestor implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatMessageIngestor.class);
+
+    private final ChatMessageRepository chatMessageRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ChatIngestProperties properties;
+    private final ChatService chatService;
+    private final BlockingQueue<Pending> queue;
+    // threadId -> 큐에 있거나 쓰는 중인 건수
+    private final Map<Long, Integer> inFlight = new ConcurrentHashMap<>();
+    private final Object inFlightMonitor = new Object();
+
+    private volatile boolean running;
+    private volatile Thread writer;
+
+    public ChatMessageIngestor(ChatMessageRepository chatMessageRepository,
+            PlatformTransactionManager transactionManager,
+            ApplicationEventPublisher eventPublisher,
+            SimpMessagingTemplate messagingTemplate,
+            ChatIngestProperties properties,
+            ChatService chatService) {
+        this.chatMessageRepository = chatMessageRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.messagingTemplate = messagingTemplate;
+        this.properties = properties;
+        this.chatService = chatService;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity()));
+    }
+
+    /**
+     * 비동기 적재 가능 여부 (비활성/종료 중이면 호출측에서 기존 동기 경로 사용)
+     */
+    public boolean isAccepting() {
+        return properties.isEnabled() && running;
+    }
+
+    /**
+     * 메시지 적재 요청. 큐가 가득 찼거나 종료 중이면 호출 스레드에서 바로 저장한다.
+     */
+    public void submit(ChatMessage message, String clientMessageId) {
+        Pending pending = new Pending(message, clientMessageId);
+        Long threadId = threadIdOf(message);
+        if (isAccepting()) {
+            track(threadId);
+            pending.tracked = true;
+            if (queue.offer(pending)) {
+                return;
+            }
+            pending.tracked = false;
+            untrack(threadId);
+        }
+        awaitPersisted(threadId);
+        persistEach(Collections.singletonList(pending));
+    }
+
+    /**
+     * 이미 큐에 들어간 threadId 메시지가 모두 커밋(또는 실패 처리)될 때까지 기다린다.
+     * 같은 대화의 ordered lane 안에서 호출하면 그 사이 새 메시지가 큐에 들어오지 않으므로
+     * 이후 저장하는 메시지가 항상 더 큰 id 를 받는다. flushWaitMs 를 넘기면 경고 후 진행한다.
+     *
+     * @return 제한 시간 안에 모두 저장되었으면 true
+     */
+    public boolean awaitPersisted(Long threadId) {
+        if (threadId == null || !inFlight.containsKey(threadId)) {
+            return true;
+        }
+        long deadline = System.currentTimeMillis() + Math.max(0L, properties.getFlushWaitMs());
+        synchronized (inFlightMonitor) {
+            while (inFlight.containsKey(threadId)) {
+                long waitMs = deadline - System.currentTimeMillis();
+                if (waitMs <= 0) {
+                    logger.warn("chat ingest: gave up waiting for queued messages of thread {} after {}ms",
+                            threadId, properties.getFlushWaitMs());
+                    return false;
+                }
+                try {
+                    inFlightMonitor.wait(waitMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    @Override
+    public void start() {
+        if (running || !properties.isEnabled()) {
+            return;
+        }
+        running = true;
+        Thread t = new Thread(this::drainLoop, "chat-ingest-writer");
+        t.setDaemon(true);
+        writer = t;
+        t.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        Thread t = writer;
+        if (t != null) {
+            try {
+                t.join(properties.getShutdownTimeoutMs());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            writer = null;
+        }
+        // writer 가 제한 시간 내 끝내지 못한 잔여분은 종료 스레드에서 마저 저장
+        List<Pending> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        if (!rest.isEmpty()) {
+            logger.info("chat ingest: flushing {} queued messages on shutdown", rest.size());
+            writeBatch(rest);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // 웹소켓/브로커(Integer.MAX_VALUE)보다 늦게 멈추고, DataSource 정리보다 먼저 멈춘다.
+        return 0;
+    }
+
+    private void drainLoop() {
+        int batchSize = Math.max(1, properties.getBatchSize());
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - batch.size());
+                long lingerUntil = System.currentTimeMillis() + properties.getFlushIntervalMs();
+                while (running && batch.size() < batchSize) {
+                    long waitMs = lingerUntil - System.currentTimeMillis();
+                    if (waitMs <= 0) {
+                        break;
+                    }
+                    Pending next = queue.poll(waitMs, TimeUnit.MILLISECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, batchSize - batch.size());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                writeBatch(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeBatch(List<Pending> batch) {
+        List<ChatMessage> entities = new ArrayList<>(batch.size());
+        for (Pending p : batch) {
+            entities.add(p.message);
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                chatMessageRepository.saveAll(entities);
+                chatMessageRepository.flush();
+                for (ChatMessage m : entities) {
+                    chatService.trackReplyState(m);
+                }
+            });
+        } catch (Exception e) {
+            // 배치 중 한 건이 실패하면 전체가 롤백되므로 건별로 재시도해 실패 건만 격리
+            logger.warn("chat ingest: batch of {} failed, retrying row by row: {}", batch.size(), e.getMessage());
+            for (Pending p : batch) {
+                p.message.setId(null);
+            }
+            persistEach(batch);
+            return;
+        }
+        for (Pending p : batch) {
+            afterCommit(p);
+        }
+        for (Pending p : batch) {
+            untrack(threadIdOf(p.message));
+        }
+    }
+
+    private void persistEach(List<Pending> items) {
+        for (Pending p : items) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    chatMessageRepository.save(p.message);
+                    chatService.trackReplyState(p.message);
+                });
+                afterCommit(p);
+            } catch (Exception e) {
+                logger.error("chat ingest: failed to persist message (thread={}, clientMessageId={})",
+                        threadIdOf(p.message), p.clientMessageId, e);
+                sendAck("message.failed", p);
+            } finally {
+                if (p.tracked) {
+                    untrack(threadIdOf(p.message));
+                }
+            }
+        }
+    }
+
+    private void track(Long threadId) {
+        if (threadId != null) {
+            inFlight.merge(threadId, 1, Integer::sum);
+        }
+    }
+
+    private void untrack(Long threadId) {
+        if (threadId == null) {
+            return;
+        }
+        Integer left = inFlight.computeIfPresent(threadId, (k, v) -> v > 1 ? v - 1 : null);
+        if (left == null) {
+            synchronized (inFlightMonitor) {
+                inFlightMonitor.notifyAll();
+            }
+        }
+    }
+
+    private void afterCommit(Pending p) {
+        try {
+            eventPublisher.publishEvent(ChatMessagePersistedEvent.of(p.message, p.clientMessageId));
+        } catch (Exception e) {
+            logger.warn("chat ingest: persisted listener failed for message {}: {}", p.message.getId(), e.getMessage());
+        }
+        sendAck("message.persisted", p);
+    }
+
+    private void sendAck(String type, Pending p) {
+        Long threadId = threadIdOf(p.message);
+        if (threadId == null) {
+            return;
+        }
+        try {
+            Map<String, Object> ack = new HashMap<>();
+            ack.put("type", type);
+            ack.put("clientMessageId", p.clientMessageId);
+            ack.put("id", p.message.getId());
+            ack.put("threadId", threadId);
+            ack.put("createdAt", p.message.getCreatedAt());
+            messagingTemplate.convertAndSend("/sub/chat/" + threadId, ack);
+        } catch (Exception e) {
+            logger.debug("chat ingest: ack broadcast failed: {}", e.getMessage());
+        }
+    }
+
+    private static Long threadIdOf(ChatMessage message) {
+        return message.getThread() != null ? message.getThread().getId() : null;
+    }
+
+    private static final class Pending {
+        private final ChatMessage message;
+        private final String clientMessageId;
+        // inFlight 에 집계된 건인지 (큐 경유 여부)
+        private boolean tracked;
+
+        private Pending(ChatMessage message, String clientMessageId) {
+            this.message = message;
+            this.clientMessageId = clientMessageId;
+        }
+    }
+}
@@ -0,0 +1,430 @@
+package cms.chat.service;
+
+import cms.chat.dto.ChatThreadSnapshot;
+import cms.chat.web.ChatIdentity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionConnectEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.security.Principal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * STOMP 세션 이벤트 기반 실시간 접속 현황.
+ * - /sub/chat/{threadId} 구독: 해당 스레드 사용자(USER) 온라인
+ * - /sub/chat/channel/{channelId} 구독: 해당 채널 관리자(ADMIN) 온라인
+ * - 역할/식별자는 CONNECT 시 인증된 세션 사용자(ChatIdentity)로 정한다. 클라이언트 헤더(role, userIdentifier)는 쓰지 않으며,
+ *   관리자가 아닌 세션의 채널 토픽 구독은 접속 현황에 반영하지 않는다.
+ * - 온라인/오프라인 전환 시 /sub/chat/channel/{channelId} 로 presence 이벤트 푸시
+ * - 세션 로그는 ChatSessionLogWriter 로 비동기 배치 기록
+ * 노드 로컬 상태이므로 다중 노드에서는 각 노드가 자기 세션만 알고 있다.
+ */
+@Component
+public class ChatPresenceRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatPresenceRegistry.class);
+
+    private static final String THREAD_PREFIX = "/sub/chat/";
+    private static final String CHANNEL_PREFIX = "/sub/chat/channel/";
+
+    private final ChatThreadCache chatThreadCache;
+    private final ChatSessionLogWriter sessionLogWriter;
+    private final SimpMessagingTemplate messagingTemplate;
+
+    private final Map<String, SessionState> sessions = new ConcurrentHashMap<>();
+    private final Map<Long, ThreadPresence> threads = new ConcurrentHashMap<>();
+    private final Map<String, AdminPresence> admins = new ConcurrentHashMap<>();
+
+    public ChatPresenceRegistry(ChatThreadCache chatThreadCache,
+            ChatSessionLogWriter sessionLogWriter,
+            SimpMessagingTemplate messagingTemplate) {
+        this.chatThreadCache = chatThreadCache;
+        this.sessionLogWriter = sessionLogWriter;
+        this.messagingTemplate = messagingTemplate;
+    }
+
+    @EventListener
+    public void onConnect(SessionConnectEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        String sessionId = accessor.getSessionId();
+        if (sessionId == null) {
+            return;
+        }
+        sessions.put(sessionId, SessionState.of(sessionId, accessor.getUser()));
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        String sessionId = accessor.getSessionId();
+        String destination = accessor.getDestination();
+        if (sessionId == null || destination == null) {
+            return;
+        }
+        SessionState session = sessions.computeIfAbsent(sessionId, id -> SessionState.of(id, accessor.getUser()));
+        try {
+            Long channelId = parseId(destination, CHANNEL_PREFIX);
+            if (channelId != null) {
+                session.subscriptions.put(accessor.getSubscriptionId(), destination);
+                joinChannel(session, channelId);
+                return;
+            }
+            Long threadId = parseId(destination, THREAD_PREFIX);
+            if (threadId != null) {
+                session.subscriptions.put(accessor.getSubscriptionId(), destination);
+                joinThread(session, threadId);
+            }
+        } catch (Exception e) {
+            logger.debug("presence subscribe handling failed (session={}, dest={}): {}", sessionId, destination, e.getMessage());
+        }
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        SessionState session = accessor.getSessionId() != null ? sessions.get(accessor.getSessionId()) : null;
+        if (session == null || accessor.getSubscriptionId() == null) {
+            return;
+        }
+        String destination = session.subscriptions.remove(accessor.getSubscriptionId());
+        if (destination == null || session.subscriptions.containsValue(destination)) {
+            return;
+        }
+        Long channelId = parseId(destination, CHANNEL_PREFIX);
+        if (channelId != null) {
+            leaveChannel(session, channelId);
+            return;
+        }
+        Long threadId = parseId(destination, THREAD_PREFIX);
+        if (threadId != null) {
+            leaveThread(session, threadId, "unsubscribe");
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        SessionState session = sessions.remove(event.getSessionId());
+        if (session == null) {
+            return;
+        }
+        String reason = event.getCloseStatus() != null
+                ? "disconnect:" + event.getCloseStatus().getCode() : "disconnect";
+        synchronized (session) {
+            for (Long threadId : new ArrayList<>(session.threadIds)) {
+                leaveThread(session, threadId, reason);
+            }
+            for (Long channelId : new ArrayList<>(session.channelIds)) {
+                leaveChannel(session, channelId);
+            }
+        }
+    }
+
+    /**
+     * 채널(또는 전체) 접속 현황 스냅샷 (관리자 UI 온라인 뱃지용, DB 조회 없음)
+     */
+    public Map<String, Object> snapshot(Long channelId) {
+        List<Map<String, Object>> threadList = new ArrayList<>();
+        for (Map.Entry<Long, ThreadPresence> e : threads.entrySet()) {
+            ThreadPresence p = e.getValue();
+            if (channelId != null && !channelId.equals(p.channelId)) {
+                continue;
+            }
+            synchronized (p) {
+                if (p.userSessions.isEmpty()) {
+                    continue;
+                }
+                Map<String, Object> item = new HashMap<>();
+                item.put("threadId", e.getKey());
+                item.put("channelId", p.channelId);
+                item.put("sessions", p.userSessions.size());
+                item.put("since", p.since);
+                threadList.add(item);
+            }
+        }
+        List<Map<String, Object>> adminList = new ArrayList<>();
+        for (Map.Entry<String, AdminPresence> e : admins.entrySet()) {
+            AdminPresence p = e.getValue();
+            synchronized (p) {
+                if (p.sessions.isEmpty() || (channelId != null && !p.channelIds.contains(channelId))) {
+                    continue;
+                }
+                Map<String, Object> item = new HashMap<>();
+                item.put("adminId", e.getKey());
+                item.put("channelIds", new ArrayList<>(p.channelIds));
+                item.put("sessions", p.sessions.size());
+                item.put("since", p.since);
+                adminList.add(item);
+            }
+        }
+        Map<String, Object> body = new HashMap<>();
+        body.put("channelId", channelId);
+        body.put("threads", threadList);
+        body.put("admins", adminList);
+        return body;
+    }
+
+    public boolean isThreadOnline(Long threadId) {
+        ThreadPresence p = threads.get(threadId);
+        if (p == null) {
+            return false;
+        }
+        synchronized (p) {
+            return !p.userSessions.isEmpty();
+        }
+    }
+
+    private void joinThread(SessionState session, Long threadId) {
+        Optional<ChatThreadSnapshot> snapshot = chatThreadCache.get(threadId);
+        if (!snapshot.isPresent()) {
+            return;
+        }
+        synchronized (session) {
+            if (!session.threadIds.add(threadId)) {
+                return;
+            }
+            String identifier = session.identifier;
+            if (identifier == null && !session.isAdmin()) {
+                identifier = snapshot.get().getUserIdentifier();
+            }
+            sessionLogWriter.sessionStarted(snapshot.get().toThreadRef(), session.sessionId, identifier,
+                    session.isAdmin() ? "ADMIN" : "USER");
+            if (!session.isAdmin()) {
+                addThreadUser(threadId, snapshot.get().getChannelId(), session.sessionId);
+            }
+        }
+    }
+
+    private void leaveThread(SessionState session, Long threadId, String reason) {
+        synchronized (session) {
+            if (!session.threadIds.remove(threadId)) {
+                return;
+            }
+            chatThreadCache.get(threadId).ifPresent(s ->
+                    sessionLogWriter.sessionEnded(s.toThreadRef(), session.sessionId, reason));
+            if (!session.isAdmin()) {
+                removeThreadUser(threadId, session.sessionId);
+            }
+        }
+    }
+
+    private void joinChannel(SessionState session, Long channelId) {
+        if (!session.isAdmin()) {
+            // 관리자 권한 없는 세션은 채널 토픽을 구독해도 관리자 온라인으로 보지 않는다
+            return;
+        }
+        synchronized (session) {
+            if (!session.channelIds.add(channelId)) {
+                return;
+            }
+            String adminId = session.adminKey();
+            while (true) {
+                AdminPresence p = admins.computeIfAbsent(adminId, k -> new AdminPresence());
+                boolean changed;
+                synchronized (p) {
+                    if (p.removed) {
+                        // 동시에 마지막 세션이 빠져 맵에서 제거된 인스턴스면 새로 등록
+                        continue;
+                    }
+                    boolean wasOnline = p.channelIds.contains(channelId);
+                    p.sessions.add(session.sessionId);
+                    p.channelSessions.computeIfAbsent(channelId, k -> new HashSet<>()).add(session.sessionId);
+                    p.channelIds.add(channelId);
+                    if (p.since == null) {
+                        p.since = LocalDateTime.now();
+                    }
+                    changed = !wasOnline;
+                }
+                if (changed) {
+                    pushAdmin(channelId, adminId, true);
+                }
+                return;
+            }
+        }
+    }
+
+    private void leaveChannel(SessionState session, Long channelId) {
+        synchronized (session) {
+            if (!session.channelIds.remove(channelId)) {
+                return;
+            }
+            String adminId = session.adminKey();
+            AdminPresence p = admins.get(adminId);
+            if (p == null) {
+                return;
+            }
+            boolean changed = false;
+            synchronized (p) {
+                Set<String> channelSessions = p.channelSessions.get(channelId);
+                if (channelSessions != null) {
+                    channelSessions.remove(session.sessionId);
+                    if (channelSessions.isEmpty()) {
+                        p.channelSessions.remove(channelId);
+                        p.channelIds.remove(channelId);
+                        changed = true;
+                    }
+                }
+                if (session.channelIds.isEmpty()) {
+                    p.sessions.remove(session.sessionId);
+                }
+                if (p.sessions.isEmpty()) {
+                    p.removed = true;
+                    admins.remove(adminId, p);
+                }
+            }
+            if (changed) {
+                pushAdmin(channelId, adminId, false);
+            }
+        }
+    }
+
+    private void addThreadUser(Long threadId, Long channelId, String sessionId) {
+        while (true) {
+            ThreadPresence p = threads.computeIfAbsent(threadId, k -> new ThreadPresence(channelId));
+            boolean cameOnline;
+            synchronized (p) {
+                if (p.removed) {
+                    // 동시에 오프라인 처리되어 맵에서 빠진 인스턴스면 새로 등록
+                    continue;
+                }
+                cameOnline = p.userSessions.isEmpty();
+                p.userSessions.add(sessionId);
+                if (cameOnline) {
+                    p.since = LocalDateTime.now();
+                }
+            }
+            if (cameOnline) {
+                pushThread(channelId, threadId, true);
+            }
+            return;
+        }
+    }
+
+    private void removeThreadUser(Long threadId, String sessionId) {
+        ThreadPresence p = threads.get(threadId);
+        if (p == null) {
+            return;
+        }
+        boolean wentOffline;
+        synchronized (p) {
+            wentOffline = p.userSessions.remove(sessionId) && p.userSessions.isEmpty();
+            if (wentOffline) {
+                p.removed = true;
+                threads.remove(threadId, p);
+            }
+        }
+        if (wentOffline) {
+            pushThread(p.channelId, threadId, false);
+        }
+    }
+
+    private void pushThread(Long channelId, Long threadId, boolean online) {
+        if (channelId == null) {
+            return;
+        }
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("type", "presence");
+        payload.put("scope", "thread");
+        payload.put("channelId", channelId);
+        payload.put("threadId", threadId);
+        payload.put("online", online);
+        payload.put("at", LocalDateTime.now());
+        push(channelId, payload);
+    }
+
+    private void pushAdmin(Long channelId, String adminId, boolean online) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("type", "presence");
+        payload.put("scope", "admin");
+        payload.put("channelId", channelId);
+        payload.put("adminId", adminId);
+        payload.put("online", online);
+        payload.put("at", LocalDateTime.now());
+        push(channelId, payload);
+    }
+
+    private void push(Long channelId, Map<String, Object> payload) {
+        try {
+            messagingTemplate.convertAndSend(CHANNEL_PREFIX + channelId, payload);
+        } catch (Exception e) {
+            logger.debug("presence push failed (channel={}): {}", channelId, e.getMessage());
+        }
+    }
+
+    private static Long parseId(String destination, String prefix) {
+        if (!destination.startsWith(prefix)) {
+            return null;
+        }
+        String rest = destination.substring(prefix.length());
+        if (rest.isEmpty() || rest.length() > 18) {
+            return null;
+        }
+        for (int i = 0; i < rest.length(); i++) {
+            if (!Character.isDigit(rest.charAt(i))) {
+                return null;
+            }
+        }
+        return Long.valueOf(rest);
+    }
+
+    private static final class SessionState {
+        private final String sessionId;
+        private final String identifier;
+        private final String role;
+        private final Map<String, String> subscriptions = new ConcurrentHashMap<>();
+        private final Set<Long> threadIds = new HashSet<>();
+        private final Set<Long> channelIds = new HashSet<>();
+
+        private SessionState(String sessionId, String role, String identifier) {
+            this.sessionId = sessionId;
+            this.role = role;
+            this.identifier = identifier;
+        }
+
+        private static SessionState of(String sessionId, Principal user) {
+            ChatIdentity identity = ChatIdentity.of(user);
+            return new SessionState(sessionId, identity.getType(), identity.getIdentifier());
+        }
+
+        private boolean isAdmin() {
+            return "ADMIN".equals(role);
+        }
+
+        private String adminKey() {
+            return identifier != null && !identifier.isEmpty() ? identifier : sessionId;
+        }
+    }
+
+    private static final class ThreadPresence {
+        private final Long channelId;
+        private final Set<String> userSessions = new HashSet<>();
+        private LocalDateTime since;
+        private boolean removed;
+
+        private ThreadPresence(Long channelId) {
+            this.channelId = channelId;
+        }
+    }
+
+    private static final class AdminPresence {
+        private final Set<String> sessions = new HashSet<>();
+        private final Set<Long> channelIds = new HashSet<>();
+        private final Map<Long, Set<String>> channelSessions = new HashMap<>();
+        private LocalDateTime since;
+        private boolean removed;
+    }
+}
@@ -0,0 +1,259 @@
+package cms.chat.service;
+
+import cms.chat.config.ChatRateLimitProperties;
+import cms.chat.domain.ChatChannelSetting;
+import cms.chat.dto.ChatThreadSnapshot;
+import cms.chat.repository.ChatChannelSettingRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 채팅 전송 속도 제한 (스레드 / userIdentifier / 클라이언트 IP).
+ * - 버킷은 GCRA(토큰 버킷과 동일한 허용 패턴)로 long 하나(다음 허용 시각)만 CAS 로 갱신 -> 락 없음
+ * - 관리자 전송은 제한하지 않음. 관리자 여부와 user 버킷 키는 서버가 확인한 전송자 신원으로 정한다 (REST/STOMP 공통)
+ * - 한 범위라도 초과하면 이미 차감한 다른 범위의 토큰은 되돌린다 (거부된 전송이 한도를 소모하지 않음)
+ * - 채널 설정 JSON 의 rateLimit 항목으로 채널별 한도 지정, 없으면 chat.rate-limit.* 기본값
+ *   예) {"rateLimit": {"thread": {"burst": 5, "perMinute": 20}, "ip": {"burst": 30, "perMinute": 90}}}
+ * - 초과 시 HTTP 429 / STOMP ERROR, 지표: chat.ratelimit.allowed{transport}, chat.ratelimit.throttled{scope,transport}
+ */
+@Service
+public class ChatRateLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatRateLimiter.class);
+
+    public static final String SCOPE_THREAD = "thread";
+    public static final String SCOPE_USER = "user";
+    public static final String SCOPE_IP = "ip";
+
+    private final ChatRateLimitProperties properties;
+    private final ChatThreadCache chatThreadCache;
+    private final Optional<ChatChannelSettingRepository> channelSettingRepo;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final MeterRegistry registry;
+
+    private final Limits defaults;
+    private final Cache<String, AtomicLong> buckets;
+    private final Map<Long, Limits> channelLimits = new ConcurrentHashMap<>();
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    public ChatRateLimiter(ChatRateLimitProperties properties,
+            ChatThreadCache chatThreadCache,
+            ObjectProvider<ChatChannelSettingRepository> channelSettingRepo,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        this.properties = properties;
+        this.chatThreadCache = chatThreadCache;
+        this.channelSettingRepo = Optional.ofNullable(channelSettingRepo.getIfAvailable());
+        this.registry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+        this.defaults = new Limits(properties.getThread(), properties.getUser(), properties.getIp());
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxKeys())
+                .expireAfterAccess(Duration.ofMinutes(properties.getIdleMinutes()))
+                .build();
+        Gauge.builder("chat.ratelimit.keys", buckets, Cache::estimatedSize).register(registry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        refreshChannelLimits();
+    }
+
+    public void refreshChannelLimits() {
+        if (!channelSettingRepo.isPresent()) {
+            return;
+        }
+        try {
+            Set<Long> seen = new HashSet<>();
+            for (ChatChannelSetting setting : channelSettingRepo.get().findAll()) {
+                seen.add(setting.getChannelId());
+                updateChannelConfig(setting.getChannelId(), setting.getConfig());
+            }
+            channelLimits.keySet().retainAll(seen);
+        } catch (Exception e) {
+            logger.warn("Channel rate limit refresh failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 채널 설정(JSON) 변경 반영. rateLimit 항목이 없으면 기본 한도를 사용한다.
+     */
+    public void updateChannelConfig(Long channelId, String configJson) {
+        if (channelId == null) {
+            return;
+        }
+        Limits limits = null;
+        try {
+            JsonNode node = configJson != null ? objectMapper.readTree(configJson).path("rateLimit") : null;
+            if (node != null && node.isObject()) {
+                limits = new Limits(
+                        limit(node.path(SCOPE_THREAD), properties.getThread()),
+                        limit(node.path(SCOPE_USER), properties.getUser()),
+                        limit(node.path(SCOPE_IP), properties.getIp()));
+            }
+        } catch (Exception e) {
+            logger.warn("Invalid rateLimit config for channel {}: {}", channelId, e.getMessage());
+        }
+        if (limits == null) {
+            channelLimits.remove(channelId);
+        } else {
+            channelLimits.put(channelId, limits);
+        }
+    }
+
+    /**
+     * 메시지 전송 검사 (REST sendText / STOMP send 공통). 스레드를 모르면 IP 만 검사한다.
+     *
+     * @param admin            서버가 확인한 관리자 전송이면 true (제한 없음)
+     * @param senderIdentifier 인증된 전송자 식별자, 익명(팝업) 전송이면 null -> 스레드 사용자로 센다
+     */
+    public Rejection tryAcquireSend(Long threadId, boolean admin, String senderIdentifier, String clientIp,
+            String transport) {
+        if (admin) {
+            return null;
+        }
+        ChatThreadSnapshot thread = threadId != null ? chatThreadCache.get(threadId).orElse(null) : null;
+        String userKey = senderIdentifier != null && !senderIdentifier.isEmpty()
+                ? senderIdentifier
+                : (thread != null ? thread.getUserIdentifier() : null);
+        return tryAcquire(thread != null ? thread.getChannelId() : null, thread != null ? threadId : null,
+                userKey, clientIp, transport);
+    }
+
+    /**
+     * 전송 1건 허용 여부. 허용이면 null, 초과면 어느 한도에 걸렸는지와 재시도 가능 시간
+     */
+    public Rejection tryAcquire(Long channelId, Long threadId, String userIdentifier, String clientIp, String transport) {
+        if (!properties.isEnabled()) {
+            return null;
+        }
+        Limits limits = channelId != null ? channelLimits.get(channelId) : null;
+        if (limits == null) {
+            limits = defaults;
+        }
+        long now = System.nanoTime();
+        List<Grant> granted = new ArrayList<>(3);
+        Rejection rejection = null;
+        if (clientIp != null && !clientIp.isEmpty()) {
+            rejection = acquire(SCOPE_IP, "i:" + clientIp, limits.ip, now, granted);
+        }
+        if (rejection == null && userIdentifier != null && !userIdentifier.isEmpty()) {
+            rejection = acquire(SCOPE_USER, "u:" + userIdentifier, limits.user, now, granted);
+        }
+        if (rejection == null && threadId != null) {
+            rejection = acquire(SCOPE_THREAD, "t:" + threadId, limits.thread, now, granted);
+        }
+        if (rejection != null) {
+            for (Grant g : granted) {
+                g.tat.addAndGet(-g.interval);
+            }
+        }
+        counter(rejection != null ? rejection.getScope() : null, transport).increment();
+        return rejection;
+    }
+
+    private Rejection acquire(String scope, String key, ChatRateLimitProperties.Limit limit, long now, List<Grant> granted) {
+        if (limit == null || limit.getPerMinute() <= 0) {
+            return null;
+        }
+        long interval = TimeUnit.MINUTES.toNanos(1) / limit.getPerMinute();
+        long tolerance = interval * Math.max(0, limit.getBurst() - 1);
+        AtomicLong tat = buckets.get(key, k -> new AtomicLong(now));
+        while (true) {
+            long current = tat.get();
+            long base = Math.max(current, now);
+            if (base - now > tolerance) {
+                return new Rejection(scope, TimeUnit.NANOSECONDS.toMillis(base - now - tolerance) + 1);
+            }
+            if (tat.compareAndSet(current, base + interval)) {
+                granted.add(new Grant(tat, interval));
+                return null;
+            }
+        }
+    }
+
+    private Counter counter(String scope, String transport) {
+        String t = transport != null ? transport : "http";
+        String key = (scope != null ? scope : "") + "|" + t;
+        return counters.computeIfAbsent(key, k -> scope == null
+                ? Counter.builder("chat.ratelimit.allowed").tag("transport", t).register(registry)
+                : Counter.builder("chat.ratelimit.throttled").tag("scope", scope).tag("transport", t)
+                        .description("Chat sends rejected by the rate limiter")
+                        .register(registry));
+    }
+
+    private static ChatRateLimitProperties.Limit limit(JsonNode node, ChatRateLimitProperties.Limit fallback) {
+        if (node == null || !node.isObject()) {
+            return fallback;
+        }
+        return new ChatRateLimitProperties.Limit(
+                node.path("burst").asInt(fallback.getBurst()),
+                node.path("perMinute").asInt(fallback.getPerMinute()));
+    }
+
+    // 이번 요청에서 차감한 토큰 (거부 시 되돌림)
+    private static final class Grant {
+        final AtomicLong tat;
+        final long interval;
+
+        Grant(AtomicLong tat, long interval) {
+            this.tat = tat;
+            this.interval = interval;
+        }
+    }
+
+    private static final class Limits {
+        final ChatRateLimitProperties.Limit thread;
+        final ChatRateLimitProperties.Limit user;
+        final ChatRateLimitProperties.Limit ip;
+
+        Limits(ChatRateLimitProperties.Limit thread, ChatRateLimitProperties.Limit user, ChatRateLimitProperties.Limit ip) {
+            this.thread = thread;
+            this.user = user;
+            this.ip = ip;
+        }
+    }
+
+    public static final class Rejection {
+        private final String scope;
+        private final long retryAfterMs;
+
+        Rejection(String scope, long retryAfterMs) {
+            this.scope = scope;
+            this.retryAfterMs = retryAfterMs;
+        }
+
+        public String getScope() {
+            return scope;
+        }
+
+        public long getRetryAfterMs() {
+            return retryAfterMs;
+        }
+
+        public String message() {
+            return "Too many messages (" + scope + " limit), retry after " + retryAfterMs + "ms";
+        }
+    }
+}
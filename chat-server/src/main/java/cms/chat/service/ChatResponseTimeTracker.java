@@ -0,0 +1,182 @@
+package cms.chat.service;
+
+import cms.chat.repository.ChatThreadRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 첫 응답 시간 히스토그램과 SLA 초과 알림.
+ * - ChatService.trackReplyState 가 답변 커밋 후 응답 시간을 채널/상담원별 Timer(p50/p90/p99)에 기록
+ *   (상담원 태그는 인증된 관리자 id, 알 수 없으면 "unknown". 클라이언트가 보낸 actor 는 쓰지 않는다)
+ * - 퍼센타일은 최근 percentile-window 동안의 값 기준 (Micrometer 링 버퍼)
+ * - checkBreaches: awaiting_reply_since 가 SLA 를 넘긴 스레드를 /sub/chat/sla 와 채널 토픽으로 한 번씩 알림.
+ *   cluster 모드에서는 모든 노드가 검사하지만 chat_thread.sla_alerted_since 를 먼저 선점한 노드만 보낸다
+ */
+@Service
+public class ChatResponseTimeTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatResponseTimeTracker.class);
+
+    private static final String SLA_TOPIC = "/sub/chat/sla";
+    private static final int MAX_BREACHES_PER_CHECK = 500;
+
+    private final MeterRegistry registry;
+    private final ChatThreadRepository chatThreadRepository;
+    private final ChatBroadcaster chatBroadcaster;
+    private final Duration slaThreshold;
+    private final Duration percentileWindow;
+
+    private final ConcurrentHashMap<Long, Timer> byChannel = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Timer> byAgent = new ConcurrentHashMap<>();
+
+    public ChatResponseTimeTracker(ObjectProvider<MeterRegistry> meterRegistry,
+            ChatThreadRepository chatThreadRepository,
+            ChatBroadcaster chatBroadcaster,
+            @Value("${chat.sla.first-response-minutes:10}") long firstResponseMinutes,
+            @Value("${chat.sla.percentile-window-minutes:60}") long percentileWindowMinutes) {
+        this.registry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+        this.chatThreadRepository = chatThreadRepository;
+        this.chatBroadcaster = chatBroadcaster;
+        this.slaThreshold = Duration.ofMinutes(firstResponseMinutes);
+        this.percentileWindow = Duration.ofMinutes(Math.max(1, percentileWindowMinutes));
+    }
+
+    /**
+     * 응답 시간 기록. 트랜잭션 안이면 커밋 후에 반영한다 (롤백된 답변은 집계하지 않음)
+     * @param agent 인증된 관리자 id (없으면 "unknown" 으로 묶는다)
+     */
+    public void record(Long channelId, String agent, long responseMs) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    recordNow(channelId, agent, responseMs);
+                }
+            });
+        } else {
+            recordNow(channelId, agent, responseMs);
+        }
+    }
+
+    private void recordNow(Long channelId, String agent, long responseMs) {
+        long channelKey = channelId != null ? channelId : 0L;
+        String agentKey = agent != null && !agent.isEmpty() ? agent : "unknown";
+        byChannel.computeIfAbsent(channelKey, id -> timer("chat.response.first", "channel", String.valueOf(id)))
+                .record(responseMs, TimeUnit.MILLISECONDS);
+        byAgent.computeIfAbsent(agentKey, a -> timer("chat.response.first.agent", "agent", a))
+                .record(responseMs, TimeUnit.MILLISECONDS);
+    }
+
+    private Timer timer(String name, String tagKey, String tagValue) {
+        return Timer.builder(name)
+                .description("Time from the first unanswered user message to the first admin reply")
+                .tag(tagKey, tagValue)
+                .publishPercentiles(0.5, 0.9, 0.99)
+                .distributionStatisticExpiry(percentileWindow)
+                .register(registry);
+    }
+
+    /**
+     * 채널/상담원별 첫 응답 시간 퍼센타일 (ms)
+     */
+    public Map<String, Object> snapshot() {
+        List<Map<String, Object>> channels = new ArrayList<>();
+        for (Map.Entry<Long, Timer> e : byChannel.entrySet()) {
+            Map<String, Object> row = stats(e.getValue());
+            row.put("channelId", e.getKey());
+            channels.add(row);
+        }
+        List<Map<String, Object>> agents = new ArrayList<>();
+        for (Map.Entry<String, Timer> e : byAgent.entrySet()) {
+            Map<String, Object> row = stats(e.getValue());
+            row.put("agent", e.getKey());
+            agents.add(row);
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("windowMinutes", percentileWindow.toMinutes());
+        result.put("slaMinutes", slaThreshold.toMinutes());
+        result.put("channels", channels);
+        result.put("agents", agents);
+        return result;
+    }
+
+    private static Map<String, Object> stats(Timer timer) {
+        HistogramSnapshot s = timer.takeSnapshot();
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("count", s.count());
+        row.put("meanMs", Math.round(s.mean(TimeUnit.MILLISECONDS)));
+        for (ValueAtPercentile p : s.percentileValues()) {
+            row.put("p" + Math.round(p.percentile() * 100), Math.round(p.value(TimeUnit.MILLISECONDS)));
+        }
+        return row;
+    }
+
+    /**
+     * SLA 초과 대기 스레드 알림. 새로 알린 스레드 수 반환.
+     * 대기 구간마다 claimSlaAlert 로 선점에 성공한 경우에만 보내므로 여러 노드에서 동시에 돌아도 한 번만 알린다.
+     */
+    public int checkBreaches() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime before = now.minus(slaThreshold);
+        List<Object[]> rows = chatThreadRepository.findAwaitingReplyBefore(before, MAX_BREACHES_PER_CHECK);
+        int sent = 0;
+        for (Object[] row : rows) {
+            Long threadId = ((Number) row[0]).longValue();
+            Long channelId = row[1] != null ? ((Number) row[1]).longValue() : null;
+            LocalDateTime since = toLocalDateTime(row[2]);
+            if (since == null || chatThreadRepository.claimSlaAlert(threadId, before) == 0) {
+                // 그 사이 답변되었거나 다른 노드가 이미 알림
+                continue;
+            }
+            Map<String, Object> payload = new LinkedHashMap<>();
+            payload.put("type", "sla.breach");
+            payload.put("threadId", threadId);
+            payload.put("channelId", channelId);
+            payload.put("userName", row[3] != null ? row[3] : row[4]);
+            payload.put("awaitingSince", since.toString());
+            payload.put("waitingSeconds", Duration.between(since, now).getSeconds());
+            payload.put("slaMinutes", slaThreshold.toMinutes());
+            try {
+                if (channelId != null) {
+                    chatBroadcaster.broadcast(payload, SLA_TOPIC, "/sub/chat/channel/" + channelId);
+                } else {
+                    chatBroadcaster.broadcast(payload, SLA_TOPIC);
+                }
+                sent++;
+            } catch (Exception e) {
+                logger.debug("sla breach push failed (thread={}): {}", threadId, e.getMessage());
+            }
+        }
+        return sent;
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        if (value instanceof Timestamp) {
+            return ((Timestamp) value).toLocalDateTime();
+        }
+        if (value instanceof LocalDateTime) {
+            return (LocalDateTime) value;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,140 @@
+package cms.chat.service;
+
+import cms.chat.domain.ChatMessage;
+import cms.chat.event.ChatMessagePersistedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 채팅 검색 역색인(chat_message_token) 유지.
+ * - 메시지 커밋 후 ChatMessagePersistedEvent 로 즉시 색인 (실패해도 메시지 저장에는 영향 없음)
+ * - 수정 시 재색인, 스레드 삭제 시 토큰 제거
+ * - 마이그레이션 이전 메시지는 ChatSearchBackfillJob 이 backfillBatch 로 채운다
+ */
+@Service
+public class ChatSearchIndexer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatSearchIndexer.class);
+
+    private static final String UPSERT_TOKEN =
+            "INSERT INTO chat_message_token (token, channel_id, message_id, thread_id, tf, created_at) " +
+            "VALUES (:token, :channelId, :messageId, :threadId, :tf, :createdAt) " +
+            "ON DUPLICATE KEY UPDATE tf = VALUES(tf)";
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final TransactionTemplate requiresNew;
+
+    public ChatSearchIndexer(NamedParameterJdbcTemplate jdbc, PlatformTransactionManager transactionManager) {
+        this.jdbc = jdbc;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMessagePersisted(ChatMessagePersistedEvent event) {
+        if (event.getMessageId() == null || event.getContent() == null) {
+            return;
+        }
+        try {
+            requiresNew.executeWithoutResult(status -> index(event.getMessageId(), event.getChannelId(),
+                    event.getThreadId(), event.getContent(), event.getCreatedAt()));
+        } catch (Exception e) {
+            logger.warn("chat search: indexing failed for message {}: {}", event.getMessageId(), e.getMessage());
+        }
+    }
+
+    /**
+     * 수정된 메시지 재색인 (기존 토큰 삭제 후 다시 색인)
+     */
+    @Transactional
+    public void reindex(ChatMessage message) {
+        jdbc.update("DELETE FROM chat_message_token WHERE message_id = :messageId",
+                new MapSqlParameterSource("messageId", message.getId()));
+        Long threadId = message.getThread() != null ? message.getThread().getId() : null;
+        index(message.getId(), null, threadId, message.getContent(), message.getCreatedAt());
+    }
+
+    @Transactional
+    public void removeThread(Long threadId) {
+        jdbc.update("DELETE FROM chat_message_token WHERE thread_id = :threadId",
+                new MapSqlParameterSource("threadId", threadId));
+    }
+
+    /**
+     * 기존 메시지 백필 한 배치. 색인한 메시지 수 반환 (0 이면 백필 완료)
+     */
+    @Transactional
+    public int backfillBatch(int batchSize) {
+        List<Map<String, Object>> state = jdbc.queryForList(
+                "SELECT last_message_id, backfill_target_id FROM chat_search_index_state WHERE id = 1 FOR UPDATE",
+                new MapSqlParameterSource());
+        if (state.isEmpty()) {
+            return 0;
+        }
+        long last = ((Number) state.get(0).get("last_message_id")).longValue();
+        long target = ((Number) state.get(0).get("backfill_target_id")).longValue();
+        if (last >= target) {
+            return 0;
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("last", last)
+                .addValue("target", target)
+                .addValue("limit", batchSize);
+        List<Map<String, Object>> rows = jdbc.queryForList(
+                "SELECT m.id, m.thread_id, t.channel_id, m.content, m.created_at " +
+                "FROM chat_message m JOIN chat_thread t ON t.id = m.thread_id " +
+                "WHERE m.id > :last AND m.id <= :target ORDER BY m.id LIMIT :limit", params);
+        long reached = target;
+        for (Map<String, Object> row : rows) {
+            long id = ((Number) row.get("id")).longValue();
+            Timestamp createdAt = (Timestamp) row.get("created_at");
+            index(id, ((Number) row.get("channel_id")).longValue(), ((Number) row.get("thread_id")).longValue(),
+                    (String) row.get("content"), createdAt != null ? createdAt.toLocalDateTime() : null);
+            reached = id;
+        }
+        if (rows.size() < batchSize) {
+            reached = target;
+        }
+        jdbc.update("UPDATE chat_search_index_state SET last_message_id = :reached WHERE id = 1",
+                new MapSqlParameterSource("reached", reached));
+        return rows.size();
+    }
+
+    private void index(Long messageId, Long channelId, Long threadId, String content, LocalDateTime createdAt) {
+        Map<String, Integer> tokens = ChatSearchTokenizer.tokenize(content);
+        if (tokens.isEmpty() || threadId == null) {
+            return;
+        }
+        if (channelId == null) {
+            channelId = jdbc.queryForObject("SELECT channel_id FROM chat_thread WHERE id = :threadId",
+                    new MapSqlParameterSource("threadId", threadId), Long.class);
+        }
+        Timestamp at = Timestamp.valueOf(createdAt != null ? createdAt : LocalDateTime.now());
+        List<SqlParameterSource> batch = new ArrayList<>(tokens.size());
+        for (Map.Entry<String, Integer> e : tokens.entrySet()) {
+            batch.add(new MapSqlParameterSource()
+                    .addValue("token", e.getKey())
+                    .addValue("channelId", channelId)
+                    .addValue("messageId", messageId)
+                    .addValue("threadId", threadId)
+                    .addValue("tf", e.getValue())
+                    .addValue("createdAt", at));
+        }
+        jdbc.batchUpdate(UPSERT_TOKEN, batch.toArray(new SqlParameterSource[0]));
+    }
+}
@@ -0,0 +1,225 @@
+package cms.chat.service;
+
+import cms.chat.dto.ChatSearchHitDto;
+import cms.common.dto.CursorPageResponse;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.util.HtmlUtils;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 채팅 이력 검색 (chat_message_token bigram 역색인).
+ * - 검색어의 모든 bigram 을 가진 메시지를 후보로 뽑고, 본문에 검색어가 실제로 포함되는지 다시 확인한다
+ * - 정렬: recent(메시지 id 역순, 기본) / relevance(토큰 등장 횟수 합 -> id 역순), 둘 다 keyset 커서
+ * - 본문은 chat_message 와 보관 테이블(chat_message_archive)에서 함께 읽는다 (보관 시 id 유지, 토큰 그대로)
+ * - 후보 중 확인에서 탈락한 건이 있으면 페이지가 size 보다 작을 수 있다 (hasMore 는 후보 기준)
+ */
+@Service
+public class ChatSearchService {
+
+    public static final String SORT_RECENT = "recent";
+    public static final String SORT_RELEVANCE = "relevance";
+
+    private static final int SNIPPET_BEFORE = 40;
+    private static final int SNIPPET_AFTER = 80;
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    public ChatSearchService(NamedParameterJdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /**
+     * @throws IllegalArgumentException 2글자 이상 단어가 없는 검색어, 잘못된 커서
+     */
+    @Transactional(readOnly = true)
+    public CursorPageResponse<ChatSearchHitDto> search(String query, Long channelId, Long threadId,
+            LocalDateTime from, LocalDateTime to, String cursor, int size, String sort) {
+        List<String> terms = ChatSearchTokenizer.terms(query, true);
+        Set<String> tokens = ChatSearchTokenizer.queryTokens(terms);
+        if (tokens.isEmpty()) {
+            throw new IllegalArgumentException("검색어는 2글자 이상 단어를 포함해야 합니다.");
+        }
+        boolean byRelevance = SORT_RELEVANCE.equalsIgnoreCase(sort);
+        Long cursorId = null;
+        Long cursorScore = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            try {
+                if (byRelevance) {
+                    String[] parts = cursor.split(":", 2);
+                    cursorScore = Long.valueOf(parts[0]);
+                    cursorId = Long.valueOf(parts[1]);
+                } else {
+                    cursorId = Long.valueOf(cursor);
+                }
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+        }
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("tokens", tokens)
+                .addValue("tokenCount", tokens.size())
+                .addValue("limit", size + 1);
+        StringBuilder sql = new StringBuilder(
+                "SELECT t.message_id, MAX(t.thread_id) AS thread_id, MAX(t.channel_id) AS channel_id, SUM(t.tf) AS score " +
+                "FROM chat_message_token t WHERE t.token IN (:tokens)");
+        if (channelId != null) {
+            sql.append(" AND t.channel_id = :channelId");
+            params.addValue("channelId", channelId);
+        }
+        if (threadId != null) {
+            sql.append(" AND t.thread_id = :threadId");
+            params.addValue("threadId", threadId);
+        }
+        if (from != null) {
+            sql.append(" AND t.created_at >= :from");
+            params.addValue("from", Timestamp.valueOf(from));
+        }
+        if (to != null) {
+            sql.append(" AND t.created_at < :to");
+            params.addValue("to", Timestamp.valueOf(to));
+        }
+        if (!byRelevance && cursorId != null) {
+            sql.append(" AND t.message_id < :cursorId");
+            params.addValue("cursorId", cursorId);
+        }
+        sql.append(" GROUP BY t.message_id HAVING COUNT(*) = :tokenCount");
+        if (byRelevance && cursorId != null) {
+            sql.append(" AND (SUM(t.tf) < :cursorScore OR (SUM(t.tf) = :cursorScore AND t.message_id < :cursorId))");
+            params.addValue("cursorScore", cursorScore).addValue("cursorId", cursorId);
+        }
+        sql.append(byRelevance ? " ORDER BY score DESC, t.message_id DESC" : " ORDER BY t.message_id DESC");
+        sql.append(" LIMIT :limit");
+
+        List<Map<String, Object>> candidates = jdbc.queryForList(sql.toString(), params);
+        boolean hasMore = candidates.size() > size;
+        if (hasMore) {
+            candidates = candidates.subList(0, size);
+        }
+        if (candidates.isEmpty()) {
+            return new CursorPageResponse<>(new ArrayList<>(), null, false);
+        }
+
+        List<Long> ids = new ArrayList<>(candidates.size());
+        for (Map<String, Object> c : candidates) {
+            ids.add(((Number) c.get("message_id")).longValue());
+        }
+        Map<Long, Map<String, Object>> messages = new HashMap<>();
+        for (Map<String, Object> row : jdbc.queryForList(
+                "SELECT id, content, sender_type, sender_name, message_type, created_at " +
+                "FROM chat_message WHERE id IN (:ids) AND deleted_yn = 'N' " +
+                "UNION ALL SELECT id, content, sender_type, sender_name, message_type, created_at " +
+                "FROM chat_message_archive WHERE id IN (:ids)",
+                new MapSqlParameterSource("ids", ids))) {
+            messages.put(((Number) row.get("id")).longValue(), row);
+        }
+
+        List<ChatSearchHitDto> hits = new ArrayList<>();
+        for (Map<String, Object> c : candidates) {
+            Long id = ((Number) c.get("message_id")).longValue();
+            Map<String, Object> m = messages.get(id);
+            if (m == null) {
+                continue;
+            }
+            String content = (String) m.get("content");
+            if (!containsAll(content, terms)) {
+                continue;
+            }
+            Timestamp createdAt = (Timestamp) m.get("created_at");
+            hits.add(new ChatSearchHitDto(id,
+                    ((Number) c.get("thread_id")).longValue(),
+                    ((Number) c.get("channel_id")).longValue(),
+                    (String) m.get("sender_type"),
+                    (String) m.get("sender_name"),
+                    (String) m.get("message_type"),
+                    createdAt != null ? createdAt.toLocalDateTime().toString() : null,
+                    ((Number) c.get("score")).longValue(),
+                    highlight(content, terms)));
+        }
+
+        String nextCursor = null;
+        if (hasMore) {
+            Map<String, Object> last = candidates.get(candidates.size() - 1);
+            nextCursor = byRelevance
+                    ? ((Number) last.get("score")).longValue() + ":" + ((Number) last.get("message_id")).longValue()
+                    : String.valueOf(((Number) last.get("message_id")).longValue());
+        }
+        return new CursorPageResponse<>(hits, nextCursor, hasMore);
+    }
+
+    private static boolean containsAll(String content, List<String> terms) {
+        if (content == null) {
+            return false;
+        }
+        String lower = content.toLowerCase(Locale.ROOT);
+        for (String term : terms) {
+            if (!lower.contains(term)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 첫 일치 위치 주변을 잘라 이스케이프하고 일치 구간을 &lt;mark&gt; 로 감싼다.
+     */
+    static String highlight(String content, List<String> terms) {
+        String lower = content.toLowerCase(Locale.ROOT);
+        if (lower.length() != content.length()) {
+            // 소문자 변환으로 길이가 바뀌는 문자가 있으면 위치 매핑이 어긋나므로 강조 없이 반환
+            return HtmlUtils.htmlEscape(content.length() > SNIPPET_BEFORE + SNIPPET_AFTER
+                    ? content.substring(0, SNIPPET_BEFORE + SNIPPET_AFTER) : content);
+        }
+        boolean[] marked = new boolean[content.length()];
+        int first = content.length();
+        for (String term : terms) {
+            int idx = lower.indexOf(term);
+            while (idx >= 0) {
+                first = Math.min(first, idx);
+                for (int i = idx; i < idx + term.length(); i++) {
+                    marked[i] = true;
+                }
+                idx = lower.indexOf(term, idx + term.length());
+            }
+        }
+        if (first == content.length()) {
+            first = 0;
+        }
+        int start = Math.max(0, first - SNIPPET_BEFORE);
+        int end = Math.min(content.length(), first + SNIPPET_AFTER);
+
+        StringBuilder sb = new StringBuilder();
+        if (start > 0) {
+            sb.append("…");
+        }
+        int i = start;
+        while (i < end) {
+            int j = i;
+            while (j < end && marked[j] == marked[i]) {
+                j++;
+            }
+            String segment = HtmlUtils.htmlEscape(content.substring(i, j));
+            if (marked[i]) {
+                sb.append("<mark>").append(segment).append("</mark>");
+            } else {
+                sb.append(segment);
+            }
+            i = j;
+        }
+        if (end < content.length()) {
+            sb.append("…");
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,88 @@
+package cms.chat.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 검색 색인/질의 공용 토크나이저.
+ * 소문자 정규화 후 문자/숫자가 아닌 문자로 단어를 나누고, 각 단어를 2-gram 으로 분해한다 (1글자 단어는 색인하지 않음).
+ */
+final class ChatSearchTokenizer {
+
+    // 메시지 하나가 만들 수 있는 최대 고유 토큰 수 (긴 붙여넣기 본문 방어)
+    static final int MAX_TOKENS_PER_MESSAGE = 2000;
+
+    private ChatSearchTokenizer() {
+    }
+
+    /**
+     * 본문 -> (bigram, 등장 횟수)
+     */
+    static Map<String, Integer> tokenize(String text) {
+        Map<String, Integer> tokens = new LinkedHashMap<>();
+        for (String term : terms(text, false)) {
+            int[] cps = term.codePoints().toArray();
+            for (int i = 0; i + 1 < cps.length; i++) {
+                String bigram = new String(cps, i, 2);
+                Integer tf = tokens.get(bigram);
+                if (tf == null && tokens.size() >= MAX_TOKENS_PER_MESSAGE) {
+                    continue;
+                }
+                tokens.put(bigram, tf == null ? 1 : Math.min(tf + 1, Short.MAX_VALUE));
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * 검색어 -> 중복 제거된 bigram 집합 (모든 토큰을 포함한 메시지가 후보)
+     */
+    static Set<String> queryTokens(List<String> terms) {
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String term : terms) {
+            int[] cps = term.codePoints().toArray();
+            for (int i = 0; i + 1 < cps.length; i++) {
+                tokens.add(new String(cps, i, 2));
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * 정규화된 단어 목록. distinct 가 true 면 중복 제거
+     */
+    static List<String> terms(String text, boolean distinct) {
+        List<String> terms = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return terms;
+        }
+        String normalized = text.toLowerCase(Locale.ROOT);
+        StringBuilder current = new StringBuilder();
+        int i = 0;
+        while (i < normalized.length()) {
+            int cp = normalized.codePointAt(i);
+            if (Character.isLetterOrDigit(cp)) {
+                current.appendCodePoint(cp);
+            } else if (current.length() > 0) {
+                addTerm(terms, current.toString(), distinct);
+                current.setLength(0);
+            }
+            i += Character.charCount(cp);
+        }
+        if (current.length() > 0) {
+            addTerm(terms, current.toString(), distinct);
+        }
+        return terms;
+    }
+
+    private static void addTerm(List<String> terms, String term, boolean distinct) {
+        if (!distinct || !terms.contains(term)) {
+            terms.add(term);
+        }
+    }
+}
@@ -1,15 +1,21 @@
 package cms.chat.service;
 
 import cms.chat.domain.*;
+import cms.chat.dto.ChatMessageMapper;
+import cms.chat.dto.ReadCursorDto;
+import cms.chat.event.ChatMessagePersistedEvent;
 import cms.chat.repository.*;
+import cms.common.dto.CursorPageResponse;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 @Service
@@ -20,7 +26,11 @@ public class ChatService {
     private final ChatParticipantRepository chatParticipantRepository;
     private final ChatSessionLogRepository chatSessionLogRepository;
     private final ChatSettingRepository chatSettingRepository;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final ChatBroadcaster chatBroadcaster;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ChatUnreadCounterService chatUnreadCounterService;
+    private final ChatMessageArchiveRepository chatMessageArchiveRepository;
+    private final ChatResponseTimeTracker chatResponseTimeTracker;
 
     public ChatService(ChatChannelRepository chatChannelRepository,
                        ChatThreadRepository chatThreadRepository,
@@ -28,14 +38,22 @@ public class ChatService {
                        ChatParticipantRepository chatParticipantRepository,
                        ChatSessionLogRepository chatSessionLogRepository,
                        ChatSettingRepository chatSettingRepository,
-                       SimpMessagingTemplate messagingTemplate) {
+                       ChatBroadcaster chatBroadcaster,
+                       ApplicationEventPublisher eventPublisher,
+                       ChatUnreadCounterService chatUnreadCounterService,
+                       ChatMessageArchiveRepository chatMessageArchiveRepository,
+                       ChatResponseTimeTracker chatResponseTimeTracker) {
         this.chatChannelRepository = chatChannelRepository;
         this.chatThreadRepository = chatThreadRepository;
         this.chatMessageRepository = chatMessageRepository;
         this.chatParticipantRepository = chatParticipantRepository;
         this.chatSessionLogRepository = chatSessionLogRepository;
         this.chatSettingRepository = chatSettingRepository;
-        this.messagingTemplate = messagingTemplate;
+        this.chatBroadcaster = chatBroadcaster;
+        this.eventPublisher = eventPublisher;
+        this.chatUnreadCounterService = chatUnreadCounterService;
+        this.chatMessageArchiveRepository = chatMessageArchiveRepository;
+        this.chatResponseTimeTracker = chatResponseTimeTracker;
     }
 
     @Transactional
@@ -86,44 +104,17 @@ public class ChatService {
             ChatMessage welcomeMessage = ChatMessage.createText(thread, "ADMIN", "안녕하세요, 핸디입니다! 무엇을 도와드릴까요?", actor);
             ChatMessage savedWelcomeMessage = chatMessageRepository.saveAndFlush(welcomeMessage);
             System.out.println("환영 메시지 저장 완료: " + savedWelcomeMessage.getId());
+            eventPublisher.publishEvent(ChatMessagePersistedEvent.of(savedWelcomeMessage, null));
             
             // WebSocket으로 환영 메시지 브로드캐스트
             try {
-                // 간단한 DTO 생성 (ChatController의 toDto 메서드와 유사)
-                java.util.Map<String, Object> dto = new java.util.HashMap<>();
-                dto.put("id", savedWelcomeMessage.getId());
-                dto.put("threadId", thread.getId());
-                dto.put("senderType", savedWelcomeMessage.getSenderType());
-                dto.put("senderName", savedWelcomeMessage.getSenderName());
-                dto.put("messageType", savedWelcomeMessage.getMessageType());
-                dto.put("content", savedWelcomeMessage.getContent());
-                dto.put("isRead", savedWelcomeMessage.isRead());
-                dto.put("createdAt", savedWelcomeMessage.getCreatedAt());
-                dto.put("edited", false);
-                
-                // 채널 ID 및 사용자 정보 추가 (알림 로직에서 사용)
+                // 공용 매퍼로 브로드캐스트 페이로드 생성 (채널 ID 및 사용자 정보 포함, 알림 로직에서 사용)
+                java.util.Map<String, Object> dto = ChatMessageMapper.toBroadcastMap(savedWelcomeMessage, ChatMessageMapper.ThreadInfo.of(thread));
                 ChatChannel channel = thread.getChannel();
-                if (channel != null) {
-                    dto.put("channelId", channel.getId());
-                }
-                
-                // 사용자 정보 추가
-                String userName = thread.getUserName();
-                String userIdentifier = thread.getUserIdentifier();
-                if (userName != null && !userName.isEmpty()) {
-                    dto.put("userName", userName);
-                }
-                if (userIdentifier != null && !userIdentifier.isEmpty()) {
-                    dto.put("userIdentifier", userIdentifier);
-                }
-                
-                // 스레드별 구독자에게 전송
-                messagingTemplate.convertAndSend("/sub/chat/" + thread.getId(), dto);
-                
-                // 채널별 구독자에게도 전송
-                if (channel != null) {
-                    messagingTemplate.convertAndSend("/sub/chat/channel/" + channel.getId(), dto);
-                }
+
+                // 스레드별 + 채널별 구독자에게 전송 (직렬화 1회)
+                chatBroadcaster.broadcast(dto, "/sub/chat/" + thread.getId(),
+                        channel != null ? "/sub/chat/channel/" + channel.getId() : null);
                 
                 System.out.println("환영 메시지 WebSocket 전송 완료: /sub/chat/" + thread.getId() + ", /sub/chat/channel/" + (channel != null ? channel.getId() : "null"));
             } catch (Exception wsException) {
@@ -139,13 +130,34 @@ public class ChatService {
 
     @Transactional
     public ChatMessage sendTextMessage(ChatThread thread, String senderType, String content, String actor) {
+        return sendTextMessage(thread, senderType, content, actor, null);
+    }
+
+    /**
+     * @param respondingAgent 인증된 관리자 id (관리자 답변의 응답 시간 상담원 태그, 없으면 null)
+     */
+    @Transactional
+    public ChatMessage sendTextMessage(ChatThread thread, String senderType, String content, String actor,
+                                       String respondingAgent) {
         ChatMessage message = ChatMessage.createText(thread, senderType, content, actor);
-        return chatMessageRepository.save(message);
+        message.setRespondingAgent(respondingAgent);
+        ChatMessage saved = chatMessageRepository.save(message);
+        trackReplyState(saved);
+        // 커밋 이후 리스너(@TransactionalEventListener)로 전달
+        eventPublisher.publishEvent(ChatMessagePersistedEvent.of(saved, null));
+        return saved;
     }
 
     @Transactional
     public ChatMessage sendFileMessage(ChatThread thread, String senderType, String fileName, String fileUrl, String actor, String messageType) {
+        return sendFileMessage(thread, senderType, fileName, fileUrl, actor, messageType, null);
+    }
+
+    @Transactional
+    public ChatMessage sendFileMessage(ChatThread thread, String senderType, String fileName, String fileUrl, String actor,
+                                       String messageType, String respondingAgent) {
         ChatMessage message = new ChatMessage();
+        message.setRespondingAgent(respondingAgent);
         message.setThread(thread);
         message.setSenderType(senderType);
         message.setSenderName("ADMIN".equalsIgnoreCase(senderType) ? (actor != null && !actor.isEmpty() ? actor : "admin") :
@@ -162,9 +174,37 @@ public class ChatService {
         message.setCreatedIp(ip);
         message.setUpdatedIp(ip);
         ChatMessage saved = chatMessageRepository.saveAndFlush(message);
+        trackReplyState(saved);
+        eventPublisher.publishEvent(ChatMessagePersistedEvent.of(saved, null));
         return saved;
     }
 
+    /**
+     * 스레드 답변 대기 상태 갱신 (메시지 저장과 같은 트랜잭션).
+     * - USER: 대기 중이 아니면 awaiting_reply_since 를 메시지 시각으로 설정
+     * - ADMIN(system 자동응답 제외): 대기를 해제하고 첫 답변 시각을 남긴 뒤, 커밋 후 응답 시간을 히스토그램에 기록
+     *   (상담원 태그는 호출 측이 인증 주체로 채운 respondingAgent)
+     */
+    @Transactional
+    public void trackReplyState(ChatMessage message) {
+        ChatThread thread = message.getThread();
+        if (thread == null || thread.getId() == null) {
+            return;
+        }
+        LocalDateTime at = message.getCreatedAt() != null ? message.getCreatedAt() : LocalDateTime.now();
+        if ("USER".equalsIgnoreCase(message.getSenderType())) {
+            chatThreadRepository.markAwaitingReply(thread.getId(), at);
+        } else if ("ADMIN".equalsIgnoreCase(message.getSenderType()) && !"system".equals(message.getCreatedBy())) {
+            LocalDateTime since = chatThreadRepository.lockAwaitingReplySince(thread.getId());
+            if (since != null && chatThreadRepository.clearAwaitingReply(thread.getId(), at) > 0) {
+                Long channelId = thread.getChannel() != null ? thread.getChannel().getId() : null;
+                long responseMs = Math.max(0, java.time.Duration.between(since, at).toMillis());
+                chatResponseTimeTracker.record(channelId, message.getRespondingAgent(), responseMs);
+                message.setFirstResponseMs(responseMs);
+            }
+        }
+    }
+
     @Transactional
     public ChatMessage updateMessageContent(Long messageId, String newContent, String actor) {
         ChatMessage message = chatMessageRepository.findById(messageId)
@@ -177,29 +217,122 @@ public class ChatService {
 
     @Transactional
     public void markMessagesAsRead(ChatThread thread, LocalDateTime readTime, String actor) {
-        Pageable pageable = PageRequest.of(0, 200);
-        Page<ChatMessage> page;
-        do {
-            page = chatMessageRepository.findByThreadAndDeletedYnOrderByCreatedAtAsc(thread, "N", pageable);
-            page.getContent().forEach(m -> {
-                if (m.isUnread()) {
-                    m.markRead(readTime, actor);
-                }
-            });
-            chatMessageRepository.saveAll(page.getContent());
-            pageable = page.nextPageable();
-        } while (page.hasNext());
+        markThreadRead(thread, null, "ADMIN", null, readTime, actor);
+    }
+
+    /**
+     * 읽음 커서 이동. upToMessageId 가 null 이면 스레드의 마지막 메시지까지 읽음 처리한다.
+     * - ADMIN: 스레드 커서(미읽음 뱃지 기준) 이동
+     * - readerIdentifier 가 있으면 참여자 커서도 이동
+     * - 레거시 is_read 는 커서 이하 범위를 UPDATE 한 번으로 갱신 (USER 는 ADMIN 메시지만)
+     * @return 이동한 커서, 읽을 메시지가 없으면 null
+     */
+    @Transactional
+    public ReadCursorDto markThreadRead(ChatThread thread, Long upToMessageId, String readerType,
+                                       String readerIdentifier, LocalDateTime readTime, String actor) {
+        Long lastId = chatMessageRepository.findLastMessageId(thread);
+        if (lastId == null) {
+            return null;
+        }
+        Long cursor = (upToMessageId == null || upToMessageId > lastId) ? lastId : upToMessageId;
+        boolean admin = readerType == null || "ADMIN".equalsIgnoreCase(readerType);
+
+        if (admin && chatThreadRepository.advanceReadCursor(thread.getId(), cursor, readTime) > 0) {
+            thread.setLastReadMessageId(cursor);
+            thread.setLastReadAt(readTime);
+            chatUnreadCounterService.onThreadRead(thread, cursor);
+        }
+        chatMessageRepository.markReadUpTo(thread, cursor, admin ? null : "ADMIN", readTime, actor);
+
+        if (readerIdentifier != null && !readerIdentifier.isEmpty()) {
+            ChatParticipant participant = chatParticipantRepository.findByThreadAndUserIdentifier(thread, readerIdentifier)
+                    .orElseGet(() -> ChatParticipant.join(thread, readerIdentifier, admin ? "ADMIN" : "USER", actor, readTime));
+            if (participant.advanceReadCursor(cursor, readTime) || participant.getId() == null) {
+                chatParticipantRepository.save(participant);
+            }
+        }
+        return new ReadCursorDto(thread.getId(), admin ? "ADMIN" : "USER", readerIdentifier, cursor, readTime);
     }
 
     @Transactional(readOnly = true)
     public long countUnread(ChatThread thread) {
-        // USER 메시지만 카운트 (ADMIN 메시지는 뱃지에 포함하지 않음)
-        return chatMessageRepository.countByThreadAndSenderTypeAndIsReadIsFalseAndDeletedYn(thread, "USER", "N");
+        // USER 메시지만 카운트 (ADMIN 메시지는 뱃지에 포함하지 않음), 읽음 커서 이후만
+        if (thread.getLastReadMessageId() == null) {
+            return chatMessageRepository.countByThreadAndSenderTypeAndDeletedYn(thread, "USER", "N");
+        }
+        return chatMessageRepository.countByThreadAndSenderTypeAndIdGreaterThanAndDeletedYn(
+                thread, "USER", thread.getLastReadMessageId(), "N");
     }
 
+    /**
+     * 오프셋 페이지 조회. 보관(chat_message_archive) 메시지가 있으면 그 뒤에 핫 메시지를 이어 붙인 순서로 페이지를 만든다.
+     */
     @Transactional(readOnly = true)
     public Page<ChatMessage> getMessages(ChatThread thread, int page, int size) {
-        return chatMessageRepository.findByThreadAndDeletedYnOrderByCreatedAtAsc(thread, "N", PageRequest.of(page, size));
+        PageRequest pageable = PageRequest.of(page, size);
+        long archived = chatMessageArchiveRepository.countByThreadId(thread.getId());
+        if (archived == 0) {
+            return chatMessageRepository.findByThreadAndDeletedYnOrderByCreatedAtAsc(thread, "N", pageable);
+        }
+        long offset = pageable.getOffset();
+        List<ChatMessage> content = new ArrayList<>(size);
+        if (offset < archived) {
+            for (ChatMessageArchive a : chatMessageArchiveRepository.findByThreadIdOrderByIdAsc(thread.getId(), pageable)) {
+                content.add(a.toMessage(thread));
+            }
+        }
+        if (content.size() < size) {
+            long hotOffset = Math.max(0, offset - archived);
+            content.addAll(chatMessageRepository.findActiveSlice(thread.getId(), hotOffset, size - content.size()));
+        }
+        long total = archived + chatMessageRepository.countByThreadAndDeletedYn(thread, "N");
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    /**
+     * 커서 기반 히스토리 조회. 결과는 항상 id 오름차순.
+     * - before: 해당 id 보다 이전 메시지 (null 또는 0 이하이면 최신부터), nextCursor 는 더 이전 페이지
+     * - after : 해당 id 이후 메시지, nextCursor 는 더 이후 페이지
+     * 보관 메시지는 원래 id 를 유지하고 항상 핫 메시지보다 앞선 구간이므로, 핫 결과가 모자랄 때만 보관 테이블을 이어 읽는다.
+     */
+    @Transactional(readOnly = true)
+    public CursorPageResponse<ChatMessage> getMessagesByCursor(ChatThread thread, Long before, Long after, int size) {
+        PageRequest limit = PageRequest.of(0, size + 1);
+        if (after != null) {
+            List<ChatMessage> rows = new ArrayList<>();
+            for (ChatMessageArchive a : chatMessageArchiveRepository.findByThreadIdAndIdGreaterThanOrderByIdAsc(thread.getId(), after, limit)) {
+                rows.add(a.toMessage(thread));
+            }
+            if (rows.size() <= size) {
+                Long from = rows.isEmpty() ? after : rows.get(rows.size() - 1).getId();
+                rows.addAll(chatMessageRepository.findByThreadAndDeletedYnAndIdGreaterThanOrderByIdAsc(
+                        thread, "N", from, PageRequest.of(0, size + 1 - rows.size())));
+            }
+            boolean hasMore = rows.size() > size;
+            List<ChatMessage> content = hasMore ? new ArrayList<>(rows.subList(0, size)) : rows;
+            String next = content.isEmpty() ? null : String.valueOf(content.get(content.size() - 1).getId());
+            return new CursorPageResponse<>(content, hasMore ? next : null, hasMore);
+        }
+        boolean latest = before == null || before <= 0;
+        List<ChatMessage> rows = new ArrayList<>(size + 1);
+        rows.addAll(latest
+                ? chatMessageRepository.findByThreadAndDeletedYnOrderByIdDesc(thread, "N", limit)
+                : chatMessageRepository.findByThreadAndDeletedYnAndIdLessThanOrderByIdDesc(thread, "N", before, limit));
+        if (rows.size() <= size) {
+            PageRequest rest = PageRequest.of(0, size + 1 - rows.size());
+            Long upTo = !rows.isEmpty() ? rows.get(rows.size() - 1).getId() : (latest ? null : before);
+            List<ChatMessageArchive> archived = upTo == null
+                    ? chatMessageArchiveRepository.findByThreadIdOrderByIdDesc(thread.getId(), rest)
+                    : chatMessageArchiveRepository.findByThreadIdAndIdLessThanOrderByIdDesc(thread.getId(), upTo, rest);
+            for (ChatMessageArchive a : archived) {
+                rows.add(a.toMessage(thread));
+            }
+        }
+        boolean hasMore = rows.size() > size;
+        List<ChatMessage> content = new ArrayList<>(hasMore ? rows.subList(0, size) : rows);
+        Collections.reverse(content);
+        String next = content.isEmpty() ? null : String.valueOf(content.get(0).getId());
+        return new CursorPageResponse<>(content, hasMore ? next : null, hasMore);
     }
 
     @Transactional
@@ -232,19 +365,29 @@ public class ChatService {
                 .orElseThrow(() -> new IllegalArgumentException("Channel not found with id: " + channelId));
     }
 
+    /**
+     * 스레드 삭제 (메시지는 CASCADE). 채널 미읽음 합계 차감과 같은 트랜잭션에서 처리해
+     * 삭제가 실패하면 차감도 함께 롤백된다.
+     */
+    @Transactional
+    public void deleteThread(ChatThread thread) {
+        chatUnreadCounterService.onThreadDeleted(thread);
+        chatThreadRepository.delete(thread);
+    }
+
     @Transactional
     public ChatMessage deleteMessage(Long messageId, String actor) {
         ChatMessage message = chatMessageRepository.findById(messageId)
                 .orElseThrow(() -> new IllegalArgumentException("Message not found"));
+        boolean wasActive = !"Y".equals(message.getDeletedYn());
         // Soft delete
-        try {
-            java.lang.reflect.Method setDeletedYn = message.getClass().getMethod("setDeletedYn", String.class);
-            java.lang.reflect.Method setDeletedAt = message.getClass().getMethod("setDeletedAt", java.time.LocalDateTime.class);
-            java.lang.reflect.Method setDeletedBy = message.getClass().getMethod("setDeletedBy", String.class);
-            setDeletedYn.invoke(message, "Y");
-            setDeletedAt.invoke(message, java.time.LocalDateTime.now());
-            setDeletedBy.invoke(message, actor);
-        } catch (Exception ignore) {}
-        return chatMessageRepository.saveAndFlush(message);
+        message.setDeletedYn("Y");
+        message.setDeletedAt(LocalDateTime.now());
+        message.setDeletedBy(actor);
+        ChatMessage saved = chatMessageRepository.saveAndFlush(message);
+        if (wasActive) {
+            chatUnreadCounterService.onMessageDeleted(saved);
+        }
+        return saved;
     }
 }
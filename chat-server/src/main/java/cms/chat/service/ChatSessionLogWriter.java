@@ -0,0 +1,188 @@
+package cms.chat.service;
+
+import cms.chat.domain.ChatParticipant;
+import cms.chat.domain.ChatSessionLog;
+import cms.chat.domain.ChatThread;
+import cms.chat.repository.ChatParticipantRepository;
+import cms.chat.repository.ChatSessionLogRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 소켓 세션 로그(chat_session_log) / 참여자(chat_participant) 비동기 배치 기록기.
+ * - 프레즌스 이벤트 처리 스레드는 enqueue 만 하고, writer 스레드가 flushIntervalMs 마다 한 트랜잭션으로 저장한다.
+ * - 시작/종료가 같은 배치에 들어오면 한 번의 INSERT 로 합쳐진다.
+ * - started_at 은 INSERT 시각(@CreationTimestamp)이라 실제 구독 시각보다 최대 flush 간격만큼 늦을 수 있다.
+ */
+@Service
+public class ChatSessionLogWriter implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatSessionLogWriter.class);
+
+    private final ChatSessionLogRepository chatSessionLogRepository;
+    private final ChatParticipantRepository chatParticipantRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final long flushIntervalMs;
+    private final BlockingQueue<Op> queue = new LinkedBlockingQueue<>();
+
+    // (sessionId, threadId) -> 저장된(또는 저장 대기 중인) 열린 로그. writer 스레드에서만 접근
+    private final Map<String, ChatSessionLog> openLogs = new HashMap<>();
+
+    private volatile boolean running;
+    private volatile Thread writer;
+
+    public ChatSessionLogWriter(ChatSessionLogRepository chatSessionLogRepository,
+            ChatParticipantRepository chatParticipantRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${chat.presence.log-flush-interval-ms:2000}") long flushIntervalMs) {
+        this.chatSessionLogRepository = chatSessionLogRepository;
+        this.chatParticipantRepository = chatParticipantRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.flushIntervalMs = flushIntervalMs;
+    }
+
+    public void sessionStarted(ChatThread thread, String sessionId, String userIdentifier, String role) {
+        queue.offer(new Op(thread, sessionId, userIdentifier, role, null, LocalDateTime.now()));
+    }
+
+    public void sessionEnded(ChatThread thread, String sessionId, String reason) {
+        queue.offer(new Op(thread, sessionId, null, null, reason, LocalDateTime.now()));
+    }
+
+    @Override
+    public void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        Thread t = new Thread(this::drainLoop, "chat-session-log-writer");
+        t.setDaemon(true);
+        writer = t;
+        t.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        Thread t = writer;
+        if (t != null) {
+            t.interrupt();
+            try {
+                t.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            writer = null;
+        }
+        flush();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // 웹소켓 종료(disconnect 이벤트) 이후에 멈춰 마지막 종료 로그까지 기록
+        return 0;
+    }
+
+    private void drainLoop() {
+        while (running) {
+            try {
+                Thread.sleep(flushIntervalMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            flush();
+        }
+    }
+
+    private synchronized void flush() {
+        List<Op> batch = new ArrayList<>();
+        queue.drainTo(batch);
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> apply(batch));
+        } catch (Exception e) {
+            logger.warn("chat session log: batch of {} failed: {}", batch.size(), e.getMessage());
+            openLogs.clear();
+        }
+    }
+
+    private void apply(List<Op> batch) {
+        Map<String, ChatSessionLog> dirty = new HashMap<>();
+        for (Op op : batch) {
+            String key = op.sessionId + ":" + op.thread.getId();
+            if (op.endReason == null) {
+                ChatSessionLog log = ChatSessionLog.start(op.thread, op.sessionId);
+                openLogs.put(key, log);
+                dirty.put(key, log);
+                if (op.userIdentifier != null && !op.userIdentifier.isEmpty()) {
+                    joinParticipant(op);
+                }
+            } else {
+                ChatSessionLog log = openLogs.remove(key);
+                if (log == null) {
+                    continue;
+                }
+                log.finish(op.at, op.endReason);
+                dirty.put(key, log);
+            }
+        }
+        for (Map.Entry<String, ChatSessionLog> e : dirty.entrySet()) {
+            ChatSessionLog log = e.getValue();
+            if (log.getId() == null) {
+                chatSessionLogRepository.save(log);
+            } else {
+                // 이전 배치에서 저장된 detached 로그는 종료 시각만 갱신
+                chatSessionLogRepository.finish(log.getId(), log.getEndedAt(), log.getEndedReason());
+            }
+        }
+    }
+
+    private void joinParticipant(Op op) {
+        if (chatParticipantRepository.findByThreadAndUserIdentifier(op.thread, op.userIdentifier).isPresent()) {
+            return;
+        }
+        chatParticipantRepository.save(ChatParticipant.join(op.thread, op.userIdentifier,
+                op.role != null ? op.role : "USER", "system", op.at));
+    }
+
+    private static final class Op {
+        private final ChatThread thread;
+        private final String sessionId;
+        private final String userIdentifier;
+        private final String role;
+        private final String endReason;
+        private final LocalDateTime at;
+
+        private Op(ChatThread thread, String sessionId, String userIdentifier, String role, String endReason,
+                LocalDateTime at) {
+            this.thread = thread;
+            this.sessionId = sessionId;
+            this.userIdentifier = userIdentifier;
+            this.role = role;
+            this.endReason = endReason;
+            this.at = at;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package cms.chat.service;
+
+import cms.chat.domain.ChatThread;
+import cms.chat.dto.ChatThreadSnapshot;
+import cms.chat.repository.ChatThreadRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * 채팅 핫패스(STOMP send/read, 메시지 조회/전송)용 스레드 스냅샷 캐시.
+ * - 크기 + TTL 기반 축출 (chat.thread-cache.max-size / ttl-seconds)
+ * - 스레드 삭제, 채널 수정/삭제 시 무효화
+ * - hit/miss/eviction 지표는 Micrometer(cache.* , cache=chatThread) 로 노출
+ */
+@Service
+public class ChatThreadCache {
+
+    private final ChatThreadRepository chatThreadRepository;
+    private final Cache<Long, ChatThreadSnapshot> cache;
+
+    public ChatThreadCache(ChatThreadRepository chatThreadRepository,
+            ObjectProvider<MeterRegistry> meterRegistry,
+            @Value("${chat.thread-cache.max-size:10000}") long maxSize,
+            @Value("${chat.thread-cache.ttl-seconds:600}") long ttlSeconds) {
+        this.chatThreadRepository = chatThreadRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        meterRegistry.ifAvailable(registry -> CaffeineCacheMetrics.monitor(registry, cache, "chatThread"));
+    }
+
+    public Optional<ChatThreadSnapshot> get(Long threadId) {
+        if (threadId == null) {
+            return Optional.empty();
+        }
+        ChatThreadSnapshot snapshot = cache.getIfPresent(threadId);
+        if (snapshot != null) {
+            return Optional.of(snapshot);
+        }
+        // 없는 스레드는 캐시하지 않음 (생성 직후 조회가 막히지 않도록)
+        Optional<ChatThreadSnapshot> loaded = chatThreadRepository.findWithChannelById(threadId).map(ChatThreadSnapshot::of);
+        loaded.ifPresent(s -> cache.put(threadId, s));
+        return loaded;
+    }
+
+    /**
+     * 스냅샷 기반 detached 스레드 참조 (DB 조회는 캐시 miss 시에만)
+     */
+    public Optional<ChatThread> getThreadRef(Long threadId) {
+        return get(threadId).map(ChatThreadSnapshot::toThreadRef);
+    }
+
+    public void put(ChatThread thread) {
+        if (thread != null && thread.getId() != null) {
+            cache.put(thread.getId(), ChatThreadSnapshot.of(thread));
+        }
+    }
+
+    public void evict(Long threadId) {
+        if (threadId != null) {
+            cache.invalidate(threadId);
+        }
+    }
+
+    public void evictChannel(Long channelId) {
+        if (channelId == null) {
+            return;
+        }
+        cache.asMap().values().removeIf(s -> channelId.equals(s.getChannelId()));
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+}
@@ -0,0 +1,178 @@
+package cms.chat.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 입력 중(typing) 표시 등 휘발성 이벤트 중계. DB 를 전혀 거치지 않는다.
+ * - 발신자(스레드, senderType, senderId)별로 coalesce-ms 안의 반복 typing 신호는 한 번만 /sub/chat/{threadId} 로 전송
+ * - typing=false 는 즉시 전송, 신호가 ttl-ms 동안 끊기면 sweeper 가 typing=false 를 대신 보낸다
+ * 지표: chat.typing.received / emitted / suppressed, chat.typing.active
+ */
+@Service
+public class ChatTypingCoalescer implements DisposableBean {
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final long coalesceMs;
+    private final long ttlMs;
+    private final int maxActive;
+    private final ConcurrentHashMap<Key, State> active = new ConcurrentHashMap<>();
+    private final ScheduledThreadPoolExecutor sweeper;
+
+    private final Counter received;
+    private final Counter emitted;
+    private final Counter suppressed;
+
+    public ChatTypingCoalescer(SimpMessagingTemplate messagingTemplate,
+            ObjectProvider<MeterRegistry> meterRegistry,
+            @Value("${chat.typing.coalesce-ms:1000}") long coalesceMs,
+            @Value("${chat.typing.ttl-ms:5000}") long ttlMs,
+            @Value("${chat.typing.max-active:100000}") int maxActive) {
+        this.messagingTemplate = messagingTemplate;
+        this.coalesceMs = coalesceMs;
+        this.ttlMs = ttlMs;
+        this.maxActive = maxActive;
+        MeterRegistry registry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+        this.received = Counter.builder("chat.typing.received").register(registry);
+        this.emitted = Counter.builder("chat.typing.emitted").register(registry);
+        this.suppressed = Counter.builder("chat.typing.suppressed")
+                .description("Typing signals dropped by per-sender coalescing")
+                .register(registry);
+        Gauge.builder("chat.typing.active", active, Map::size).register(registry);
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("chat-typing-sweeper-");
+        threadFactory.setDaemon(true);
+        this.sweeper = new ScheduledThreadPoolExecutor(1, threadFactory);
+        long period = Math.max(100, Math.min(ttlMs, coalesceMs));
+        this.sweeper.scheduleWithFixedDelay(this::expire, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 입력 상태 신호. 전송했으면 true, coalesce 로 버렸으면 false
+     */
+    public boolean signal(Long threadId, String senderType, String senderId, boolean typing) {
+        if (threadId == null) {
+            return false;
+        }
+        received.increment();
+        Key key = new Key(threadId, senderType, senderId);
+        long now = System.currentTimeMillis();
+        if (!typing) {
+            if (active.remove(key) != null) {
+                emit(key, false);
+                return true;
+            }
+            suppressed.increment();
+            return false;
+        }
+        State state = active.get(key);
+        if (state == null) {
+            if (active.size() >= maxActive) {
+                suppressed.increment();
+                return false;
+            }
+            state = active.putIfAbsent(key, new State(now + ttlMs, now));
+            if (state == null) {
+                emit(key, true);
+                return true;
+            }
+        }
+        synchronized (state) {
+            state.expiresAt = now + ttlMs;
+            if (now - state.lastEmittedAt < coalesceMs) {
+                suppressed.increment();
+                return false;
+            }
+            state.lastEmittedAt = now;
+        }
+        emit(key, true);
+        return true;
+    }
+
+    @Override
+    public void destroy() {
+        sweeper.shutdownNow();
+    }
+
+    private void expire() {
+        long now = System.currentTimeMillis();
+        Iterator<Map.Entry<Key, State>> it = active.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Key, State> e = it.next();
+            if (e.getValue().expiresAt <= now && active.remove(e.getKey(), e.getValue())) {
+                emit(e.getKey(), false);
+            }
+        }
+    }
+
+    private void emit(Key key, boolean typing) {
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("type", "typing");
+        event.put("threadId", key.threadId);
+        event.put("senderType", key.senderType);
+        event.put("senderId", key.senderId);
+        event.put("typing", typing);
+        event.put("ttlMs", typing ? ttlMs : 0);
+        try {
+            messagingTemplate.convertAndSend("/sub/chat/" + key.threadId, event);
+            emitted.increment();
+        } catch (Exception ignore) {
+            // 휘발성 이벤트이므로 전송 실패는 무시
+        }
+    }
+
+    private static final class Key {
+        final Long threadId;
+        final String senderType;
+        final String senderId;
+
+        Key(Long threadId, String senderType, String senderId) {
+            this.threadId = threadId;
+            this.senderType = senderType != null ? senderType.toUpperCase() : "USER";
+            this.senderId = senderId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key k = (Key) o;
+            return threadId.equals(k.threadId) && senderType.equals(k.senderType) && Objects.equals(senderId, k.senderId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(threadId, senderType, senderId);
+        }
+    }
+
+    private static final class State {
+        volatile long expiresAt;
+        long lastEmittedAt;
+
+        State(long expiresAt, long lastEmittedAt) {
+            this.expiresAt = expiresAt;
+            this.lastEmittedAt = lastEmittedAt;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package cms.chat.service;
+
+import cms.chat.domain.ChatMessage;
+import cms.chat.domain.ChatThread;
+import cms.chat.event.ChatMessagePersistedEvent;
+import cms.chat.repository.ChatChannelRepository;
+import cms.chat.repository.ChatMessageRepository;
+import cms.chat.repository.ChatThreadRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 스레드/채널 미읽음 카운터 관리.
+ * - USER 메시지 저장 커밋 후 +1, 관리자 읽음 시 커서 기준으로 재설정, 메시지/스레드 삭제 시 차감
+ * - 모든 변경은 원자적 UPDATE (스레드 -> 채널 순서로 잠금)
+ * - 변경분은 /sub/unread-count/{ownerUserUuid} 로 delta 푸시
+ * - 누락/경합으로 생긴 오차는 ChatUnreadReconcileJob 이 주기적으로 보정
+ */
+@Service
+public class ChatUnreadCounterService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatUnreadCounterService.class);
+
+    private final ChatThreadRepository chatThreadRepository;
+    private final ChatChannelRepository chatChannelRepository;
+    private final ChatMessageRepository chatMessageRepository;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final TransactionTemplate requiresNew;
+
+    public ChatUnreadCounterService(ChatThreadRepository chatThreadRepository,
+            ChatChannelRepository chatChannelRepository,
+            ChatMessageRepository chatMessageRepository,
+            SimpMessagingTemplate messagingTemplate,
+            PlatformTransactionManager transactionManager) {
+        this.chatThreadRepository = chatThreadRepository;
+        this.chatChannelRepository = chatChannelRepository;
+        this.chatMessageRepository = chatMessageRepository;
+        this.messagingTemplate = messagingTemplate;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * 메시지 커밋 이후 호출 (write-behind 적재기처럼 트랜잭션 밖에서 발행돼도 실행)
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMessagePersisted(ChatMessagePersistedEvent event) {
+        if (!event.isFromUser() || event.getThreadId() == null || event.getMessageId() == null) {
+            return;
+        }
+        try {
+            Boolean applied = requiresNew.execute(status ->
+                    applyDelta(event.getThreadId(), event.getChannelId(), event.getMessageId(), 1));
+            if (Boolean.TRUE.equals(applied)) {
+                pushDelta(event.getChannelId(), event.getThreadId(), 1);
+            }
+        } catch (Exception e) {
+            logger.warn("unread counter increment failed (thread={}, message={}): {}",
+                    event.getThreadId(), event.getMessageId(), e.getMessage());
+        }
+    }
+
+    /**
+     * 관리자 읽음 커서 이동 후 스레드 카운터를 커서 이후 USER 메시지 수로 재설정
+     */
+    @Transactional
+    public void onThreadRead(ChatThread thread, Long cursor) {
+        Integer current = chatThreadRepository.lockUnreadCount(thread.getId());
+        if (current == null) {
+            return;
+        }
+        int remaining = (int) chatMessageRepository.countByThreadAndSenderTypeAndIdGreaterThanAndDeletedYn(
+                thread, "USER", cursor, "N");
+        int delta = remaining - current;
+        if (delta == 0) {
+            return;
+        }
+        chatThreadRepository.setUnreadCount(thread.getId(), remaining);
+        Long channelId = thread.getChannel() != null ? thread.getChannel().getId() : null;
+        if (channelId != null) {
+            chatChannelRepository.adjustUnreadCount(channelId, delta);
+        }
+        pushDeltaAfterCommit(channelId, thread.getId(), delta);
+    }
+
+    /**
+     * 미읽음 USER 메시지가 소프트 삭제된 경우 차감
+     */
+    @Transactional
+    public void onMessageDeleted(ChatMessage message) {
+        if (!"USER".equalsIgnoreCase(message.getSenderType()) || message.getThread() == null) {
+            return;
+        }
+        ChatThread thread = message.getThread();
+        Long channelId = thread.getChannel() != null ? thread.getChannel().getId() : null;
+        if (applyDelta(thread.getId(), channelId, message.getId(), -1)) {
+            pushDeltaAfterCommit(channelId, thread.getId(), -1);
+        }
+    }
+
+    /**
+     * 스레드 삭제 전 호출: 채널 합계에서 스레드 카운터만큼 차감
+     */
+    @Transactional
+    public void onThreadDeleted(ChatThread thread) {
+        Integer current = chatThreadRepository.lockUnreadCount(thread.getId());
+        Long channelId = thread.getChannel() != null ? thread.getChannel().getId() : null;
+        if (current == null || current == 0 || channelId == null) {
+            return;
+        }
+        chatChannelRepository.adjustUnreadCount(channelId, -current);
+        pushDeltaAfterCommit(channelId, thread.getId(), -current);
+    }
+
+    /**
+     * 채널 단위 drift 보정. 보정된 스레드 수 반환.
+     */
+    @Transactional
+    public int reconcileChannel(Long channelId) {
+        int repaired = chatThreadRepository.reconcileUnreadCounts(channelId);
+        chatChannelRepository.reconcileUnreadCount(channelId);
+        return repaired;
+    }
+
+    private boolean applyDelta(Long threadId, Long channelId, Long messageId, int delta) {
+        int updated = chatThreadRepository.adjustUnreadAfterCursor(threadId, messageId, delta);
+        if (updated == 0) {
+            // 이미 커서가 지나간 메시지 (읽음 처리와 경합)
+            return false;
+        }
+        if (channelId != null) {
+            chatChannelRepository.adjustUnreadCount(channelId, delta);
+        }
+        return true;
+    }
+
+    private void pushDeltaAfterCommit(Long channelId, Long threadId, int delta) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            pushDelta(channelId, threadId, delta);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                pushDelta(channelId, threadId, delta);
+            }
+        });
+    }
+
+    private void pushDelta(Long channelId, Long threadId, int delta) {
+        if (channelId == null) {
+            return;
+        }
+        try {
+            String owner = chatChannelRepository.findOwnerUserUuidById(channelId).orElse(null);
+            if (owner == null || owner.isEmpty()) {
+                return;
+            }
+            Map<String, Object> payload = new HashMap<>();
+            payload.put("type", "unread.delta");
+            payload.put("channelId", channelId);
+            payload.put("threadId", threadId);
+            payload.put("delta", delta);
+            messagingTemplate.convertAndSend("/sub/unread-count/" + owner, payload);
+        } catch (Exception e) {
+            logger.debug("unread delta push failed (channel={}): {}", channelId, e.getMessage());
+        }
+    }
+}
@@ -7,7 +7,18 @@ import cms.chat.repository.ChatChannelSettingRepository;
 import cms.chat.repository.ChatChannelCustomerRepository;
 import cms.chat.repository.ChatMessageRepository;
 import cms.chat.service.ChatService;
+import cms.chat.service.ChatBroadcaster;
+import cms.chat.service.ChatDashboardAggregator;
+import cms.chat.service.ChatKeyedExecutor;
+import cms.chat.service.ChatMessageIngestor;
+import cms.chat.service.ChatPresenceRegistry;
+import cms.chat.service.ChatRateLimiter;
+import cms.chat.service.ChatResponseTimeTracker;
+import cms.chat.service.ChatSearchIndexer;
+import cms.chat.service.ChatSearchService;
+import cms.chat.service.ChatThreadCache;
 import cms.chat.dto.ChatMessageDto;
+import cms.chat.dto.ChatMessageMapper;
 
 import org.springframework.data.domain.Page;
 
@@ -39,108 +50,25 @@ import lombok.Setter;
 public class ChatController {
 
 
-    // 안전 매핑: 컴파일러/롬복 이슈 회피를 위해 리플렉션만 사용
-    private ChatMessageDto toDto(Object message, Long threadId) {
-        ChatMessageDto dto = new ChatMessageDto();
-        try {
-            java.lang.reflect.Method getId = message.getClass().getMethod("getId");
-            java.lang.reflect.Method getSenderType = message.getClass().getMethod("getSenderType");
-            java.lang.reflect.Method getContent = message.getClass().getMethod("getContent");
-            java.lang.reflect.Method getCreatedAt = message.getClass().getMethod("getCreatedAt");
-            java.lang.reflect.Method getUpdatedAt = null;
-            java.lang.reflect.Method getMessageType = null;
-            java.lang.reflect.Method getFileName = null;
-            java.lang.reflect.Method getFileUrl = null;
-            try {
-                getMessageType = message.getClass().getMethod("getMessageType");
-            } catch (Exception ignore) {
-            }
-            try {
-                getFileName = message.getClass().getMethod("getFileName");
-            } catch (Exception ignore) {
-            }
-            try {
-                getFileUrl = message.getClass().getMethod("getFileUrl");
-            } catch (Exception ignore) {
-            }
-            try {
-                getUpdatedAt = message.getClass().getMethod("getUpdatedAt");
-            } catch (Exception ignore) {
-            }
-
-            dto.setId((Long) getId.invoke(message));
-            dto.setThreadId(threadId);
-            dto.setSenderType((String) getSenderType.invoke(message));
-            dto.setContent((String) getContent.invoke(message));
-            
-            // 채널 ID 및 사용자 정보 추가 (알림 로직에서 사용)
-            try {
-                ChatThread thread = chatThreadRepository.findById(threadId).orElse(null);
-                if (thread != null) {
-                    // 채널 정보 설정
-                    Long channelId = thread.getChannel() != null ? thread.getChannel().getId() : null;
-                    dto.setChannelId(channelId);
-                    
-                    // 사용자 정보 추가
-                    String userName = thread.getUserName();
-                    String userIdentifier = thread.getUserIdentifier();
-                    
-                    // DTO에 설정
-                    dto.setUserName(userName);
-                    dto.setUserIdentifier(userIdentifier);
-                } else {
-                    dto.setChannelId(null);
-                    dto.setUserName(null);
-                    dto.setUserIdentifier(null);
-                }
-            } catch (Exception e) {
-                // 안전하게 null 설정
-                dto.setChannelId(null);
-                dto.setUserName(null);
-                dto.setUserIdentifier(null);
-            }
-            java.time.LocalDateTime created = (java.time.LocalDateTime) getCreatedAt.invoke(message);
-            dto.setCreatedAt(created != null ? created.toString() : null);
-            if (getMessageType != null) {
-                dto.setMessageType((String) getMessageType.invoke(message));
-            }
-            if (getFileName != null) {
-                dto.setFileName((String) getFileName.invoke(message));
-            }
-            if (getFileUrl != null) {
-                dto.setFileUrl((String) getFileUrl.invoke(message));
-            }
-            if (getUpdatedAt != null) {
-                try {
-                    java.time.LocalDateTime updated = (java.time.LocalDateTime) getUpdatedAt.invoke(message);
-                    if (updated != null && created != null) {
-                        // 수정된 것으로 간주하려면 생성 시간보다 최소 1초 이상 늦어야 함
-                        // @UpdateTimestamp를 제거했으므로 실제 수정 시에만 updatedAt이 변경됨
-                        long secondsDiff = java.time.Duration.between(created, updated).getSeconds();
-                        dto.setEdited(secondsDiff > 1);
-                    } else {
-                        dto.setEdited(false);
-                    }
-                } catch (Exception ignore) {
-                    dto.setEdited(false);
-                }
-            } else {
-                dto.setEdited(false);
-            }
-        } catch (Exception ignore) {
-        }
-        return dto;
-    }
-
     private final ChatService chatService;
     private final ChatChannelRepository chatChannelRepository;
     private final ChatThreadRepository chatThreadRepository;
     private final ChatChannelSettingRepository chatChannelSettingRepository;
     private final ChatChannelCustomerRepository chatChannelCustomerRepository;
     private final ChatMessageRepository chatMessageRepository;
-    private final cms.file.repository.FileRepository fileRepository;
+    private final cms.file.service.FileService fileService;
     private final SimpMessagingTemplate messagingTemplate;
     private final BusinessHoursService businessHoursService;
+    private final ChatThreadCache chatThreadCache;
+    private final ChatPresenceRegistry chatPresenceRegistry;
+    private final ChatBroadcaster chatBroadcaster;
+    private final ChatKeyedExecutor chatKeyedExecutor;
+    private final ChatSearchService chatSearchService;
+    private final ChatSearchIndexer chatSearchIndexer;
+    private final ChatDashboardAggregator chatDashboardAggregator;
+    private final ChatResponseTimeTracker chatResponseTimeTracker;
+    private final ChatRateLimiter chatRateLimiter;
+    private final ChatMessageIngestor chatMessageIngestor;
 
     public ChatController(ChatService chatService,
             ChatChannelRepository chatChannelRepository,
@@ -148,18 +76,38 @@ public class ChatController {
             ChatChannelSettingRepository chatChannelSettingRepository,
             ChatChannelCustomerRepository chatChannelCustomerRepository,
             ChatMessageRepository chatMessageRepository,
-            cms.file.repository.FileRepository fileRepository,
+            cms.file.service.FileService fileService,
             SimpMessagingTemplate messagingTemplate,
-            BusinessHoursService businessHoursService) {
+            BusinessHoursService businessHoursService,
+            ChatThreadCache chatThreadCache,
+            ChatPresenceRegistry chatPresenceRegistry,
+            ChatBroadcaster chatBroadcaster,
+            ChatKeyedExecutor chatKeyedExecutor,
+            ChatSearchService chatSearchService,
+            ChatSearchIndexer chatSearchIndexer,
+            ChatDashboardAggregator chatDashboardAggregator,
+            ChatResponseTimeTracker chatResponseTimeTracker,
+            ChatRateLimiter chatRateLimiter,
+            ChatMessageIngestor chatMessageIngestor) {
         this.chatService = chatService;
         this.chatChannelRepository = chatChannelRepository;
         this.chatThreadRepository = chatThreadRepository;
         this.chatChannelSettingRepository = chatChannelSettingRepository;
         this.chatChannelCustomerRepository = chatChannelCustomerRepository;
         this.chatMessageRepository = chatMessageRepository;
-        this.fileRepository = fileRepository;
+        this.fileService = fileService;
         this.messagingTemplate = messagingTemplate;
         this.businessHoursService = businessHoursService;
+        this.chatThreadCache = chatThreadCache;
+        this.chatPresenceRegistry = chatPresenceRegistry;
+        this.chatBroadcaster = chatBroadcaster;
+        this.chatKeyedExecutor = chatKeyedExecutor;
+        this.chatSearchService = chatSearchService;
+        this.chatSearchIndexer = chatSearchIndexer;
+        this.chatDashboardAggregator = chatDashboardAggregator;
+        this.chatResponseTimeTracker = chatResponseTimeTracker;
+        this.chatRateLimiter = chatRateLimiter;
+        this.chatMessageIngestor = chatMessageIngestor;
     }
 
     // 목록 조회: 채널 전체 (삭제되지 않은 채널만)
@@ -172,7 +120,7 @@ public class ChatController {
             channels = chatChannelRepository.findByDeletedYnOrderByCreatedAtAsc("N");
         }
         
-        // 각 채널별 미읽은 메시지 개수 계산
+        // 채널 목록 구성 (미읽음 수는 채널 카운터 컬럼에서 바로 읽음)
         java.util.List<java.util.Map<String, Object>> channelList = new java.util.ArrayList<>();
         for (ChatChannel channel : channels) {
             java.util.Map<String, Object> channelInfo = new java.util.HashMap<>();
@@ -183,17 +131,8 @@ public class ChatController {
             channelInfo.put("createdAt", channel.getCreatedAt());
             channelInfo.put("updatedAt", channel.getUpdatedAt());
             
-            // 해당 채널의 모든 스레드에서 미읽은 메시지 개수 계산 (USER 메시지만)
-            java.util.List<ChatThread> threads = chatThreadRepository.findByChannelOrderByUpdatedAtDesc(channel);
-            int totalUnreadCount = 0;
-            if (!threads.isEmpty()) {
-                java.util.List<Object[]> unreadCounts = chatMessageRepository.countUnreadMessagesByThreads(threads);
-                for (Object[] result : unreadCounts) {
-                    Long count = (Long) result[1];
-                    totalUnreadCount += count.intValue();
-                }
-            }
-            channelInfo.put("unreadCount", totalUnreadCount);
+            // materialize 된 채널 미읽음 카운터 (USER 메시지만)
+            channelInfo.put("unreadCount", channel.getUnreadCount());
             
             channelList.add(channelInfo);
         }
@@ -209,17 +148,6 @@ public class ChatController {
         
         java.util.List<ChatThread> threads = chatThreadRepository.findByChannelOrderByUpdatedAtDesc(channel);
         
-        // 배치로 모든 스레드의 미읽은 메시지 개수 계산 (USER 메시지만)
-        java.util.Map<Long, Integer> unreadCountMap = new java.util.HashMap<>();
-        if (!threads.isEmpty()) {
-            java.util.List<Object[]> unreadCounts = chatMessageRepository.countUnreadMessagesByThreads(threads);
-            for (Object[] result : unreadCounts) {
-                Long threadId = (Long) result[0];
-                Long count = (Long) result[1];
-                unreadCountMap.put(threadId, count.intValue());
-            }
-        }
-        
         // 스레드 정보 구성
         java.util.List<java.util.Map<String, Object>> threadList = new java.util.ArrayList<>();
         for (ChatThread thread : threads) {
@@ -231,9 +159,8 @@ public class ChatController {
             threadInfo.put("createdAt", thread.getCreatedAt());
             threadInfo.put("updatedAt", thread.getUpdatedAt());
             
-            // 배치로 계산된 unreadCount 사용 (없으면 0)
-            int unreadCount = unreadCountMap.getOrDefault(thread.getId(), 0);
-            threadInfo.put("unreadCount", unreadCount);
+            // materialize 된 스레드 미읽음 카운터 사용
+            threadInfo.put("unreadCount", thread.getUnreadCount());
             
             threadList.add(threadInfo);
         }
@@ -258,6 +185,7 @@ public class ChatController {
         }
         if (dirty) {
             chatChannelRepository.save(channel);
+            chatThreadCache.evictChannel(channelId);
         }
         return ResponseEntity.ok(cms.common.dto.ApiResponseSchema.success(channel, "ok"));
     }
@@ -289,6 +217,7 @@ public class ChatController {
                 // 채널 소프트 삭제
                 channel.markDeleted(actor);
                 chatChannelRepository.save(channel);
+                chatThreadCache.evictChannel(channelId);
                 
                 return ResponseEntity.ok(cms.common.dto.ApiResponseSchema.success(true, "Channel soft deleted with associated threads"));
             } else {
@@ -328,10 +257,11 @@ public class ChatController {
             @RequestParam(defaultValue = "system") String actor,
             @RequestParam(defaultValue = "ADMIN") String senderType) {
         try {
-            ChatThread thread = chatThreadRepository.findById(threadId)
+            ChatThread thread = chatThreadCache.getThreadRef(threadId)
                     .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Thread not found"));
-            Object message = chatService.sendFileMessage(thread, senderType, fileName, fileUrl, actor, messageType);
-            ChatMessageDto dto = toDto(message, threadId);
+            ChatMessage message = chatService.sendFileMessage(thread, senderType, fileName, fileUrl, actor, messageType,
+                    ChatIdentity.current().getAdminIdentifier());
+            ChatMessageDto dto = ChatMessageMapper.toDto(message, ChatMessageMapper.ThreadInfo.of(thread));
             try {
                 // 파일 메시지도 실시간으로 브로드캐스트
                 messagingTemplate.convertAndSend("/sub/chat/" + threadId, dto);
@@ -436,8 +366,10 @@ public class ChatController {
                 // 고객 정보 삭제 실패는 무시
             }
 
-            // 스레드와 관련된 모든 메시지도 함께 삭제 (CASCADE)
-            chatThreadRepository.delete(thread);
+            // 채널 미읽음 합계 차감 + 스레드/메시지 삭제 (CASCADE) 를 한 트랜잭션으로
+            chatService.deleteThread(thread);
+            chatThreadCache.evict(threadId);
+            chatSearchIndexer.removeThread(threadId);
 
             return ResponseEntity.ok(cms.common.dto.ApiResponseSchema.success("Thread deleted", "ok"));
         } catch (Exception e) {
@@ -447,47 +379,80 @@ public class ChatController {
     }
 
     @GetMapping("/threads/{threadId}/messages")
-    public ResponseEntity<Page<ChatMessageDto>> getMessages(@PathVariable Long threadId,
+    public ResponseEntity<?> getMessages(@PathVariable Long threadId,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
-        System.out.println("🔍 [ChatController] getMessages called - threadId: " + threadId + ", page: " + page + ", size: " + size);
-        ChatThread thread = chatThreadRepository.findById(threadId)
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) Long before,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) String include) {
+        ChatThread thread = chatThreadCache.getThreadRef(threadId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Thread not found"));
-        Page<?> messages = (Page<?>) (Page) chatService.getMessages(thread, page, size);
+        // include 미지정 시 기존 응답과 동일하게 첨부 포함, 지정 시 attachments 가 있을 때만 포함 (예: include=none)
+        boolean withAttachments = include == null || java.util.Arrays.asList(include.split(",")).contains("attachments");
+        // 스레드 정보는 페이지당 한 번만 읽음
+        ChatMessageMapper.ThreadInfo threadInfo = ChatMessageMapper.ThreadInfo.of(thread);
+
+        // 커서 모드: before/after(메시지 id) 지정 시 keyset 조회 (COUNT 쿼리 없음, before=0 이면 최신부터)
+        if (before != null || after != null) {
+            int limit = Math.max(1, Math.min(size, 100));
+            cms.common.dto.CursorPageResponse<ChatMessage> slice = chatService.getMessagesByCursor(thread, before, after, limit);
+            return ResponseEntity.ok(new cms.common.dto.CursorPageResponse<>(
+                    toDtos(slice.getContent(), threadInfo, withAttachments), slice.getNextCursor(), slice.isHasMore()));
+        }
+
+        System.out.println("🔍 [ChatController] getMessages called - threadId: " + threadId + ", page: " + page + ", size: " + size);
+        Page<ChatMessage> messages = chatService.getMessages(thread, page, size);
         System.out.println("🔍 [ChatController] Raw messages page - number: " + messages.getNumber() + ", size: " + messages.getSize() + ", totalElements: " + messages.getTotalElements() + ", totalPages: " + messages.getTotalPages());
-        Page<ChatMessageDto> dtoPage = messages.map(m -> {
-            ChatMessageDto dto = toDto(m, threadId);
-            try {
-                java.lang.reflect.Method getId = m.getClass().getMethod("getId");
-                Long messageId = (Long) getId.invoke(m);
-                java.util.List<cms.file.entity.CmsFile> files = fileRepository.findByMessageId(messageId);
-                java.util.List<cms.file.dto.FileDto> fileDtos = new java.util.ArrayList<>();
-                for (cms.file.entity.CmsFile f : files) {
-                    cms.file.dto.FileDto fd = new cms.file.dto.FileDto();
-                    Long fid = f.getFileId();
-                    String origin = f.getOriginName();
-                    String mime = f.getMimeType();
-                    fd.setFileId(fid);
-                    fd.setOriginName(origin);
-                    fd.setMimeType(mime);
-                    String base = "/api/v1/cms/file";
-                    if (fid != null) {
-                        fd.setDownloadUrl(base + "/public/download/" + fid);
-                        if (mime != null && mime.startsWith("image/")) {
-                            fd.setViewUrl(base + "/public/view/" + fid);
-                        }
-                    }
-                    fileDtos.add(fd);
-                }
-                dto.setAttachments(fileDtos);
-            } catch (Exception e) {
-                // 안전하게 무시하고 첨부 없이 응답
-            }
-            return dto;
-        });
+        Page<ChatMessageDto> dtoPage = new org.springframework.data.domain.PageImpl<>(
+                toDtos(messages.getContent(), threadInfo, withAttachments), messages.getPageable(), messages.getTotalElements());
         return ResponseEntity.ok(dtoPage);
     }
 
+    // 페이지 단위 매핑: 첨부는 messageId IN (...) 한 번으로 조회 후 메모리에서 묶음
+    private java.util.List<ChatMessageDto> toDtos(java.util.List<ChatMessage> messages,
+            ChatMessageMapper.ThreadInfo threadInfo, boolean withAttachments) {
+        java.util.List<ChatMessageDto> dtos = ChatMessageMapper.toDtos(messages, threadInfo);
+        if (!withAttachments || messages.isEmpty()) {
+            return dtos;
+        }
+        java.util.Map<Long, java.util.List<cms.file.entity.CmsFile>> filesByMessage = java.util.Collections.emptyMap();
+        try {
+            java.util.List<Long> messageIds = new java.util.ArrayList<>(messages.size());
+            for (ChatMessage m : messages) {
+                messageIds.add(m.getId());
+            }
+            filesByMessage = fileService.getFilesByMessageIds(messageIds);
+        } catch (Exception e) {
+            // 안전하게 무시하고 첨부 없이 응답
+        }
+        for (ChatMessageDto dto : dtos) {
+            java.util.List<cms.file.entity.CmsFile> files = filesByMessage.getOrDefault(dto.getId(), java.util.Collections.emptyList());
+            java.util.List<cms.file.dto.FileDto> fileDtos = new java.util.ArrayList<>(files.size());
+            for (cms.file.entity.CmsFile f : files) {
+                fileDtos.add(toAttachmentDto(f));
+            }
+            dto.setAttachments(fileDtos);
+        }
+        return dtos;
+    }
+
+    private cms.file.dto.FileDto toAttachmentDto(cms.file.entity.CmsFile f) {
+        cms.file.dto.FileDto fd = new cms.file.dto.FileDto();
+        Long fid = f.getFileId();
+        String mime = f.getMimeType();
+        fd.setFileId(fid);
+        fd.setOriginName(f.getOriginName());
+        fd.setMimeType(mime);
+        String base = "/api/v1/cms/file";
+        if (fid != null) {
+            fd.setDownloadUrl(base + "/public/download/" + fid);
+            if (mime != null && mime.startsWith("image/")) {
+                fd.setViewUrl(base + "/public/view/" + fid);
+            }
+        }
+        return fd;
+    }
+
     @PostMapping("/threads/{threadId}/messages")
     public ResponseEntity<?> sendText(@PathVariable Long threadId,
             @RequestParam @NotBlank String senderType,
@@ -495,51 +460,71 @@ public class ChatController {
             @RequestParam(defaultValue = "system") String actor,
             @RequestParam(required = false) String uuid) {
         try {
-            ChatThread thread = chatThreadRepository.findById(threadId)
+            ChatThread thread = chatThreadCache.getThreadRef(threadId)
                     .orElseGet(() -> {
                         // Fallback: auto-create default channel/thread when missing
                         ChatChannel channel = chatChannelRepository.findByCmsCode("DEFAULT")
                                 .orElseGet(() -> chatService.getOrCreateChannel("DEFAULT", "Default", actor));
-                        return chatService.getOrCreateThread(channel,
+                        ChatThread created = chatService.getOrCreateThread(channel,
                                 "popup-" + threadId,
                                 "POPUP",
                                 "127.0.0.1",
                                 actor);
+                        chatThreadCache.put(created);
+                        return created;
                     });
-            Object message = chatService.sendTextMessage(thread, senderType, content, actor);
-            ChatMessageDto dto = toDto(message, threadId);
+            ChatMessageMapper.ThreadInfo threadInfo = ChatMessageMapper.ThreadInfo.of(thread, threadId);
+
+            // 전송 속도 제한 (스레드/사용자/IP). 관리자 여부와 사용자 키는 요청 파라미터가 아닌 인증 주체로 정한다
+            ChatIdentity sender = ChatIdentity.current();
+            ChatRateLimiter.Rejection rejection = chatRateLimiter.tryAcquireSend(threadId, sender.isAdmin(),
+                    sender.getIdentifier(), cms.common.util.IpUtil.getClientIp(), "http");
+            if (rejection != null) {
+                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                        .header(org.springframework.http.HttpHeaders.RETRY_AFTER,
+                                String.valueOf((rejection.getRetryAfterMs() + 999) / 1000))
+                        .body(cms.common.dto.ApiResponseSchema.error(rejection.message(),
+                                cms.common.constant.ErrorCode.TOO_MANY_REQUESTS));
+            }
+
+            // 같은 대화의 저장 -> 브로드캐스트(-> 운영시간 외 자동응답)는 스레드 lane 에서 직렬 실행하고,
+            // 소켓 send 로 먼저 큐에 들어간 메시지의 커밋을 기다린 뒤 저장해 id 순서와 수신 순서를 맞춘다
+            ChatMessageDto dto = chatKeyedExecutor.call(threadId, () -> {
+                chatMessageIngestor.awaitPersisted(threadId);
+                ChatMessage message = chatService.sendTextMessage(thread, senderType, content, actor,
+                        sender.getAdminIdentifier());
+                ChatMessageDto sent = ChatMessageMapper.toDto(message, threadInfo);
+                try {
+                    // 스레드별 구독자 + 채널별 구독자(다른 스레드에 있는 사용자도 알림 받을 수 있도록)에게 전송, 직렬화 1회
+                    ChatChannel channel = thread.getChannel();
+                    chatBroadcaster.broadcast(sent, "/sub/chat/" + threadId,
+                            channel != null ? "/sub/chat/channel/" + channel.getId() : null);
+                } catch (Exception e) {
+                    // WebSocket 메시지 전송 실패 시 무시
+                }
+
+                // Closed hours auto-reply (single-shot throttling simplified with recent timestamp check in service layer could be added later)
+                if ("USER".equalsIgnoreCase(senderType)
+                        && !businessHoursService.isOpen(threadInfo.getChannelId(), java.time.LocalDateTime.now())) {
+                    try {
+                        ChatMessage autoMsg = chatService.sendTextMessage(thread, "ADMIN",
+                                businessHoursService.closedMessage(threadInfo.getChannelId()),
+                                "system");
+                        ChatMessageDto autoDto = ChatMessageMapper.toDto(autoMsg, threadInfo);
+                        messagingTemplate.convertAndSend("/sub/chat/" + threadId, autoDto);
+                    } catch (Exception ignore) {
+                    }
+                }
+                return sent;
+            });
             
             // UUID 추적 로그
             if (uuid != null && !uuid.isEmpty()) {
+                // 채널 코드/이름은 스레드 스냅샷에 있음 (추가 조회 없음)
                 ChatChannel channel = thread.getChannel();
                 System.out.println(String.format("메시지 수신 - UUID: %s, 업체: %s (%s), 사용자: %s, 내용: %s", 
-                    uuid, channel.getCmsName(), channel.getCmsCode(), thread.getUserIdentifier(), content));
-            }
-            
-            try {
-                // 스레드별 구독자에게 전송
-                messagingTemplate.convertAndSend("/sub/chat/" + threadId, dto);
-                
-                // 채널별 구독자에게도 전송 (다른 스레드에 있는 사용자도 알림 받을 수 있도록)
-                ChatChannel channel = thread.getChannel();
-                if (channel != null) {
-                    String channelTopic = "/sub/chat/channel/" + channel.getId();
-                    messagingTemplate.convertAndSend(channelTopic, dto);
-                }
-            } catch (Exception e) {
-                // WebSocket 메시지 전송 실패 시 무시
-            }
-
-            // Closed hours auto-reply (single-shot throttling simplified with recent timestamp check in service layer could be added later)
-            if (!businessHoursService.isOpen(java.time.LocalDateTime.now()) && "USER".equalsIgnoreCase(senderType)) {
-                try {
-                    Object autoMsg = chatService.sendTextMessage(thread, "ADMIN",
-                            "현재 운영시간(평일 09:00~18:00)이 아닙니다. 접수되었으며 운영시간에 답변드리겠습니다.",
-                            "system");
-                    ChatMessageDto autoDto = toDto(autoMsg, threadId);
-                    messagingTemplate.convertAndSend("/sub/chat/" + threadId, autoDto);
-                } catch (Exception ignore) {
-                }
+                    uuid, channel != null ? channel.getCmsName() : null, channel != null ? channel.getCmsCode() : null,
+                    thread.getUserIdentifier(), content));
             }
             return ResponseEntity.ok(dto);
         } catch (Exception e) {
@@ -548,12 +533,59 @@ public class ChatController {
         }
     }
 
+    /**
+     * 접속 현황 스냅샷 (온라인 스레드/관리자). 이후 변경분은 /sub/chat/channel/{channelId} 의 presence 이벤트로 수신
+     */
+    @GetMapping("/presence")
+    public ResponseEntity<?> presence(@RequestParam(required = false) Long channelId) {
+        return ResponseEntity.ok(cms.common.dto.ApiResponseSchema.success(chatPresenceRegistry.snapshot(channelId), "ok"));
+    }
+
+    /**
+     * CS 대시보드 KPI (메모리 집계 스냅샷). 이후 변경분은 /sub/dashboard 로 수신
+     */
+    @GetMapping("/dashboard")
+    public ResponseEntity<?> dashboard() {
+        return ResponseEntity.ok(cms.common.dto.ApiResponseSchema.success(chatDashboardAggregator.current(), "ok"));
+    }
+
+    /**
+     * 첫 응답 시간 퍼센타일 (채널/상담원별 p50/p90/p99). SLA 초과 대기는 /sub/chat/sla 로 수신
+     */
+    @GetMapping("/sla/response-times")
+    public ResponseEntity<?> responseTimes() {
+        return ResponseEntity.ok(cms.common.dto.ApiResponseSchema.success(chatResponseTimeTracker.snapshot(), "ok"));
+    }
+
+    /**
+     * 채팅 이력 검색 (채널/스레드/기간 필터, recent|relevance 정렬, keyset 커서)
+     */
+    @GetMapping("/search")
+    public ResponseEntity<?> searchMessages(@RequestParam String q,
+            @RequestParam(required = false) Long channelId,
+            @RequestParam(required = false) Long threadId,
+            @RequestParam(required = false) @org.springframework.format.annotation.DateTimeFormat(iso = org.springframework.format.annotation.DateTimeFormat.ISO.DATE_TIME) java.time.LocalDateTime from,
+            @RequestParam(required = false) @org.springframework.format.annotation.DateTimeFormat(iso = org.springframework.format.annotation.DateTimeFormat.ISO.DATE_TIME) java.time.LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = ChatSearchService.SORT_RECENT) String sort) {
+        try {
+            int limit = Math.max(1, Math.min(size, 100));
+            return ResponseEntity.ok(cms.common.dto.ApiResponseSchema.success(
+                    chatSearchService.search(q, channelId, threadId, from, to, cursor, limit, sort), "ok"));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(cms.common.dto.ApiResponseSchema.error(e.getMessage(), cms.common.constant.ErrorCode.INVALID_REQUEST));
+        }
+    }
+
     @GetMapping("/business-hours/status")
-    public ResponseEntity<?> businessHoursStatus() {
-        BusinessHoursService.Status status = businessHoursService.currentStatus();
+    public ResponseEntity<?> businessHoursStatus(@RequestParam(required = false) Long channelId) {
+        BusinessHoursService.Status status = businessHoursService.currentStatus(channelId);
         java.util.Map<String, Object> body = new java.util.HashMap<>();
         body.put("open", status.isOpen());
         body.put("message", status.getMessage());
+        body.put("nextOpenAt", status.getNextOpenAt());
         return ResponseEntity.ok(cms.common.dto.ApiResponseSchema.success(body, "ok"));
     }
 
@@ -614,6 +646,9 @@ public class ChatController {
                 ChatChannelSetting newSetting = ChatChannelSetting.create(channel.getId(), configJson, "admin");
                 chatChannelSettingRepository.save(newSetting);
             }
+            // 채널별 운영시간(businessHours) 즉시 반영
+            businessHoursService.updateChannelConfig(channel.getId(), configJson);
+            chatRateLimiter.updateChannelConfig(channel.getId(), configJson);
 
             return ResponseEntity.ok(cms.common.dto.ApiResponseSchema.success("Config saved", "ok"));
         } catch (Exception e) {
@@ -741,16 +776,19 @@ public class ChatController {
 
     @PostMapping("/threads/{threadId}/read")
     public ResponseEntity<Void> markRead(@PathVariable Long threadId,
-            @RequestParam(defaultValue = "system") String actor) {
-        ChatThread thread = chatThreadRepository.findById(threadId)
+            @RequestParam(required = false) Long messageId) {
+        ChatThread thread = chatThreadCache.getThreadRef(threadId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Thread not found"));
         
+        // 읽음 커서 이동 (messageId 미지정 시 마지막 메시지까지). 읽은 쪽은 인증 주체로 정한다
+        ChatIdentity identity = ChatIdentity.current();
+        String readerIdentifier = identity.isAdmin() ? identity.getIdentifier() : thread.getUserIdentifier();
         LocalDateTime now = java.time.LocalDateTime.now();
-        chatService.markMessagesAsRead(thread, now, actor);
-        
-        // 스레드의 마지막 읽은 시간 업데이트
-        thread.setLastReadAt(now);
-        chatThreadRepository.save(thread);
+        cms.chat.dto.ReadCursorDto cursor = chatService.markThreadRead(thread, messageId, identity.getType(),
+                readerIdentifier, now, readerIdentifier != null ? readerIdentifier : "system");
+        if (cursor != null) {
+            messagingTemplate.convertAndSend("/sub/chat/" + threadId, cursor);
+        }
         
         return ResponseEntity.ok().build();
     }
@@ -760,18 +798,15 @@ public class ChatController {
             @RequestParam @NotBlank String content,
             @RequestParam(defaultValue = "system") String actor) {
         try {
-            Object updated = chatService.updateMessageContent(messageId, content, actor);
-            Long threadIdFromEntity = null;
+            ChatMessage updated = chatService.updateMessageContent(messageId, content, actor);
             try {
-                java.lang.reflect.Method getThread = updated.getClass().getMethod("getThread");
-                Object thread = getThread.invoke(updated);
-                if (thread != null) {
-                    java.lang.reflect.Method getId = thread.getClass().getMethod("getId");
-                    threadIdFromEntity = (Long) getId.invoke(thread);
-                }
-            } catch (Exception ignore) {
+                chatSearchIndexer.reindex(updated);
+            } catch (Exception e) {
+                // 검색 색인 실패는 수정 응답에 영향 주지 않음
             }
-            ChatMessageDto dto = toDto(updated, threadIdFromEntity);
+            Long threadIdFromEntity = updated.getThread() != null ? updated.getThread().getId() : null;
+            ChatThread thread = chatThreadCache.getThreadRef(threadIdFromEntity).orElse(null);
+            ChatMessageDto dto = ChatMessageMapper.toDto(updated, ChatMessageMapper.ThreadInfo.of(thread, threadIdFromEntity));
             try {
                 java.util.Map<String, Object> payload = new java.util.HashMap<>();
                 payload.put("type", "message.updated");
@@ -799,17 +834,8 @@ public class ChatController {
     public ResponseEntity<?> deleteMessage(@PathVariable Long messageId,
             @RequestParam(defaultValue = "system") String actor) {
         try {
-            Object deleted = chatService.deleteMessage(messageId, actor);
-            Long threadId = null;
-            try {
-                java.lang.reflect.Method getThread = deleted.getClass().getMethod("getThread");
-                Object thread = getThread.invoke(deleted);
-                if (thread != null) {
-                    java.lang.reflect.Method getId = thread.getClass().getMethod("getId");
-                    threadId = (Long) getId.invoke(thread);
-                }
-            } catch (Exception ignore) {
-            }
+            ChatMessage deleted = chatService.deleteMessage(messageId, actor);
+            Long threadId = deleted.getThread() != null ? deleted.getThread().getId() : null;
             if (threadId != null) {
                 java.util.Map<String, Object> payload = new java.util.HashMap<>();
                 payload.put("type", "message.deleted");
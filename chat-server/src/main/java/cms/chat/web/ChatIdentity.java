@@ -0,0 +1,81 @@
+package cms.chat.web;
+
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.security.Principal;
+
+/**
+ * 서버가 확인한 채팅 참여자 신원. 클라이언트가 보낸 senderType/readerType 대신 이 값을 쓴다.
+ * - ADMIN: ROLE_ADMIN / ROLE_SYSTEM_ADMIN 인증 주체 (REST 는 JWT, STOMP 는 CONNECT 시 인증된 세션 사용자)
+ * - USER : 그 외 인증 주체 또는 익명 (팝업 클라이언트, identifier 없음)
+ */
+public final class ChatIdentity {
+
+    public static final String ADMIN = "ADMIN";
+    public static final String USER = "USER";
+
+    private static final ChatIdentity ANONYMOUS = new ChatIdentity(USER, null);
+
+    private final String type;
+    private final String identifier;
+
+    private ChatIdentity(String type, String identifier) {
+        this.type = type;
+        this.identifier = identifier;
+    }
+
+    /**
+     * REST 요청의 현재 인증 주체
+     */
+    public static ChatIdentity current() {
+        return of(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    /**
+     * STOMP 세션 사용자 또는 인증 객체
+     */
+    public static ChatIdentity of(Principal principal) {
+        if (principal == null || principal instanceof AnonymousAuthenticationToken) {
+            return ANONYMOUS;
+        }
+        if (principal instanceof Authentication) {
+            Authentication authentication = (Authentication) principal;
+            if (!authentication.isAuthenticated()) {
+                return ANONYMOUS;
+            }
+            for (GrantedAuthority authority : authentication.getAuthorities()) {
+                String role = authority.getAuthority();
+                if ("ROLE_ADMIN".equalsIgnoreCase(role) || "ROLE_SYSTEM_ADMIN".equalsIgnoreCase(role)) {
+                    return new ChatIdentity(ADMIN, authentication.getName());
+                }
+            }
+        }
+        return new ChatIdentity(USER, principal.getName());
+    }
+
+    public boolean isAdmin() {
+        return ADMIN.equals(type);
+    }
+
+    public boolean isAnonymous() {
+        return identifier == null;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getIdentifier() {
+        return identifier;
+    }
+
+    /**
+     * 관리자면 식별자, 아니면 null (응답 시간 상담원 태그용)
+     */
+    public String getAdminIdentifier() {
+        return isAdmin() ? identifier : null;
+    }
+}
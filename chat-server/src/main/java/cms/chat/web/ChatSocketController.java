@@ -1,42 +1,194 @@
 package cms.chat.web;
 
+import cms.chat.domain.ChatMessage;
 import cms.chat.domain.ChatThread;
-import cms.chat.repository.ChatThreadRepository;
+import cms.chat.dto.ChatMessageMapper;
+import cms.chat.dto.ReadCursorDto;
+import cms.chat.service.ChatMessageIngestor;
 import cms.chat.service.ChatService;
+import cms.chat.service.ChatThreadCache;
+import cms.chat.service.ChatTypingCoalescer;
 import org.springframework.messaging.handler.annotation.DestinationVariable;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Controller;
 
+import java.security.Principal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
 @Controller
 public class ChatSocketController {
 
     private final ChatService chatService;
-    private final ChatThreadRepository chatThreadRepository;
+    private final ChatThreadCache chatThreadCache;
     private final SimpMessagingTemplate messagingTemplate;
+    private final ChatMessageIngestor chatMessageIngestor;
+    private final ChatTypingCoalescer chatTypingCoalescer;
 
     public ChatSocketController(ChatService chatService,
-            ChatThreadRepository chatThreadRepository,
-            SimpMessagingTemplate messagingTemplate) {
+            ChatThreadCache chatThreadCache,
+            SimpMessagingTemplate messagingTemplate,
+            ChatMessageIngestor chatMessageIngestor,
+            ChatTypingCoalescer chatTypingCoalescer) {
         this.chatService = chatService;
-        this.chatThreadRepository = chatThreadRepository;
+        this.chatThreadCache = chatThreadCache;
         this.messagingTemplate = messagingTemplate;
+        this.chatMessageIngestor = chatMessageIngestor;
+        this.chatTypingCoalescer = chatTypingCoalescer;
     }
 
+    /**
+     * 대화별 순서 보장: 이 프레임은 OrderedInboundChannelExecutor 가 도착 순서대로 스레드 id lane 에서 실행한다.
+     */
     @MessageMapping("/chat/{threadId}/send")
-    public void send(@DestinationVariable Long threadId, @Payload ChatTextMessage payload) {
-        ChatThread thread = chatThreadRepository.findById(threadId)
+    public void send(@DestinationVariable Long threadId, @Payload ChatTextMessage payload, Principal principal) {
+        ChatThread thread = chatThreadCache.getThreadRef(threadId)
                 .orElseThrow(() -> new IllegalArgumentException("Thread not found"));
-        // 저장된 메시지 반환 받아 브로드캐스트에 식별자/스레드/시간 포함
-        cms.chat.domain.ChatMessage saved = chatService.sendTextMessage(
-                thread,
-                payload.getSenderType(),
-                payload.getContent(),
-                payload.getActor()
-        );
-        OutboundMessage outbound = OutboundMessage.fromEntity(saved);
+        String clientMessageId = payload.getClientMessageId() != null && !payload.getClientMessageId().isEmpty()
+                ? payload.getClientMessageId()
+                : UUID.randomUUID().toString();
+        // 응답 시간 상담원 태그는 payload.actor 가 아닌 세션 사용자로 정한다
+        String respondingAgent = ChatIdentity.of(principal).getAdminIdentifier();
+
+        if (!chatMessageIngestor.isAccepting()) {
+            // 동기 경로: 저장된 메시지 반환 받아 브로드캐스트에 식별자/스레드/시간 포함
+            ChatMessage saved = chatService.sendTextMessage(
+                    thread,
+                    payload.getSenderType(),
+                    payload.getContent(),
+                    payload.getActor(),
+                    respondingAgent
+            );
+            OutboundMessage outbound = OutboundMessage.fromEntity(saved);
+            outbound.setClientMessageId(clientMessageId);
+            messagingTemplate.convertAndSend("/sub/chat/" + threadId, outbound);
+            return;
+        }
+
+        // write-behind: 아직 id 가 없으므로 pending=true + clientMessageId(없으면 서버 생성)로 먼저 브로드캐스트하고,
+        // 커밋 후 같은 clientMessageId 의 message.persisted ack 로 id 를 확정한다 (실패 시 message.failed)
+        ChatMessage message = ChatMessage.createText(thread, payload.getSenderType(), payload.getContent(), payload.getActor());
+        message.setCreatedAt(LocalDateTime.now());
+        message.setRespondingAgent(respondingAgent);
+        OutboundMessage outbound = OutboundMessage.fromEntity(message);
+        outbound.setClientMessageId(clientMessageId);
+        outbound.setPending(true);
         messagingTemplate.convertAndSend("/sub/chat/" + threadId, outbound);
+        chatMessageIngestor.submit(message, clientMessageId);
+    }
+
+    /**
+     * 읽음 커서 갱신 (/pub/chat/read). 이동된 커서를 /sub/chat/{threadId} 로 브로드캐스트한다.
+     * 읽은 쪽은 세션 사용자로 정한다: 관리자 세션은 ADMIN 커서, 그 외(팝업)는 스레드 사용자의 USER 커서.
+     */
+    @MessageMapping("/chat/read")
+    public void read(@Payload ReadReceipt payload, Principal principal) {
+        if (payload.getThreadId() == null) {
+            return;
+        }
+        ChatThread thread = chatThreadCache.getThreadRef(payload.getThreadId())
+                .orElseThrow(() -> new IllegalArgumentException("Thread not found"));
+        ChatIdentity identity = ChatIdentity.of(principal);
+        String readerIdentifier = identity.isAdmin() ? identity.getIdentifier() : thread.getUserIdentifier();
+        String actor = readerIdentifier != null ? readerIdentifier : "system";
+        ReadCursorDto cursor = chatService.markThreadRead(thread, payload.getLastReadMessageId(),
+                identity.getType(), readerIdentifier, LocalDateTime.now(), actor);
+        if (cursor != null) {
+            messagingTemplate.convertAndSend("/sub/chat/" + thread.getId(), cursor);
+        }
+    }
+
+    /**
+     * 입력 중 표시 (/pub/chat/{threadId}/typing). 저장하지 않고 발신자별로 coalesce 해 /sub/chat/{threadId} 로만 전달한다.
+     */
+    @MessageMapping("/chat/{threadId}/typing")
+    public void typing(@DestinationVariable Long threadId, @Payload TypingSignal payload) {
+        chatTypingCoalescer.signal(threadId, payload.getSenderType(), payload.getSenderId(), payload.isTyping());
+    }
+
+    public static class TypingSignal {
+
+        // USER or ADMIN
+        private String senderType;
+        // 사용자 식별자 또는 상담원 id
+        private String senderId;
+        private boolean typing = true;
+
+        public String getSenderType() {
+            return senderType;
+        }
+
+        public void setSenderType(String senderType) {
+            this.senderType = senderType;
+        }
+
+        public String getSenderId() {
+            return senderId;
+        }
+
+        public void setSenderId(String senderId) {
+            this.senderId = senderId;
+        }
+
+        public boolean isTyping() {
+            return typing;
+        }
+
+        public void setTyping(boolean typing) {
+            this.typing = typing;
+        }
+    }
+
+    public static class ReadReceipt {
+
+        private Long threadId;
+        private Long lastReadMessageId;
+        // 하위 호환용. readerType/readerIdentifier/actor 는 무시하고 세션 사용자로 정한다
+        private String readerType;
+        private String readerIdentifier;
+        private String actor;
+
+        public Long getThreadId() {
+            return threadId;
+        }
+
+        public void setThreadId(Long threadId) {
+            this.threadId = threadId;
+        }
+
+        public Long getLastReadMessageId() {
+            return lastReadMessageId;
+        }
+
+        public void setLastReadMessageId(Long lastReadMessageId) {
+            this.lastReadMessageId = lastReadMessageId;
+        }
+
+        public String getReaderType() {
+            return readerType;
+        }
+
+        public void setReaderType(String readerType) {
+            this.readerType = readerType;
+        }
+
+        public String getReaderIdentifier() {
+            return readerIdentifier;
+        }
+
+        public void setReaderIdentifier(String readerIdentifier) {
+            this.readerIdentifier = readerIdentifier;
+        }
+
+        public String getActor() {
+            return actor;
+        }
+
+        public void setActor(String actor) {
+            this.actor = actor;
+        }
     }
 
     public static class ChatTextMessage {
@@ -44,6 +196,8 @@ public class ChatSocketController {
         private String senderType;
         private String content;
         private String actor;
+        // 클라이언트가 낙관적 렌더링에 쓰는 상관 id (없으면 서버가 생성)
+        private String clientMessageId;
 
         public String getSenderType() {
             return senderType;
@@ -68,6 +222,14 @@ public class ChatSocketController {
         public void setActor(String actor) {
             this.actor = actor;
         }
+
+        public String getClientMessageId() {
+            return clientMessageId;
+        }
+
+        public void setClientMessageId(String clientMessageId) {
+            this.clientMessageId = clientMessageId;
+        }
     }
 
     public static class OutboundMessage {
@@ -83,6 +245,9 @@ public class ChatSocketController {
         private java.time.LocalDateTime createdAt;
         private String userName;
         private String userIdentifier;
+        private String clientMessageId;
+        // write-behind 로 저장 전에 보낸 메시지 (id 는 message.persisted ack 로 전달)
+        private boolean pending;
 
         public Long getId() {
             return id;
@@ -172,35 +337,40 @@ public class ChatSocketController {
             this.userIdentifier = userIdentifier;
         }
 
+        public String getClientMessageId() {
+            return clientMessageId;
+        }
+
+        public void setClientMessageId(String clientMessageId) {
+            this.clientMessageId = clientMessageId;
+        }
+
+        public boolean isPending() {
+            return pending;
+        }
+
+        public void setPending(boolean pending) {
+            this.pending = pending;
+        }
+
         public static OutboundMessage fromEntity(cms.chat.domain.ChatMessage m) {
+            return fromEntity(m, ChatMessageMapper.ThreadInfo.of(m.getThread()));
+        }
+
+        public static OutboundMessage fromEntity(cms.chat.domain.ChatMessage m, ChatMessageMapper.ThreadInfo thread) {
             OutboundMessage dto = new OutboundMessage();
             dto.setId(m.getId());
-            dto.setThreadId(m.getThread().getId());
+            dto.setThreadId(thread.getThreadId());
             dto.setSenderType(m.getSenderType());
             dto.setMessageType(m.getMessageType());
             dto.setContent(m.getContent());
             dto.setFileName(m.getFileName());
             dto.setFileUrl(m.getFileUrl());
             dto.setCreatedAt(m.getCreatedAt());
-
-            // 🔥 NEW: 채널 ID 및 사용자 정보 추가
-            try {
-                cms.chat.domain.ChatThread thread = m.getThread();
-                if (thread != null) {
-                    // 채널 ID 설정
-                    cms.chat.domain.ChatChannel channel = thread.getChannel();
-                    if (channel != null) {
-                        dto.setChannelId(channel.getId());
-                    }
-
-                    // 사용자 정보 설정
-                    dto.setUserName(thread.getUserName());
-                    dto.setUserIdentifier(thread.getUserIdentifier());
-                }
-            } catch (Exception e) {
-                // 사용자 정보 설정 실패 시 무시
-            }
-
+            // 채널 ID 및 사용자 정보 (지연 로딩 실패 시 null)
+            dto.setChannelId(thread.getChannelId());
+            dto.setUserName(thread.getUserName());
+            dto.setUserIdentifier(thread.getUserIdentifier());
             return dto;
         }
     }
@@ -8,6 +8,7 @@ public class ErrorCode {
     public static final String NOT_FOUND = "NOT_FOUND";
     public static final String CONFLICT = "CONFLICT";
     public static final String INTERNAL_ERROR = "INTERNAL_ERROR";
+    public static final String TOO_MANY_REQUESTS = "TOO_MANY_REQUESTS";
 
     // 게시판 관련 에러
     public static final String BBS_NOT_FOUND = "BBS_NOT_FOUND";
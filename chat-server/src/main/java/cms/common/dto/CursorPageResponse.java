@@ -0,0 +1,39 @@
+package cms.common.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * keyset(커서) 페이지 응답. COUNT 쿼리 없이 size+1 건 조회로 hasMore 를 판단한다.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Schema(description = "커서 페이지 응답")
+public class CursorPageResponse<T> {
+    @Schema(description = "페이지 데이터")
+    private List<T> content;
+
+    @Schema(description = "다음 페이지 요청에 사용할 커서 (없으면 null)")
+    private String nextCursor;
+
+    @Schema(description = "다음 페이지 존재 여부", example = "true")
+    private boolean hasMore;
+
+    public CursorPageResponse(List<T> content, String nextCursor, boolean hasMore) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+    }
+
+    public <R> CursorPageResponse<R> map(Function<? super T, ? extends R> mapper) {
+        List<R> mapped = content.stream().map(mapper).collect(Collectors.toList());
+        return new CursorPageResponse<>(mapped, nextCursor, hasMore);
+    }
+}
@@ -1,65 +1,301 @@
 package cms.common.service;
 
+import cms.calendar.domain.HolidayOverride;
 import cms.calendar.repository.HolidayOverrideRepository;
+import cms.chat.domain.ChatChannelSetting;
+import cms.chat.repository.ChatChannelSettingRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
 import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.Collections;
 import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * 운영시간 판단. 휴일(holiday_override)과 채널별 운영시간(chat_channel_setting.config.businessHours)을
+ * 메모리 달력으로 들고 있어 isOpen / nextOpening 은 DB 조회 없이 응답한다.
+ * - 기동 완료 시 1회 적재, BusinessCalendarRefreshJob 이 주기적으로 재적재
+ * - 채널 설정 저장 시 updateChannelConfig 로 즉시 반영
+ */
 @Service
 public class BusinessHoursService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BusinessHoursService.class);
+
+    private static final String[] DAY_NAMES = {"월", "화", "수", "목", "금", "토", "일"};
+
     private final Optional<HolidayOverrideRepository> holidayRepo;
+    private final Optional<ChatChannelSettingRepository> channelSettingRepo;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Hours defaultHours;
+    private final int lookaheadDays;
 
-    // Configurable hours (could be moved to application.yml)
-    private final LocalTime start = LocalTime.of(9, 0);
-    private final LocalTime end = LocalTime.of(18, 0);
-    private final EnumSet<DayOfWeek> workdays = EnumSet.of(
-            DayOfWeek.MONDAY, DayOfWeek.TUESDAY, DayOfWeek.WEDNESDAY,
-            DayOfWeek.THURSDAY, DayOfWeek.FRIDAY);
+    // 휴무일(closed_yn = Y) 집합, 재적재 시 통째로 교체
+    private volatile Set<LocalDate> closedDates = Collections.emptySet();
+    // 채널별 운영시간 (설정 없는 채널은 기본 운영시간)
+    private final Map<Long, Hours> channelHours = new ConcurrentHashMap<>();
 
-    public BusinessHoursService(@Autowired(required = false) HolidayOverrideRepository holidayRepo) {
+    public BusinessHoursService(@Autowired(required = false) HolidayOverrideRepository holidayRepo,
+            @Autowired(required = false) ChatChannelSettingRepository channelSettingRepo,
+            @Value("${chat.business-hours.start:09:00}") String start,
+            @Value("${chat.business-hours.end:18:00}") String end,
+            @Value("${chat.business-hours.workdays:MON,TUE,WED,THU,FRI}") String workdays,
+            @Value("${chat.business-hours.lookahead-days:400}") int lookaheadDays) {
         this.holidayRepo = Optional.ofNullable(holidayRepo);
+        this.channelSettingRepo = Optional.ofNullable(channelSettingRepo);
+        this.defaultHours = new Hours(LocalTime.parse(start), LocalTime.parse(end), parseWorkdays(workdays.split(",")), null);
+        this.lookaheadDays = lookaheadDays;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        refresh();
+    }
+
+    /**
+     * 휴일/채널 운영시간 재적재. 실패한 항목은 기존 값을 유지한다.
+     */
+    public void refresh() {
+        refreshHolidays();
+        refreshChannelHours();
+    }
+
+    public void refreshHolidays() {
+        if (!holidayRepo.isPresent()) {
+            return;
+        }
+        try {
+            LocalDate today = LocalDate.now();
+            Set<LocalDate> loaded = new HashSet<>();
+            for (HolidayOverride h : holidayRepo.get().findByHolidayDateBetweenAndClosedYn(
+                    today.minusDays(7), today.plusDays(lookaheadDays), "Y")) {
+                loaded.add(h.getHolidayDate());
+            }
+            closedDates = Collections.unmodifiableSet(loaded);
+        } catch (Exception e) {
+            // If holiday table doesn't exist or any DB error, keep the previous calendar
+            logger.warn("Holiday calendar refresh failed, keeping previous calendar: {}", e.getMessage());
+        }
+    }
+
+    public void refreshChannelHours() {
+        if (!channelSettingRepo.isPresent()) {
+            return;
+        }
+        try {
+            Set<Long> seen = new HashSet<>();
+            for (ChatChannelSetting setting : channelSettingRepo.get().findAll()) {
+                seen.add(setting.getChannelId());
+                updateChannelConfig(setting.getChannelId(), setting.getConfig());
+            }
+            channelHours.keySet().retainAll(seen);
+        } catch (Exception e) {
+            logger.warn("Channel business hours refresh failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 채널 설정(JSON) 변경 반영. businessHours 항목이 없거나 잘못되면 기본 운영시간을 사용한다.
+     * 예) {"businessHours": {"start": "10:00", "end": "19:00", "workdays": ["MON","TUE"], "closedMessage": "..."}}
+     */
+    public void updateChannelConfig(Long channelId, String configJson) {
+        if (channelId == null) {
+            return;
+        }
+        Hours hours = parseHours(configJson);
+        if (hours == null) {
+            channelHours.remove(channelId);
+        } else {
+            channelHours.put(channelId, hours);
+        }
     }
 
     public boolean isOpen(LocalDateTime when) {
+        return isOpen(null, when);
+    }
+
+    public boolean isOpen(Long channelId, LocalDateTime when) {
+        Hours hours = hoursOf(channelId);
         LocalDate d = when.toLocalDate();
-        DayOfWeek dow = d.getDayOfWeek();
-        if (!workdays.contains(dow)) return false;
-        
-        // Holiday overrides (only if repository is available)
-        if (holidayRepo.isPresent()) {
-            try {
-                boolean overriddenClosed = holidayRepo.get().findByHolidayDate(d).stream()
-                        .anyMatch(h -> "Y".equalsIgnoreCase(h.getClosedYn()));
-                if (overriddenClosed) return false;
-            } catch (Exception e) {
-                // If holiday table doesn't exist or any DB error, just ignore holiday checks
-                System.err.println("Warning: Holiday override check failed, ignoring: " + e.getMessage());
+        if (!isWorkday(hours, d)) return false;
+        LocalTime t = when.toLocalTime();
+        return !t.isBefore(hours.start) && t.isBefore(hours.end);
+    }
+
+    /**
+     * 다음 운영 시작 시각. 이미 운영 중이면 when 을 그대로, 조회 범위 내에 없으면 null.
+     */
+    public LocalDateTime nextOpening(Long channelId, LocalDateTime when) {
+        Hours hours = hoursOf(channelId);
+        if (isOpen(channelId, when)) {
+            return when;
+        }
+        LocalDate d = when.toLocalDate();
+        if (isWorkday(hours, d) && when.toLocalTime().isBefore(hours.start)) {
+            return d.atTime(hours.start);
+        }
+        for (int i = 1; i <= lookaheadDays; i++) {
+            LocalDate next = d.plusDays(i);
+            if (isWorkday(hours, next)) {
+                return next.atTime(hours.start);
             }
         }
-        
-        LocalTime t = when.toLocalTime();
-        return !t.isBefore(start) && t.isBefore(end);
+        return null;
+    }
+
+    public String closedMessage(Long channelId) {
+        Hours hours = hoursOf(channelId);
+        if (hours.closedMessage != null && !hours.closedMessage.isEmpty()) {
+            return hours.closedMessage;
+        }
+        return "현재 운영시간(" + hours.describe() + ")이 아닙니다. 접수되었으며 운영시간에 답변드리겠습니다.";
     }
 
     public static class Status {
         private final boolean open;
         private final String message;
-        public Status(boolean open, String message) { this.open = open; this.message = message; }
+        private final LocalDateTime nextOpenAt;
+        public Status(boolean open, String message) { this(open, message, null); }
+        public Status(boolean open, String message, LocalDateTime nextOpenAt) {
+            this.open = open;
+            this.message = message;
+            this.nextOpenAt = nextOpenAt;
+        }
         public boolean isOpen() { return open; }
         public String getMessage() { return message; }
+        public LocalDateTime getNextOpenAt() { return nextOpenAt; }
     }
 
     public Status currentStatus() {
-        boolean openNow = isOpen(LocalDateTime.now());
-        String msg = openNow ? "영업시간입니다." : "현재 운영시간(평일 09:00~18:00)이 아닙니다. 접수되었으며 운영시간에 답변드리겠습니다.";
-        return new Status(openNow, msg);
+        return currentStatus(null);
+    }
+
+    public Status currentStatus(Long channelId) {
+        LocalDateTime now = LocalDateTime.now();
+        boolean openNow = isOpen(channelId, now);
+        String msg = openNow ? "영업시간입니다." : closedMessage(channelId);
+        return new Status(openNow, msg, openNow ? null : nextOpening(channelId, now));
+    }
+
+    private Hours hoursOf(Long channelId) {
+        if (channelId == null) {
+            return defaultHours;
+        }
+        Hours hours = channelHours.get(channelId);
+        return hours != null ? hours : defaultHours;
     }
-}
 
+    private boolean isWorkday(Hours hours, LocalDate d) {
+        return hours.workdays.contains(d.getDayOfWeek()) && !closedDates.contains(d);
+    }
 
+    private Hours parseHours(String configJson) {
+        if (configJson == null || configJson.isEmpty()) {
+            return null;
+        }
+        try {
+            JsonNode node = objectMapper.readTree(configJson).path("businessHours");
+            if (!node.isObject()) {
+                return null;
+            }
+            LocalTime start = node.hasNonNull("start") ? LocalTime.parse(node.get("start").asText()) : defaultHours.start;
+            LocalTime end = node.hasNonNull("end") ? LocalTime.parse(node.get("end").asText()) : defaultHours.end;
+            if (!start.isBefore(end)) {
+                return null;
+            }
+            EnumSet<DayOfWeek> workdays = defaultHours.workdays;
+            JsonNode days = node.path("workdays");
+            if (days.isArray() && days.size() > 0) {
+                String[] names = new String[days.size()];
+                for (int i = 0; i < days.size(); i++) {
+                    names[i] = days.get(i).asText();
+                }
+                EnumSet<DayOfWeek> parsed = parseWorkdays(names);
+                // 하나도 알아볼 수 없으면 매일 휴무가 되지 않도록 기본 요일 유지
+                if (!parsed.isEmpty()) {
+                    workdays = parsed;
+                }
+            }
+            String closedMessage = node.hasNonNull("closedMessage") ? node.get("closedMessage").asText() : null;
+            return new Hours(start, end, workdays, closedMessage);
+        } catch (Exception e) {
+            logger.debug("Invalid channel businessHours config ignored: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 요일 목록 파싱. 3글자 약어(MON) 또는 전체 이름(MONDAY)만 허용하고, 모르는 값은 경고 후 무시한다
+     * (접두사 매칭을 하면 "T" 가 화/목, "S" 가 토/일을 함께 켠다)
+     */
+    static EnumSet<DayOfWeek> parseWorkdays(String[] names) {
+        EnumSet<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+        for (String name : names) {
+            String n = name.trim().toUpperCase(Locale.ROOT);
+            if (n.isEmpty()) {
+                continue;
+            }
+            DayOfWeek matched = null;
+            for (DayOfWeek dow : DayOfWeek.values()) {
+                if (dow.name().equals(n) || dow.name().substring(0, 3).equals(n)) {
+                    matched = dow;
+                    break;
+                }
+            }
+            if (matched != null) {
+                days.add(matched);
+            } else {
+                logger.warn("Unknown business-hours workday ignored: '{}' (use MON..SUN or MONDAY..SUNDAY)", name);
+            }
+        }
+        return days;
+    }
+
+    private static final class Hours {
+        private final LocalTime start;
+        private final LocalTime end;
+        private final EnumSet<DayOfWeek> workdays;
+        private final String closedMessage;
+
+        private Hours(LocalTime start, LocalTime end, EnumSet<DayOfWeek> workdays, String closedMessage) {
+            this.start = start;
+            this.end = end;
+            this.workdays = workdays;
+            this.closedMessage = closedMessage;
+        }
+
+        private String describe() {
+            String days;
+            if (workdays.size() == 7) {
+                days = "매일";
+            } else if (workdays.equals(EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY))) {
+                days = "평일";
+            } else {
+                StringBuilder sb = new StringBuilder();
+                for (DayOfWeek dow : workdays) {
+                    if (sb.length() > 0) sb.append('·');
+                    sb.append(DAY_NAMES[dow.getValue() - 1]);
+                }
+                days = sb.toString();
+            }
+            return days + " " + start + "~" + end;
+        }
+    }
+}
@@ -1,11 +1,18 @@
 package cms.config;
 
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.actuate.health.Health;
 import org.springframework.boot.actuate.health.HealthIndicator;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
 import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
 import org.springframework.stereotype.Component;
@@ -14,7 +21,9 @@ import javax.sql.DataSource;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
 public class PerformanceMonitoringConfig {
@@ -35,6 +44,21 @@ public class PerformanceMonitoringConfig {
         return new DatabaseHealthIndicator(dataSource);
     }
 
+    /**
+     * STOMP 채널 실행기(inbound/outbound/broker) 큐 적체 및 활성 스레드 메트릭
+     */
+    @Bean
+    public MeterBinder stompChannelExecutorMetrics(
+            @Qualifier("clientInboundChannelExecutor") ObjectProvider<ThreadPoolTaskExecutor> inbound,
+            @Qualifier("clientOutboundChannelExecutor") ObjectProvider<ThreadPoolTaskExecutor> outbound,
+            @Qualifier("brokerChannelExecutor") ObjectProvider<ThreadPoolTaskExecutor> broker) {
+        Map<String, ObjectProvider<ThreadPoolTaskExecutor>> executors = new LinkedHashMap<>();
+        executors.put("inbound", inbound);
+        executors.put("outbound", outbound);
+        executors.put("broker", broker);
+        return new StompChannelExecutorMetrics(executors);
+    }
+
     /**
      * 개발환경용 커스텀 메트릭 엔드포인트
      */
@@ -106,6 +130,49 @@ public class PerformanceMonitoringConfig {
         }
     }
 
+    /**
+     * STOMP 채널 실행기 메트릭 (chat.stomp.executor.*{channel})
+     */
+    public static class StompChannelExecutorMetrics implements MeterBinder {
+        private final Map<String, ObjectProvider<ThreadPoolTaskExecutor>> executors;
+
+        public StompChannelExecutorMetrics(Map<String, ObjectProvider<ThreadPoolTaskExecutor>> executors) {
+            this.executors = executors;
+        }
+
+        @Override
+        public void bindTo(MeterRegistry registry) {
+            executors.forEach((channel, provider) -> {
+                ThreadPoolTaskExecutor executor = provider.getIfAvailable();
+                if (executor == null) {
+                    return;
+                }
+                Gauge.builder("chat.stomp.executor.queued", executor, e -> pool(e) != null ? pool(e).getQueue().size() : 0)
+                        .tag("channel", channel)
+                        .register(registry);
+                Gauge.builder("chat.stomp.executor.active", executor, e -> pool(e) != null ? pool(e).getActiveCount() : 0)
+                        .tag("channel", channel)
+                        .register(registry);
+                Gauge.builder("chat.stomp.executor.pool.size", executor, e -> pool(e) != null ? pool(e).getPoolSize() : 0)
+                        .tag("channel", channel)
+                        .register(registry);
+                FunctionCounter.builder("chat.stomp.executor.completed", executor,
+                                e -> pool(e) != null ? pool(e).getCompletedTaskCount() : 0)
+                        .tag("channel", channel)
+                        .register(registry);
+            });
+        }
+
+        private static ThreadPoolExecutor pool(ThreadPoolTaskExecutor executor) {
+            try {
+                return executor.getThreadPoolExecutor();
+            } catch (IllegalStateException e) {
+                // 아직 초기화되지 않았거나 종료됨
+                return null;
+            }
+        }
+    }
+
     /**
      * 데이터베이스 헬스 체크
      */
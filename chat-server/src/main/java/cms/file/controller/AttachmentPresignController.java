@@ -1,18 +1,28 @@
 package cms.file.controller;
 
 import cms.common.dto.ApiResponseSchema;
+import cms.common.util.IpUtil;
 import cms.file.dto.FileDto;
 import cms.file.entity.CmsFile;
 import cms.file.repository.FileRepository;
+import cms.file.service.ChunkedUploadService;
+import cms.file.service.FileService;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -20,6 +30,14 @@ import java.util.Optional;
  * Lightweight presign API facade to integrate frontend without external object storage.
  * - Upload uses existing /cms/file/public/upload (multipart/form-data)
  * - Complete resolves the latest uploaded file by (menu, menuId, originName)
+ * - Presign with checksum (sha256:<hex>) + size: if the same content is already stored as a public file or a file
+ *   the caller uploaded, a file row referencing the existing blob is created and returned with uploadRequired=false
+ *   (bind it via /cms/file/private/attach). Otherwise the bytes must be uploaded, so a hash alone never grants access
+ * - Presign with size also opens a chunked upload session ("upload"): PUT each fixed-size part to
+ *   /attachments/uploads/{uploadId}/parts/{partNo} (any order, in parallel), GET /attachments/uploads/{uploadId}
+ *   to resume after a disconnect, then complete with uploadId (SHA-256 verified against the declared checksum,
+ *   which is required either in presign or in complete). Sessions belong to the caller that opened them and
+ *   the number of open sessions per caller is limited
  */
 @RestController
 @RequestMapping("/attachments")
@@ -28,6 +46,8 @@ import java.util.Optional;
 public class AttachmentPresignController {
 
     private final FileRepository fileRepository;
+    private final FileService fileService;
+    private final ChunkedUploadService chunkedUploadService;
 
     @Data
     public static class PresignRequest {
@@ -56,7 +76,20 @@ public class AttachmentPresignController {
             return ResponseEntity.badRequest().body(ApiResponseSchema.error("menuId is required", "VALIDATION_ERR"));
         }
 
+        if (req.getChecksum() != null && req.getSize() != null) {
+            // Same content already stored: reference the existing blob instead of uploading again
+            CmsFile existing = fileService.attachExistingBlob(req.getScope(), req.getMenuId(), req.getFileName(),
+                    req.getContentType(), req.getChecksum(), req.getSize());
+            if (existing != null) {
+                Map<String, Object> body = new HashMap<>();
+                body.put("uploadRequired", false);
+                body.put("file", toDto(existing));
+                return ResponseEntity.ok(ApiResponseSchema.success(body, "ok"));
+            }
+        }
+
         Map<String, Object> body = new HashMap<>();
+        body.put("uploadRequired", true);
         body.put("method", "POST");
         // Reuse existing upload endpoint
         body.put("uploadUrl", "/api/v1/cms/file/public/upload");
@@ -71,9 +104,88 @@ public class AttachmentPresignController {
         body.put("expiresAt", Instant.now().plus(10, ChronoUnit.MINUTES).toString());
         body.put("maxSize", 50 * 1024 * 1024); // 50MB
 
+        if (req.getSize() != null) {
+            try {
+                ChunkedUploadService.Session session = chunkedUploadService.begin(req.getScope(), req.getMenuId(),
+                        req.getFileName(), req.getContentType(), req.getSize(), req.getChecksum(),
+                        currentUser(), IpUtil.getClientIp());
+                body.put("upload", toUploadBody(session, Collections.emptyList()));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(ApiResponseSchema.error(e.getMessage(), "VALIDATION_ERR"));
+            } catch (IllegalStateException e) {
+                return ResponseEntity.status(429).body(ApiResponseSchema.error(e.getMessage(), "UPLOAD_LIMIT_ERR"));
+            }
+        }
+
         return ResponseEntity.ok(ApiResponseSchema.success(body, "ok"));
     }
 
+    /**
+     * Writes one part straight from the request body to its offset in the session's temp file.
+     * Re-sending a part overwrites it, so a client can retry or resume any part independently.
+     */
+    @PutMapping("/uploads/{uploadId}/parts/{partNo}")
+    public ResponseEntity<?> uploadPart(@PathVariable String uploadId, @PathVariable int partNo,
+                                        HttpServletRequest request) {
+        try {
+            chunkedUploadService.writePart(uploadId, currentUser(), partNo, request.getInputStream(),
+                    request.getContentLengthLong());
+            Map<String, Object> body = new HashMap<>();
+            body.put("uploadId", uploadId);
+            body.put("partNo", partNo);
+            return ResponseEntity.ok(ApiResponseSchema.success(body, "ok"));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponseSchema.error(e.getMessage(), "VALIDATION_ERR"));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409).body(ApiResponseSchema.error(e.getMessage(), "UPLOAD_STATE_ERR"));
+        } catch (IOException e) {
+            // 클라이언트 연결 끊김 등: 이 파트는 기록되지 않았으므로 다시 보내면 된다
+            log.warn("Part upload interrupted (uploadId={}, partNo={}): {}", uploadId, partNo, e.getMessage());
+            return ResponseEntity.status(500).body(ApiResponseSchema.error("Part upload interrupted, retry the part", "UPLOAD_INTERRUPTED"));
+        }
+    }
+
+    @GetMapping("/uploads/{uploadId}")
+    public ResponseEntity<?> uploadStatus(@PathVariable String uploadId) {
+        ChunkedUploadService.Session session = chunkedUploadService.find(uploadId, currentUser());
+        if (session == null) {
+            return ResponseEntity.status(404).body(ApiResponseSchema.error("Upload session not found", "UPLOAD_NOT_FOUND"));
+        }
+        return ResponseEntity.ok(ApiResponseSchema.success(
+                toUploadBody(session, chunkedUploadService.receivedParts(uploadId)), "ok"));
+    }
+
+    @DeleteMapping("/uploads/{uploadId}")
+    public ResponseEntity<?> abortUpload(@PathVariable String uploadId) {
+        try {
+            if (!chunkedUploadService.abort(uploadId, currentUser())) {
+                return ResponseEntity.status(404).body(ApiResponseSchema.error("Upload session not found", "UPLOAD_NOT_FOUND"));
+            }
+            return ResponseEntity.ok(ApiResponseSchema.success(uploadId, "ok"));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409).body(ApiResponseSchema.error(e.getMessage(), "UPLOAD_STATE_ERR"));
+        } catch (IOException e) {
+            return ResponseEntity.status(500).body(ApiResponseSchema.error("Could not abort upload", "INTERNAL_SERVER_ERR"));
+        }
+    }
+
+    private Map<String, Object> toUploadBody(ChunkedUploadService.Session session, List<Integer> received) {
+        Map<String, Object> upload = new HashMap<>();
+        upload.put("uploadId", session.getUploadId());
+        upload.put("status", session.getStatus());
+        upload.put("size", session.getSize());
+        upload.put("partSize", session.getPartSize());
+        upload.put("partCount", session.getPartCount());
+        upload.put("partUrl", "/api/v1/attachments/uploads/" + session.getUploadId() + "/parts/{partNo}");
+        upload.put("receivedParts", received);
+        upload.put("nextOffset", chunkedUploadService.nextOffset(session, received));
+        upload.put("expiresAt", session.getExpiresAt().toString());
+        if (session.getFileId() != null) {
+            upload.put("fileId", session.getFileId());
+        }
+        return upload;
+    }
+
     @Data
     public static class CompleteRequest {
         private String storageKey;
@@ -83,10 +195,27 @@ public class AttachmentPresignController {
         private String scope;
         private Long menuId;
         private String checksum;
+        private String uploadId; // chunked upload session (presign "upload.uploadId")
     }
 
     @PostMapping("/complete")
     public ResponseEntity<?> complete(@RequestBody CompleteRequest req) {
+        if (req.getUploadId() != null) {
+            try {
+                CmsFile uploaded = chunkedUploadService.complete(req.getUploadId(), currentUser(), req.getChecksum());
+                if (uploaded == null) {
+                    return ResponseEntity.status(404).body(ApiResponseSchema.error("Upload session not found", "UPLOAD_NOT_FOUND"));
+                }
+                return ResponseEntity.ok(ApiResponseSchema.success(toDto(uploaded), "ok"));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(ApiResponseSchema.error(e.getMessage(), "VALIDATION_ERR"));
+            } catch (IllegalStateException e) {
+                return ResponseEntity.status(409).body(ApiResponseSchema.error(e.getMessage(), "UPLOAD_STATE_ERR"));
+            } catch (IOException e) {
+                log.error("Failed to complete upload {}", req.getUploadId(), e);
+                return ResponseEntity.status(500).body(ApiResponseSchema.error("Could not complete upload", "INTERNAL_SERVER_ERR"));
+            }
+        }
         if (req.getFileName() == null || req.getFileName().isEmpty() || req.getScope() == null || req.getMenuId() == null) {
             return ResponseEntity.badRequest().body(ApiResponseSchema.error("fileName, scope, menuId are required", "VALIDATION_ERR"));
         }
@@ -96,7 +225,21 @@ public class AttachmentPresignController {
         if (latest.isEmpty()) {
             return ResponseEntity.status(404).body(ApiResponseSchema.error("Uploaded file not found yet. Retry shortly.", "FILE_NOT_FOUND"));
         }
-        CmsFile f = latest.get();
+        return ResponseEntity.ok(ApiResponseSchema.success(toDto(latest.get()), "ok"));
+    }
+
+    /**
+     * 업로드 세션 owner: 인증된 사용자 이름, 익명이면 null
+     */
+    private static String currentUser() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !auth.isAuthenticated() || auth instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return auth.getName();
+    }
+
+    private static FileDto toDto(CmsFile f) {
         FileDto dto = new FileDto();
         dto.setFileId(f.getFileId());
         dto.setOriginName(f.getOriginName());
@@ -108,7 +251,7 @@ public class AttachmentPresignController {
         if (f.getMimeType() != null && f.getMimeType().startsWith("image/")) {
             dto.setViewUrl("/api/v1/cms/file/public/view/" + f.getFileId());
         }
-        return ResponseEntity.ok(ApiResponseSchema.success(dto, "ok"));
+        return dto;
     }
 
     @Data
@@ -126,7 +269,7 @@ public class AttachmentPresignController {
         }
         if (f == null && req.getStorageKey() != null) {
             // savedName maps to storageKey in local storage scenario
-            f = fileRepository.findBySavedName(req.getStorageKey());
+            f = fileRepository.findFirstBySavedNameOrderByFileIdDesc(req.getStorageKey());
         }
         if (f == null) {
             return ResponseEntity.status(404).body(ApiResponseSchema.error("File not found", "FILE_NOT_FOUND"));
@@ -1,33 +1,32 @@
 package cms.file.controller;
 
 import cms.common.dto.ApiResponseSchema;
+import cms.common.dto.CursorPageResponse;
 import cms.file.dto.FileDto;
 import cms.chat.service.ChatService;
 import cms.chat.repository.ChatThreadRepository;
 import cms.chat.domain.ChatThread;
 import cms.file.entity.CmsFile;
+import cms.file.service.FileDerivativeService;
 import cms.file.service.FileService;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.Resource;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import javax.persistence.EntityNotFoundException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
-import java.net.URLEncoder;
-import java.nio.charset.StandardCharsets;
-import java.io.IOException;
 
 @RestController
 @RequestMapping("/cms/file")
@@ -40,6 +39,8 @@ public class FileController {
     private final ChatService chatService;
     private final ChatThreadRepository chatThreadRepository;
     private final SimpMessagingTemplate messagingTemplate;
+    private final FileResponseWriter fileResponseWriter;
+    private final FileDerivativeService fileDerivativeService;
 
     private FileDto convertToDto(CmsFile file) {
         FileDto dto = new FileDto();
@@ -365,6 +366,29 @@ public class FileController {
     }
 
     // 공개 API
+    /**
+     * 고아 파일 dry-run 보고 (삭제하지 않음). 메뉴별 건수/용량/샘플 file_id
+     */
+    @GetMapping("/private/orphans/report")
+    @PreAuthorize("hasAnyRole('ADMIN', 'SYSTEM_ADMIN')")
+    public ResponseEntity<ApiResponseSchema<?>> reportOrphanedFiles(
+            @RequestParam(defaultValue = "ARTICLE_ATTACHMENT,EDITOR_EMBEDDED_MEDIA,POPUP_CONTENT,ENTERPRISE_IMAGE,CHAT,"
+                    + FileDerivativeService.VARIANT_MENU) List<String> menuTypes) {
+        try {
+            return ResponseEntity.ok(ApiResponseSchema.success(
+                fileService.cleanupOrphanedFiles(menuTypes, true),
+                "Orphaned file report generated successfully"
+            ));
+        } catch (Exception e) {
+            log.error("Failed to report orphaned files for menuTypes: {}", menuTypes, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(ApiResponseSchema.error(
+                    "Failed to report orphaned files: " + e.getMessage(),
+                    "INTERNAL_SERVER_ERR"
+                ));
+        }
+    }
+
     @GetMapping("/public/list")
     public ResponseEntity<ApiResponseSchema<?>> getPublicFileList(
             @RequestParam String menu,
@@ -390,7 +414,26 @@ public class FileController {
      * 내부적으로 threadId 목록을 조회한 뒤 file(menu='CHAT', menuId in threadIds)을 합쳐서 내려줍니다.
      */
     @GetMapping("/private/list-by-channel")
-    public ResponseEntity<ApiResponseSchema<?>> listFilesByChannel(@RequestParam Long channelId) {
+    public ResponseEntity<ApiResponseSchema<?>> listFilesByChannel(@RequestParam Long channelId,
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String type) {
+        // 첨부 탭 페이지 모드: cursor/size/type 중 하나라도 있으면 단일 조인 쿼리로 keyset 페이지 반환
+        if (cursor != null || size != null || type != null) {
+            try {
+                int limit = size == null ? 30 : Math.max(1, Math.min(size, 100));
+                CursorPageResponse<FileDto> page = fileService.getChannelAttachments(channelId, cursor, limit, type)
+                        .map(this::convertToDto);
+                return ResponseEntity.ok(ApiResponseSchema.success(page, "ok"));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest()
+                        .body(ApiResponseSchema.error(e.getMessage(), "INVALID_FILE_TYPE"));
+            } catch (Exception e) {
+                log.error("Failed list-by-channel page, channelId={}", channelId, e);
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body(ApiResponseSchema.error("Failed to list files by channel: " + e.getMessage(), "INTERNAL_SERVER_ERR"));
+            }
+        }
         try {
             // 채널에 속한 스레드 조회
             cms.chat.domain.ChatChannel channel = chatService.getChannelById(channelId);
@@ -403,18 +446,8 @@ public class FileController {
                 return ResponseEntity.ok(ApiResponseSchema.success(new ArrayList<>(), "No threads for channel"));
             }
             List<Long> threadIds = threads.stream().map(ChatThread::getId).collect(Collectors.toList());
-            // FileService에 헬퍼가 없으면 단건 반복 조회로 대체(규모가 크면 별도 repo 쿼리 추가)
-            List<CmsFile> all = new ArrayList<>();
-            for (Long tid : threadIds) {
-                List<CmsFile> list = fileService.getList("CHAT", tid, null);
-                if (list != null && !list.isEmpty()) all.addAll(list);
-            }
-            // 최신순(업데이트일시, 없으면 createdDate) 정렬
-            all.sort((a, b) -> {
-                java.time.LocalDateTime la = a.getUpdatedDate() != null ? a.getUpdatedDate() : a.getCreatedDate();
-                java.time.LocalDateTime lb = b.getUpdatedDate() != null ? b.getUpdatedDate() : b.getCreatedDate();
-                return lb.compareTo(la);
-            });
+            // 스레드별 반복 조회 대신 IN 쿼리 한 번 (최신순 정렬 포함)
+            List<CmsFile> all = fileService.getListByMenuIds("CHAT", threadIds);
             return ResponseEntity.ok(ApiResponseSchema.success(convertToDtoList(all), "ok"));
         } catch (Exception e) {
             log.error("Failed list-by-channel, channelId={}", channelId, e);
@@ -456,8 +489,9 @@ public class FileController {
         }
     }
 
-    // Helper method to build ResponseEntity for file serving
-    private ResponseEntity<?> buildFileResponse(Long fileId, boolean inlineDisposition) {
+    // Helper method for file serving: 본문은 FileResponseWriter 가 응답에 직접 쓰고(Range/ETag/sendfile) null 을 반환
+    private ResponseEntity<?> buildFileResponse(Long fileId, boolean inlineDisposition, String variant,
+                                                HttpServletRequest request, HttpServletResponse response) {
         try {
             CmsFile fileInfo = fileService.getFile(fileId);
             if (fileInfo == null || !"Y".equals(fileInfo.getPublicYn())) {
@@ -466,46 +500,19 @@ public class FileController {
                         .body(ApiResponseSchema.error("File not found or not public.", "FILE_NOT_FOUND"));
             }
 
-            Resource resource = fileService.loadFileAsResource(fileInfo.getSavedName());
-
-            String contentType = fileInfo.getMimeType();
-        try {
-                if (contentType == null || contentType.equals(MediaType.APPLICATION_OCTET_STREAM_VALUE)) {
-                    contentType = java.nio.file.Files.probeContentType(resource.getFile().toPath());
-                }
-            } catch (IOException | UnsupportedOperationException ex) { // Added UnsupportedOperationException for certain Resource types
-                log.info("Could not determine file type for {} via probeContentType. Relying on stored MIME type or defaulting. Error: {}", fileInfo.getSavedName(), ex.getMessage());
-                // Keep stored contentType if probe fails or is not supported
+            CmsFile served = fileInfo;
+            boolean pending = false;
+            if (variant != null && FileDerivativeService.isSupportedVariant(variant)) {
+                served = fileDerivativeService.resolve(fileInfo, variant);
+                pending = served == fileInfo && fileDerivativeService.isPending(fileId, variant);
             }
-            if (contentType == null) { // Still null after probe or if probe failed
-                contentType = MediaType.APPLICATION_OCTET_STREAM_VALUE;
-            }
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.parseMediaType(contentType));
 
-            String encodedFileName = URLEncoder.encode(fileInfo.getOriginName(), StandardCharsets.UTF_8.toString()).replaceAll("\\+", "%20");
-
-            if (inlineDisposition) {
-                headers.setContentDispositionFormData("inline", encodedFileName);
-            } else {
-                headers.setContentDispositionFormData("attachment", encodedFileName);
+            if (!fileResponseWriter.write(served, inlineDisposition, pending, request, response)) {
+                log.warn("Stored file missing for fileId: {} ({})", fileId, fileInfo.getSavedName());
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(ApiResponseSchema.error("File not found with id: " + fileId, "FILE_NOT_FOUND"));
             }
-            
-            // Add Cache-Control header to prevent caching of sensitive files if needed, or allow caching for public images
-            // For example, for public images that change infrequently:
-            // headers.setCacheControl(CacheControl.maxAge(3600, TimeUnit.SECONDS).mustRevalidate().cachePublic());
-            // For downloads or sensitive files:
-            // headers.setCacheControl(CacheControl.noCache().noStore().mustRevalidate());
-            // For now, let's use a general no-cache for simplicity, adjust as needed.
-            headers.setCacheControl("no-cache, no-store, must-revalidate");
-            headers.setPragma("no-cache");
-            headers.setExpires(0L);
-
-
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .body(resource);
+            return null;
 
         } catch (EntityNotFoundException e) {
             log.warn("File not found, fileId: {}", fileId, e);
@@ -518,15 +525,19 @@ public class FileController {
         }
     }
 
+    // variant=thumb|preview: 축소본 (생성 전이면 원본으로 대신 응답)
     @GetMapping("/public/view/{fileId}")
-    public ResponseEntity<?> viewPublicFile(@PathVariable Long fileId) {
-        log.debug("Request to view file with ID: {}", fileId);
-        return buildFileResponse(fileId, true); // true for inline disposition
+    public ResponseEntity<?> viewPublicFile(@PathVariable Long fileId,
+                                            @RequestParam(value = "variant", required = false) String variant,
+                                            HttpServletRequest request, HttpServletResponse response) {
+        log.debug("Request to view file with ID: {} (variant: {})", fileId, variant);
+        return buildFileResponse(fileId, true, variant, request, response); // true for inline disposition
     }
 
     @GetMapping("/public/download/{fileId}")
-    public ResponseEntity<?> downloadPublicFile(@PathVariable Long fileId) {
+    public ResponseEntity<?> downloadPublicFile(@PathVariable Long fileId,
+                                                HttpServletRequest request, HttpServletResponse response) {
         log.debug("Request to download file with ID: {}", fileId);
-        return buildFileResponse(fileId, false); // false for attachment disposition
+        return buildFileResponse(fileId, false, null, request, response); // false for attachment disposition
     }
 } 
\ No newline at end of file
@@ -0,0 +1,200 @@
+package cms.file.controller;
+
+import cms.file.entity.CmsFile;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * 파일 본문 전송 (공개 view/download).
+ * - 강한 ETag(파일 id, 버전, 크기, 저장명) + Last-Modified 로 If-None-Match / If-Modified-Since 304 처리
+ * - 단일 Range 요청은 206, 범위 밖이면 416 (다중 범위는 전체 200 으로 응답)
+ * - Tomcat sendfile 을 지원하면 커널이 직접 전송(힙 버퍼 미사용), 아니면 FileChannel.transferTo 로 스트리밍
+ * - 캐시 정책: publicYn=Y 는 public max-age, 그 외는 private no-cache (ETag 재검증)
+ */
+@Component
+public class FileResponseWriter {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final Path basePath;
+    private final long publicMaxAgeSeconds;
+    private final long sendfileMinBytes;
+
+    public FileResponseWriter(@Value("${spring.file.storage.local.base-path}") String basePath,
+                              @Value("${spring.file.serve.public-max-age-seconds:86400}") long publicMaxAgeSeconds,
+                              @Value("${spring.file.serve.sendfile-min-bytes:49152}") long sendfileMinBytes) {
+        this.basePath = Paths.get(basePath).toAbsolutePath().normalize();
+        this.publicMaxAgeSeconds = publicMaxAgeSeconds;
+        this.sendfileMinBytes = sendfileMinBytes;
+    }
+
+    /**
+     * 파일을 응답에 직접 쓴다. 저장 파일이 없으면 false (호출측에서 404 처리)
+     */
+    public boolean write(CmsFile fileInfo, boolean inline, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        return write(fileInfo, inline, false, request, response);
+    }
+
+    /**
+     * revalidate 이면 공개 파일도 매번 재검증 (파생본 생성 전 원본으로 대신 응답할 때)
+     */
+    public boolean write(CmsFile fileInfo, boolean inline, boolean revalidate,
+                         HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Path path = basePath.resolve(fileInfo.getSavedName()).normalize();
+        if (!path.startsWith(basePath)) {
+            return false;
+        }
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+        if (!attrs.isRegularFile()) {
+            return false;
+        }
+        long length = attrs.size();
+        String etag = etag(fileInfo, length);
+        long lastModified = lastModified(fileInfo, attrs);
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, !revalidate && "Y".equals(fileInfo.getPublicYn())
+                ? "public, max-age=" + publicMaxAgeSeconds
+                : "private, no-cache");
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        // If-None-Match / If-Modified-Since (+ If-Match / If-Unmodified-Since) 처리, 304/412 면 본문 없이 종료
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return true;
+        }
+
+        response.setContentType(contentType(fileInfo));
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.builder(inline ? "inline" : "attachment")
+                        .filename(fileInfo.getOriginName(), StandardCharsets.UTF_8)
+                        .build().toString());
+
+        long start = 0;
+        long end = length - 1;
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && length > 0 && ifRangeMatches(request, etag, lastModified)) {
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(rangeHeader);
+            } catch (IllegalArgumentException e) {
+                ranges = null;
+            }
+            if (ranges == null || ranges.isEmpty() || !satisfiable(ranges.get(0), length)) {
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                return true;
+            }
+            if (ranges.size() == 1) {
+                start = ranges.get(0).getRangeStart(length);
+                end = ranges.get(0).getRangeEnd(length);
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+        long count = end - start + 1;
+        response.setContentLengthLong(Math.max(0, count));
+        if ("HEAD".equalsIgnoreCase(request.getMethod()) || count <= 0) {
+            return true;
+        }
+
+        if (count >= sendfileMinBytes && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // 서블릿 반환 후 Tomcat 이 sendfile(2) 로 전송
+            request.setAttribute(SENDFILE_FILENAME, path.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return true;
+        }
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long sent = file.transferTo(position, remaining, out);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+        return true;
+    }
+
+    private static String etag(CmsFile fileInfo, long length) {
+        return "\"" + Long.toHexString(fileInfo.getFileId())
+                + "-" + (fileInfo.getVersion() != null ? fileInfo.getVersion() : 1)
+                + "-" + Long.toHexString(length)
+                + "-" + Integer.toHexString(fileInfo.getSavedName().hashCode()) + "\"";
+    }
+
+    private static long lastModified(CmsFile fileInfo, BasicFileAttributes attrs) {
+        LocalDateTime updated = fileInfo.getUpdatedDate() != null ? fileInfo.getUpdatedDate() : fileInfo.getCreatedDate();
+        long fromDb = updated != null ? updated.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : 0;
+        return Math.max(fromDb, attrs.lastModifiedTime().toMillis());
+    }
+
+    private static String contentType(CmsFile fileInfo) {
+        String contentType = fileInfo.getMimeType();
+        if (contentType == null || contentType.equals(MediaType.APPLICATION_OCTET_STREAM_VALUE)) {
+            // 요청마다 파일을 열어보는 probeContentType 대신 확장자 기반 매핑
+            contentType = MediaTypeFactory.getMediaType(fileInfo.getOriginName())
+                    .map(MediaType::toString)
+                    .orElse(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        }
+        return contentType;
+    }
+
+    private static boolean satisfiable(HttpRange range, long length) {
+        long start = range.getRangeStart(length);
+        return start < length && start <= range.getRangeEnd(length);
+    }
+
+    /**
+     * If-Range 가 없거나 현재 ETag/수정 시각과 일치할 때만 Range 를 적용한다.
+     */
+    private static boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag);
+        }
+        try {
+            long date = request.getDateHeader(HttpHeaders.IF_RANGE);
+            return date >= 0 && lastModified / 1000 <= date / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
@@ -29,7 +29,7 @@ public class CmsFile {
     @Column(name = "origin_name", nullable = false, length = 255)
     private String originName;
 
-    @Column(name = "saved_name", nullable = false, length = 255, unique = true)
+    @Column(name = "saved_name", nullable = false, length = 255)
     private String savedName;
 
     @Column(name = "mime_type", nullable = false, length = 100)
@@ -41,6 +41,10 @@ public class CmsFile {
     @Column(name = "ext", nullable = false, length = 20)
     private String ext;
 
+    // file_blob 참조 (SHA-256 hex), NULL 이면 이 행 전용 파일
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
     @Column(name = "version")
     private Integer version = 1;
 
@@ -53,7 +57,11 @@ public class CmsFile {
     @Column(name = "message_id")
     private Long messageId;
 
-    @Column(name = "created_by", length = 36)
+    // 파생본 종류 (thumb, preview), 원본은 NULL
+    @Column(name = "variant", length = 20)
+    private String variant;
+
+    @Column(name = "created_by", length = 50)
     private String createdBy;
 
     @Column(name = "created_ip", length = 45)
@@ -1,12 +1,14 @@
 package cms.file.repository;
 
 import cms.file.entity.CmsFile;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -37,9 +39,25 @@ public interface FileRepository extends JpaRepository<CmsFile, Long>, JpaSpecifi
 
         List<CmsFile> findByMenuAndMenuId(String menu, Long menuId);
 
+        Optional<CmsFile> findFirstByMenuAndMenuIdAndVariant(String menu, Long menuId, String variant);
+
+        // 같은 원본 내용(content_hash)에서 이미 만든 파생본 (중복 업로드의 파생본 재사용)
+        @Query("SELECT v FROM CmsFile v, CmsFile p WHERE v.menu = 'FILE_VARIANT' AND v.menuId = p.fileId " +
+               "AND p.contentHash = :contentHash AND v.variant = :variant AND v.contentHash IS NOT NULL " +
+               "ORDER BY v.fileId DESC")
+        List<CmsFile> findVariantsByParentContentHash(@Param("contentHash") String contentHash,
+                        @Param("variant") String variant,
+                        Pageable pageable);
+
         List<CmsFile> findByMenuAndMenuIdAndPublicYn(String menu, Long menuId, String publicYn);
 
-        CmsFile findBySavedName(String savedName);
+        // presign 업로드 생략 허용: 같은 내용의 공개 파일이나 owner 가 올린 파일 수 (owner 가 null 이면 공개 파일만)
+        @Query("SELECT COUNT(f) FROM CmsFile f WHERE f.contentHash = :contentHash " +
+               "AND (f.publicYn = 'Y' OR f.createdBy = :owner)")
+        long countReusableByContentHash(@Param("contentHash") String contentHash, @Param("owner") String owner);
+
+        // 중복 제거된 blob 은 여러 행이 같은 saved_name 을 공유한다
+        CmsFile findFirstBySavedNameOrderByFileIdDesc(String savedName);
 
         List<CmsFile> findByMenuIn(List<String> menuTypes);
 
@@ -49,4 +67,27 @@ public interface FileRepository extends JpaRepository<CmsFile, Long>, JpaSpecifi
 
         // Attachments by message
         List<CmsFile> findByMessageId(Long messageId);
+
+        // 메시지 페이지 단위 첨부 일괄 조회
+        @Query("SELECT f FROM CmsFile f WHERE f.messageId IN :messageIds ORDER BY f.messageId ASC, f.fileOrder ASC, f.fileId ASC")
+        List<CmsFile> findByMessageIdIn(@Param("messageIds") Collection<Long> messageIds);
+
+        // 여러 리소스(menuId) 파일 일괄 조회, 최신순
+        @Query("SELECT f FROM CmsFile f WHERE f.menu = :menu AND f.menuId IN :menuIds " +
+               "ORDER BY COALESCE(f.updatedDate, f.createdDate) DESC, f.fileId DESC")
+        List<CmsFile> findByMenuAndMenuIdIn(@Param("menu") String menu, @Param("menuIds") Collection<Long> menuIds);
+
+        // 채널 첨부 탭: CHAT 파일(menuId = threadId)을 채널 기준으로 fileId 내림차순 keyset 조회
+        @Query("SELECT f FROM CmsFile f, ChatThread t " +
+               "WHERE f.menu = 'CHAT' AND f.menuId = t.id AND t.channel.id = :channelId " +
+               "AND (:cursor IS NULL OR f.fileId < :cursor) " +
+               "AND (:mimePrefix IS NULL OR f.mimeType LIKE CONCAT(:mimePrefix, '%')) " +
+               "AND (:documentsOnly = false OR (f.mimeType NOT LIKE 'image/%' " +
+               "     AND f.mimeType NOT LIKE 'video/%' AND f.mimeType NOT LIKE 'audio/%')) " +
+               "ORDER BY f.fileId DESC")
+        List<CmsFile> findChatAttachmentsByChannel(@Param("channelId") Long channelId,
+                        @Param("cursor") Long cursor,
+                        @Param("mimePrefix") String mimePrefix,
+                        @Param("documentsOnly") boolean documentsOnly,
+                        Pageable pageable);
 }
\ No newline at end of file
@@ -0,0 +1,500 @@
+package cms.file.service;
+
+import cms.file.entity.CmsFile;
+import cms.file.repository.FileRepository;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FilenameUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * 분할(chunked) 업로드.
+ * - begin: 세션(upload_id) 생성, 파트 크기는 고정 (마지막 파트만 짧음). 임시 파일은 첫 파트 기록 시 생성.
+ *   세션은 만든 사용자(owner, 익명이면 null)에 묶이고, 사용자(익명은 IP)별 열린 세션 수를 제한한다.
+ *   파트가 오지 않는 세션은 idle-ttl 뒤 만료 (파트를 받을 때마다 연장, session-ttl 이 상한)
+ * - writePart: 요청 본문을 FileChannel.transferFrom 으로 partNo * partSize 위치에 바로 기록 (고정 크기 버퍼, 병렬 업로드 가능)
+ * - status: 받은 파트 목록과 연속 수신 바이트(nextOffset) -> 연결이 끊기면 빠진 파트만 재전송
+ * - complete: 행 잠금 안에서 전체 파트를 확인하고 COMPLETING 으로 바꾼 뒤 SHA-256 을 계산해 선언값(필수)과 비교,
+ *   임시 파일을 복사 없이 blob 으로 이동하고 file 행 생성 (COMPLETING 이후의 파트 기록은 거부)
+ * 메모리 사용량은 파일 크기와 무관하다 (요청 본문을 힙에 모으지 않음)
+ */
+@Service
+@Slf4j
+public class ChunkedUploadService {
+
+    public static final String STATUS_UPLOADING = "UPLOADING";
+    public static final String STATUS_COMPLETING = "COMPLETING";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+
+    private static final int MAX_PARTS = 10_000;
+    private static final int MIN_PART_SIZE = 1024 * 1024;
+    /** 이 시간보다 오래 COMPLETING 인 세션은 완료 처리 중 죽은 것으로 보고 다시 완료를 허용 */
+    private static final long STALE_COMPLETING_MINUTES = 10;
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final TransactionTemplate transactionTemplate;
+    private final FileBlobStore fileBlobStore;
+    private final FileService fileService;
+    private final FileRepository fileRepository;
+    private final int partSize;
+    private final long maxFileSize;
+    private final long sessionTtlMinutes;
+    private final long idleTtlMinutes;
+    private final int maxOpenSessions;
+
+    public ChunkedUploadService(NamedParameterJdbcTemplate jdbc,
+            PlatformTransactionManager transactionManager,
+            FileBlobStore fileBlobStore,
+            FileService fileService,
+            FileRepository fileRepository,
+            @Value("${spring.file.upload.part-size-bytes:8388608}") int partSize,
+            @Value("${spring.file.upload.max-file-size-bytes:2147483648}") long maxFileSize,
+            @Value("${spring.file.upload.session-ttl-minutes:1440}") long sessionTtlMinutes,
+            @Value("${spring.file.upload.idle-ttl-minutes:30}") long idleTtlMinutes,
+            @Value("${spring.file.upload.max-open-sessions:10}") int maxOpenSessions) {
+        this.jdbc = jdbc;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.fileBlobStore = fileBlobStore;
+        this.fileService = fileService;
+        this.fileRepository = fileRepository;
+        this.partSize = Math.max(MIN_PART_SIZE, partSize);
+        this.maxFileSize = maxFileSize;
+        this.sessionTtlMinutes = sessionTtlMinutes;
+        this.idleTtlMinutes = Math.min(idleTtlMinutes, sessionTtlMinutes);
+        this.maxOpenSessions = maxOpenSessions;
+    }
+
+    /**
+     * 업로드 세션 생성. checksum 은 "sha256:<hex>" 또는 hex (여기서 안 주면 complete 에서 반드시 지정)
+     * @param owner    인증된 사용자 이름 (익명이면 null). 이후 파트/상태/완료/취소는 같은 owner 만 가능
+     * @param clientIp 익명 세션의 열린 세션 수 제한 기준
+     * @throws IllegalStateException 열린 세션이 max-open-sessions 이상
+     */
+    public Session begin(String menu, Long menuId, String fileName, String contentType, long size, String checksum,
+                         String owner, String clientIp) {
+        if (size <= 0 || size > maxFileSize) {
+            throw new IllegalArgumentException("size must be between 1 and " + maxFileSize + " bytes");
+        }
+        if (checksum != null && FileBlobStore.normalizeHash(checksum) == null) {
+            throw new IllegalArgumentException("checksum must be sha256:<hex>");
+        }
+        // 파트 수 상한을 넘으면 파트 크기를 키운다
+        long effectivePartSize = Math.max(partSize, (size + MAX_PARTS - 1) / MAX_PARTS);
+        int partCount = (int) ((size + effectivePartSize - 1) / effectivePartSize);
+        if (countOpenSessions(owner, clientIp) >= maxOpenSessions) {
+            throw new IllegalStateException("too many open upload sessions, complete or abort one first");
+        }
+        String uploadId = UUID.randomUUID().toString().replace("-", "");
+        // 첫 파트가 오기 전까지는 idle-ttl 만 유지 (presign 만 하고 버린 세션이 쌓이지 않게)
+        LocalDateTime expiresAt = LocalDateTime.now().plusMinutes(idleTtlMinutes);
+
+        jdbc.update("INSERT INTO file_upload_session (upload_id, menu, menu_id, owner, created_ip, file_name, " +
+                        "content_type, size, part_size, part_count, checksum, status, expires_at) " +
+                        "VALUES (:uploadId, :menu, :menuId, :owner, :createdIp, :fileName, :contentType, :size, " +
+                        ":partSize, :partCount, :checksum, :status, :expiresAt)",
+                new MapSqlParameterSource()
+                        .addValue("uploadId", uploadId)
+                        .addValue("menu", menu)
+                        .addValue("menuId", menuId)
+                        .addValue("owner", owner)
+                        .addValue("createdIp", clientIp)
+                        .addValue("fileName", fileName)
+                        .addValue("contentType", contentType)
+                        .addValue("size", size)
+                        .addValue("partSize", effectivePartSize)
+                        .addValue("partCount", partCount)
+                        .addValue("checksum", FileBlobStore.normalizeHash(checksum))
+                        .addValue("status", STATUS_UPLOADING)
+                        .addValue("expiresAt", Timestamp.valueOf(expiresAt)));
+        return load(uploadId);
+    }
+
+    /**
+     * 만료 전 UPLOADING 세션 수 (owner 별, 익명은 IP 별). 동시 요청에서는 조금 넘을 수 있는 대략적 상한
+     */
+    private int countOpenSessions(String owner, String clientIp) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("owner", owner)
+                .addValue("createdIp", clientIp)
+                .addValue("status", STATUS_UPLOADING)
+                .addValue("now", Timestamp.valueOf(LocalDateTime.now()));
+        Integer count = jdbc.queryForObject("SELECT COUNT(*) FROM file_upload_session WHERE status = :status " +
+                        "AND expires_at > :now AND " + (owner != null ? "owner = :owner" : "owner IS NULL AND created_ip = :createdIp"),
+                params, Integer.class);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * 파트 하나를 임시 파일의 해당 위치에 기록. 같은 파트 재전송은 덮어쓴다
+     */
+    public Session writePart(String uploadId, String owner, int partNo, InputStream body, long contentLength)
+            throws IOException {
+        Session session = requireUploading(uploadId, owner);
+        if (partNo < 0 || partNo >= session.getPartCount()) {
+            throw new IllegalArgumentException("partNo must be between 0 and " + (session.getPartCount() - 1));
+        }
+        long offset = (long) partNo * session.getPartSize();
+        long expected = Math.min(session.getPartSize(), session.getSize() - offset);
+        if (contentLength >= 0 && contentLength != expected) {
+            throw new IllegalArgumentException("part " + partNo + " must be " + expected + " bytes");
+        }
+        long written = 0;
+        ReadableByteChannel src = Channels.newChannel(body);
+        try (FileChannel out = FileChannel.open(tempFile(uploadId),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            while (written < expected) {
+                long n = out.transferFrom(src, offset + written, expected - written);
+                if (n <= 0) {
+                    break;
+                }
+                written += n;
+            }
+        }
+        if (written != expected || body.read() != -1) {
+            throw new IllegalArgumentException("part " + partNo + " must be " + expected + " bytes");
+        }
+        // 기록 중에 complete 가 COMPLETING 으로 바꿨다면 파트를 받은 것으로 남기지 않는다
+        int recorded = jdbc.update("INSERT INTO file_upload_part (upload_id, part_no, size) " +
+                        "SELECT upload_id, :partNo, :size FROM file_upload_session " +
+                        "WHERE upload_id = :uploadId AND status = :status " +
+                        "ON DUPLICATE KEY UPDATE size = VALUES(size), received_at = CURRENT_TIMESTAMP",
+                new MapSqlParameterSource()
+                        .addValue("uploadId", uploadId)
+                        .addValue("partNo", partNo)
+                        .addValue("size", written)
+                        .addValue("status", STATUS_UPLOADING));
+        if (recorded == 0) {
+            throw new IllegalStateException("upload session is no longer accepting parts");
+        }
+        // 파트를 받는 동안은 만료를 idle-ttl 만큼 미룬다 (생성 후 session-ttl 이 상한)
+        jdbc.update("UPDATE file_upload_session SET expires_at = " +
+                        "LEAST(:slide, DATE_ADD(created_at, INTERVAL :ttl MINUTE)) WHERE upload_id = :uploadId",
+                new MapSqlParameterSource("uploadId", uploadId)
+                        .addValue("slide", Timestamp.valueOf(LocalDateTime.now().plusMinutes(idleTtlMinutes)))
+                        .addValue("ttl", sessionTtlMinutes));
+        return session;
+    }
+
+    /**
+     * 받은 파트 번호 목록 (오름차순)
+     */
+    public List<Integer> receivedParts(String uploadId) {
+        return jdbc.queryForList("SELECT part_no FROM file_upload_part WHERE upload_id = :uploadId ORDER BY part_no",
+                new MapSqlParameterSource("uploadId", uploadId), Integer.class);
+    }
+
+    /**
+     * 앞에서부터 끊김 없이 받은 바이트 수 (이 위치부터 이어 보내면 된다)
+     */
+    public long nextOffset(Session session, List<Integer> received) {
+        int contiguous = 0;
+        for (Integer partNo : received) {
+            if (partNo != contiguous) {
+                break;
+            }
+            contiguous++;
+        }
+        return Math.min(session.getSize(), (long) contiguous * session.getPartSize());
+    }
+
+    /**
+     * 업로드 완료. 모든 파트 수신과 SHA-256 일치를 확인한 뒤 파일 행을 만든다. 이미 완료된 세션이면 그 파일을 반환.
+     * 해시 계산 전에 세션을 COMPLETING 으로 잠그므로 계산 중에는 파트를 더 받지 않는다. 실패하면 UPLOADING 으로 되돌린다
+     */
+    public CmsFile complete(String uploadId, String owner, String checksum) throws IOException {
+        Session session = find(uploadId, owner);
+        if (session == null) {
+            return null;
+        }
+        if (STATUS_COMPLETED.equals(session.getStatus())) {
+            return completedFile(session.getFileId());
+        }
+        if (session.isExpired()) {
+            throw new IllegalStateException("upload session expired");
+        }
+        String expectedHash = checksum != null ? FileBlobStore.normalizeHash(checksum) : session.getChecksum();
+        if (checksum != null && expectedHash == null) {
+            throw new IllegalArgumentException("checksum must be sha256:<hex>");
+        }
+        if (expectedHash == null) {
+            // 무결성 검증 없이 완료하지 않는다
+            throw new IllegalArgumentException("checksum is required: declare sha256:<hex> in presign or complete");
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource("uploadId", uploadId);
+        Map<String, Object> claimed = transactionTemplate.execute(status -> beginCompleting(session, params));
+        if (claimed == null) {
+            return null;
+        }
+        if (STATUS_COMPLETED.equals(claimed.get("status"))) {
+            // 동시에 들어온 다른 complete 가 먼저 끝냄
+            return completedFile(claimed.get("file_id"));
+        }
+        Path tmp = tempFile(uploadId);
+        try {
+            long size = Files.size(tmp);
+            if (size != session.getSize()) {
+                throw new IllegalStateException("uploaded size " + size + " does not match " + session.getSize());
+            }
+            FileTime modified = Files.getLastModifiedTime(tmp);
+            // 해시 계산은 트랜잭션 밖에서 (대용량 파일도 DB 연결을 오래 잡지 않음)
+            String actualHash = FileBlobStore.sha256Hex(tmp);
+            if (!expectedHash.equals(actualHash)) {
+                throw new IllegalStateException("checksum mismatch: expected " + expectedHash + ", got " + actualHash);
+            }
+            return transactionTemplate.execute(status -> {
+                List<Map<String, Object>> locked = jdbc.queryForList(
+                        "SELECT status, file_id FROM file_upload_session WHERE upload_id = :uploadId FOR UPDATE", params);
+                if (locked.isEmpty()) {
+                    throw new IllegalStateException("upload session was aborted");
+                }
+                if (STATUS_COMPLETED.equals(locked.get(0).get("status"))) {
+                    return completedFile(locked.get(0).get("file_id"));
+                }
+                if (!STATUS_COMPLETING.equals(locked.get(0).get("status"))) {
+                    throw new IllegalStateException("upload session is " + locked.get(0).get("status"));
+                }
+                try {
+                    // COMPLETING 전에 시작한 파트 기록이 계산 중에 끝났다면 해시가 내용과 다를 수 있다
+                    if (Files.size(tmp) != size || !Files.getLastModifiedTime(tmp).equals(modified)) {
+                        throw new IllegalStateException("upload changed while completing, retry complete");
+                    }
+                    FileBlobStore.StoredBlob blob = fileBlobStore.storeFile(tmp, actualHash, session.getSize(),
+                            FilenameUtils.getExtension(session.getFileName()));
+                    CmsFile file = fileService.registerBlob(session.getMenu(), session.getMenuId(),
+                            session.getFileName(), session.getContentType(), blob);
+                    jdbc.update("UPDATE file_upload_session SET status = :status, file_id = :fileId, completing_at = NULL " +
+                                    "WHERE upload_id = :uploadId",
+                            new MapSqlParameterSource("uploadId", uploadId)
+                                    .addValue("status", STATUS_COMPLETED)
+                                    .addValue("fileId", file.getFileId()));
+                    jdbc.update("DELETE FROM file_upload_part WHERE upload_id = :uploadId", params);
+                    return file;
+                } catch (IOException e) {
+                    throw new IllegalStateException("Could not store upload " + uploadId + ": " + e.getMessage(), e);
+                }
+            });
+        } catch (IOException | RuntimeException e) {
+            resumeUploading(uploadId, tmp);
+            throw e;
+        }
+    }
+
+    /**
+     * 행 잠금 안에서 파트 수신을 확인하고 COMPLETING 으로 바꾼다. 세션이 없으면 null, 이미 완료됐으면 그 행을 반환
+     */
+    private Map<String, Object> beginCompleting(Session session, MapSqlParameterSource params) {
+        List<Map<String, Object>> locked = jdbc.queryForList(
+                "SELECT status, file_id, completing_at FROM file_upload_session WHERE upload_id = :uploadId FOR UPDATE",
+                params);
+        if (locked.isEmpty()) {
+            return null;
+        }
+        Map<String, Object> row = locked.get(0);
+        if (STATUS_COMPLETED.equals(row.get("status"))) {
+            return row;
+        }
+        if (STATUS_COMPLETING.equals(row.get("status"))) {
+            Timestamp since = (Timestamp) row.get("completing_at");
+            if (since != null && since.toLocalDateTime().isAfter(LocalDateTime.now().minusMinutes(STALE_COMPLETING_MINUTES))) {
+                throw new IllegalStateException("upload session is already completing");
+            }
+        }
+        List<Integer> received = receivedParts(session.getUploadId());
+        if (received.size() != session.getPartCount()) {
+            throw new IllegalStateException("missing parts: " + missingParts(session, received));
+        }
+        jdbc.update("UPDATE file_upload_session SET status = :status, completing_at = :now WHERE upload_id = :uploadId",
+                new MapSqlParameterSource("uploadId", session.getUploadId())
+                        .addValue("status", STATUS_COMPLETING)
+                        .addValue("now", Timestamp.valueOf(LocalDateTime.now())));
+        return row;
+    }
+
+    /**
+     * 완료 실패 시 다시 파트를 받을 수 있게 되돌린다. 임시 파일이 이미 옮겨졌다면 받은 파트 기록도 지워 재전송하게 한다
+     */
+    private void resumeUploading(String uploadId, Path tmp) {
+        try {
+            MapSqlParameterSource params = new MapSqlParameterSource("uploadId", uploadId)
+                    .addValue("status", STATUS_UPLOADING)
+                    .addValue("completing", STATUS_COMPLETING);
+            int reset = jdbc.update("UPDATE file_upload_session SET status = :status, completing_at = NULL " +
+                    "WHERE upload_id = :uploadId AND status = :completing", params);
+            if (reset > 0 && !Files.exists(tmp)) {
+                jdbc.update("DELETE FROM file_upload_part WHERE upload_id = :uploadId", params);
+            }
+        } catch (Exception e) {
+            // STALE_COMPLETING_MINUTES 가 지나면 다시 완료할 수 있다
+            log.warn("Could not reset upload session {} after failed complete: {}", uploadId, e.getMessage());
+        }
+    }
+
+    private CmsFile completedFile(Object fileId) {
+        return fileId != null ? fileRepository.findById(((Number) fileId).longValue()).orElse(null) : null;
+    }
+
+    /**
+     * 업로드 취소 (임시 파일과 세션 삭제)
+     */
+    public boolean abort(String uploadId, String owner) throws IOException {
+        Session session = find(uploadId, owner);
+        if (session == null || STATUS_COMPLETED.equals(session.getStatus())) {
+            return false;
+        }
+        // 완료 처리 중인 세션은 임시 파일을 옮기는 중일 수 있으므로 취소하지 않는다
+        int deleted = jdbc.update("DELETE FROM file_upload_session WHERE upload_id = :uploadId AND status = :status",
+                new MapSqlParameterSource("uploadId", uploadId).addValue("status", STATUS_UPLOADING));
+        if (deleted == 0) {
+            throw new IllegalStateException("upload session is completing");
+        }
+        Files.deleteIfExists(tempFile(uploadId));
+        return true;
+    }
+
+    /**
+     * 만료된 세션 정리 (미완료는 임시 파일도 삭제). 삭제 수 반환
+     */
+    public int purgeExpired(int limit) {
+        List<Map<String, Object>> rows = jdbc.queryForList(
+                "SELECT upload_id, status FROM file_upload_session WHERE expires_at < :now ORDER BY expires_at LIMIT :limit",
+                new MapSqlParameterSource()
+                        .addValue("now", Timestamp.valueOf(LocalDateTime.now()))
+                        .addValue("limit", limit));
+        int purged = 0;
+        for (Map<String, Object> row : rows) {
+            String uploadId = (String) row.get("upload_id");
+            try {
+                if (!STATUS_COMPLETED.equals(row.get("status"))) {
+                    Files.deleteIfExists(tempFile(uploadId));
+                }
+                purged += jdbc.update("DELETE FROM file_upload_session WHERE upload_id = :uploadId",
+                        new MapSqlParameterSource("uploadId", uploadId));
+            } catch (Exception e) {
+                log.warn("Upload session purge failed for {}: {}", uploadId, e.getMessage());
+            }
+        }
+        return purged;
+    }
+
+    /**
+     * owner 의 세션. 없거나 다른 사용자의 세션이면 null (존재 여부도 드러내지 않음)
+     */
+    public Session find(String uploadId, String owner) {
+        Session session = load(uploadId);
+        return session != null && Objects.equals(session.getOwner(), owner) ? session : null;
+    }
+
+    private Session load(String uploadId) {
+        if (uploadId == null || !uploadId.matches("[0-9a-f]{32}")) {
+            return null;
+        }
+        List<Session> rows = jdbc.query(
+                "SELECT upload_id, menu, menu_id, owner, file_name, content_type, size, part_size, part_count, checksum, " +
+                        "status, file_id, expires_at FROM file_upload_session WHERE upload_id = :uploadId",
+                new MapSqlParameterSource("uploadId", uploadId),
+                (rs, i) -> new Session(
+                        rs.getString("upload_id"),
+                        rs.getString("menu"),
+                        rs.getLong("menu_id"),
+                        rs.getString("owner"),
+                        rs.getString("file_name"),
+                        rs.getString("content_type"),
+                        rs.getLong("size"),
+                        rs.getInt("part_size"),
+                        rs.getInt("part_count"),
+                        rs.getString("checksum"),
+                        rs.getString("status"),
+                        rs.getObject("file_id") != null ? rs.getLong("file_id") : null,
+                        rs.getTimestamp("expires_at").toLocalDateTime()));
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    private Session requireUploading(String uploadId, String owner) {
+        Session session = find(uploadId, owner);
+        if (session == null) {
+            throw new IllegalArgumentException("Unknown uploadId: " + uploadId);
+        }
+        if (!STATUS_UPLOADING.equals(session.getStatus()) || session.isExpired()) {
+            throw new IllegalStateException("upload session is "
+                    + (session.isExpired() ? "expired" : session.getStatus().toLowerCase()));
+        }
+        return session;
+    }
+
+    private static List<Integer> missingParts(Session session, List<Integer> received) {
+        List<Integer> missing = new ArrayList<>();
+        int idx = 0;
+        for (int partNo = 0; partNo < session.getPartCount() && missing.size() < 100; partNo++) {
+            if (idx < received.size() && received.get(idx) == partNo) {
+                idx++;
+            } else {
+                missing.add(partNo);
+            }
+        }
+        return missing;
+    }
+
+    private Path tempFile(String uploadId) throws IOException {
+        return fileBlobStore.tempDirectory().resolve(uploadId + ".upload");
+    }
+
+    @Getter
+    public static final class Session {
+        private final String uploadId;
+        private final String menu;
+        private final Long menuId;
+        private final String owner;
+        private final String fileName;
+        private final String contentType;
+        private final long size;
+        private final int partSize;
+        private final int partCount;
+        private final String checksum;
+        private final String status;
+        private final Long fileId;
+        private final LocalDateTime expiresAt;
+
+        Session(String uploadId, String menu, Long menuId, String owner, String fileName, String contentType, long size,
+                int partSize, int partCount, String checksum, String status, Long fileId, LocalDateTime expiresAt) {
+            this.uploadId = uploadId;
+            this.menu = menu;
+            this.menuId = menuId;
+            this.owner = owner;
+            this.fileName = fileName;
+            this.contentType = contentType;
+            this.size = size;
+            this.partSize = partSize;
+            this.partCount = partCount;
+            this.checksum = checksum;
+            this.status = status;
+            this.fileId = fileId;
+            this.expiresAt = expiresAt;
+        }
+
+        public boolean isExpired() {
+            return expiresAt.isBefore(LocalDateTime.now());
+        }
+    }
+}
@@ -0,0 +1,455 @@
+package cms.file.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * SHA-256 내용 주소 저장소 (로컬 디스크).
+ * - 업로드는 임시 파일로 받으면서 해시를 계산하고, 같은 해시의 blob 이 있으면 임시 파일을 버리고 참조만 +1
+ * - 물리 경로: blobs/{hash 앞 2자리}/{hash 3~4자리}/{hash}.{최초 확장자}, file 행은 saved_name 과 content_hash 로 참조
+ * - 마지막 참조가 삭제되면 커밋 후 행과 물리 파일을 함께 삭제 (행 잠금 안에서 삭제하므로 동시 업로드와 경합하지 않음)
+ * - 지표: file.dedup.hits / misses, file.dedup.saved.bytes (중복 제거로 쓰지 않은 바이트)
+ */
+@Service
+@Slf4j
+public class FileBlobStore {
+
+    private static final String BLOB_DIR = "blobs";
+    private static final Pattern SHA256_HEX = Pattern.compile("[0-9a-f]{64}");
+    private static final long USAGE_TTL_MILLIS = 60_000L;
+
+    private static final String RETAIN_OR_INSERT =
+            "INSERT INTO file_blob (content_hash, saved_name, size, ref_count) VALUES (:hash, :savedName, :size, 1) " +
+            "ON DUPLICATE KEY UPDATE ref_count = ref_count + 1, released_at = NULL";
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final TransactionTemplate requiresNew;
+    private final Path basePath;
+    private final long gcGraceMinutes;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter savedBytes;
+
+    private volatile Usage usage;
+
+    public FileBlobStore(NamedParameterJdbcTemplate jdbc,
+            PlatformTransactionManager transactionManager,
+            ObjectProvider<MeterRegistry> meterRegistry,
+            @Value("${spring.file.storage.local.base-path}") String basePath,
+            @Value("${spring.file.dedup.gc-grace-minutes:10}") long gcGraceMinutes) {
+        this.jdbc = jdbc;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.basePath = Paths.get(basePath).toAbsolutePath().normalize();
+        this.gcGraceMinutes = gcGraceMinutes;
+        MeterRegistry registry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+        this.hits = Counter.builder("file.dedup.hits")
+                .description("Uploads served by an existing content-addressed blob")
+                .register(registry);
+        this.misses = Counter.builder("file.dedup.misses").register(registry);
+        this.savedBytes = Counter.builder("file.dedup.saved.bytes")
+                .description("Bytes not written to disk thanks to deduplication")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    /**
+     * 스트림을 저장하고 blob 참조를 하나 늘린다. 호출 트랜잭션 안에서 실행해야 한다 (file 행 저장과 함께 커밋)
+     */
+    public StoredBlob store(InputStream in, String ext) throws IOException {
+        Path tmp = Files.createTempFile(tempDirectory(), "upload-", ".part");
+        try {
+            MessageDigest digest = sha256();
+            long size;
+            try (DigestInputStream din = new DigestInputStream(in, digest);
+                 OutputStream out = Files.newOutputStream(tmp)) {
+                size = copy(din, out);
+            }
+            return place(tmp, toHex(digest.digest()), size, ext);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * 해시를 이미 계산한 로컬 파일(분할 업로드 임시 파일 등)을 복사 없이 blob 으로 이동하고 참조를 하나 늘린다.
+     * 같은 blob 이 있으면 source 는 삭제된다. 호출 트랜잭션 안에서 실행해야 한다
+     */
+    public StoredBlob storeFile(Path source, String hash, long size, String ext) throws IOException {
+        try {
+            return place(source, hash, size, ext);
+        } finally {
+            Files.deleteIfExists(source);
+        }
+    }
+
+    private StoredBlob place(Path source, String hash, long size, String ext) throws IOException {
+        // 행을 먼저 잠그고(삽입 또는 +1) 파일을 둔다: 같은 blob 의 GC 는 이 트랜잭션이 끝날 때까지 대기
+        jdbc.update(RETAIN_OR_INSERT, new MapSqlParameterSource()
+                .addValue("hash", hash)
+                .addValue("savedName", savedName(hash, ext))
+                .addValue("size", size));
+        String existingName = jdbc.queryForObject(
+                "SELECT saved_name FROM file_blob WHERE content_hash = :hash",
+                new MapSqlParameterSource("hash", hash), String.class);
+        Path target = resolve(existingName);
+        boolean deduplicated;
+        if (Files.exists(target)) {
+            deduplicated = true;
+        } else {
+            Files.createDirectories(target.getParent());
+            try {
+                Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+                deduplicated = false;
+                discardOnRollback(hash, target);
+            } catch (FileAlreadyExistsException e) {
+                deduplicated = true;
+            }
+        }
+        record(deduplicated, size);
+        return new StoredBlob(hash, existingName, size, deduplicated);
+    }
+
+    /**
+     * 파일의 SHA-256 (hex). 고정 크기 버퍼로 읽으므로 파일 크기와 무관하게 메모리 사용이 일정하다
+     */
+    public static String sha256Hex(Path path) throws IOException {
+        MessageDigest digest = sha256();
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return toHex(digest.digest());
+    }
+
+    /**
+     * blob 임시 디렉터리 (blob 과 같은 파일시스템이라 완료 시 원자적 이동 가능)
+     */
+    public Path tempDirectory() throws IOException {
+        Path tmpDir = basePath.resolve(BLOB_DIR).resolve(".tmp");
+        Files.createDirectories(tmpDir);
+        return tmpDir;
+    }
+
+    /**
+     * 이미 저장된 blob 에 참조를 추가 (presign 단계의 업로드 생략). 크기가 다르거나 파일이 없으면 null
+     */
+    public StoredBlob retain(String hash, long size) {
+        String normalized = normalizeHash(hash);
+        if (normalized == null) {
+            return null;
+        }
+        List<Map<String, Object>> rows = jdbc.queryForList(
+                "SELECT saved_name, size FROM file_blob WHERE content_hash = :hash FOR UPDATE",
+                new MapSqlParameterSource("hash", normalized));
+        if (rows.isEmpty() || ((Number) rows.get(0).get("size")).longValue() != size) {
+            return null;
+        }
+        String savedName = (String) rows.get(0).get("saved_name");
+        if (!Files.exists(resolve(savedName))) {
+            return null;
+        }
+        jdbc.update("UPDATE file_blob SET ref_count = ref_count + 1, released_at = NULL WHERE content_hash = :hash",
+                new MapSqlParameterSource("hash", normalized));
+        record(true, size);
+        return new StoredBlob(normalized, savedName, size, true);
+    }
+
+    /**
+     * 참조 하나 해제. 마지막 참조였다면 커밋 후 blob 을 삭제한다
+     */
+    public void release(String hash) {
+        MapSqlParameterSource params = new MapSqlParameterSource("hash", hash);
+        // released_at 을 먼저 계산 (MariaDB 는 SET 을 왼쪽부터 적용)
+        jdbc.update("UPDATE file_blob SET released_at = CASE WHEN ref_count <= 1 THEN NOW() ELSE released_at END, " +
+                "ref_count = GREATEST(ref_count - 1, 0) WHERE content_hash = :hash", params);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    collectQuietly(hash);
+                }
+            });
+        } else {
+            collectQuietly(hash);
+        }
+    }
+
+    /**
+     * 여러 참조를 한 번에 해제 (일괄 삭제용, 같은 해시가 여러 번 있으면 그만큼 차감).
+     * 정리는 하지 않으므로 커밋 후 반환된 해시로 collect 를 호출해야 한다
+     */
+    public Set<String> releaseAll(Collection<String> hashes) {
+        List<MapSqlParameterSource> batch = new ArrayList<>(hashes.size());
+        for (String hash : hashes) {
+            batch.add(new MapSqlParameterSource("hash", hash));
+        }
+        if (!batch.isEmpty()) {
+            jdbc.batchUpdate("UPDATE file_blob SET released_at = CASE WHEN ref_count <= 1 THEN NOW() ELSE released_at END, " +
+                    "ref_count = GREATEST(ref_count - 1, 0) WHERE content_hash = :hash",
+                    batch.toArray(new MapSqlParameterSource[0]));
+        }
+        return new LinkedHashSet<>(hashes);
+    }
+
+    /**
+     * 참조가 0 인 blob 삭제. 행 삭제와 파일 삭제를 한 트랜잭션에서 처리해 동시 업로드(+1)와 직렬화한다
+     */
+    public boolean collect(String hash) {
+        Boolean deleted = requiresNew.execute(status -> {
+            MapSqlParameterSource params = new MapSqlParameterSource("hash", hash);
+            List<String> names = jdbc.queryForList(
+                    "SELECT saved_name FROM file_blob WHERE content_hash = :hash AND ref_count = 0 FOR UPDATE",
+                    params, String.class);
+            if (names.isEmpty()) {
+                return false;
+            }
+            try {
+                Files.deleteIfExists(resolve(names.get(0)));
+            } catch (IOException e) {
+                throw new IllegalStateException("blob delete failed: " + names.get(0), e);
+            }
+            jdbc.update("DELETE FROM file_blob WHERE content_hash = :hash AND ref_count = 0", params);
+            return true;
+        });
+        if (Boolean.TRUE.equals(deleted)) {
+            usage = null;
+        }
+        return Boolean.TRUE.equals(deleted);
+    }
+
+    /**
+     * 커밋 후 정리가 실패했거나 누락된 blob 을 유예 시간이 지난 것부터 정리. 삭제 수 반환
+     */
+    public int collectReleased(int limit) {
+        List<String> hashes = jdbc.queryForList(
+                "SELECT content_hash FROM file_blob WHERE ref_count = 0 AND (released_at IS NULL OR released_at < :before) " +
+                "ORDER BY released_at LIMIT :limit",
+                new MapSqlParameterSource()
+                        .addValue("before", Timestamp.valueOf(LocalDateTime.now().minusMinutes(gcGraceMinutes)))
+                        .addValue("limit", limit),
+                String.class);
+        int deleted = 0;
+        for (String hash : hashes) {
+            try {
+                if (collect(hash)) {
+                    deleted++;
+                }
+            } catch (Exception e) {
+                log.warn("Blob GC failed for {}: {}", hash, e.getMessage());
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * 저장 바이트 / 중복 제거로 절약한 바이트 (1분 캐시, 대시보드용)
+     */
+    public Usage usage() {
+        Usage u = usage;
+        if (u != null && System.currentTimeMillis() - u.computedAt < USAGE_TTL_MILLIS) {
+            return u;
+        }
+        try {
+            Map<String, Object> row = jdbc.queryForMap(
+                    "SELECT COALESCE(SUM(size), 0) AS stored, COALESCE(SUM(size * (ref_count - 1)), 0) AS saved, " +
+                    "COUNT(*) AS blobs FROM file_blob WHERE ref_count > 0",
+                    new MapSqlParameterSource());
+            u = new Usage(((Number) row.get("stored")).longValue(), ((Number) row.get("saved")).longValue(),
+                    ((Number) row.get("blobs")).longValue(), (long) hits.count(), System.currentTimeMillis());
+            usage = u;
+        } catch (Exception e) {
+            log.debug("Blob usage query failed: {}", e.getMessage());
+        }
+        return u;
+    }
+
+    /**
+     * 이 트랜잭션이 새로 둔 blob 파일은 롤백 시 삭제 (file_blob 삽입도 함께 롤백되어 참조 없는 파일이 남으므로).
+     * 그 사이 다른 트랜잭션이 같은 해시 행을 만들었다면 그쪽이 파일을 쓰고 있으니 남긴다
+     */
+    private void discardOnRollback(String hash, Path target) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    discardQuietly(hash, target);
+                }
+            }
+        });
+    }
+
+    private void discardQuietly(String hash, Path target) {
+        try {
+            requiresNew.executeWithoutResult(status -> {
+                List<String> rows = jdbc.queryForList(
+                        "SELECT content_hash FROM file_blob WHERE content_hash = :hash FOR UPDATE",
+                        new MapSqlParameterSource("hash", hash), String.class);
+                if (!rows.isEmpty()) {
+                    return;
+                }
+                try {
+                    Files.deleteIfExists(target);
+                } catch (IOException e) {
+                    throw new IllegalStateException("blob delete failed: " + target, e);
+                }
+            });
+        } catch (Exception e) {
+            // 행이 없는 파일은 blob GC 대상이 아니므로 경고로 남겨 수동 정리
+            log.warn("Blob cleanup after rollback failed for {}: {}", hash, e.getMessage());
+        }
+    }
+
+    private void collectQuietly(String hash) {
+        try {
+            collect(hash);
+        } catch (Exception e) {
+            // collectReleased 가 다시 시도
+            log.warn("Blob GC after release failed for {}: {}", hash, e.getMessage());
+        }
+    }
+
+    private void record(boolean deduplicated, long size) {
+        if (deduplicated) {
+            hits.increment();
+            savedBytes.increment(size);
+        } else {
+            misses.increment();
+        }
+        usage = null;
+    }
+
+    private Path resolve(String savedName) {
+        Path path = basePath.resolve(savedName).normalize();
+        if (!path.startsWith(basePath)) {
+            throw new IllegalArgumentException("Invalid blob path: " + savedName);
+        }
+        return path;
+    }
+
+    private static String savedName(String hash, String ext) {
+        String name = BLOB_DIR + "/" + hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + hash;
+        if (ext != null && !ext.isEmpty() && ext.matches("[A-Za-z0-9]{1,10}")) {
+            name += "." + ext.toLowerCase();
+        }
+        return name;
+    }
+
+    /**
+     * "sha256:<hex>" 또는 "<hex>" 형식만 허용, 아니면 null
+     */
+    public static String normalizeHash(String checksum) {
+        if (checksum == null) {
+            return null;
+        }
+        String hex = checksum.trim().toLowerCase();
+        if (hex.startsWith("sha256:")) {
+            hex = hex.substring("sha256:".length());
+        }
+        return SHA256_HEX.matcher(hex).matches() ? hex : null;
+    }
+
+    private static long copy(InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        long total = 0;
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            out.write(buffer, 0, n);
+            total += n;
+        }
+        return total;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    @Getter
+    public static final class StoredBlob {
+        private final String hash;
+        private final String savedName;
+        private final long size;
+        private final boolean deduplicated;
+
+        StoredBlob(String hash, String savedName, long size, boolean deduplicated) {
+            this.hash = hash;
+            this.savedName = savedName;
+            this.size = size;
+            this.deduplicated = deduplicated;
+        }
+    }
+
+    @Getter
+    public static final class Usage {
+        private final long storedBytes;
+        private final long savedBytes;
+        private final long blobs;
+        private final long dedupHits;
+        private final long computedAt;
+
+        Usage(long storedBytes, long savedBytes, long blobs, long dedupHits, long computedAt) {
+            this.storedBytes = storedBytes;
+            this.savedBytes = savedBytes;
+            this.blobs = blobs;
+            this.dedupHits = dedupHits;
+            this.computedAt = computedAt;
+        }
+    }
+}
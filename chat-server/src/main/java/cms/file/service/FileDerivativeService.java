@@ -0,0 +1,545 @@
+package cms.file.service;
+
+import cms.file.entity.CmsFile;
+import cms.file.repository.FileRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FilenameUtils;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.w3c.dom.Node;
+
+import javax.imageio.IIOException;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 이미지 파생본(썸네일/미리보기) 생성과 조회.
+ * - 업로드 커밋 후 image/* 원본을 작업 큐에 넣고, 고정 크기 워커 풀이 ImageIO 로 축소본을 만든다
+ *   (큐가 가득 차면 버리고 file.derivative.rejected 증가 -> 다음 조회 시 다시 요청)
+ * - 파생본은 FileBlobStore 에 저장하고 menu = FILE_VARIANT, menu_id = 원본 file_id, variant 로 file 행을 만든다
+ * - 원본이 목표 크기 이하이거나 읽을 수 없는 이미지이면 원본 blob 을 참조하는 파생본 행을 만든다
+ *   (다음 조회부터 생성 대기로 보지 않고, 재시작 후에도 다시 요청하지 않음)
+ * - JPEG 의 EXIF 방향(Orientation)을 적용해 축소본을 만든다 (축소본에는 메타데이터를 남기지 않으므로)
+ * - 조회: (원본 id, variant) -> 제공할 파일 행을 LRU 캐시에 보관 (DB 조회 없음), 본문은 디스크(blob)에서 바로 전송
+ * - 아직 생성 전이면 원본을 돌려주고 생성을 요청한다 (기존 파일은 첫 조회 때 생성)
+ */
+@Service
+@Slf4j
+public class FileDerivativeService implements DisposableBean {
+
+    public static final String VARIANT_MENU = "FILE_VARIANT";
+    public static final String THUMB = "thumb";
+    public static final String PREVIEW = "preview";
+
+    private static final String JPEG_METADATA = "javax_imageio_jpeg_image_1.0";
+    private static final byte[] EXIF_HEADER = {'E', 'x', 'i', 'f', 0, 0};
+
+    private final FileRepository fileRepository;
+    private final FileBlobStore fileBlobStore;
+    private final TransactionTemplate transactionTemplate;
+    private final Path basePath;
+    private final boolean enabled;
+    private final int thumbSize;
+    private final int previewSize;
+    private final long maxPixels;
+
+    private final ThreadPoolExecutor workers;
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+    // "원본 id:variant" -> 제공할 파일 (파생본 행, 파생본이 필요 없으면 원본 행)
+    private final Cache<String, CmsFile> resolved;
+
+    private final Counter generated;
+    private final Counter failed;
+    private final Counter rejected;
+
+    public FileDerivativeService(FileRepository fileRepository,
+            FileBlobStore fileBlobStore,
+            PlatformTransactionManager transactionManager,
+            ObjectProvider<MeterRegistry> meterRegistry,
+            @Value("${spring.file.storage.local.base-path}") String basePath,
+            @Value("${spring.file.derivative.enabled:true}") boolean enabled,
+            @Value("${spring.file.derivative.workers:2}") int workerCount,
+            @Value("${spring.file.derivative.queue-capacity:200}") int queueCapacity,
+            @Value("${spring.file.derivative.thumb-size:320}") int thumbSize,
+            @Value("${spring.file.derivative.preview-size:1280}") int previewSize,
+            @Value("${spring.file.derivative.max-pixels:50000000}") long maxPixels,
+            @Value("${spring.file.derivative.cache-size:20000}") long cacheSize) {
+        this.fileRepository = fileRepository;
+        this.fileBlobStore = fileBlobStore;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.basePath = Paths.get(basePath).toAbsolutePath().normalize();
+        this.enabled = enabled;
+        this.thumbSize = thumbSize;
+        this.previewSize = previewSize;
+        this.maxPixels = maxPixels;
+        this.resolved = Caffeine.newBuilder().maximumSize(cacheSize).build();
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("file-derivative-");
+        threadFactory.setDaemon(true);
+        int threads = Math.max(1, workerCount);
+        this.workers = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), threadFactory,
+                new ThreadPoolExecutor.AbortPolicy());
+
+        MeterRegistry registry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+        this.generated = Counter.builder("file.derivative.generated").register(registry);
+        this.failed = Counter.builder("file.derivative.failed").register(registry);
+        this.rejected = Counter.builder("file.derivative.rejected")
+                .description("Derivative jobs dropped because the worker queue was full")
+                .register(registry);
+        Gauge.builder("file.derivative.queue", workers, w -> w.getQueue().size()).register(registry);
+    }
+
+    public static boolean isSupportedVariant(String variant) {
+        return THUMB.equals(variant) || PREVIEW.equals(variant);
+    }
+
+    /**
+     * 원본 저장 트랜잭션 커밋 후 파생본 생성을 요청 (이미지가 아니면 무시)
+     */
+    public void requestAfterCommit(CmsFile file) {
+        if (!enabled || file == null || file.getVariant() != null || !isImage(file)) {
+            return;
+        }
+        Long fileId = file.getFileId();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(fileId);
+                }
+            });
+        } else {
+            submit(fileId);
+        }
+    }
+
+    /**
+     * 요청한 variant 로 제공할 파일. 생성 전이거나 만들 수 없으면 원본 (생성 대기 중인지는 isPending)
+     */
+    public CmsFile resolve(CmsFile original, String variant) {
+        if (!isSupportedVariant(variant) || original.getVariant() != null) {
+            return original;
+        }
+        String key = original.getFileId() + ":" + variant;
+        CmsFile cached = resolved.getIfPresent(key);
+        if (cached != null) {
+            // 파생본이 필요 없는 원본이면 방금 읽은 원본 행을 그대로 쓴다
+            return cached.getVariant() != null ? cached : original;
+        }
+        CmsFile derivative = fileRepository
+                .findFirstByMenuAndMenuIdAndVariant(VARIANT_MENU, original.getFileId(), variant).orElse(null);
+        if (derivative != null) {
+            resolved.put(key, derivative);
+            return derivative;
+        }
+        if (!enabled || !isImage(original)) {
+            resolved.put(key, original);
+        } else {
+            submit(original.getFileId());
+        }
+        return original;
+    }
+
+    /**
+     * 파생본 생성 전이라 원본으로 대신 응답하는 중인지 (응답을 오래 캐시하지 않도록)
+     */
+    public boolean isPending(Long fileId, String variant) {
+        return enabled && isSupportedVariant(variant) && resolved.getIfPresent(fileId + ":" + variant) == null;
+    }
+
+    /**
+     * 원본 삭제 시 캐시 정리
+     */
+    public void evict(Long fileId) {
+        resolved.invalidate(fileId + ":" + THUMB);
+        resolved.invalidate(fileId + ":" + PREVIEW);
+    }
+
+    @Override
+    public void destroy() {
+        workers.shutdownNow();
+    }
+
+    private void submit(Long fileId) {
+        if (fileId == null || !inFlight.add(fileId)) {
+            return;
+        }
+        try {
+            workers.execute(() -> {
+                try {
+                    generate(fileId);
+                } catch (Exception e) {
+                    failed.increment();
+                    log.warn("Derivative generation failed for fileId {}: {}", fileId, e.getMessage());
+                } finally {
+                    inFlight.remove(fileId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(fileId);
+            rejected.increment();
+        }
+    }
+
+    private void generate(Long fileId) throws IOException {
+        CmsFile original = fileRepository.findById(fileId).orElse(null);
+        if (original == null || !isImage(original)) {
+            return;
+        }
+        Path source = basePath.resolve(original.getSavedName()).normalize();
+        if (!source.startsWith(basePath) || !Files.isRegularFile(source)) {
+            return;
+        }
+        BufferedImage image = null;
+        boolean undecodable = false;
+        int[] variantSizes = {thumbSize, previewSize};
+        String[] variants = {THUMB, PREVIEW};
+        for (int i = 0; i < variants.length; i++) {
+            String variant = variants[i];
+            String key = fileId + ":" + variant;
+            if (fileRepository.findFirstByMenuAndMenuIdAndVariant(VARIANT_MENU, fileId, variant).isPresent()
+                    || reuseExisting(original, variant)) {
+                resolved.invalidate(key);
+                continue;
+            }
+            if (image == null && !undecodable) {
+                image = decode(source, previewSize);
+                // 읽을 수 없는 형식이거나 너무 큰 이미지
+                undecodable = image == null;
+            }
+            if (undecodable || Math.max(image.getWidth(), image.getHeight()) <= variantSizes[i]) {
+                // 이미 충분히 작거나 만들 수 없다: 원본 내용을 그대로 파생본으로 남긴다
+                storeOriginal(original, variant, source);
+                resolved.invalidate(key);
+                continue;
+            }
+            BufferedImage scaled = scale(image, variantSizes[i]);
+            boolean alpha = scaled.getColorModel().hasAlpha();
+            byte[] encoded = encode(scaled, alpha);
+            store(original, variant, encoded, alpha ? "png" : "jpg", alpha ? "image/png" : "image/jpeg");
+            resolved.invalidate(key);
+            generated.increment();
+        }
+    }
+
+    /**
+     * 같은 내용의 원본에서 이미 만든 파생본이 있으면 blob 참조만 추가
+     */
+    private boolean reuseExisting(CmsFile original, String variant) {
+        if (original.getContentHash() == null) {
+            return false;
+        }
+        List<CmsFile> candidates = fileRepository.findVariantsByParentContentHash(
+                original.getContentHash(), variant, PageRequest.of(0, 1));
+        if (candidates.isEmpty()) {
+            return false;
+        }
+        CmsFile source = candidates.get(0);
+        CmsFile created = transactionTemplate.execute(status -> {
+            FileBlobStore.StoredBlob blob = fileBlobStore.retain(source.getContentHash(), source.getSize());
+            if (blob == null) {
+                return null;
+            }
+            return fileRepository.save(variantRow(original, variant, blob, source.getExt(), source.getMimeType()));
+        });
+        return created != null;
+    }
+
+    private void store(CmsFile original, String variant, byte[] encoded, String ext, String mimeType) {
+        transactionTemplate.executeWithoutResult(status -> {
+            try {
+                FileBlobStore.StoredBlob blob = fileBlobStore.store(new ByteArrayInputStream(encoded), ext);
+                fileRepository.save(variantRow(original, variant, blob, ext, mimeType));
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not store " + variant + " for fileId " + original.getFileId(), e);
+            }
+        });
+    }
+
+    /**
+     * 원본 blob 에 참조를 추가해 원본과 같은 내용의 파생본 행을 만든다.
+     * 개별 파일로 저장된 예전 원본은 삭제 시 행과 함께 파일이 지워지므로 blob 으로 복사해 참조한다
+     */
+    private void storeOriginal(CmsFile original, String variant, Path source) {
+        String ext = original.getExt() != null ? original.getExt() : FilenameUtils.getExtension(original.getSavedName());
+        transactionTemplate.executeWithoutResult(status -> {
+            FileBlobStore.StoredBlob blob = original.getContentHash() != null && original.getSize() != null
+                    ? fileBlobStore.retain(original.getContentHash(), original.getSize())
+                    : null;
+            if (blob == null) {
+                try (InputStream in = Files.newInputStream(source)) {
+                    blob = fileBlobStore.store(in, ext);
+                } catch (IOException e) {
+                    throw new IllegalStateException("Could not store " + variant + " for fileId " + original.getFileId(), e);
+                }
+            }
+            fileRepository.save(variantRow(original, variant, blob, ext, original.getMimeType()));
+        });
+    }
+
+    private static CmsFile variantRow(CmsFile original, String variant, FileBlobStore.StoredBlob blob,
+            String ext, String mimeType) {
+        CmsFile row = new CmsFile();
+        row.setMenu(VARIANT_MENU);
+        row.setMenuId(original.getFileId());
+        row.setVariant(variant);
+        row.setOriginName(FilenameUtils.getBaseName(original.getOriginName()) + "_" + variant + "." + ext);
+        row.setSavedName(blob.getSavedName());
+        row.setContentHash(blob.getHash());
+        row.setMimeType(mimeType);
+        row.setSize(blob.getSize());
+        row.setExt(ext);
+        row.setPublicYn(original.getPublicYn());
+        row.setFileOrder(0);
+        return row;
+    }
+
+    /**
+     * 크기를 먼저 읽어 너무 큰 이미지는 건너뛰고, 목표보다 훨씬 크면 서브샘플링으로 읽어 메모리를 줄인다.
+     * 손상된 이미지는 null (원본으로 대체), EXIF 방향은 읽은 뒤 적용
+     */
+    private BufferedImage decode(Path source, int targetSize) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(source.toFile())) {
+            if (in == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                // 메타데이터를 읽어야 EXIF 방향을 알 수 있다
+                reader.setInput(in, true, false);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    log.info("Skipping derivative for {}x{} image {}", width, height, source.getFileName());
+                    return null;
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsample = Math.max(1, Math.max(width, height) / (targetSize * 2));
+                if (subsample > 1) {
+                    param.setSourceSubsampling(subsample, subsample, 0, 0);
+                }
+                BufferedImage image;
+                try {
+                    image = reader.read(0, param);
+                } catch (IIOException | RuntimeException e) {
+                    log.info("Skipping derivative for undecodable image {}: {}", source.getFileName(), e.getMessage());
+                    return null;
+                }
+                int orientation;
+                try {
+                    orientation = exifOrientation(reader.getImageMetadata(0));
+                } catch (IIOException | RuntimeException e) {
+                    orientation = 1;
+                }
+                return orient(image, orientation);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * JPEG APP1(Exif) 의 IFD0 에서 Orientation(0x0112) 값. 없거나 읽을 수 없으면 1 (그대로)
+     */
+    static int exifOrientation(IIOMetadata metadata) {
+        if (metadata == null || !JPEG_METADATA.equals(metadata.getNativeMetadataFormatName())) {
+            return 1;
+        }
+        Node root = metadata.getAsTree(JPEG_METADATA);
+        for (Node child = root.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (!"markerSequence".equals(child.getNodeName())) {
+                continue;
+            }
+            for (Node marker = child.getFirstChild(); marker != null; marker = marker.getNextSibling()) {
+                Node tag = marker.getAttributes() != null ? marker.getAttributes().getNamedItem("MarkerTag") : null;
+                if ("unknown".equals(marker.getNodeName()) && tag != null && "225".equals(tag.getNodeValue())
+                        && marker instanceof IIOMetadataNode) {
+                    Object data = ((IIOMetadataNode) marker).getUserObject();
+                    int orientation = data instanceof byte[] ? exifOrientation((byte[]) data) : 1;
+                    if (orientation != 1) {
+                        return orientation;
+                    }
+                }
+            }
+        }
+        return 1;
+    }
+
+    static int exifOrientation(byte[] app1) {
+        int tiff = EXIF_HEADER.length;
+        if (app1.length < tiff + 8) {
+            return 1;
+        }
+        for (int i = 0; i < tiff; i++) {
+            if (app1[i] != EXIF_HEADER[i]) {
+                return 1;
+            }
+        }
+        ByteBuffer buf = ByteBuffer.wrap(app1)
+                .order(app1[tiff] == 'I' ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+        int ifd = tiff + buf.getInt(tiff + 4);
+        if (ifd < tiff || ifd + 2 > app1.length) {
+            return 1;
+        }
+        int count = buf.getShort(ifd) & 0xFFFF;
+        for (int i = 0; i < count; i++) {
+            int entry = ifd + 2 + i * 12;
+            if (entry + 12 > app1.length) {
+                break;
+            }
+            if ((buf.getShort(entry) & 0xFFFF) == 0x0112) {
+                int value = buf.getShort(entry + 8) & 0xFFFF;
+                return value >= 1 && value <= 8 ? value : 1;
+            }
+        }
+        return 1;
+    }
+
+    /**
+     * EXIF 방향대로 뒤집기/회전 (5~8 은 가로세로가 바뀐다)
+     */
+    static BufferedImage orient(BufferedImage src, int orientation) {
+        if (orientation <= 1 || orientation > 8) {
+            return src;
+        }
+        int w = src.getWidth();
+        int h = src.getHeight();
+        AffineTransform tx;
+        switch (orientation) {
+            case 2:
+                tx = new AffineTransform(-1, 0, 0, 1, w, 0);
+                break;
+            case 3:
+                tx = new AffineTransform(-1, 0, 0, -1, w, h);
+                break;
+            case 4:
+                tx = new AffineTransform(1, 0, 0, -1, 0, h);
+                break;
+            case 5:
+                tx = new AffineTransform(0, 1, 1, 0, 0, 0);
+                break;
+            case 6:
+                tx = new AffineTransform(0, 1, -1, 0, h, 0);
+                break;
+            case 7:
+                tx = new AffineTransform(0, -1, -1, 0, h, w);
+                break;
+            default:
+                tx = new AffineTransform(0, -1, 1, 0, 0, w);
+                break;
+        }
+        boolean swap = orientation >= 5;
+        int type = src.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage out = new BufferedImage(swap ? h : w, swap ? w : h, type);
+        Graphics2D g = out.createGraphics();
+        try {
+            g.drawImage(src, tx, null);
+        } finally {
+            g.dispose();
+        }
+        return out;
+    }
+
+    /**
+     * 긴 변을 maxEdge 로 축소. 2배 이상 차이나면 절반씩 줄여 품질 유지 (bilinear)
+     */
+    private static BufferedImage scale(BufferedImage src, int maxEdge) {
+        int width = src.getWidth();
+        int height = src.getHeight();
+        double ratio = Math.min(1.0, maxEdge / (double) Math.max(width, height));
+        int targetW = Math.max(1, (int) Math.round(width * ratio));
+        int targetH = Math.max(1, (int) Math.round(height * ratio));
+        int type = src.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage current = src;
+        int w = width;
+        int h = height;
+        do {
+            w = Math.max(targetW, w / 2);
+            h = Math.max(targetH, h / 2);
+            BufferedImage next = new BufferedImage(w, h, type);
+            Graphics2D g = next.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(current, 0, 0, w, h, null);
+            } finally {
+                g.dispose();
+            }
+            current = next;
+        } while (w != targetW || h != targetH);
+        return current;
+    }
+
+    private static byte[] encode(BufferedImage image, boolean alpha) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (alpha) {
+            ImageIO.write(image, "png", out);
+            return out.toByteArray();
+        }
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(ios);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(0.82f);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    private static boolean isImage(CmsFile file) {
+        String mime = file.getMimeType();
+        // SVG 는 벡터라 축소본이 필요 없고 ImageIO 로 읽을 수도 없다
+        return mime != null && mime.startsWith("image/") && !mime.startsWith("image/svg");
+    }
+}
@@ -1,13 +1,30 @@
 package cms.file.service;
 
+import cms.common.dto.CursorPageResponse;
 import cms.file.entity.CmsFile;
 import org.springframework.core.io.Resource;
 import org.springframework.web.multipart.MultipartFile;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface FileService {
     List<CmsFile> uploadFiles(String menu, Long menuId, List<MultipartFile> files);
 
+    /**
+     * 이미 저장된 같은 내용(SHA-256)의 blob 을 참조하는 파일 행을 만듭니다. (presign 단계 업로드 생략)
+     *
+     * @param checksum "sha256:&lt;hex&gt;" 또는 hex
+     * @param size     선언된 파일 크기 (blob 크기와 다르면 생략하지 않음)
+     * @return 생성된 파일. blob 이 없거나, 같은 내용의 공개 파일/호출자가 올린 파일이 없으면 null (업로드 필요)
+     */
+    CmsFile attachExistingBlob(String menu, Long menuId, String originName, String mimeType, String checksum, long size);
+
+    /**
+     * 이미 참조를 확보한 blob 으로 파일 행을 만듭니다. (분할 업로드 완료)
+     */
+    CmsFile registerBlob(String menu, Long menuId, String originName, String mimeType, FileBlobStore.StoredBlob blob);
+
     List<CmsFile> getList(String menu, Long menuId, String publicYn);
 
     List<CmsFile> getPublicList(String menu, Long menuId);
@@ -32,6 +49,15 @@ public interface FileService {
      */
     int deleteOrphanedFilesByMissingArticle(List<String> menuTypes);
 
+    /**
+     * 고아 파일을 메뉴 타입별 anti-join 청크로 찾아 일괄 삭제하거나, dryRun 이면 보고만 합니다.
+     *
+     * @param menuTypes 대상 메뉴 타입 목록 (CHAT, FILE_VARIANT 포함)
+     * @param dryRun    true 면 삭제하지 않음
+     * @return 메뉴별 건수/용량/샘플 id 와 삭제 수
+     */
+    OrphanFileCleaner.Report cleanupOrphanedFiles(List<String> menuTypes, boolean dryRun);
+
     /**
      * 지정된 메뉴 타입들의 파일 개수를 반환합니다.
      * 
@@ -51,4 +77,33 @@ public interface FileService {
     void setMessageId(Long fileId, Long messageId);
 
     void setMessageIdBulk(java.util.List<Long> fileIds, Long messageId);
+
+    /**
+     * 메시지 id 목록의 첨부파일을 IN 쿼리로 한 번에 조회해 messageId 별로 묶어 반환합니다.
+     * 첨부가 없는 메시지는 결과 맵에 포함되지 않습니다.
+     *
+     * @param messageIds 메시지 ID 목록
+     * @return messageId -> 첨부파일 목록 (fileOrder 순)
+     */
+    Map<Long, List<CmsFile>> getFilesByMessageIds(Collection<Long> messageIds);
+
+    /**
+     * 여러 리소스(menuId)의 파일을 IN 쿼리로 한 번에 조회합니다. (최신순)
+     *
+     * @param menu    메뉴 타입
+     * @param menuIds 리소스 ID 목록
+     * @return 파일 목록
+     */
+    List<CmsFile> getListByMenuIds(String menu, Collection<Long> menuIds);
+
+    /**
+     * 채널의 채팅 첨부파일을 최신순 keyset 페이지로 조회합니다.
+     *
+     * @param channelId  채널 ID
+     * @param cursor     이전 페이지의 nextCursor (fileId), 첫 페이지는 null
+     * @param size       페이지 크기
+     * @param mimeFamily image / video / document (null 이면 전체)
+     * @return 파일 페이지
+     */
+    CursorPageResponse<CmsFile> getChannelAttachments(Long channelId, Long cursor, int size, String mimeFamily);
 }
\ No newline at end of file
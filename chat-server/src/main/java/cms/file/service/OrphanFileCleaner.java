@@ -0,0 +1,264 @@
+package cms.file.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 연결된 리소스가 없는 고아 파일 정리.
+ * - 메뉴 타입별로 file LEFT JOIN 리소스 테이블 anti-join 을 file_id keyset 청크로 조회 (파일마다 existsById 하지 않음)
+ * - 청크 단위 짧은 트랜잭션에서 파생본 포함 일괄 DELETE + blob 참조 일괄 해제
+ * - 물리 파일 삭제(개별 파일, 참조가 끊긴 blob)는 커밋 후 워커 풀에서 병렬로 처리
+ * - dryRun 이면 삭제 없이 메뉴별 건수/용량/샘플 id 만 보고
+ * 지표: file.orphan.found / deleted {menu}, file.orphan.cleanup.running, file.orphan.cleanup.scanned
+ */
+@Service
+@Slf4j
+public class OrphanFileCleaner {
+
+    // 메뉴 타입 -> 소유 리소스 (테이블, PK 컬럼)
+    private static final Map<String, String[]> OWNERS = new LinkedHashMap<>();
+
+    static {
+        OWNERS.put("ARTICLE_ATTACHMENT", new String[]{"bbs_article", "ntt_id"});
+        OWNERS.put("EDITOR_EMBEDDED_MEDIA", new String[]{"bbs_article", "ntt_id"});
+        OWNERS.put("POPUP_CONTENT", new String[]{"popup", "id"});
+        OWNERS.put("ENTERPRISE_IMAGE", new String[]{"enterprise", "enterprise_id"});
+        OWNERS.put("CHAT", new String[]{"chat_thread", "id"});
+        OWNERS.put(FileDerivativeService.VARIANT_MENU, new String[]{"file", "file_id"});
+    }
+
+    private static final int SAMPLE_SIZE = 20;
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final TransactionTemplate requiresNew;
+    private final FileBlobStore fileBlobStore;
+    private final Path basePath;
+    private final int chunkSize;
+    private final int deleteWorkers;
+    private final MeterRegistry registry;
+
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicLong scanned = new AtomicLong();
+    private final Map<String, Counter> found = new ConcurrentHashMap<>();
+    private final Map<String, Counter> deleted = new ConcurrentHashMap<>();
+
+    public OrphanFileCleaner(NamedParameterJdbcTemplate jdbc,
+            PlatformTransactionManager transactionManager,
+            FileBlobStore fileBlobStore,
+            ObjectProvider<MeterRegistry> meterRegistry,
+            @Value("${spring.file.storage.local.base-path}") String basePath,
+            @Value("${spring.file.orphan-cleanup.chunk-size:500}") int chunkSize,
+            @Value("${spring.file.orphan-cleanup.delete-workers:4}") int deleteWorkers) {
+        this.jdbc = jdbc;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.fileBlobStore = fileBlobStore;
+        this.basePath = Paths.get(basePath).toAbsolutePath().normalize();
+        this.chunkSize = Math.max(1, chunkSize);
+        this.deleteWorkers = Math.max(1, deleteWorkers);
+        this.registry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+        Gauge.builder("file.orphan.cleanup.running", running, AtomicInteger::get).register(registry);
+        Gauge.builder("file.orphan.cleanup.scanned", scanned, AtomicLong::get)
+                .description("Orphan candidates examined by the current or last cleanup run")
+                .register(registry);
+    }
+
+    public static boolean isSupported(String menuType) {
+        return OWNERS.containsKey(menuType);
+    }
+
+    /**
+     * 고아 파일 정리 (dryRun 이면 보고만). 지원하지 않는 메뉴 타입은 건너뛴다
+     */
+    public Report clean(List<String> menuTypes, boolean dryRun) {
+        Report report = new Report(dryRun);
+        running.incrementAndGet();
+        scanned.set(0);
+        ExecutorService pool = dryRun ? null : Executors.newFixedThreadPool(deleteWorkers,
+                new CustomizableThreadFactory("file-orphan-delete-"));
+        List<Future<?>> physical = new ArrayList<>();
+        try {
+            for (String menu : menuTypes) {
+                String[] owner = OWNERS.get(menu);
+                if (owner == null) {
+                    log.warn("Unknown menu type: {}. Skipping orphaned file check", menu);
+                    continue;
+                }
+                MenuReport menuReport = report.menu(menu);
+                long after = 0;
+                while (true) {
+                    List<Map<String, Object>> rows = findOrphans(menu, owner, after);
+                    if (rows.isEmpty()) {
+                        break;
+                    }
+                    after = ((Number) rows.get(rows.size() - 1).get("file_id")).longValue();
+                    scanned.addAndGet(rows.size());
+                    menuReport.add(rows);
+                    foundCounter(menu).increment(rows.size());
+                    if (!dryRun) {
+                        int removed = deleteChunk(rows, pool, physical);
+                        menuReport.deleted += removed;
+                        deletedCounter(menu).increment(removed);
+                    }
+                    log.info("Orphan scan {}: {} found so far (last file_id {})", menu, menuReport.found, after);
+                    if (rows.size() < chunkSize) {
+                        break;
+                    }
+                }
+            }
+            for (Future<?> f : physical) {
+                try {
+                    f.get();
+                } catch (Exception e) {
+                    log.warn("Orphan physical delete failed: {}", e.getMessage());
+                }
+            }
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
+            }
+            running.decrementAndGet();
+        }
+        return report;
+    }
+
+    private List<Map<String, Object>> findOrphans(String menu, String[] owner, long after) {
+        // 테이블/컬럼명은 OWNERS 상수에서만 온다
+        String sql = "SELECT f.file_id, f.saved_name, f.content_hash, f.size FROM file f " +
+                "LEFT JOIN " + owner[0] + " o ON o." + owner[1] + " = f.menu_id " +
+                "WHERE f.menu = :menu AND f.file_id > :after AND o." + owner[1] + " IS NULL " +
+                "ORDER BY f.file_id LIMIT :limit";
+        return jdbc.queryForList(sql, new MapSqlParameterSource()
+                .addValue("menu", menu)
+                .addValue("after", after)
+                .addValue("limit", chunkSize));
+    }
+
+    /**
+     * 청크 하나를 (파생본 포함) 한 트랜잭션에서 일괄 삭제하고, 커밋 후 물리 삭제를 워커 풀에 넘긴다
+     */
+    private int deleteChunk(List<Map<String, Object>> rows, ExecutorService pool, List<Future<?>> physical) {
+        List<Long> ids = new ArrayList<>(rows.size());
+        for (Map<String, Object> row : rows) {
+            ids.add(((Number) row.get("file_id")).longValue());
+        }
+        List<String> legacyFiles = new ArrayList<>();
+        Set<String> releasedHashes = requiresNew.execute(status -> {
+            MapSqlParameterSource params = new MapSqlParameterSource("ids", ids)
+                    .addValue("variantMenu", FileDerivativeService.VARIANT_MENU);
+            List<Map<String, Object>> targets = new ArrayList<>(rows);
+            targets.addAll(jdbc.queryForList(
+                    "SELECT file_id, saved_name, content_hash, size FROM file " +
+                    "WHERE menu = :variantMenu AND menu_id IN (:ids)", params));
+            List<String> hashes = new ArrayList<>();
+            for (Map<String, Object> t : targets) {
+                Object hash = t.get("content_hash");
+                if (hash != null) {
+                    hashes.add(hash.toString());
+                } else {
+                    legacyFiles.add((String) t.get("saved_name"));
+                }
+            }
+            jdbc.update("DELETE FROM file WHERE menu = :variantMenu AND menu_id IN (:ids)", params);
+            jdbc.update("DELETE FROM file WHERE file_id IN (:ids)", params);
+            return fileBlobStore.releaseAll(hashes);
+        });
+        for (String savedName : legacyFiles) {
+            physical.add(pool.submit(() -> deleteLegacy(savedName)));
+        }
+        for (String hash : releasedHashes != null ? releasedHashes : Collections.<String>emptySet()) {
+            // 다른 행이 아직 참조하면 collect 는 아무것도 하지 않는다
+            physical.add(pool.submit(() -> fileBlobStore.collect(hash)));
+        }
+        return ids.size();
+    }
+
+    private void deleteLegacy(String savedName) {
+        try {
+            Path path = basePath.resolve(savedName).normalize();
+            if (path.startsWith(basePath)) {
+                Files.deleteIfExists(path);
+            }
+        } catch (Exception e) {
+            log.error("Error deleting physical orphaned file: {}. Stored Name: {}", e.getMessage(), savedName);
+        }
+    }
+
+    private Counter foundCounter(String menu) {
+        return found.computeIfAbsent(menu, m -> Counter.builder("file.orphan.found").tag("menu", m).register(registry));
+    }
+
+    private Counter deletedCounter(String menu) {
+        return deleted.computeIfAbsent(menu, m -> Counter.builder("file.orphan.deleted").tag("menu", m).register(registry));
+    }
+
+    @Getter
+    public static final class Report {
+        private final boolean dryRun;
+        private final Map<String, MenuReport> menus = new LinkedHashMap<>();
+
+        Report(boolean dryRun) {
+            this.dryRun = dryRun;
+        }
+
+        MenuReport menu(String menu) {
+            return menus.computeIfAbsent(menu, m -> new MenuReport());
+        }
+
+        public long getTotalFound() {
+            return menus.values().stream().mapToLong(MenuReport::getFound).sum();
+        }
+
+        public long getTotalDeleted() {
+            return menus.values().stream().mapToLong(MenuReport::getDeleted).sum();
+        }
+    }
+
+    @Getter
+    public static final class MenuReport {
+        private long found;
+        private long bytes;
+        private long deleted;
+        private final List<Long> sampleFileIds = new ArrayList<>();
+
+        void add(List<Map<String, Object>> rows) {
+            for (Map<String, Object> row : rows) {
+                found++;
+                Object size = row.get("size");
+                bytes += size != null ? ((Number) size).longValue() : 0;
+                if (sampleFileIds.size() < SAMPLE_SIZE) {
+                    sampleFileIds.add(((Number) row.get("file_id")).longValue());
+                }
+            }
+        }
+    }
+}
@@ -1,8 +1,12 @@
 package cms.file.service.impl;
 
+import cms.common.dto.CursorPageResponse;
 import cms.file.entity.CmsFile;
 import cms.file.repository.FileRepository;
+import cms.file.service.FileBlobStore;
+import cms.file.service.FileDerivativeService;
 import cms.file.service.FileService;
+import cms.file.service.OrphanFileCleaner;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.Resource;
@@ -11,6 +15,9 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
@@ -23,14 +30,13 @@ import java.net.MalformedURLException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
 import lombok.extern.slf4j.Slf4j;
-import cms.popup.repository.PopupRepository;
-import cms.enterprise.repository.EnterpriseRepository;
 
 @Service
 @RequiredArgsConstructor
@@ -39,8 +45,11 @@ public class FileServiceImpl implements FileService {
 
     private final FileRepository fileRepository;
     private final BbsArticleRepository bbsArticleRepository;
-    private final PopupRepository popupRepository;
-    private final EnterpriseRepository enterpriseRepository;
+    private final FileBlobStore fileBlobStore;
+    private final FileDerivativeService fileDerivativeService;
+    private final OrphanFileCleaner orphanFileCleaner;
+
+    private static final int IN_CLAUSE_CHUNK = 1000;
 
     @Value("${spring.file.storage.local.base-path}")
     private String basePath;
@@ -54,37 +63,32 @@ public class FileServiceImpl implements FileService {
             if (file != null && !file.isEmpty()) {
                 String originalFilename = file.getOriginalFilename();
                 String ext = FilenameUtils.getExtension(originalFilename);
-                String uuidFileName = generateUUIDFileName(ext);
-
-                String dateSubDir = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd"));
-
-                // DB에 저장될 상대 경로: "<uploadPath>/<date>/<uuid.ext>"
-                String relativeSavePath = Paths.get(dateSubDir, uuidFileName).toString().replace("\\", "/");
 
                 try {
-                    // 물리적 파일 저장 경로: "<basePath>/<uploadPath>/<date>/<uuid.ext>"
-                    Path targetDirectory = Paths.get(basePath, dateSubDir);
-                    Files.createDirectories(targetDirectory);
-                    Path targetLocation = targetDirectory.resolve(uuidFileName);
-
+                    // 같은 내용은 blobs/ 아래 물리 파일 하나를 공유 (SHA-256 내용 주소)
+                    FileBlobStore.StoredBlob blob;
                     try (java.io.InputStream inputStream = file.getInputStream()) {
-                        Files.copy(inputStream, targetLocation, StandardCopyOption.REPLACE_EXISTING);
+                        blob = fileBlobStore.store(inputStream, ext);
                     }
 
                     CmsFile fileEntity = new CmsFile();
                     fileEntity.setMenu(menu); // "BBS", "CONTENT" 등
                     fileEntity.setMenuId(menuId);
                     fileEntity.setOriginName(originalFilename);
-                    fileEntity.setSavedName(relativeSavePath); // 타입, 날짜 포함 상대 경로 저장
+                    fileEntity.setSavedName(blob.getSavedName());
+                    fileEntity.setContentHash(blob.getHash());
                     fileEntity.setMimeType(file.getContentType());
-                    fileEntity.setSize(file.getSize());
+                    fileEntity.setSize(blob.getSize());
                     fileEntity.setExt(ext);
                     fileEntity.setPublicYn("Y");
+                    fileEntity.setCreatedBy(currentUsername());
 
                     Integer maxOrder = fileRepository.findMaxFileOrder(menu, menuId);
                     fileEntity.setFileOrder(maxOrder != null ? maxOrder + 1 : 0);
 
-                    uploadedFiles.add(fileRepository.save(fileEntity));
+                    CmsFile saved = fileRepository.save(fileEntity);
+                    fileDerivativeService.requestAfterCommit(saved);
+                    uploadedFiles.add(saved);
                 } catch (IOException ex) {
                     throw new RuntimeException(
                             "Could not store file " + originalFilename + ". Error: " + ex.getMessage(), ex);
@@ -94,14 +98,6 @@ public class FileServiceImpl implements FileService {
         return uploadedFiles;
     }
 
-    private String generateUUIDFileName(String extension) {
-        String uuid = UUID.randomUUID().toString().replace("-", "");
-        if (extension != null && !extension.isEmpty()) {
-            return String.format("%s.%s", uuid, extension);
-        }
-        return uuid;
-    }
-
     @Override
     @Transactional(readOnly = true)
     public List<CmsFile> getList(String menu, Long menuId, String publicYn) {
@@ -140,8 +136,8 @@ public class FileServiceImpl implements FileService {
                 .orElseThrow(() -> new RuntimeException("파일을 찾을 수 없습니다. ID: " + fileId));
 
         try {
-            Path filePath = Paths.get(basePath, file.getSavedName());
-            Files.deleteIfExists(filePath);
+            deletePhysical(file);
+            deleteVariants(file);
         } catch (IOException e) {
             System.err.println("Error deleting physical file: " + e.getMessage());
         }
@@ -149,6 +145,70 @@ public class FileServiceImpl implements FileService {
         fileRepository.delete(file);
     }
 
+    /**
+     * blob 참조면 참조만 해제 (마지막 참조일 때 커밋 후 삭제), 개별 파일이면 바로 삭제
+     */
+    private void deletePhysical(CmsFile file) throws IOException {
+        if (file.getContentHash() != null) {
+            fileBlobStore.release(file.getContentHash());
+        } else {
+            Files.deleteIfExists(Paths.get(basePath, file.getSavedName()));
+        }
+    }
+
+    /**
+     * 원본의 썸네일/미리보기 파생본 삭제
+     */
+    private void deleteVariants(CmsFile file) throws IOException {
+        for (CmsFile variant : fileRepository.findByMenuAndMenuId(FileDerivativeService.VARIANT_MENU, file.getFileId())) {
+            deletePhysical(variant);
+            fileRepository.delete(variant);
+        }
+        fileDerivativeService.evict(file.getFileId());
+    }
+
+    /**
+     * 해시만으로 남의 파일을 가져가지 못하도록, 같은 내용의 공개 파일이나 호출자가 올린 파일이 있을 때만 업로드를 생략한다.
+     * 그 외에는 null (업로드 필요) 로 응답해 blob 이 있는지도 드러내지 않는다
+     */
+    @Override
+    @Transactional
+    public CmsFile attachExistingBlob(String menu, Long menuId, String originName, String mimeType,
+            String checksum, long size) {
+        String hash = FileBlobStore.normalizeHash(checksum);
+        if (hash == null || fileRepository.countReusableByContentHash(hash, currentUsername()) == 0) {
+            return null;
+        }
+        FileBlobStore.StoredBlob blob = fileBlobStore.retain(hash, size);
+        if (blob == null) {
+            return null;
+        }
+        return registerBlob(menu, menuId, originName, mimeType, blob);
+    }
+
+    @Override
+    @Transactional
+    public CmsFile registerBlob(String menu, Long menuId, String originName, String mimeType,
+            FileBlobStore.StoredBlob blob) {
+        String ext = FilenameUtils.getExtension(originName);
+        CmsFile fileEntity = new CmsFile();
+        fileEntity.setMenu(menu);
+        fileEntity.setMenuId(menuId);
+        fileEntity.setOriginName(originName);
+        fileEntity.setSavedName(blob.getSavedName());
+        fileEntity.setContentHash(blob.getHash());
+        fileEntity.setMimeType(mimeType);
+        fileEntity.setSize(blob.getSize());
+        fileEntity.setExt(ext != null ? ext : "");
+        fileEntity.setPublicYn("Y");
+        fileEntity.setCreatedBy(currentUsername());
+        Integer maxOrder = fileRepository.findMaxFileOrder(menu, menuId);
+        fileEntity.setFileOrder(maxOrder != null ? maxOrder + 1 : 0);
+        CmsFile saved = fileRepository.save(fileEntity);
+        fileDerivativeService.requestAfterCommit(saved);
+        return saved;
+    }
+
     @Override
     @Transactional
     public void updateFileOrder(List<CmsFile> files) {
@@ -205,84 +265,17 @@ public class FileServiceImpl implements FileService {
     }
 
     @Override
-    @Transactional
     public int deleteOrphanedFilesByMissingArticle(List<String> menuTypes) {
-        log.info("Starting deletion of orphaned files for menu types: {}", menuTypes);
-        List<CmsFile> candidateFiles = fileRepository.findByMenuIn(menuTypes);
-
-        int deletedCount = 0;
-        List<CmsFile> filesToDelete = new ArrayList<>();
-
-        for (CmsFile file : candidateFiles) {
-            if (file.getMenuId() == null) {
-                continue;
-            }
-
-            // 메뉴 타입별로 적절한 엔티티 체크
-            boolean isOrphaned = isOrphanedFile(file);
-            if (isOrphaned) {
-                filesToDelete.add(file);
-            }
-        }
-
-        if (filesToDelete.isEmpty()) {
-            log.info("No orphaned files found to delete for menu types: {}", menuTypes);
-            return 0;
-        }
-
-        log.info("Found {} orphaned files to delete.", filesToDelete.size());
-
-        for (CmsFile file : filesToDelete) {
-            try {
-                Path filePath = Paths.get(basePath, file.getSavedName());
-                Files.deleteIfExists(filePath);
-                fileRepository.delete(file);
-                deletedCount++;
-                log.info(
-                        "Orphaned file deleted (Entity ID: {} not found for menu type: {}): File ID={}, Stored Name={}",
-                        file.getMenuId(), file.getMenu(), file.getFileId(), file.getSavedName());
-            } catch (IOException e) {
-                log.error("Error deleting physical orphaned file: {}. File ID: {}, Stored Name: {}", e.getMessage(),
-                        file.getFileId(), file.getSavedName(), e);
-            } catch (Exception e) {
-                log.error("Error deleting orphaned file record from DB: {}. File ID: {}, Stored Name: {}",
-                        e.getMessage(), file.getFileId(), file.getSavedName(), e);
-            }
-        }
-        log.info("Finished deletion of orphaned files. Total deleted: {}", deletedCount);
-        return deletedCount;
+        return (int) cleanupOrphanedFiles(menuTypes, false).getTotalDeleted();
     }
 
-    /**
-     * 파일이 고아 파일인지 메뉴 타입별로 체크합니다.
-     */
-    private boolean isOrphanedFile(CmsFile file) {
-        String menuType = file.getMenu();
-        Long menuId = file.getMenuId();
-
-        try {
-            switch (menuType) {
-                case "ARTICLE_ATTACHMENT":
-                case "EDITOR_EMBEDDED_MEDIA":
-                    return !bbsArticleRepository.existsById(menuId);
-
-                case "POPUP_CONTENT":
-                    return !popupRepository.existsById(menuId);
-
-                case "ENTERPRISE_IMAGE":
-                    return !enterpriseRepository.existsById(menuId);
-
-                // 추가 메뉴 타입들은 여기에 추가
-                default:
-                    log.warn("Unknown menu type: {}. Skipping orphaned file check for file ID: {}",
-                            menuType, file.getFileId());
-                    return false; // 알 수 없는 타입은 삭제하지 않음
-            }
-        } catch (Exception e) {
-            log.error("Error checking orphaned status for file ID: {}, menu type: {}, menu ID: {}. Error: {}",
-                    file.getFileId(), menuType, menuId, e.getMessage());
-            return false; // 오류 발생 시 삭제하지 않음
-        }
+    @Override
+    public OrphanFileCleaner.Report cleanupOrphanedFiles(List<String> menuTypes, boolean dryRun) {
+        // 청크마다 자체 트랜잭션으로 처리하므로 여기서는 트랜잭션을 열지 않는다
+        log.info("Starting {}orphaned file cleanup for menu types: {}", dryRun ? "dry-run " : "", menuTypes);
+        OrphanFileCleaner.Report report = orphanFileCleaner.clean(menuTypes, dryRun);
+        log.info("Finished orphaned file cleanup. Found: {}, deleted: {}", report.getTotalFound(), report.getTotalDeleted());
+        return report;
     }
 
     @Override
@@ -391,4 +384,90 @@ public class FileServiceImpl implements FileService {
             setMessageId(fid, messageId);
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Long, List<CmsFile>> getFilesByMessageIds(Collection<Long> messageIds) {
+        Map<Long, List<CmsFile>> grouped = new HashMap<>();
+        if (messageIds == null || messageIds.isEmpty()) {
+            return grouped;
+        }
+        for (List<Long> chunk : chunk(messageIds)) {
+            for (CmsFile f : fileRepository.findByMessageIdIn(chunk)) {
+                grouped.computeIfAbsent(f.getMessageId(), k -> new ArrayList<>()).add(f);
+            }
+        }
+        return grouped;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<CmsFile> getListByMenuIds(String menu, Collection<Long> menuIds) {
+        if (menuIds == null || menuIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<List<Long>> chunks = chunk(menuIds);
+        if (chunks.size() == 1) {
+            return fileRepository.findByMenuAndMenuIdIn(menu, chunks.get(0));
+        }
+        List<CmsFile> all = new ArrayList<>();
+        for (List<Long> c : chunks) {
+            all.addAll(fileRepository.findByMenuAndMenuIdIn(menu, c));
+        }
+        all.sort((a, b) -> {
+            LocalDateTime la = a.getUpdatedDate() != null ? a.getUpdatedDate() : a.getCreatedDate();
+            LocalDateTime lb = b.getUpdatedDate() != null ? b.getUpdatedDate() : b.getCreatedDate();
+            return lb.compareTo(la);
+        });
+        return all;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageResponse<CmsFile> getChannelAttachments(Long channelId, Long cursor, int size, String mimeFamily) {
+        String mimePrefix = null;
+        boolean documentsOnly = false;
+        if (mimeFamily != null && !mimeFamily.isEmpty()) {
+            switch (mimeFamily.toLowerCase()) {
+                case "image":
+                    mimePrefix = "image/";
+                    break;
+                case "video":
+                    mimePrefix = "video/";
+                    break;
+                case "document":
+                    documentsOnly = true;
+                    break;
+                default:
+                    throw new IllegalArgumentException("지원하지 않는 파일 유형입니다: " + mimeFamily);
+            }
+        }
+        List<CmsFile> rows = fileRepository.findChatAttachmentsByChannel(
+                channelId, cursor, mimePrefix, documentsOnly, PageRequest.of(0, size + 1));
+        boolean hasMore = rows.size() > size;
+        List<CmsFile> content = hasMore ? new ArrayList<>(rows.subList(0, size)) : rows;
+        String nextCursor = hasMore ? String.valueOf(content.get(content.size() - 1).getFileId()) : null;
+        return new CursorPageResponse<>(content, nextCursor, hasMore);
+    }
+
+    // IN 절 파라미터 수 제한
+    private static List<List<Long>> chunk(Collection<Long> ids) {
+        List<Long> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int i = 0; i < distinct.size(); i += IN_CLAUSE_CHUNK) {
+            chunks.add(distinct.subList(i, Math.min(i + IN_CLAUSE_CHUNK, distinct.size())));
+        }
+        return chunks;
+    }
+
+    /**
+     * 인증된 사용자 이름 (익명/인증 없음이면 null). 업로드한 파일 행의 created_by 로 남긴다
+     */
+    private static String currentUsername() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !auth.isAuthenticated() || auth instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return auth.getName();
+    }
+}
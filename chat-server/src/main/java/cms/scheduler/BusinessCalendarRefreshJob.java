@@ -0,0 +1,25 @@
+package cms.scheduler;
+
+import cms.common.service.BusinessHoursService;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+@Service
+public class BusinessCalendarRefreshJob {
+
+    private final BusinessHoursService businessHoursService;
+
+    public BusinessCalendarRefreshJob(BusinessHoursService businessHoursService) {
+        this.businessHoursService = businessHoursService;
+    }
+
+    /**
+     * Reloads the in-memory business calendar (holiday overrides and per-channel
+     * business hours) so that changes made directly in the DB or on another node
+     * are picked up. Runs every 5 minutes.
+     */
+    @Scheduled(cron = "0 */5 * * * ?")
+    public void refreshBusinessCalendar() {
+        businessHoursService.refresh();
+    }
+}
@@ -0,0 +1,56 @@
+package cms.scheduler;
+
+import cms.chat.service.ChatDashboardAggregator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+@Service
+public class ChatDashboardJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatDashboardJob.class);
+
+    private final ChatDashboardAggregator chatDashboardAggregator;
+
+    public ChatDashboardJob(ChatDashboardAggregator chatDashboardAggregator) {
+        this.chatDashboardAggregator = chatDashboardAggregator;
+    }
+
+    /**
+     * Recomputes the dashboard KPI snapshot from the in-memory hourly buckets and
+     * pushes what changed since the last run to /sub/dashboard. Runs every 2 seconds
+     * by default (chat.dashboard.push-cron).
+     */
+    @Scheduled(cron = "${chat.dashboard.push-cron:*/2 * * * * ?}")
+    public void pushDashboardDelta() {
+        try {
+            chatDashboardAggregator.pushDelta();
+        } catch (Exception e) {
+            logger.warn("Chat dashboard push failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Saves this node's changed hourly buckets to chat_dashboard_hourly so the dashboard
+     * survives restarts without rescanning chat_message, then reloads the other nodes'
+     * rows so every node reports cluster-wide totals. Runs every minute by default
+     * (chat.dashboard.persist-cron); other nodes' numbers lag by up to one run.
+     */
+    @Scheduled(cron = "${chat.dashboard.persist-cron:0 * * * * ?}")
+    public void persistDashboardSnapshot() {
+        try {
+            int saved = chatDashboardAggregator.persistSnapshot();
+            if (saved > 0) {
+                logger.debug("Chat dashboard: saved {} hourly buckets", saved);
+            }
+        } catch (Exception e) {
+            logger.warn("Chat dashboard snapshot failed: {}", e.getMessage());
+        }
+        try {
+            chatDashboardAggregator.syncPeers();
+        } catch (Exception e) {
+            logger.warn("Chat dashboard peer sync failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package cms.scheduler;
+
+import cms.chat.service.ChatMessageArchiveService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+@Service
+public class ChatMessageArchiveJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatMessageArchiveJob.class);
+
+    private final ChatMessageArchiveService chatMessageArchiveService;
+
+    public ChatMessageArchiveJob(ChatMessageArchiveService chatMessageArchiveService) {
+        this.chatMessageArchiveService = chatMessageArchiveService;
+    }
+
+    /**
+     * Moves messages of threads that have been idle longer than chat.archive.after-days
+     * from chat_message into the compressed chat_message_archive table, keeping the hot
+     * table (and its indexes) small. Runs every day at 03:30.
+     */
+    @Scheduled(cron = "0 30 3 * * ?")
+    public void archiveIdleThreads() {
+        try {
+            int moved = chatMessageArchiveService.archiveIdleThreads();
+            if (moved > 0) {
+                logger.info("Chat archive: moved {} messages to chat_message_archive", moved);
+            }
+        } catch (Exception e) {
+            logger.warn("Chat archive failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Physically deletes soft-deleted chat messages (and their search tokens) once
+     * they are older than chat.archive.purge-after-days. Runs every day at 04:00.
+     */
+    @Scheduled(cron = "0 0 4 * * ?")
+    public void purgeSoftDeletedMessages() {
+        try {
+            int purged = chatMessageArchiveService.purgeSoftDeleted();
+            if (purged > 0) {
+                logger.info("Chat archive: purged {} soft-deleted messages", purged);
+            }
+        } catch (Exception e) {
+            logger.warn("Chat soft-delete purge failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package cms.scheduler;
+
+import cms.chat.service.ChatSearchIndexer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+@Service
+public class ChatSearchBackfillJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatSearchBackfillJob.class);
+
+    private final ChatSearchIndexer chatSearchIndexer;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+
+    private volatile boolean completed;
+
+    public ChatSearchBackfillJob(ChatSearchIndexer chatSearchIndexer,
+            @Value("${chat.search.backfill.batch-size:500}") int batchSize,
+            @Value("${chat.search.backfill.max-batches-per-run:20}") int maxBatchesPerRun) {
+        this.chatSearchIndexer = chatSearchIndexer;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+    }
+
+    /**
+     * Indexes chat messages that existed before the search index was introduced,
+     * a bounded number of batches per run so it never monopolizes the DB.
+     * New messages are indexed on commit by ChatSearchIndexer, so once the backfill
+     * target is reached this job becomes a no-op. Runs every minute.
+     */
+    @Scheduled(cron = "0 * * * * ?")
+    public void backfillSearchIndex() {
+        if (completed) {
+            return;
+        }
+        int indexed = 0;
+        try {
+            for (int i = 0; i < maxBatchesPerRun; i++) {
+                int n = chatSearchIndexer.backfillBatch(batchSize);
+                indexed += n;
+                if (n == 0) {
+                    completed = true;
+                    logger.info("Chat search backfill complete");
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("Chat search backfill failed: {}", e.getMessage());
+        }
+        if (indexed > 0) {
+            logger.info("Chat search backfill: indexed {} messages", indexed);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package cms.scheduler;
+
+import cms.chat.service.ChatResponseTimeTracker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+@Service
+public class ChatSlaMonitorJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatSlaMonitorJob.class);
+
+    private final ChatResponseTimeTracker chatResponseTimeTracker;
+
+    public ChatSlaMonitorJob(ChatResponseTimeTracker chatResponseTimeTracker) {
+        this.chatResponseTimeTracker = chatResponseTimeTracker;
+    }
+
+    /**
+     * Alerts on threads whose oldest unanswered user message has waited longer than
+     * chat.sla.first-response-minutes (indexed scan of chat_thread.awaiting_reply_since).
+     * Each waiting period is alerted once. Runs every 30 seconds.
+     */
+    @Scheduled(cron = "*/30 * * * * ?")
+    public void checkFirstResponseSla() {
+        try {
+            int alerted = chatResponseTimeTracker.checkBreaches();
+            if (alerted > 0) {
+                logger.info("Chat SLA: {} threads waiting past the first-response threshold", alerted);
+            }
+        } catch (Exception e) {
+            logger.warn("Chat SLA check failed: {}", e.getMessage());
+        }
+    }
+}
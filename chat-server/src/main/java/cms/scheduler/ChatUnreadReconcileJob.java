@@ -0,0 +1,46 @@
+package cms.scheduler;
+
+import cms.chat.repository.ChatChannelRepository;
+import cms.chat.service.ChatUnreadCounterService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+@Service
+public class ChatUnreadReconcileJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatUnreadReconcileJob.class);
+
+    private final ChatChannelRepository chatChannelRepository;
+    private final ChatUnreadCounterService chatUnreadCounterService;
+
+    public ChatUnreadReconcileJob(ChatChannelRepository chatChannelRepository,
+            ChatUnreadCounterService chatUnreadCounterService) {
+        this.chatChannelRepository = chatChannelRepository;
+        this.chatUnreadCounterService = chatUnreadCounterService;
+    }
+
+    /**
+     * Recomputes the materialized unread counters from the read cursors and
+     * repairs any drift (lost increments, read/send races).
+     * Runs every 10 minutes, one channel per transaction.
+     */
+    @Scheduled(cron = "0 */10 * * * ?")
+    public void reconcileUnreadCounts() {
+        List<Long> channelIds = chatChannelRepository.findActiveChannelIds();
+        int repairedThreads = 0;
+        for (Long channelId : channelIds) {
+            try {
+                repairedThreads += chatUnreadCounterService.reconcileChannel(channelId);
+            } catch (Exception e) {
+                logger.warn("Unread counter reconcile failed for channel {}: {}", channelId, e.getMessage());
+            }
+        }
+        if (repairedThreads > 0) {
+            logger.info("Unread counter reconcile: repaired {} threads across {} channels", repairedThreads, channelIds.size());
+        }
+    }
+}
@@ -1,8 +1,13 @@
 package cms.scheduler;
 
+import cms.file.service.ChunkedUploadService;
+import cms.file.service.FileBlobStore;
+import cms.file.service.FileDerivativeService;
 import cms.file.service.FileService;
+import cms.file.service.OrphanFileCleaner;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import java.util.Arrays;
@@ -15,6 +20,44 @@ import java.time.LocalDateTime;
 public class FileCleanupScheduler {
 
     private final FileService fileService;
+    private final FileBlobStore fileBlobStore;
+    private final ChunkedUploadService chunkedUploadService;
+
+    // true 면 고아 파일을 찾아 보고만 하고 삭제하지 않음
+    @Value("${spring.file.orphan-cleanup.dry-run:false}")
+    private boolean orphanDryRun;
+
+    /**
+     * Removes expired chunked upload sessions and the temp files of uploads that never completed.
+     * Runs hourly at minute 40.
+     */
+    @Scheduled(cron = "${spring.file.upload.purge-cron:0 40 * * * *}")
+    public void purgeExpiredUploads() {
+        try {
+            int purged = chunkedUploadService.purgeExpired(500);
+            if (purged > 0) {
+                log.info("Purged {} expired upload sessions", purged);
+            }
+        } catch (Exception e) {
+            log.error("Error during upload session purge: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Collects content-addressed blobs whose last reference was released but whose after-commit
+     * cleanup did not run (failed delete, restart in between). Runs hourly at minute 20.
+     */
+    @Scheduled(cron = "${spring.file.dedup.gc-cron:0 20 * * * *}")
+    public void collectUnreferencedBlobs() {
+        try {
+            int deleted = fileBlobStore.collectReleased(500);
+            if (deleted > 0) {
+                log.info("Collected {} unreferenced file blobs", deleted);
+            }
+        } catch (Exception e) {
+            log.error("Error during file blob GC: {}", e.getMessage(), e);
+        }
+    }
 
     // 매월 첫째 주 금요일 오전 3시에 실행
     // Cron 표현식: 초 분 시 일 월 요일 (년도는 생략 가능)
@@ -25,7 +68,9 @@ public class FileCleanupScheduler {
         log.info("Cleanup time: {}", LocalDateTime.now());
 
         try {
-            List<String> menuTypes = Arrays.asList("ARTICLE_ATTACHMENT", "EDITOR_EMBEDDED_MEDIA");
+            // CHAT: 삭제된 스레드의 첨부, FILE_VARIANT: 원본이 사라진 썸네일/미리보기
+            List<String> menuTypes = Arrays.asList("ARTICLE_ATTACHMENT", "EDITOR_EMBEDDED_MEDIA", "CHAT",
+                    FileDerivativeService.VARIANT_MENU);
             log.info("Target menu types: {}", menuTypes);
 
             // 🛡️ 사전 안전 검사
@@ -44,7 +89,14 @@ public class FileCleanupScheduler {
                         totalFilesBeforeCleanup);
             }
 
-            int deletedCount = fileService.deleteOrphanedFilesByMissingArticle(menuTypes);
+            OrphanFileCleaner.Report report = fileService.cleanupOrphanedFiles(menuTypes, orphanDryRun);
+            report.getMenus().forEach((menu, r) -> log.info("Orphans [{}]: found={}, bytes={}, deleted={}, sample={}",
+                    menu, r.getFound(), r.getBytes(), r.getDeleted(), r.getSampleFileIds()));
+            if (report.isDryRun()) {
+                log.info("Dry-run mode: {} orphaned files reported, nothing deleted", report.getTotalFound());
+                return;
+            }
+            int deletedCount = (int) report.getTotalDeleted();
 
             // 삭제 후 통계 정보 로그
             long totalFilesAfterCleanup = fileService.countFilesByMenuTypes(menuTypes);
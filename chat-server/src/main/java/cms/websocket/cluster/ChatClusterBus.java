@@ -0,0 +1,16 @@
+package cms.websocket.cluster;
+
+import java.util.function.Consumer;
+
+/**
+ * 채팅 브로드캐스트를 다른 노드로 전달하는 전송 계층.
+ * 구현체는 발신 노드를 제외한 모든 구독 노드에 envelope 을 전달해야 한다.
+ */
+public interface ChatClusterBus {
+
+    void publish(ChatClusterEnvelope envelope);
+
+    void subscribe(String nodeId, Consumer<ChatClusterEnvelope> listener);
+
+    void unsubscribe(String nodeId);
+}
@@ -0,0 +1,35 @@
+package cms.websocket.cluster;
+
+/**
+ * 노드 간 전달되는 브로드캐스트 단위 (이미 직렬화된 STOMP MESSAGE 페이로드)
+ */
+public class ChatClusterEnvelope {
+
+    private final String originNodeId;
+    private final String destination;
+    private final String contentType;
+    private final byte[] payload;
+
+    public ChatClusterEnvelope(String originNodeId, String destination, String contentType, byte[] payload) {
+        this.originNodeId = originNodeId;
+        this.destination = destination;
+        this.contentType = contentType;
+        this.payload = payload;
+    }
+
+    public String getOriginNodeId() {
+        return originNodeId;
+    }
+
+    public String getDestination() {
+        return destination;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public byte[] getPayload() {
+        return payload;
+    }
+}
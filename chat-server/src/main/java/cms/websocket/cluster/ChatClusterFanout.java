@@ -0,0 +1,94 @@
+package cms.websocket.cluster;
+
+import cms.websocket.config.ChatBrokerProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+/**
+ * brokerChannel 인터셉터: 로컬 SimpleBroker 로 가는 MESSAGE 를 ChatClusterBus 로 복제하고,
+ * 다른 노드에서 들어온 envelope 는 로컬 brokerChannel 로 재주입한다.
+ * 재주입 메시지는 origin 헤더로 표시해 다시 팬아웃되지 않게 한다.
+ */
+@Component
+@ConditionalOnProperty(prefix = "chat.broker", name = "mode", havingValue = "cluster")
+public class ChatClusterFanout implements ChannelInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatClusterFanout.class);
+
+    static final String ORIGIN_HEADER = "chatClusterOrigin";
+
+    private final ChatClusterBus bus;
+    private final ChatBrokerProperties brokerProperties;
+    private final MessageChannel brokerChannel;
+
+    public ChatClusterFanout(ChatClusterBus bus,
+            ChatBrokerProperties brokerProperties,
+            @Lazy @Qualifier("brokerChannel") MessageChannel brokerChannel) {
+        this.bus = bus;
+        this.brokerProperties = brokerProperties;
+        this.brokerChannel = brokerChannel;
+    }
+
+    @PostConstruct
+    public void join() {
+        bus.subscribe(nodeId(), this::deliverRemote);
+    }
+
+    @PreDestroy
+    public void leave() {
+        bus.unsubscribe(nodeId());
+    }
+
+    @Override
+    public void afterSendCompletion(Message<?> message, MessageChannel channel, boolean sent, Exception ex) {
+        if (!sent || !(message.getPayload() instanceof byte[])) {
+            return;
+        }
+        if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.MESSAGE) {
+            return;
+        }
+        if (message.getHeaders().containsKey(ORIGIN_HEADER)) {
+            return;
+        }
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        if (destination == null) {
+            return;
+        }
+        Object contentType = message.getHeaders().get(MessageHeaders.CONTENT_TYPE);
+        bus.publish(new ChatClusterEnvelope(nodeId(), destination,
+                contentType != null ? contentType.toString() : null, (byte[]) message.getPayload()));
+    }
+
+    private void deliverRemote(ChatClusterEnvelope envelope) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(envelope.getDestination());
+        if (envelope.getContentType() != null) {
+            accessor.setContentType(MimeType.valueOf(envelope.getContentType()));
+        }
+        accessor.setHeader(ORIGIN_HEADER, envelope.getOriginNodeId());
+        Message<byte[]> message = MessageBuilder.createMessage(envelope.getPayload(), accessor.getMessageHeaders());
+        if (!brokerChannel.send(message)) {
+            logger.warn("[ChatCluster] Remote message from {} not accepted for {}", envelope.getOriginNodeId(),
+                    envelope.getDestination());
+        }
+    }
+
+    private String nodeId() {
+        return brokerProperties.getCluster().getNodeId();
+    }
+}
@@ -0,0 +1,331 @@
+package cms.websocket.cluster;
+
+import cms.websocket.config.ChatBrokerProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 노드 간 TCP 팬아웃 전송 (chat.broker.cluster.*).
+ * - 각 노드는 port 에서 다른 노드의 연결을 받고, peers 목록의 노드마다 송신 연결 하나를 유지한다
+ * - 프레임: origin, destination, contentType(UTF) + payload 길이/바이트. 연결 직후 첫 프레임은 공유 비밀값
+ *   (비밀값 없이는 기동하지 않음, handshakeTimeoutMs 안에 보내지 않는 연결은 끊음, 수신 연결 수 상한)
+ * - SimpleBroker 와 같은 at-most-once: 연결이 끊긴 노드로 가는 메시지는 버리고 다음 메시지에서 재연결
+ */
+@Component
+@ConditionalOnProperty(prefix = "chat.broker", name = "mode", havingValue = "cluster")
+public class TcpChatClusterBus implements ChatClusterBus {
+
+    private static final Logger logger = LoggerFactory.getLogger(TcpChatClusterBus.class);
+
+    // STOMP 프레임 한도보다 넉넉하게, 손상된 길이 값으로 거대한 배열을 만들지 않도록 제한
+    static final int MAX_PAYLOAD_BYTES = 16 * 1024 * 1024;
+
+    private final ChatBrokerProperties.Cluster config;
+    private final Map<String, Consumer<ChatClusterEnvelope>> listeners = new ConcurrentHashMap<>();
+    private final List<PeerLink> peers = new ArrayList<>();
+    private final Set<Socket> inbound = ConcurrentHashMap.newKeySet();
+
+    private ServerSocket server;
+    private Thread acceptor;
+    private ThreadPoolExecutor readers;
+    private volatile boolean running;
+
+    public TcpChatClusterBus(ChatBrokerProperties brokerProperties) {
+        this.config = brokerProperties.getCluster();
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (config.getSecret() == null || config.getSecret().trim().isEmpty()) {
+            // 비밀값이 없으면 포트에 닿는 누구나 brokerChannel 로 메시지를 주입할 수 있다
+            throw new IllegalStateException("chat.broker.cluster.secret must be set when chat.broker.mode=cluster");
+        }
+        server = new ServerSocket();
+        server.setReuseAddress(true);
+        server.bind(new InetSocketAddress(config.getBindHost(), config.getPort()));
+        readers = new ThreadPoolExecutor(0, Math.max(1, config.getMaxInboundConnections()), 60L, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), daemonThreads("chat-cluster-in-"));
+        running = true;
+        acceptor = daemonThreads("chat-cluster-accept-").newThread(this::acceptLoop);
+        acceptor.start();
+        for (String peer : config.getPeers()) {
+            if (peer != null && !peer.trim().isEmpty()) {
+                peers.add(new PeerLink(peer.trim()));
+            }
+        }
+        logger.info("[ChatCluster] Listening on {}:{} peers={}", config.getBindHost(), server.getLocalPort(), config.getPeers());
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        closeQuietly(server);
+        if (acceptor != null) {
+            acceptor.interrupt();
+        }
+        for (Socket socket : inbound) {
+            closeQuietly(socket);
+        }
+        if (readers != null) {
+            readers.shutdownNow();
+        }
+        for (PeerLink peer : peers) {
+            peer.close();
+        }
+    }
+
+    @Override
+    public void publish(ChatClusterEnvelope envelope) {
+        for (PeerLink peer : peers) {
+            peer.send(envelope);
+        }
+    }
+
+    @Override
+    public void subscribe(String nodeId, Consumer<ChatClusterEnvelope> listener) {
+        listeners.put(nodeId, listener);
+    }
+
+    @Override
+    public void unsubscribe(String nodeId) {
+        listeners.remove(nodeId);
+    }
+
+    public int getLocalPort() {
+        return server != null ? server.getLocalPort() : -1;
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            Socket socket;
+            try {
+                socket = server.accept();
+            } catch (IOException e) {
+                if (running) {
+                    logger.warn("[ChatCluster] Accept failed: {}", e.getMessage());
+                }
+                continue;
+            }
+            try {
+                socket.setTcpNoDelay(true);
+                // 비밀값을 보내지 않고 붙잡고 있는 연결이 수신 스레드를 계속 점유하지 않도록
+                socket.setSoTimeout(Math.max(1, config.getHandshakeTimeoutMs()));
+                inbound.add(socket);
+                readers.execute(() -> readLoop(socket));
+            } catch (IOException | RejectedExecutionException e) {
+                inbound.remove(socket);
+                closeQuietly(socket);
+                if (running) {
+                    logger.warn("[ChatCluster] Refused connection from {}: {}", socket.getRemoteSocketAddress(),
+                            e instanceof RejectedExecutionException ? "too many inbound connections" : e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void readLoop(Socket socket) {
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            if (!secretMatches(in.readUTF())) {
+                logger.warn("[ChatCluster] Rejected connection from {}: secret mismatch", socket.getRemoteSocketAddress());
+                return;
+            }
+            // 인증된 노드 연결은 메시지가 뜸해도 유지
+            socket.setSoTimeout(0);
+            while (running) {
+                deliver(readFrame(in));
+            }
+        } catch (EOFException e) {
+            // 상대 노드가 연결을 닫음
+        } catch (SocketTimeoutException e) {
+            logger.warn("[ChatCluster] Dropped connection from {}: no handshake within {}ms",
+                    socket.getRemoteSocketAddress(), config.getHandshakeTimeoutMs());
+        } catch (IOException e) {
+            if (running) {
+                logger.warn("[ChatCluster] Connection from {} closed: {}", socket.getRemoteSocketAddress(), e.getMessage());
+            }
+        } finally {
+            inbound.remove(socket);
+            closeQuietly(socket);
+        }
+    }
+
+    private void deliver(ChatClusterEnvelope envelope) {
+        for (Map.Entry<String, Consumer<ChatClusterEnvelope>> listener : listeners.entrySet()) {
+            // 자기 자신이 peers 에 잘못 들어간 경우에도 재주입하지 않음
+            if (listener.getKey().equals(envelope.getOriginNodeId())) {
+                continue;
+            }
+            try {
+                listener.getValue().accept(envelope);
+            } catch (Exception e) {
+                logger.warn("[ChatCluster] Local delivery from node {} failed: {}", envelope.getOriginNodeId(), e.getMessage());
+            }
+        }
+    }
+
+    private boolean secretMatches(String received) {
+        return MessageDigest.isEqual(received.getBytes(StandardCharsets.UTF_8),
+                config.getSecret().getBytes(StandardCharsets.UTF_8));
+    }
+
+    static void writeFrame(DataOutputStream out, ChatClusterEnvelope envelope) throws IOException {
+        out.writeUTF(envelope.getOriginNodeId());
+        out.writeUTF(envelope.getDestination());
+        out.writeUTF(envelope.getContentType() != null ? envelope.getContentType() : "");
+        out.writeInt(envelope.getPayload().length);
+        out.write(envelope.getPayload());
+    }
+
+    static ChatClusterEnvelope readFrame(DataInputStream in) throws IOException {
+        String origin = in.readUTF();
+        String destination = in.readUTF();
+        String contentType = in.readUTF();
+        int length = in.readInt();
+        if (length < 0 || length > MAX_PAYLOAD_BYTES) {
+            throw new IOException("Invalid payload length: " + length);
+        }
+        byte[] payload = new byte[length];
+        in.readFully(payload);
+        return new ChatClusterEnvelope(origin, destination, contentType.isEmpty() ? null : contentType, payload);
+    }
+
+    private static CustomizableThreadFactory daemonThreads(String prefix) {
+        CustomizableThreadFactory factory = new CustomizableThreadFactory(prefix);
+        factory.setDaemon(true);
+        return factory;
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * 한 노드로의 송신 연결. 전용 스레드 하나가 대기열 순서대로 쓰므로 노드 간에도 발행 순서가 유지된다
+     */
+    private final class PeerLink {
+
+        private final String address;
+        private final String host;
+        private final int port;
+        private final ThreadPoolExecutor writer;
+
+        private Socket socket;
+        private DataOutputStream out;
+        private long lastFailureAt;
+        private final AtomicLong dropped = new AtomicLong();
+
+        PeerLink(String address) {
+            int colon = address.lastIndexOf(':');
+            if (colon <= 0) {
+                throw new IllegalArgumentException("chat.broker.cluster.peers entry must be host:port - " + address);
+            }
+            this.address = address;
+            this.host = address.substring(0, colon);
+            this.port = Integer.parseInt(address.substring(colon + 1));
+            this.writer = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(Math.max(1, config.getQueueCapacity())), daemonThreads("chat-cluster-out-"));
+        }
+
+        void send(ChatClusterEnvelope envelope) {
+            try {
+                writer.execute(() -> write(envelope));
+            } catch (RejectedExecutionException e) {
+                long count = dropped.incrementAndGet();
+                if (!writer.isShutdown() && count % 1000 == 1) {
+                    logger.warn("[ChatCluster] Send queue to {} is full, dropping ({} so far)", address, count);
+                }
+            }
+        }
+
+        // writer 스레드에서만 호출
+        private void write(ChatClusterEnvelope envelope) {
+            if (out == null && !connect()) {
+                return;
+            }
+            try {
+                writeFrame(out, envelope);
+                out.flush();
+            } catch (IOException e) {
+                logger.warn("[ChatCluster] Send to {} failed: {}", address, e.getMessage());
+                disconnect();
+                lastFailureAt = System.currentTimeMillis();
+            }
+        }
+
+        private boolean connect() {
+            if (System.currentTimeMillis() - lastFailureAt < config.getReconnectBackoffMs()) {
+                return false;
+            }
+            Socket candidate = new Socket();
+            try {
+                candidate.setTcpNoDelay(true);
+                candidate.connect(new InetSocketAddress(host, port), config.getConnectTimeoutMs());
+                DataOutputStream stream = new DataOutputStream(new BufferedOutputStream(candidate.getOutputStream()));
+                stream.writeUTF(config.getSecret());
+                socket = candidate;
+                out = stream;
+                logger.info("[ChatCluster] Connected to peer {}", address);
+                return true;
+            } catch (IOException e) {
+                closeQuietly(candidate);
+                lastFailureAt = System.currentTimeMillis();
+                logger.warn("[ChatCluster] Peer {} unreachable: {}", address, e.getMessage());
+                return false;
+            }
+        }
+
+        private void disconnect() {
+            closeQuietly(socket);
+            socket = null;
+            out = null;
+        }
+
+        void close() {
+            writer.shutdownNow();
+            try {
+                writer.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            disconnect();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package cms.websocket.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 채팅 STOMP 브로커 설정 (chat.broker.*)
+ * - simple : 기존 인메모리 SimpleBroker (단일 인스턴스)
+ * - relay  : 외부 STOMP 브로커(RabbitMQ/ActiveMQ 등)로 릴레이
+ * - cluster: SimpleBroker + 노드 간 브로드캐스트 팬아웃(ChatClusterBus, 노드 간 TCP)
+ */
+@Component
+@ConfigurationProperties(prefix = "chat.broker")
+@Getter
+@Setter
+public class ChatBrokerProperties {
+
+    public static final String MODE_SIMPLE = "simple";
+    public static final String MODE_RELAY = "relay";
+    public static final String MODE_CLUSTER = "cluster";
+
+    private String mode = MODE_SIMPLE;
+
+    private List<String> destinationPrefixes = Arrays.asList("/sub");
+
+    private Heartbeat heartbeat = new Heartbeat();
+
+    private Transport transport = new Transport();
+
+    private Relay relay = new Relay();
+
+    private Cluster cluster = new Cluster();
+
+    private ChannelExecutors executor = new ChannelExecutors();
+
+    public boolean isRelayMode() {
+        return MODE_RELAY.equalsIgnoreCase(mode);
+    }
+
+    public boolean isClusterMode() {
+        return MODE_CLUSTER.equalsIgnoreCase(mode);
+    }
+
+    @Getter
+    @Setter
+    public static class Heartbeat {
+        // 서버 -> 클라이언트 heart-beat 송신 주기 (ms, 0 이면 비활성)
+        private long serverSendMs = 10000;
+        // 클라이언트 -> 서버 heart-beat 수신 기대 주기 (ms, 0 이면 비활성)
+        private long serverReceiveMs = 10000;
+    }
+
+    @Getter
+    @Setter
+    public static class Transport {
+        // 느린 클라이언트로의 단일 전송 허용 시간 (초과 시 세션 종료)
+        private int sendTimeLimitMs = 15000;
+        // 세션별 미전송 버퍼 한도 (초과 시 세션 종료)
+        private int sendBufferSizeLimitBytes = 512 * 1024;
+        // 수신 STOMP 프레임 최대 크기
+        private int messageSizeLimitBytes = 64 * 1024;
+    }
+
+    @Getter
+    @Setter
+    public static class Relay {
+        private String host = "localhost";
+        private int port = 61613;
+        private String clientLogin = "guest";
+        private String clientPasscode = "guest";
+        private String systemLogin = "guest";
+        private String systemPasscode = "guest";
+        private String virtualHost;
+        private long systemHeartbeatSendIntervalMs = 10000;
+        private long systemHeartbeatReceiveIntervalMs = 10000;
+    }
+
+    @Getter
+    @Setter
+    public static class Cluster {
+        // 노드 식별자 (미지정 시 기동마다 랜덤 생성)
+        private String nodeId = UUID.randomUUID().toString();
+        // 다른 노드의 팬아웃 프레임을 받는 TCP 주소 (기본 loopback, 여러 호스트로 운영할 때만 내부망 주소로 지정)
+        private String bindHost = "127.0.0.1";
+        private int port = 7390;
+        // 팬아웃 대상 노드 목록 (host:port, 자기 자신은 제외)
+        private List<String> peers = new ArrayList<>();
+        // 노드 간 공유 비밀값 (연결 시 첫 프레임으로 확인, 불일치 연결은 끊음). cluster 모드에서 비어 있으면 기동하지 않음
+        private String secret = "";
+        // 연결 후 비밀값 프레임을 기다리는 최대 시간 (그 안에 보내지 않으면 끊음)
+        private int handshakeTimeoutMs = 5000;
+        // 동시에 받을 수 있는 노드 연결 수 (수신 스레드 상한)
+        private int maxInboundConnections = 32;
+        private int connectTimeoutMs = 2000;
+        // 연결 실패한 노드로의 재연결 최소 간격 (그 사이 메시지는 버림)
+        private long reconnectBackoffMs = 1000;
+        // 노드별 송신 대기열 한도 (초과분은 버림)
+        private int queueCapacity = 10000;
+    }
+
+    @Getter
+    @Setter
+    public static class ChannelExecutors {
+        // true 이면 풀 스레드를 가상 스레드로 생성 (JDK 21 미만이면 경고 후 플랫폼 스레드)
+        private boolean virtualThreads = false;
+        // /pub 수신 프레임 처리 (@MessageMapping, JPA I/O 포함)
+        private Pool inbound = new Pool(16, 64, 2000);
+        // 세션별 송신 (느린 클라이언트는 transport 한도로 차단)
+        private Pool outbound = new Pool(8, 32, 5000);
+        // 브로커 채널. coreSize 0 이면 발행 스레드에서 동기 처리 (토픽별 발행 순서 유지)
+        private Pool broker = new Pool(0, 0, 0);
+    }
+
+    @Getter
+    @Setter
+    public static class Pool {
+        private int coreSize;
+        private int maxSize;
+        private int queueCapacity;
+        private int keepAliveSeconds = 60;
+
+        public Pool() {
+        }
+
+        public Pool(int coreSize, int maxSize, int queueCapacity) {
+            this.coreSize = coreSize;
+            this.maxSize = maxSize;
+            this.queueCapacity = queueCapacity;
+        }
+
+        public boolean isEnabled() {
+            return coreSize > 0 || maxSize > 0;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package cms.websocket.config;
+
+import cms.chat.service.ChatRateLimiter;
+import cms.chat.web.ChatIdentity;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+
+import java.util.Map;
+
+/**
+ * /pub/chat/{threadId}/send 프레임 속도 제한. 수신 스레드에서(실행기 큐에 넣기 전) 검사하고,
+ * 초과 시 예외를 던져 StompSubProtocolHandler 가 해당 세션에 STOMP ERROR 프레임을 보내게 한다.
+ * 관리자 여부와 사용자 키는 CONNECT 때 인증된 세션 사용자(ChatStompAuthInterceptor)로 정한다 (REST sendText 와 같은 규칙).
+ */
+public class ChatSendRateLimitInterceptor implements ChannelInterceptor {
+
+    private final ChatRateLimiter rateLimiter;
+
+    public ChatSendRateLimitInterceptor(ChatRateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.MESSAGE) {
+            return message;
+        }
+        Long threadId = OrderedInboundChannelExecutor.orderingKey(
+                message.getHeaders().get(SimpMessageHeaderAccessor.DESTINATION_HEADER));
+        if (threadId == null) {
+            return message;
+        }
+        Map<String, Object> attributes = SimpMessageHeaderAccessor.getSessionAttributes(message.getHeaders());
+        Object ip = attributes != null ? attributes.get(ClientIpHandshakeInterceptor.CLIENT_IP) : null;
+        ChatIdentity sender = ChatIdentity.of(SimpMessageHeaderAccessor.getUser(message.getHeaders()));
+        ChatRateLimiter.Rejection rejection = rateLimiter.tryAcquireSend(threadId, sender.isAdmin(), sender.getIdentifier(),
+                ip != null ? ip.toString() : null, "stomp");
+        if (rejection != null) {
+            throw new MessageDeliveryException(message, rejection.message());
+        }
+        return message;
+    }
+}
@@ -0,0 +1,53 @@
+package cms.websocket.config;
+
+import cms.auth.provider.JwtTokenProvider;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.core.Authentication;
+
+/**
+ * STOMP CONNECT 의 Authorization: Bearer 헤더로 세션 사용자를 인증한다.
+ * 브라우저 WebSocket 은 핸드셰이크에 헤더를 붙일 수 없으므로 REST 와 같은 JWT 를 CONNECT 프레임으로 받는다.
+ * 헤더가 없으면 익명(팝업 사용자) 세션, 잘못된 토큰이면 CONNECT 를 거부한다.
+ */
+public class ChatStompAuthInterceptor implements ChannelInterceptor {
+
+    private static final String AUTHORIZATION_HEADER = "Authorization";
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final JwtTokenProvider jwtTokenProvider;
+
+    public ChatStompAuthInterceptor(JwtTokenProvider jwtTokenProvider) {
+        this.jwtTokenProvider = jwtTokenProvider;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || !StompCommand.CONNECT.equals(accessor.getCommand())) {
+            return message;
+        }
+        String header = accessor.getFirstNativeHeader(AUTHORIZATION_HEADER);
+        if (header == null || !header.startsWith(BEARER_PREFIX)) {
+            return message;
+        }
+        String token = header.substring(BEARER_PREFIX.length()).trim();
+        try {
+            if (jwtTokenProvider.validateToken(token)) {
+                Authentication authentication = jwtTokenProvider.getAuthentication(token);
+                if (authentication != null) {
+                    accessor.setUser(authentication);
+                    return message;
+                }
+            }
+        } catch (RuntimeException e) {
+            throw new MessageDeliveryException(message, "Invalid token: " + e.getMessage());
+        }
+        throw new MessageDeliveryException(message, "Invalid token");
+    }
+}
@@ -1,40 +1,202 @@
 package cms.websocket.config;
 
+import cms.auth.provider.JwtTokenProvider;
+import cms.chat.service.ChatKeyedExecutor;
+import cms.chat.service.ChatRateLimiter;
+import cms.websocket.cluster.ChatClusterFanout;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.handler.invocation.AbstractMethodMessageHandler;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.simp.config.StompBrokerRelayRegistration;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+import org.springframework.web.socket.messaging.SubProtocolWebSocketHandler;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
 
 @Configuration
 @EnableWebSocketMessageBroker
 public class ChatStompConfig implements WebSocketMessageBrokerConfigurer {
 
+    private static final Logger logger = LoggerFactory.getLogger(ChatStompConfig.class);
+
     @Value("${cors.allowed-origins:*}")
     private String corsAllowedOrigins;
 
+    private final ChatBrokerProperties brokerProperties;
+    private final ObjectProvider<ChatClusterFanout> clusterFanout;
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final ObjectProvider<ChatKeyedExecutor> keyedExecutor;
+    private final ObjectProvider<ChatRateLimiter> rateLimiter;
+    private final JwtTokenProvider jwtTokenProvider;
+
+    private TaskScheduler messageBrokerTaskScheduler;
+
+    public ChatStompConfig(ChatBrokerProperties brokerProperties,
+            ObjectProvider<ChatClusterFanout> clusterFanout,
+            ObjectProvider<MeterRegistry> meterRegistry,
+            ObjectProvider<ChatKeyedExecutor> keyedExecutor,
+            ObjectProvider<ChatRateLimiter> rateLimiter,
+            JwtTokenProvider jwtTokenProvider) {
+        this.brokerProperties = brokerProperties;
+        this.clusterFanout = clusterFanout;
+        this.meterRegistry = meterRegistry;
+        this.keyedExecutor = keyedExecutor;
+        this.rateLimiter = rateLimiter;
+        this.jwtTokenProvider = jwtTokenProvider;
+    }
+
+    // SimpleBroker heart-beat 용 스케줄러 (별도 TaskScheduler 빈을 만들면 @Scheduled 기본 스케줄러 선택이 바뀌므로 기존 빈 재사용)
+    @Autowired
+    public void setMessageBrokerTaskScheduler(@Lazy @Qualifier("messageBrokerTaskScheduler") TaskScheduler taskScheduler) {
+        this.messageBrokerTaskScheduler = taskScheduler;
+    }
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/sub");
+        String[] prefixes = brokerProperties.getDestinationPrefixes().toArray(new String[0]);
+        long[] heartbeat = new long[] {
+                brokerProperties.getHeartbeat().getServerSendMs(),
+                brokerProperties.getHeartbeat().getServerReceiveMs()
+        };
+
+        if (brokerProperties.isRelayMode()) {
+            ChatBrokerProperties.Relay relay = brokerProperties.getRelay();
+            StompBrokerRelayRegistration registration = config.enableStompBrokerRelay(prefixes)
+                    .setRelayHost(relay.getHost())
+                    .setRelayPort(relay.getPort())
+                    .setClientLogin(relay.getClientLogin())
+                    .setClientPasscode(relay.getClientPasscode())
+                    .setSystemLogin(relay.getSystemLogin())
+                    .setSystemPasscode(relay.getSystemPasscode())
+                    .setSystemHeartbeatSendInterval(relay.getSystemHeartbeatSendIntervalMs())
+                    .setSystemHeartbeatReceiveInterval(relay.getSystemHeartbeatReceiveIntervalMs());
+            if (relay.getVirtualHost() != null && !relay.getVirtualHost().isEmpty()) {
+                registration.setVirtualHost(relay.getVirtualHost());
+            }
+            logger.info("[STOMP] External broker relay enabled: {}:{} prefixes={}", relay.getHost(), relay.getPort(),
+                    brokerProperties.getDestinationPrefixes());
+        } else {
+            config.enableSimpleBroker(prefixes)
+                    .setHeartbeatValue(heartbeat)
+                    .setTaskScheduler(messageBrokerTaskScheduler);
+
+            ChatClusterFanout fanout = clusterFanout.getIfAvailable();
+            if (brokerProperties.isClusterMode() && fanout != null) {
+                // 로컬 브로커로 나가는 메시지를 다른 노드에도 팬아웃
+                config.configureBrokerChannel().interceptors(fanout);
+                logger.info("[STOMP] Cluster fan-out enabled: node={} port={} peers={}",
+                        brokerProperties.getCluster().getNodeId(), brokerProperties.getCluster().getPort(),
+                        brokerProperties.getCluster().getPeers());
+            }
+        }
+
+        ChatBrokerProperties.Pool brokerPool = brokerProperties.getExecutor().getBroker();
+        if (brokerPool.isEnabled()) {
+            config.configureBrokerChannel().taskExecutor(channelExecutor("chat-broker-", brokerPool));
+        }
         config.setApplicationDestinationPrefixes("/pub");
     }
 
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        // /pub 프레임은 JPA I/O 를 포함하므로 전용 풀로 분리, 대화별 send 프레임은 도착 순서대로 lane 에서 처리
+        ThreadPoolTaskExecutor executor = configure(new OrderedInboundChannelExecutor(keyedExecutor.getIfAvailable()),
+                "chat-inbound-", brokerProperties.getExecutor().getInbound());
+        registration.taskExecutor(executor)
+                .interceptors(new ChatStompAuthInterceptor(jwtTokenProvider),
+                        new StompChannelMetricsInterceptor(registry(), "inbound", AbstractMethodMessageHandler.class));
+        // send 프레임 속도 제한 (초과 시 STOMP ERROR)
+        ChatRateLimiter limiter = rateLimiter.getIfAvailable();
+        if (limiter != null) {
+            registration.interceptors(new ChatSendRateLimitInterceptor(limiter));
+        }
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor(channelExecutor("chat-outbound-", brokerProperties.getExecutor().getOutbound()))
+                .interceptors(new StompChannelMetricsInterceptor(registry(), "outbound", SubProtocolWebSocketHandler.class));
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // 느린 구독자가 브로커 스레드/메모리를 붙잡지 않도록 세션별 한도 적용 (backpressure)
+        ChatBrokerProperties.Transport transport = brokerProperties.getTransport();
+        registration.setSendTimeLimit(transport.getSendTimeLimitMs())
+                .setSendBufferSizeLimit(transport.getSendBufferSizeLimitBytes())
+                .setMessageSizeLimit(transport.getMessageSizeLimitBytes());
+    }
+
+    private ThreadPoolTaskExecutor channelExecutor(String threadNamePrefix, ChatBrokerProperties.Pool pool) {
+        return configure(new ThreadPoolTaskExecutor(), threadNamePrefix, pool);
+    }
+
+    private ThreadPoolTaskExecutor configure(ThreadPoolTaskExecutor executor, String threadNamePrefix,
+            ChatBrokerProperties.Pool pool) {
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setCorePoolSize(Math.max(1, pool.getCoreSize()));
+        executor.setMaxPoolSize(Math.max(executor.getCorePoolSize(), pool.getMaxSize()));
+        executor.setQueueCapacity(Math.max(0, pool.getQueueCapacity()));
+        executor.setKeepAliveSeconds(pool.getKeepAliveSeconds());
+        executor.setAllowCoreThreadTimeOut(true);
+        if (brokerProperties.getExecutor().isVirtualThreads()) {
+            ThreadFactory factory = virtualThreadFactory(threadNamePrefix);
+            if (factory != null) {
+                executor.setThreadFactory(factory);
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * JDK 21+ 의 Thread.ofVirtual() 팩토리 (소스 레벨 1.8 이므로 리플렉션으로 조회). 미지원 JDK 는 null.
+     */
+    private static ThreadFactory virtualThreadFactory(String threadNamePrefix) {
+        try {
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Method ofVirtual = Thread.class.getMethod("ofVirtual");
+            Object builder = ofVirtual.invoke(null);
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, threadNamePrefix, 0L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            logger.warn("[STOMP] Virtual threads not supported on this JDK ({}), using platform threads for {}",
+                    System.getProperty("java.version"), threadNamePrefix);
+            return null;
+        }
+    }
+
+    private MeterRegistry registry() {
+        return meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+    }
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         String[] origins = corsAllowedOrigins.split(",");
         // 기존 엔드포인트 유지
         registry.addEndpoint("/ws/chat")
                 .setAllowedOriginPatterns(origins)
+                .addInterceptors(new ClientIpHandshakeInterceptor())
                 .withSockJS();
         // 별칭 엔드포인트 추가(요청 A: 단일 WS 엔드포인트 통일)
         registry.addEndpoint("/ws")
                 .setAllowedOriginPatterns(origins)
+                .addInterceptors(new ClientIpHandshakeInterceptor())
                 .withSockJS();
     }
 }
-
-
-
-
-
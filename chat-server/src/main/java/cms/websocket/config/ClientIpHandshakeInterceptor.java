@@ -0,0 +1,42 @@
+package cms.websocket.config;
+
+import cms.common.util.IpUtil;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+import java.net.InetSocketAddress;
+import java.util.Map;
+
+/**
+ * 핸드셰이크 시 클라이언트 IP(X-Forwarded-For 우선, IpUtil 과 동일 규칙)를 세션 속성 clientIp 로 저장한다.
+ */
+public class ClientIpHandshakeInterceptor implements HandshakeInterceptor {
+
+    public static final String CLIENT_IP = "clientIp";
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+            WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        String ip = null;
+        try {
+            ip = IpUtil.getClientIp();
+        } catch (RuntimeException e) {
+            // 요청 컨텍스트가 없으면 소켓 원격 주소 사용
+            InetSocketAddress remote = request.getRemoteAddress();
+            if (remote != null && remote.getAddress() != null) {
+                ip = remote.getAddress().getHostAddress();
+            }
+        }
+        if (ip != null) {
+            attributes.put(CLIENT_IP, ip);
+        }
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+            WebSocketHandler wsHandler, Exception exception) {
+    }
+}
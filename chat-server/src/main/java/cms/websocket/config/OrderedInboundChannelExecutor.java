@@ -0,0 +1,56 @@
+package cms.websocket.config;
+
+import cms.chat.service.ChatKeyedExecutor;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.MessageHandlingRunnable;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * clientInboundChannel 실행기. /pub/chat/{threadId}/send 프레임은 도착 순서대로 스레드 id 별 lane(ChatKeyedExecutor)에서
+ * 처리해 같은 대화의 연속 메시지가 저장/브로드캐스트 순서를 뒤바꾸지 않게 하고, 나머지 프레임은 일반 풀에서 처리한다.
+ * (채널은 수신 스레드에서 도착 순서대로 execute 를 호출하므로 lane 제출 순서 = 도착 순서)
+ */
+public class OrderedInboundChannelExecutor extends ThreadPoolTaskExecutor {
+
+    private static final String SEND_PREFIX = "/pub/chat/";
+    private static final String SEND_SUFFIX = "/send";
+
+    private final ChatKeyedExecutor keyedExecutor;
+
+    public OrderedInboundChannelExecutor(ChatKeyedExecutor keyedExecutor) {
+        this.keyedExecutor = keyedExecutor;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (keyedExecutor != null && task instanceof MessageHandlingRunnable) {
+            Long threadId = orderingKey(((MessageHandlingRunnable) task).getMessage().getHeaders()
+                    .get(SimpMessageHeaderAccessor.DESTINATION_HEADER));
+            if (threadId != null) {
+                keyedExecutor.execute(threadId, task);
+                return;
+            }
+        }
+        super.execute(task);
+    }
+
+    static Long orderingKey(Object destination) {
+        if (!(destination instanceof String)) {
+            return null;
+        }
+        String d = (String) destination;
+        if (!d.startsWith(SEND_PREFIX) || !d.endsWith(SEND_SUFFIX)) {
+            return null;
+        }
+        String id = d.substring(SEND_PREFIX.length(), d.length() - SEND_SUFFIX.length());
+        if (id.isEmpty() || id.length() > 18) {
+            return null;
+        }
+        for (int i = 0; i < id.length(); i++) {
+            if (!Character.isDigit(id.charAt(i))) {
+                return null;
+            }
+        }
+        return Long.valueOf(id);
+    }
+}
@@ -0,0 +1,96 @@
+package cms.websocket.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * STOMP 채널 처리 시간 계측 (chat.stomp.handle{channel, destination}).
+ * - handlerType 에 해당하는 핸들러 실행만 측정 (인바운드는 @MessageMapping 처리, 아웃바운드는 세션 송신)
+ * - 목적지 태그는 알려진 목적지 템플릿(@MessageMapping 경로, 서버가 보내는 토픽)으로만 남기고 나머지는 "other" 로 묶는다.
+ *   클라이언트가 임의로 고른 /pub 경로나 UUID 가 태그 값이 되어 미터가 무한히 늘어나는 것을 막는다.
+ */
+public class StompChannelMetricsInterceptor implements ExecutorChannelInterceptor {
+
+    static final String OTHER = "other";
+
+    /**
+     * 허용 목적지 템플릿 (위에서부터 처음 맞는 것). 새 @MessageMapping/토픽을 추가하면 여기에도 등록한다.
+     */
+    private static final List<DestinationTemplate> TEMPLATES = Arrays.asList(
+            new DestinationTemplate("/pub/chat/\\d+/send", "/pub/chat/{threadId}/send"),
+            new DestinationTemplate("/pub/chat/read", "/pub/chat/read"),
+            new DestinationTemplate("/pub/chat/\\d+/typing", "/pub/chat/{threadId}/typing"),
+            new DestinationTemplate("/sub/chat/channel/\\d+", "/sub/chat/channel/{channelId}"),
+            new DestinationTemplate("/sub/chat/sla", "/sub/chat/sla"),
+            new DestinationTemplate("/sub/chat/\\d+", "/sub/chat/{threadId}"),
+            new DestinationTemplate("/sub/dashboard", "/sub/dashboard"),
+            new DestinationTemplate("/sub/unread-count/[^/]+", "/sub/unread-count/{owner}"));
+
+    private final MeterRegistry registry;
+    private final String channelName;
+    private final Class<?> handlerType;
+    private final ThreadLocal<Long> startedAt = new ThreadLocal<>();
+
+    public StompChannelMetricsInterceptor(MeterRegistry registry, String channelName, Class<?> handlerType) {
+        this.registry = registry;
+        this.channelName = channelName;
+        this.handlerType = handlerType;
+    }
+
+    @Override
+    public Message<?> beforeHandle(Message<?> message, MessageChannel channel, MessageHandler handler) {
+        if (handlerType.isInstance(handler)) {
+            startedAt.set(System.nanoTime());
+        }
+        return message;
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+        if (!handlerType.isInstance(handler)) {
+            return;
+        }
+        Long start = startedAt.get();
+        startedAt.remove();
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        if (start == null || destination == null) {
+            return;
+        }
+        Timer.builder("chat.stomp.handle")
+                .description("STOMP channel handling time per destination")
+                .tag("channel", channelName)
+                .tag("destination", normalize(destination))
+                .tag("outcome", ex == null ? "success" : "error")
+                .register(registry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    static String normalize(String destination) {
+        for (DestinationTemplate template : TEMPLATES) {
+            if (template.pattern.matcher(destination).matches()) {
+                return template.name;
+            }
+        }
+        return OTHER;
+    }
+
+    private static final class DestinationTemplate {
+        private final Pattern pattern;
+        private final String name;
+
+        private DestinationTemplate(String regex, String name) {
+            this.pattern = Pattern.compile(regex);
+            this.name = name;
+        }
+    }
+}
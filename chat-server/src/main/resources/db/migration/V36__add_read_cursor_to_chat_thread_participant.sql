@@ -0,0 +1,18 @@
+-- 읽음 커서(high-watermark) 도입: 메시지 행 단위 is_read 갱신 대신 마지막으로 읽은 메시지 id 저장
+ALTER TABLE chat_thread
+ADD COLUMN last_read_message_id BIGINT NULL AFTER last_read_at;
+
+ALTER TABLE chat_participant
+ADD COLUMN last_read_message_id BIGINT NULL AFTER left_at,
+ADD COLUMN last_read_at TIMESTAMP NULL AFTER last_read_message_id;
+
+-- 기존 last_read_at 기준으로 커서 백필
+UPDATE chat_thread t
+SET t.last_read_message_id = (
+    SELECT MAX(m.id) FROM chat_message m
+    WHERE m.thread_id = t.id AND m.created_at <= t.last_read_at
+)
+WHERE t.last_read_at IS NOT NULL;
+
+-- 커서 기반 미읽음 카운트용 인덱스 (thread_id, sender_type, id)
+CREATE INDEX idx_chat_message_thread_sender_id ON chat_message (thread_id, sender_type, id);
@@ -0,0 +1,24 @@
+-- 미읽음 카운터 materialize: 스레드별 / 채널별 USER 메시지 미읽음 수
+ALTER TABLE chat_thread
+ADD COLUMN unread_count INT NOT NULL DEFAULT 0 AFTER last_read_message_id;
+
+ALTER TABLE chat_channel
+ADD COLUMN unread_count INT NOT NULL DEFAULT 0 AFTER owner_user_uuid;
+
+-- 읽음 커서 기준으로 초기값 백필
+UPDATE chat_thread t
+SET t.unread_count = (
+    SELECT COUNT(*) FROM chat_message m
+    WHERE m.thread_id = t.id
+      AND m.sender_type = 'USER'
+      AND m.deleted_yn = 'N'
+      AND (t.last_read_message_id IS NULL OR m.id > t.last_read_message_id)
+);
+
+UPDATE chat_channel c
+SET c.unread_count = (
+    SELECT COALESCE(SUM(t.unread_count), 0) FROM chat_thread t WHERE t.channel_id = c.id
+);
+
+-- 관리자 사이드바 채널 목록 조회용 인덱스
+CREATE INDEX idx_chat_channel_owner_active ON chat_channel (owner_user_uuid, deleted_yn, created_at);
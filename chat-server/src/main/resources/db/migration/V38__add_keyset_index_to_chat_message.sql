@@ -0,0 +1,2 @@
+-- 메시지 히스토리 keyset(before/after id) 페이지네이션용 인덱스
+CREATE INDEX idx_chat_message_thread_deleted_id ON chat_message (thread_id, deleted_yn, id);
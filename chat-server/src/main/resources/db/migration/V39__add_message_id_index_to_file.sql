@@ -0,0 +1,2 @@
+-- 채팅 메시지 페이지 첨부파일 일괄 조회 (message_id IN (...)) 용 인덱스
+CREATE INDEX idx_file_message_id ON file (message_id);
@@ -0,0 +1,2 @@
+-- 채널 첨부 탭 keyset 조회용 인덱스 (menu, menu_id 로 스레드 조인 후 file_id 역순)
+CREATE INDEX idx_file_menu_menu_id_file_id ON file (menu, menu_id, file_id);
@@ -0,0 +1,29 @@
+-- 채팅 메시지 검색용 역색인
+-- MariaDB FULLTEXT 는 n-gram 파서가 없어 한글 부분 검색이 되지 않으므로, 본문을 2-gram(bigram) 토큰으로 직접 색인한다.
+-- token 은 소문자 정규화된 2글자, tf 는 메시지 안 등장 횟수 (관련도 정렬용)
+CREATE TABLE IF NOT EXISTS chat_message_token (
+    token VARCHAR(2) CHARACTER SET utf8mb4 COLLATE utf8mb4_bin NOT NULL,
+    channel_id BIGINT NOT NULL,
+    message_id BIGINT NOT NULL,
+    thread_id BIGINT NOT NULL,
+    tf SMALLINT NOT NULL DEFAULT 1,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT pk_chat_message_token PRIMARY KEY (token, channel_id, message_id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+CREATE INDEX idx_chat_message_token_message ON chat_message_token (message_id);
+
+CREATE INDEX idx_chat_message_token_thread ON chat_message_token (thread_id);
+
+-- 기존 메시지 백필 진행 상태 (ChatSearchBackfillJob 이 last_message_id 를 backfill_target_id 까지 전진)
+-- 이후 메시지는 저장 커밋 시 ChatSearchIndexer 가 바로 색인한다.
+CREATE TABLE IF NOT EXISTS chat_search_index_state (
+    id TINYINT NOT NULL,
+    last_message_id BIGINT NOT NULL DEFAULT 0,
+    backfill_target_id BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    CONSTRAINT pk_chat_search_index_state PRIMARY KEY (id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+INSERT INTO chat_search_index_state (id, last_message_id, backfill_target_id)
+SELECT 1, 0, COALESCE(MAX(id), 0) FROM chat_message;
@@ -0,0 +1,29 @@
+-- 콜드 메시지 보관 테이블: 일정 기간 활동이 없는 스레드의 메시지를 chat_message 에서 이동 (id 유지)
+-- 압축 행 포맷으로 저장 공간을 줄이고, 스레드 삭제 시 함께 삭제된다.
+CREATE TABLE IF NOT EXISTS chat_message_archive (
+    id BIGINT NOT NULL,
+    thread_id BIGINT NOT NULL,
+    sender_type VARCHAR(20) NOT NULL,
+    sender_name VARCHAR(100) NOT NULL,
+    message_type VARCHAR(20) NOT NULL,
+    content TEXT,
+    file_name VARCHAR(255),
+    file_url VARCHAR(512),
+    is_read BOOLEAN NOT NULL DEFAULT FALSE,
+    read_at DATETIME,
+    created_by VARCHAR(50),
+    created_ip VARCHAR(50),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_by VARCHAR(50),
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_ip VARCHAR(50),
+    archived_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT pk_chat_message_archive PRIMARY KEY (id),
+    CONSTRAINT fk_chat_message_archive_thread FOREIGN KEY (thread_id) REFERENCES chat_thread (id) ON UPDATE RESTRICT ON DELETE CASCADE
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 ROW_FORMAT = COMPRESSED;
+
+-- 스레드 히스토리 keyset 조회용
+CREATE INDEX idx_chat_message_archive_thread_id ON chat_message_archive (thread_id, id);
+
+-- 소프트 삭제 보존기간 경과분 정리용
+CREATE INDEX idx_chat_message_deleted_at ON chat_message (deleted_yn, deleted_at);
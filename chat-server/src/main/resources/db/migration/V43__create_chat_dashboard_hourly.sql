@@ -0,0 +1,11 @@
+-- CS 대시보드 시간/채널 버킷 스냅샷 (ChatDashboardAggregator 가 메모리 집계값을 주기적으로 저장, 기동 시 복원)
+CREATE TABLE IF NOT EXISTS chat_dashboard_hourly (
+    bucket_hour DATETIME NOT NULL,
+    channel_id BIGINT NOT NULL,
+    inquiries INT NOT NULL DEFAULT 0,
+    admin_replies INT NOT NULL DEFAULT 0,
+    first_response_count INT NOT NULL DEFAULT 0,
+    first_response_sum_ms BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    CONSTRAINT pk_chat_dashboard_hourly PRIMARY KEY (bucket_hour, channel_id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
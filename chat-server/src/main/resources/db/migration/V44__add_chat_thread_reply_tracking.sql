@@ -0,0 +1,22 @@
+-- 응답 대기/첫 응답 상태 (메시지 저장 트랜잭션에서 ChatService 가 갱신)
+-- awaiting_reply_since: 아직 답변되지 않은 가장 이른 USER 메시지 시각 (답변 시 NULL)
+-- first_admin_response_at: 스레드의 첫 관리자 답변 시각
+ALTER TABLE chat_thread
+    ADD COLUMN awaiting_reply_since DATETIME NULL,
+    ADD COLUMN first_admin_response_at DATETIME NULL;
+
+-- SLA 초과 대기 스레드 조회용
+CREATE INDEX idx_chat_thread_awaiting_reply ON chat_thread (awaiting_reply_since);
+
+-- 기존 스레드: 마지막 관리자 메시지 이후의 USER 메시지가 있으면 대기 중으로 본다
+UPDATE chat_thread t
+SET t.awaiting_reply_since = (
+    SELECT MIN(m.created_at) FROM chat_message m
+    WHERE m.thread_id = t.id AND m.sender_type = 'USER' AND m.deleted_yn = 'N'
+      AND m.id > COALESCE((SELECT MAX(a.id) FROM chat_message a
+                           WHERE a.thread_id = t.id AND a.sender_type = 'ADMIN'
+                             AND COALESCE(a.created_by, '') <> 'system'), 0)),
+    t.first_admin_response_at = (
+    SELECT MIN(a.created_at) FROM chat_message a
+    WHERE a.thread_id = t.id AND a.sender_type = 'ADMIN' AND COALESCE(a.created_by, '') <> 'system'
+      AND EXISTS (SELECT 1 FROM chat_message u WHERE u.thread_id = t.id AND u.sender_type = 'USER' AND u.id < a.id));
@@ -0,0 +1,22 @@
+-- SHA-256 내용 주소 저장소: 같은 내용의 업로드는 blobs/ 아래 물리 파일 하나를 공유하고 file 행이 참조한다
+-- ref_count 가 0 이 되면 FileBlobStore 가 행과 물리 파일을 함께 삭제 (released_at 은 유예 시간 계산용)
+CREATE TABLE IF NOT EXISTS file_blob (
+    content_hash CHAR(64) NOT NULL,
+    saved_name VARCHAR(255) NOT NULL,
+    size BIGINT NOT NULL,
+    ref_count INT NOT NULL DEFAULT 0,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    released_at DATETIME NULL,
+    CONSTRAINT pk_file_blob PRIMARY KEY (content_hash)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+-- 참조가 끊긴 blob 정리용
+CREATE INDEX idx_file_blob_released ON file_blob (ref_count, released_at);
+
+-- file 행은 blob 을 content_hash 로 참조 (기존 행은 NULL = 개별 파일)
+ALTER TABLE file ADD COLUMN content_hash CHAR(64) NULL;
+CREATE INDEX idx_file_content_hash ON file (content_hash);
+
+-- 여러 file 행이 같은 저장 경로를 공유하므로 saved_name 유일 제약 해제
+ALTER TABLE file DROP INDEX uk_saved_name;
+CREATE INDEX idx_file_saved_name ON file (saved_name);
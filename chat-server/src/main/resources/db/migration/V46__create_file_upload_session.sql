@@ -0,0 +1,30 @@
+-- 분할(chunked) 업로드 세션: presign 에서 생성, 파트는 blobs/.tmp/{upload_id}.upload 의 오프셋에 직접 기록
+-- 완료 시 SHA-256 검증 후 file_blob 으로 이동하고 file_id 를 남긴다. 만료된 세션은 임시 파일과 함께 정리
+CREATE TABLE IF NOT EXISTS file_upload_session (
+    upload_id CHAR(32) NOT NULL,
+    menu VARCHAR(30) NOT NULL,
+    menu_id BIGINT NOT NULL,
+    file_name VARCHAR(255) NOT NULL,
+    content_type VARCHAR(100) NOT NULL,
+    size BIGINT NOT NULL,
+    part_size INT NOT NULL,
+    part_count INT NOT NULL,
+    checksum CHAR(64) NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'UPLOADING',
+    file_id BIGINT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    expires_at DATETIME NOT NULL,
+    CONSTRAINT pk_file_upload_session PRIMARY KEY (upload_id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+CREATE INDEX idx_file_upload_session_expires ON file_upload_session (expires_at);
+
+-- 수신 완료된 파트 (재전송은 같은 행을 덮어씀)
+CREATE TABLE IF NOT EXISTS file_upload_part (
+    upload_id CHAR(32) NOT NULL,
+    part_no INT NOT NULL,
+    size INT NOT NULL,
+    received_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT pk_file_upload_part PRIMARY KEY (upload_id, part_no),
+    CONSTRAINT fk_file_upload_part_session FOREIGN KEY (upload_id) REFERENCES file_upload_session (upload_id) ON DELETE CASCADE
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
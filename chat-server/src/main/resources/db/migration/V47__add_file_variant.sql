@@ -0,0 +1,4 @@
+-- 이미지 파생본(썸네일/미리보기): menu = 'FILE_VARIANT', menu_id = 원본 file_id, variant = thumb | preview
+-- 파생본도 file_blob 을 참조하므로 같은 원본 내용의 파생본은 공유된다
+ALTER TABLE file ADD COLUMN variant VARCHAR(20) NULL;
+CREATE INDEX idx_file_variant ON file (menu, menu_id, variant);
@@ -0,0 +1,2 @@
+-- 고아 파일 정리: 메뉴별 file_id keyset 청크 anti-join (WHERE menu = ? AND file_id > ? ORDER BY file_id)
+CREATE INDEX idx_file_menu_file_id ON file (menu, file_id);
@@ -0,0 +1,6 @@
+-- 대시보드 버킷을 노드별 행으로 저장 (여러 노드가 같은 (시간, 채널) 행을 절대값으로 덮어쓰지 않도록), 조회 시 노드 합계
+-- 기존 행은 node_id = '' 로 남아 이전 집계분으로 합산된다
+ALTER TABLE chat_dashboard_hourly
+    ADD COLUMN node_id VARCHAR(64) NOT NULL DEFAULT '' AFTER channel_id,
+    DROP PRIMARY KEY,
+    ADD CONSTRAINT pk_chat_dashboard_hourly PRIMARY KEY (bucket_hour, channel_id, node_id);
@@ -0,0 +1,3 @@
+-- 완료 처리 중(COMPLETING) 세션: 해시 계산 전에 상태를 잠가 파트 기록을 막고, 처리 중 죽은 세션은 일정 시간 뒤 다시 완료할 수 있게 시각을 남긴다
+ALTER TABLE file_upload_session
+    ADD COLUMN completing_at DATETIME NULL AFTER status;
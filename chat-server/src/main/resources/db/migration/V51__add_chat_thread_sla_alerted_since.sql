@@ -0,0 +1,4 @@
+-- SLA 초과 알림을 보낸 대기 구간 (알림 시점의 awaiting_reply_since).
+-- 여러 노드가 같은 스레드를 동시에 검사해도 이 값을 원자적으로 먼저 바꾼 노드만 알림을 보낸다
+ALTER TABLE chat_thread
+    ADD COLUMN sla_alerted_since DATETIME NULL AFTER awaiting_reply_since;
@@ -0,0 +1,3 @@
+-- 업로드한 사용자 이름(최대 50자)을 created_by 에 남긴다 (presign 업로드 생략 시 소유 확인용)
+ALTER TABLE file
+    MODIFY COLUMN created_by VARCHAR(50) NULL COMMENT '생성자 ID';
@@ -0,0 +1,8 @@
+-- 분할 업로드 세션을 만든 사용자에 묶는다 (owner: 인증된 사용자 이름, 익명이면 NULL)
+-- created_ip: 익명 세션의 열린 세션 수 제한 기준
+ALTER TABLE file_upload_session
+    ADD COLUMN owner VARCHAR(50) NULL AFTER menu_id,
+    ADD COLUMN created_ip VARCHAR(45) NULL AFTER owner;
+
+CREATE INDEX idx_file_upload_session_owner ON file_upload_session (owner, status);
+CREATE INDEX idx_file_upload_session_ip ON file_upload_session (created_ip, status);
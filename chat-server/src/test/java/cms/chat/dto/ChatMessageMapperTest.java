@@ -0,0 +1,173 @@
+package cms.chat.dto;
+
+import cms.chat.domain.ChatChannel;
+import cms.chat.domain.ChatMessage;
+import cms.chat.domain.ChatThread;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ChatMessageMapper 가 제거된 ChatController 의 리플렉션 toDto 와 같은 값을 내는지 확인한다.
+ * (senderName/read/readAt 은 새로 채우는 필드라 따로 검사)
+ */
+class ChatMessageMapperTest {
+
+    private static final LocalDateTime CREATED = LocalDateTime.of(2025, 3, 1, 10, 0, 0);
+
+    @Test
+    void matchesLegacyReflectiveMappingForAllMessageShapes() throws Exception {
+        ChatThread thread = thread(7L, 3L, "홍길동", "user-uuid");
+        ChatMessageMapper.ThreadInfo info = ChatMessageMapper.ThreadInfo.of(thread);
+
+        for (ChatMessage m : samples(thread)) {
+            ChatMessageDto expected = legacyToDto(m, thread);
+            ChatMessageDto actual = ChatMessageMapper.toDto(m, info);
+
+            assertEquals(expected.getId(), actual.getId());
+            assertEquals(expected.getThreadId(), actual.getThreadId());
+            assertEquals(expected.getChannelId(), actual.getChannelId());
+            assertEquals(expected.getUserName(), actual.getUserName());
+            assertEquals(expected.getUserIdentifier(), actual.getUserIdentifier());
+            assertEquals(expected.getSenderType(), actual.getSenderType());
+            assertEquals(expected.getContent(), actual.getContent());
+            assertEquals(expected.getMessageType(), actual.getMessageType());
+            assertEquals(expected.getFileName(), actual.getFileName());
+            assertEquals(expected.getFileUrl(), actual.getFileUrl());
+            assertEquals(expected.getCreatedAt(), actual.getCreatedAt());
+            assertEquals(expected.getEdited(), actual.getEdited(), "edited for message " + m.getId());
+        }
+    }
+
+    @Test
+    void threadWithoutChannelMapsNullChannel() throws Exception {
+        ChatThread thread = thread(8L, null, null, null);
+        ChatMessage m = text(thread, 1L, CREATED, null);
+
+        ChatMessageDto expected = legacyToDto(m, thread);
+        ChatMessageDto actual = ChatMessageMapper.toDto(m, ChatMessageMapper.ThreadInfo.of(thread));
+
+        assertNull(actual.getChannelId());
+        assertEquals(expected.getChannelId(), actual.getChannelId());
+        assertEquals(expected.getUserName(), actual.getUserName());
+        assertEquals(Long.valueOf(8L), actual.getThreadId());
+    }
+
+    @Test
+    void fillsFieldsTheLegacyMapperLeftAtDefaults() {
+        ChatThread thread = thread(7L, 3L, "홍길동", "user-uuid");
+        ChatMessage m = text(thread, 5L, CREATED, null);
+        m.setSenderName("상담원");
+        m.setRead(true);
+        m.setReadAt(CREATED.plusMinutes(1));
+
+        ChatMessageDto dto = ChatMessageMapper.toDto(m, ChatMessageMapper.ThreadInfo.of(thread));
+
+        assertEquals("상담원", dto.getSenderName());
+        assertTrue(dto.isRead());
+        assertEquals(CREATED.plusMinutes(1).toString(), dto.getReadAt());
+    }
+
+    @Test
+    void broadcastMapKeepsWelcomeMessageKeys() {
+        ChatThread thread = thread(7L, 3L, "", "user-uuid");
+        ChatMessage m = text(thread, 9L, CREATED, null);
+
+        Map<String, Object> map = ChatMessageMapper.toBroadcastMap(m, ChatMessageMapper.ThreadInfo.of(thread));
+
+        assertEquals(9L, map.get("id"));
+        assertEquals(7L, map.get("threadId"));
+        assertEquals(3L, map.get("channelId"));
+        assertEquals("user-uuid", map.get("userIdentifier"));
+        assertEquals(CREATED, map.get("createdAt"));
+        assertEquals(Boolean.FALSE, map.get("edited"));
+        // 빈 사용자 이름은 기존처럼 키를 넣지 않는다
+        assertFalse(map.containsKey("userName"));
+    }
+
+    private static List<ChatMessage> samples(ChatThread thread) {
+        List<ChatMessage> list = new ArrayList<>();
+        list.add(text(thread, 1L, CREATED, null));
+        list.add(text(thread, 2L, CREATED, CREATED));
+        // 정확히 1초 차이는 수정 아님, 2초부터 수정
+        list.add(text(thread, 3L, CREATED, CREATED.plusSeconds(1)));
+        list.add(text(thread, 4L, CREATED, CREATED.plusSeconds(2)));
+        list.add(text(thread, 5L, null, CREATED));
+        ChatMessage file = text(thread, 6L, CREATED, null);
+        file.setMessageType("FILE");
+        file.setContent(null);
+        file.setFileName("a.png");
+        file.setFileUrl("/api/v1/cms/file/public/view/10");
+        list.add(file);
+        return list;
+    }
+
+    private static ChatMessage text(ChatThread thread, Long id, LocalDateTime createdAt, LocalDateTime updatedAt) {
+        ChatMessage m = new ChatMessage();
+        m.setId(id);
+        m.setThread(thread);
+        m.setSenderType("USER");
+        m.setMessageType("TEXT");
+        m.setContent("안녕하세요 " + id);
+        m.setCreatedAt(createdAt);
+        m.setUpdatedAt(updatedAt);
+        return m;
+    }
+
+    private static ChatThread thread(Long id, Long channelId, String userName, String userIdentifier) {
+        ChatThread thread = new ChatThread();
+        thread.setId(id);
+        thread.setUserName(userName);
+        thread.setUserIdentifier(userIdentifier);
+        if (channelId != null) {
+            ChatChannel channel = new ChatChannel();
+            channel.setId(channelId);
+            thread.setChannel(channel);
+        }
+        return thread;
+    }
+
+    /**
+     * 제거 전 ChatController.toDto 의 동작 그대로 (스레드는 findById 대신 인자로 받음)
+     */
+    private static ChatMessageDto legacyToDto(Object message, ChatThread thread) throws Exception {
+        ChatMessageDto dto = new ChatMessageDto();
+        Method getId = message.getClass().getMethod("getId");
+        Method getSenderType = message.getClass().getMethod("getSenderType");
+        Method getContent = message.getClass().getMethod("getContent");
+        Method getCreatedAt = message.getClass().getMethod("getCreatedAt");
+        Method getMessageType = message.getClass().getMethod("getMessageType");
+        Method getFileName = message.getClass().getMethod("getFileName");
+        Method getFileUrl = message.getClass().getMethod("getFileUrl");
+        Method getUpdatedAt = message.getClass().getMethod("getUpdatedAt");
+
+        dto.setId((Long) getId.invoke(message));
+        dto.setThreadId(thread.getId());
+        dto.setSenderType((String) getSenderType.invoke(message));
+        dto.setContent((String) getContent.invoke(message));
+        dto.setChannelId(thread.getChannel() != null ? thread.getChannel().getId() : null);
+        dto.setUserName(thread.getUserName());
+        dto.setUserIdentifier(thread.getUserIdentifier());
+        LocalDateTime created = (LocalDateTime) getCreatedAt.invoke(message);
+        dto.setCreatedAt(created != null ? created.toString() : null);
+        dto.setMessageType((String) getMessageType.invoke(message));
+        dto.setFileName((String) getFileName.invoke(message));
+        dto.setFileUrl((String) getFileUrl.invoke(message));
+        LocalDateTime updated = (LocalDateTime) getUpdatedAt.invoke(message);
+        if (updated != null && created != null) {
+            dto.setEdited(java.time.Duration.between(created, updated).getSeconds() > 1);
+        } else {
+            dto.setEdited(false);
+        }
+        return dto;
+    }
+}
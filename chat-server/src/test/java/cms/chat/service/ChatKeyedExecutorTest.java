@@ -0,0 +1,131 @@
+package cms.chat.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 키별 순서 보장, lane 재진입 판정 (스레드 이름이 아닌 lane 소유 여부)
+ */
+class ChatKeyedExecutorTest {
+
+    @SuppressWarnings("unchecked")
+    private final ChatKeyedExecutor executor = new ChatKeyedExecutor(4, 10000, mock(ObjectProvider.class));
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        executor.destroy();
+    }
+
+    @Test
+    void keepsSubmissionOrderPerKeyUnderConcurrentProducers() throws Exception {
+        int keys = 16;
+        int perKey = 500;
+        Map<Long, List<Integer>> executed = new ConcurrentHashMap<>();
+        for (long k = 0; k < keys; k++) {
+            executed.put(k, Collections.synchronizedList(new ArrayList<>()));
+        }
+
+        // 키마다 생산자 하나: 같은 키는 한 생산자가 순서대로 넣고, 여러 키가 같은 lane 을 공유한다
+        ExecutorService producers = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        for (long k = 0; k < keys; k++) {
+            long key = k;
+            producers.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < perKey; i++) {
+                    int seq = i;
+                    executor.execute(key, () -> executed.get(key).add(seq));
+                }
+            });
+        }
+        start.countDown();
+        producers.shutdown();
+        assertTrue(producers.awaitTermination(30, TimeUnit.SECONDS));
+        for (long k = 0; k < keys; k++) {
+            executor.call(k, () -> null);
+        }
+
+        for (long k = 0; k < keys; k++) {
+            List<Integer> seqs = executed.get(k);
+            assertEquals(perKey, seqs.size());
+            for (int i = 0; i < perKey; i++) {
+                assertEquals(Integer.valueOf(i), seqs.get(i), "key " + k);
+            }
+        }
+    }
+
+    @Test
+    void reentrantCallOnSameLaneRunsInline() {
+        Integer result = assertTimeoutPreemptively(Duration.ofSeconds(5),
+                () -> executor.call(1L, () -> executor.call(1L, () -> 42)));
+        assertEquals(Integer.valueOf(42), result);
+    }
+
+    @Test
+    void callFromAnotherLaneIsQueuedOnTheTargetLane() throws Exception {
+        AtomicReference<String> outer = new AtomicReference<>();
+        String inner = executor.call(0L, () -> {
+            outer.set(Thread.currentThread().getName());
+            return executor.call(1L, () -> Thread.currentThread().getName());
+        });
+        assertNotEquals(outer.get(), inner);
+        assertFalse(executor.inLane(1L));
+    }
+
+    @Test
+    void threadNamedLikeALaneIsNotTreatedAsOne() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(3L, () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        AtomicReference<String> ranOn = new AtomicReference<>();
+        Thread impostor = new Thread(() -> {
+            try {
+                ranOn.set(executor.call(3L, () -> Thread.currentThread().getName()));
+            } catch (Exception e) {
+                ranOn.set("failed: " + e);
+            }
+        }, "chat-ordered-impostor");
+        impostor.start();
+
+        // 앞선 작업이 끝나기 전에는 실행되지 않아야 한다 (예전 이름 검사라면 바로 인라인 실행)
+        impostor.join(300);
+        assertTrue(impostor.isAlive());
+        release.countDown();
+        impostor.join(5000);
+
+        assertFalse(impostor.isAlive());
+        assertNotEquals("chat-ordered-impostor", ranOn.get());
+        assertTrue(ranOn.get().startsWith("chat-ordered-"));
+    }
+}
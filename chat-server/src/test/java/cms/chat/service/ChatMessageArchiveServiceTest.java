@@ -0,0 +1,416 @@
+package cms.chat.service;
+
+import cms.chat.config.ChatArchiveProperties;
+import cms.chat.domain.ChatMessage;
+import cms.chat.domain.ChatMessageArchive;
+import cms.chat.domain.ChatThread;
+import cms.chat.repository.ChatMessageArchiveRepository;
+import cms.chat.repository.ChatMessageRepository;
+import cms.common.dto.CursorPageResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 비활성 스레드 보관: 보관 후 ChatService 로 다시 읽기(핫/보관 경계 페이지), 재실행 멱등성, 청크 실패 롤백, 소프트 삭제 정리
+ */
+class ChatMessageArchiveServiceTest {
+
+    private static final class Row {
+        final long id;
+        final long threadId;
+        final LocalDateTime createdAt;
+        boolean deleted;
+        LocalDateTime deletedAt;
+
+        Row(long id, long threadId, LocalDateTime createdAt) {
+            this.id = id;
+            this.threadId = threadId;
+            this.createdAt = createdAt;
+        }
+    }
+
+    private final LocalDateTime old = LocalDateTime.now().minusDays(200);
+    private final LocalDateTime recent = LocalDateTime.now().minusDays(1);
+
+    /** chat_message / chat_message_archive / chat_message_token (트랜잭션 롤백 시 스냅샷으로 복원) */
+    private TreeMap<Long, Row> hot = new TreeMap<>();
+    private TreeMap<Long, Row> archive = new TreeMap<>();
+    private Set<Long> tokens = new HashSet<>();
+    private Object[] snapshot;
+    private String failOn;
+
+    private final NamedParameterJdbcTemplate jdbc = mock(NamedParameterJdbcTemplate.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final ChatMessageRepository messageRepository = mock(ChatMessageRepository.class);
+    private final ChatMessageArchiveRepository archiveRepository = mock(ChatMessageArchiveRepository.class);
+    private final ChatArchiveProperties properties = new ChatArchiveProperties();
+    private final ChatThread thread = new ChatThread();
+
+    private ChatMessageArchiveService archiveService;
+    private ChatService chatService;
+
+    @BeforeEach
+    void setUp() {
+        thread.setId(1L);
+        properties.setChunkSize(4);
+        archiveService = new ChatMessageArchiveService(jdbc, transactionManager, properties);
+        chatService = new ChatService(null, null, messageRepository, null, null, null, null, null, null,
+                archiveRepository, null);
+
+        when(transactionManager.getTransaction(any())).thenAnswer(inv -> {
+            snapshot = new Object[]{new TreeMap<>(hot), new TreeMap<>(archive), new HashSet<>(tokens)};
+            return new SimpleTransactionStatus();
+        });
+        doAnswer(inv -> {
+            restore();
+            return null;
+        }).when(transactionManager).rollback(any(TransactionStatus.class));
+        when(jdbc.queryForList(anyString(), any(SqlParameterSource.class), eq(Long.class)))
+                .thenAnswer(inv -> select(inv.getArgument(0), inv.getArgument(1)));
+        when(jdbc.update(anyString(), any(SqlParameterSource.class)))
+                .thenAnswer(inv -> update(inv.getArgument(0), inv.getArgument(1)));
+        stubRepositories();
+    }
+
+    @Test
+    void idleThreadIsArchivedInChunksAndActiveThreadIsKept() {
+        addMessages(1L, 1, 10, old);
+        hot.get(5L).deleted = true;
+        addMessages(2L, 11, 12, old);
+        addMessages(2L, 13, 13, recent);
+
+        assertEquals(9, archiveService.archiveIdleThreads());
+
+        assertEquals(ids(1, 10, 5L), new ArrayList<>(archive.keySet()));
+        // 소프트 삭제 메시지는 보관하지 않고 purge 대상으로 남긴다
+        assertEquals(ids(11, 13, null), hotIds(2L));
+        assertEquals(Collections.singletonList(5L), hotIds(1L));
+        // 청크 3개 (4, 4, 1) + 빈 청크 확인
+        verify(transactionManager, times(4)).getTransaction(any());
+    }
+
+    @Test
+    void archivedThreadReadsBackThroughChatServiceAcrossTheBoundary() {
+        addMessages(1L, 1, 10, old);
+        archiveService.archiveIdleThreads();
+        // 보관 후 스레드가 다시 활성화되어 새 메시지가 쌓인다
+        addMessages(1L, 20, 26, recent);
+        List<Long> expected = ids(1, 10, null);
+        expected.addAll(ids(20, 26, null));
+
+        List<Long> backward = new ArrayList<>();
+        Long before = 0L;
+        while (true) {
+            CursorPageResponse<ChatMessage> page = chatService.getMessagesByCursor(thread, before, null, 4);
+            backward.addAll(0, messageIds(page.getContent()));
+            if (!page.isHasMore()) {
+                assertNull(page.getNextCursor());
+                break;
+            }
+            before = Long.valueOf(page.getNextCursor());
+        }
+        assertEquals(expected, backward);
+
+        List<Long> forward = new ArrayList<>();
+        Long after = 0L;
+        while (true) {
+            CursorPageResponse<ChatMessage> page = chatService.getMessagesByCursor(thread, null, after, 3);
+            forward.addAll(messageIds(page.getContent()));
+            if (!page.isHasMore()) {
+                break;
+            }
+            after = Long.valueOf(page.getNextCursor());
+        }
+        assertEquals(expected, forward);
+
+        List<Long> paged = new ArrayList<>();
+        for (int p = 0; ; p++) {
+            Page<ChatMessage> page = chatService.getMessages(thread, p, 4);
+            assertEquals(expected.size(), page.getTotalElements());
+            if (page.getContent().isEmpty()) {
+                break;
+            }
+            paged.addAll(messageIds(page.getContent()));
+        }
+        assertEquals(expected, paged);
+    }
+
+    @Test
+    void rerunArchivesNothingNewAndCopiesNoRowTwice() {
+        addMessages(1L, 1, 6, old);
+
+        assertEquals(6, archiveService.archiveIdleThreads());
+        assertEquals(0, archiveService.archiveIdleThreads());
+        assertEquals(0, archiveService.archiveIdleThreads());
+
+        assertEquals(ids(1, 6, null), new ArrayList<>(archive.keySet()));
+        assertTrue(hot.isEmpty());
+        verify(jdbc, times(2)).update(startsWith("INSERT INTO chat_message_archive"), any(SqlParameterSource.class));
+    }
+
+    @Test
+    void failedChunkRollsBackAndNextRunResumes() {
+        addMessages(1L, 1, 6, old);
+        addMessages(2L, 7, 8, old);
+        failOn = "DELETE FROM chat_message WHERE id IN (:ids)";
+
+        // 스레드별로 실패를 격리하고, 실패한 청크는 복사도 함께 롤백된다
+        assertEquals(0, archiveService.archiveIdleThreads());
+        assertTrue(archive.isEmpty());
+        assertEquals(ids(1, 8, null), new ArrayList<>(hot.keySet()));
+
+        failOn = null;
+        assertEquals(8, archiveService.archiveIdleThreads());
+        assertEquals(ids(1, 8, null), new ArrayList<>(archive.keySet()));
+        assertTrue(hot.isEmpty());
+    }
+
+    @Test
+    void purgeRemovesOnlyExpiredSoftDeletedMessagesAndTheirTokens() {
+        addMessages(1L, 1, 6, recent);
+        for (long id = 1; id <= 6; id++) {
+            tokens.add(id);
+        }
+        hot.get(2L).deleted = true;
+        hot.get(2L).deletedAt = LocalDateTime.now().minusDays(40);
+        hot.get(3L).deleted = true;
+        hot.get(3L).deletedAt = LocalDateTime.now().minusDays(2);
+
+        assertEquals(1, archiveService.purgeSoftDeleted());
+        assertEquals(0, archiveService.purgeSoftDeleted());
+
+        assertFalse(hot.containsKey(2L));
+        assertTrue(hot.containsKey(3L));
+        assertFalse(tokens.contains(2L));
+        assertEquals(5, tokens.size());
+    }
+
+    @Test
+    void disabledArchiveDoesNotTouchTheTables() {
+        properties.setEnabled(false);
+        addMessages(1L, 1, 3, old);
+
+        assertEquals(0, archiveService.archiveIdleThreads());
+        verify(jdbc, never()).queryForList(anyString(), any(SqlParameterSource.class), eq(Long.class));
+        assertEquals(3, hot.size());
+    }
+
+    private void addMessages(long threadId, long from, long to, LocalDateTime base) {
+        for (long id = from; id <= to; id++) {
+            hot.put(id, new Row(id, threadId, base.plusMinutes(id)));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void restore() {
+        hot = (TreeMap<Long, Row>) snapshot[0];
+        archive = (TreeMap<Long, Row>) snapshot[1];
+        tokens = (Set<Long>) snapshot[2];
+    }
+
+    private List<Long> select(String sql, SqlParameterSource params) {
+        LocalDateTime cutoff = ((Timestamp) params.getValue("cutoff")).toLocalDateTime();
+        int limit = ((Number) params.getValue("limit")).intValue();
+        if (sql.startsWith("SELECT t.id FROM chat_thread")) {
+            Set<Long> active = new HashSet<>();
+            Set<Long> withMessages = new HashSet<>();
+            for (Row row : hot.values()) {
+                if (!row.createdAt.isBefore(cutoff)) {
+                    active.add(row.threadId);
+                }
+                if (!row.deleted) {
+                    withMessages.add(row.threadId);
+                }
+            }
+            withMessages.removeAll(active);
+            return withMessages.stream().sorted().limit(limit).collect(Collectors.toList());
+        }
+        if (sql.startsWith("SELECT id FROM chat_message WHERE thread_id = :threadId")) {
+            long threadId = ((Number) params.getValue("threadId")).longValue();
+            return hot.values().stream()
+                    .filter(r -> r.threadId == threadId && !r.deleted && r.createdAt.isBefore(cutoff))
+                    .map(r -> r.id).limit(limit).collect(Collectors.toList());
+        }
+        if (sql.startsWith("SELECT id FROM chat_message WHERE deleted_yn = 'Y'")) {
+            return hot.values().stream()
+                    .filter(r -> r.deleted && (r.deletedAt != null ? r.deletedAt : r.createdAt).isBefore(cutoff))
+                    .map(r -> r.id).limit(limit).collect(Collectors.toList());
+        }
+        throw new IllegalArgumentException("unexpected query: " + sql);
+    }
+
+    private int update(String sql, SqlParameterSource params) {
+        if (sql.equals(failOn)) {
+            throw new DataIntegrityViolationException("simulated failure");
+        }
+        Collection<?> ids = (Collection<?>) params.getValue("ids");
+        int count = 0;
+        if (sql.startsWith("INSERT INTO chat_message_archive")) {
+            for (Object id : ids) {
+                if (archive.containsKey(id)) {
+                    throw new DuplicateKeyException("Duplicate entry '" + id + "' for key 'PRIMARY'");
+                }
+                archive.put((Long) id, hot.get(id));
+                count++;
+            }
+            return count;
+        }
+        if (sql.startsWith("DELETE FROM chat_message_token")) {
+            for (Object id : ids) {
+                count += tokens.remove(id) ? 1 : 0;
+            }
+            return count;
+        }
+        if (sql.startsWith("DELETE FROM chat_message WHERE id IN (:ids)")) {
+            boolean onlyDeleted = sql.contains("AND deleted_yn = 'Y'");
+            for (Object id : ids) {
+                Row row = hot.get(id);
+                if (row != null && (!onlyDeleted || row.deleted)) {
+                    hot.remove(id);
+                    count++;
+                }
+            }
+            return count;
+        }
+        throw new IllegalArgumentException("unexpected update: " + sql);
+    }
+
+    private void stubRepositories() {
+        when(messageRepository.findByThreadAndDeletedYnOrderByIdDesc(any(ChatThread.class), eq("N"), any(Pageable.class)))
+                .thenAnswer(inv -> messages(hot, inv.<ChatThread>getArgument(0), r -> true, true, inv.getArgument(2)));
+        when(messageRepository.findByThreadAndDeletedYnAndIdLessThanOrderByIdDesc(any(ChatThread.class), eq("N"), anyLong(), any(Pageable.class)))
+                .thenAnswer(inv -> {
+                    long before = inv.getArgument(2);
+                    return messages(hot, inv.<ChatThread>getArgument(0), r -> r.id < before, true, inv.getArgument(3));
+                });
+        when(messageRepository.findByThreadAndDeletedYnAndIdGreaterThanOrderByIdAsc(any(ChatThread.class), eq("N"), anyLong(), any(Pageable.class)))
+                .thenAnswer(inv -> {
+                    long after = inv.getArgument(2);
+                    return messages(hot, inv.<ChatThread>getArgument(0), r -> r.id > after, false, inv.getArgument(3));
+                });
+        when(messageRepository.findByThreadAndDeletedYnOrderByCreatedAtAsc(any(ChatThread.class), eq("N"), any(Pageable.class)))
+                .thenAnswer(inv -> {
+                    Pageable pageable = inv.getArgument(2);
+                    List<ChatMessage> all = messages(hot, inv.<ChatThread>getArgument(0), r -> true, false, null);
+                    return new PageImpl<>(all.stream().skip(pageable.getOffset()).limit(pageable.getPageSize())
+                            .collect(Collectors.toList()), pageable, all.size());
+                });
+        when(messageRepository.findActiveSlice(anyLong(), anyLong(), anyInt())).thenAnswer(inv -> {
+            ChatThread t = new ChatThread();
+            t.setId(inv.getArgument(0));
+            long offset = inv.getArgument(1);
+            int limit = inv.getArgument(2);
+            return messages(hot, t, r -> true, false, null).stream().skip(offset).limit(limit)
+                    .collect(Collectors.toList());
+        });
+        when(messageRepository.countByThreadAndDeletedYn(any(ChatThread.class), eq("N")))
+                .thenAnswer(inv -> (long) messages(hot, inv.<ChatThread>getArgument(0), r -> true, false, null).size());
+
+        when(archiveRepository.countByThreadId(anyLong()))
+                .thenAnswer(inv -> (long) archived(inv.getArgument(0), r -> true, false, null).size());
+        when(archiveRepository.findByThreadIdOrderByIdAsc(anyLong(), any(Pageable.class))).thenAnswer(inv -> {
+            Pageable pageable = inv.getArgument(1);
+            return archived(inv.getArgument(0), r -> true, false, null).stream()
+                    .skip(pageable.getOffset()).limit(pageable.getPageSize()).collect(Collectors.toList());
+        });
+        when(archiveRepository.findByThreadIdOrderByIdDesc(anyLong(), any(Pageable.class)))
+                .thenAnswer(inv -> archived(inv.getArgument(0), r -> true, true, inv.getArgument(1)));
+        when(archiveRepository.findByThreadIdAndIdLessThanOrderByIdDesc(anyLong(), anyLong(), any(Pageable.class)))
+                .thenAnswer(inv -> {
+                    long before = inv.getArgument(1);
+                    return archived(inv.getArgument(0), r -> r.id < before, true, inv.getArgument(2));
+                });
+        when(archiveRepository.findByThreadIdAndIdGreaterThanOrderByIdAsc(anyLong(), anyLong(), any(Pageable.class)))
+                .thenAnswer(inv -> {
+                    long after = inv.getArgument(1);
+                    return archived(inv.getArgument(0), r -> r.id > after, false, inv.getArgument(2));
+                });
+    }
+
+    private static List<Row> rows(TreeMap<Long, Row> table, long threadId, Predicate<Row> filter, boolean descending,
+                                  Pageable pageable) {
+        List<Row> rows = (descending ? table.descendingMap() : table).values().stream()
+                .filter(r -> r.threadId == threadId && !r.deleted && filter.test(r))
+                .collect(Collectors.toList());
+        return pageable != null ? rows.subList(0, Math.min(rows.size(), pageable.getPageSize())) : rows;
+    }
+
+    private static List<ChatMessage> messages(TreeMap<Long, Row> table, ChatThread thread, Predicate<Row> filter,
+                                              boolean descending, Pageable pageable) {
+        List<ChatMessage> result = new ArrayList<>();
+        for (Row row : rows(table, thread.getId(), filter, descending, pageable)) {
+            ChatMessage message = new ChatMessage();
+            message.setId(row.id);
+            message.setThread(thread);
+            message.setCreatedAt(row.createdAt);
+            result.add(message);
+        }
+        return result;
+    }
+
+    private List<ChatMessageArchive> archived(long threadId, Predicate<Row> filter, boolean descending,
+                                              Pageable pageable) {
+        List<ChatMessageArchive> result = new ArrayList<>();
+        for (Row row : rows(archive, threadId, filter, descending, pageable)) {
+            ChatMessageArchive archived = new ChatMessageArchive();
+            ReflectionTestUtils.setField(archived, "id", row.id);
+            ReflectionTestUtils.setField(archived, "threadId", row.threadId);
+            ReflectionTestUtils.setField(archived, "createdAt", row.createdAt);
+            result.add(archived);
+        }
+        return result;
+    }
+
+    private List<Long> hotIds(long threadId) {
+        return hot.values().stream().filter(r -> r.threadId == threadId).map(r -> r.id).collect(Collectors.toList());
+    }
+
+    private static List<Long> messageIds(List<ChatMessage> messages) {
+        return messages.stream().map(ChatMessage::getId).collect(Collectors.toList());
+    }
+
+    private static List<Long> ids(long from, long to, Long except) {
+        return LongStream.rangeClosed(from, to).boxed().filter(id -> !id.equals(except)).collect(Collectors.toList());
+    }
+}
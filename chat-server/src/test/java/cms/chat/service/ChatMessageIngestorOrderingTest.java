@@ -0,0 +1,158 @@
+package cms.chat.service;
+
+import cms.chat.config.ChatIngestProperties;
+import cms.chat.domain.ChatMessage;
+import cms.chat.domain.ChatThread;
+import cms.chat.repository.ChatMessageRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * write-behind(소켓) 전송과 즉시 저장(REST) 전송이 한 대화에 섞여도
+ * lane 전달 순서와 메시지 id(자동 증가) 순서가 같은지 확인한다.
+ */
+class ChatMessageIngestorOrderingTest {
+
+    private final ChatMessageRepository repository = mock(ChatMessageRepository.class);
+    // DB auto-increment 대용
+    private final AtomicLong sequence = new AtomicLong();
+    private final ChatIngestProperties properties = new ChatIngestProperties();
+
+    private ChatKeyedExecutor keyed;
+    private ChatMessageIngestor ingestor;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        when(repository.saveAll(anyList())).thenAnswer(inv -> {
+            List<ChatMessage> batch = inv.getArgument(0);
+            for (ChatMessage m : batch) {
+                m.setId(sequence.incrementAndGet());
+            }
+            return batch;
+        });
+        when(repository.save(any(ChatMessage.class))).thenAnswer(inv -> {
+            ChatMessage m = inv.getArgument(0);
+            m.setId(sequence.incrementAndGet());
+            return m;
+        });
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+
+        properties.setBatchSize(20);
+        properties.setFlushIntervalMs(5);
+        properties.setFlushWaitMs(5000);
+        ingestor = new ChatMessageIngestor(repository, transactionManager, mock(ApplicationEventPublisher.class),
+                mock(SimpMessagingTemplate.class), properties, mock(ChatService.class));
+        ingestor.start();
+        keyed = new ChatKeyedExecutor(4, 10000, mock(ObjectProvider.class));
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        ingestor.stop();
+        keyed.destroy();
+    }
+
+    @Test
+    void idsFollowDeliveryOrderWhenSocketAndRestSendsInterleave() throws Exception {
+        int threads = 12;
+        int perThread = 300;
+        Map<Long, List<ChatMessage>> delivered = new ConcurrentHashMap<>();
+        for (long t = 1; t <= threads; t++) {
+            delivered.put(t, Collections.synchronizedList(new ArrayList<>()));
+        }
+
+        ExecutorService clients = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Exception> errors = Collections.synchronizedList(new ArrayList<>());
+        for (long t = 1; t <= threads; t++) {
+            long threadId = t;
+            clients.execute(() -> {
+                Random random = new Random(threadId);
+                ChatThread thread = thread(threadId);
+                try {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        if (random.nextInt(5) == 0) {
+                            // REST sendText: lane 안에서 큐 적재분을 기다린 뒤 즉시 저장 -> 브로드캐스트
+                            keyed.call(threadId, () -> {
+                                ingestor.awaitPersisted(threadId);
+                                ChatMessage saved = repository.save(ChatMessage.createText(thread, "ADMIN", "rest", "admin"));
+                                delivered.get(threadId).add(saved);
+                                return saved;
+                            });
+                        } else {
+                            // 소켓 send: 브로드캐스트 후 write-behind 큐에 적재
+                            keyed.execute(threadId, () -> {
+                                ChatMessage message = ChatMessage.createText(thread, "USER", "socket", "user");
+                                delivered.get(threadId).add(message);
+                                ingestor.submit(message, null);
+                            });
+                        }
+                    }
+                } catch (Exception e) {
+                    errors.add(e);
+                }
+            });
+        }
+        start.countDown();
+        clients.shutdown();
+        assertTrue(clients.awaitTermination(60, TimeUnit.SECONDS));
+        for (long t = 1; t <= threads; t++) {
+            keyed.call(t, () -> null);
+            assertTrue(ingestor.awaitPersisted(t));
+        }
+        assertTrue(errors.isEmpty(), errors.toString());
+
+        for (long t = 1; t <= threads; t++) {
+            List<ChatMessage> messages = delivered.get(t);
+            assertEquals(perThread, messages.size());
+            long previous = 0;
+            for (ChatMessage m : messages) {
+                assertNotNull(m.getId());
+                assertTrue(m.getId() > previous, "thread " + t + ": id " + m.getId() + " delivered after " + previous);
+                previous = m.getId();
+            }
+        }
+    }
+
+    @Test
+    void awaitPersistedReturnsImmediatelyForIdleThread() {
+        assertTrue(ingestor.awaitPersisted(99L));
+        assertTrue(ingestor.awaitPersisted(null));
+    }
+
+    private static ChatThread thread(Long id) {
+        ChatThread thread = new ChatThread();
+        thread.setId(id);
+        thread.setUserIdentifier("user-" + id);
+        return thread;
+    }
+}
@@ -0,0 +1,182 @@
+package cms.chat.service;
+
+import cms.chat.domain.ChatThread;
+import cms.chat.dto.ChatThreadSnapshot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.web.socket.messaging.SessionConnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 접속 현황의 역할/식별자는 인증된 세션 사용자에서만 정하고, 클라이언트 CONNECT 헤더는 무시한다
+ */
+class ChatPresenceRegistryTest {
+
+    private final ChatThreadCache chatThreadCache = mock(ChatThreadCache.class);
+    private final ChatSessionLogWriter sessionLogWriter = mock(ChatSessionLogWriter.class);
+    private ChatPresenceRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        when(chatThreadCache.get(7L)).thenReturn(Optional.of(
+                new ChatThreadSnapshot(7L, 3L, "cs", "고객센터", "홍길동", "owner-7", "127.0.0.1")));
+        registry = new ChatPresenceRegistry(chatThreadCache, sessionLogWriter, mock(SimpMessagingTemplate.class));
+    }
+
+    @Test
+    void spoofedAdminHeadersFromUserAreIgnored() {
+        Principal user = user("user-1");
+        registry.onConnect(new SessionConnectEvent(this, connect("s-1", user, "ADMIN", "admin-9"), user));
+
+        registry.onSubscribe(new SessionSubscribeEvent(this, subscribe("s-1", user, "sub-1", "/sub/chat/channel/3"), user));
+        registry.onSubscribe(new SessionSubscribeEvent(this, subscribe("s-1", user, "sub-2", "/sub/chat/7"), user));
+
+        assertTrue(admins(registry.snapshot(3L)).isEmpty());
+        assertTrue(registry.isThreadOnline(7L));
+        verify(sessionLogWriter).sessionStarted(any(ChatThread.class), eq("s-1"), eq("user-1"), eq("USER"));
+        verify(sessionLogWriter, never()).sessionStarted(any(ChatThread.class), anyString(), eq("admin-9"), anyString());
+    }
+
+    @Test
+    void anonymousSessionFallsBackToThreadOwner() {
+        registry.onConnect(new SessionConnectEvent(this, connect("s-2", null, "ADMIN", "victim"), null));
+
+        registry.onSubscribe(new SessionSubscribeEvent(this, subscribe("s-2", null, "sub-1", "/sub/chat/channel/3"), null));
+        registry.onSubscribe(new SessionSubscribeEvent(this, subscribe("s-2", null, "sub-2", "/sub/chat/7"), null));
+
+        assertTrue(admins(registry.snapshot(3L)).isEmpty());
+        verify(sessionLogWriter).sessionStarted(any(ChatThread.class), eq("s-2"), eq("owner-7"), eq("USER"));
+    }
+
+    @Test
+    void authenticatedAdminIsTrackedByPrincipalName() {
+        Principal admin = admin("admin-1");
+        registry.onConnect(new SessionConnectEvent(this, connect("s-3", admin, "USER", "someone"), admin));
+
+        registry.onSubscribe(new SessionSubscribeEvent(this, subscribe("s-3", admin, "sub-1", "/sub/chat/channel/3"), admin));
+        registry.onSubscribe(new SessionSubscribeEvent(this, subscribe("s-3", admin, "sub-2", "/sub/chat/7"), admin));
+
+        List<Map<String, Object>> admins = admins(registry.snapshot(3L));
+        assertEquals(1, admins.size());
+        assertEquals("admin-1", admins.get(0).get("adminId"));
+        // 관리자 세션은 사용자 온라인으로 세지 않는다
+        assertFalse(registry.isThreadOnline(7L));
+        verify(sessionLogWriter).sessionStarted(any(ChatThread.class), eq("s-3"), eq("admin-1"), eq("ADMIN"));
+    }
+
+    @Test
+    void concurrentJoinAndLeaveOfTheSameAdminKeepsPresence() throws Exception {
+        Principal admin = admin("admin-2");
+        int sessions = 8;
+        int rounds = 200;
+        for (int i = 0; i < sessions; i++) {
+            registry.onConnect(new SessionConnectEvent(this, connect("c-" + i, admin, null, null), admin));
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(sessions);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < sessions; i++) {
+                String sessionId = "c-" + i;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    for (int r = 0; r < rounds; r++) {
+                        registry.onSubscribe(new SessionSubscribeEvent(this,
+                                subscribe(sessionId, admin, "sub", "/sub/chat/channel/3"), admin));
+                        registry.onUnsubscribe(new SessionUnsubscribeEvent(this,
+                                unsubscribe(sessionId, admin, "sub"), admin));
+                    }
+                    // 마지막에는 모두 구독한 상태로 끝난다
+                    registry.onSubscribe(new SessionSubscribeEvent(this,
+                            subscribe(sessionId, admin, "sub", "/sub/chat/channel/3"), admin));
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        List<Map<String, Object>> admins = admins(registry.snapshot(3L));
+        assertEquals(1, admins.size());
+        assertEquals(sessions, admins.get(0).get("sessions"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> admins(Map<String, Object> snapshot) {
+        return (List<Map<String, Object>>) snapshot.get("admins");
+    }
+
+    private static Principal user(String name) {
+        return new UsernamePasswordAuthenticationToken(name, null,
+                Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER")));
+    }
+
+    private static Principal admin(String name) {
+        return new UsernamePasswordAuthenticationToken(name, null,
+                Collections.singletonList(new SimpleGrantedAuthority("ROLE_ADMIN")));
+    }
+
+    private static Message<byte[]> connect(String sessionId, Principal user, String role, String identifier) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.CONNECT);
+        accessor.setSessionId(sessionId);
+        accessor.setUser(user);
+        if (role != null) {
+            accessor.setNativeHeader("role", role);
+        }
+        if (identifier != null) {
+            accessor.setNativeHeader("userIdentifier", identifier);
+        }
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static Message<byte[]> subscribe(String sessionId, Principal user, String subscriptionId, String destination) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        accessor.setSessionId(sessionId);
+        accessor.setUser(user);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static Message<byte[]> unsubscribe(String sessionId, Principal user, String subscriptionId) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.UNSUBSCRIBE);
+        accessor.setSessionId(sessionId);
+        accessor.setUser(user);
+        accessor.setSubscriptionId(subscriptionId);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
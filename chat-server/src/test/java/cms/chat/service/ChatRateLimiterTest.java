@@ -0,0 +1,106 @@
+package cms.chat.service;
+
+import cms.chat.config.ChatRateLimitProperties;
+import cms.chat.dto.ChatThreadSnapshot;
+import cms.chat.repository.ChatChannelSettingRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 관리자 면제/사용자 키는 서버 신원 기준, 거부된 전송은 다른 범위 토큰을 소모하지 않음
+ */
+class ChatRateLimiterTest {
+
+    private final ChatRateLimitProperties properties = new ChatRateLimitProperties();
+    private final ChatThreadCache chatThreadCache = mock(ChatThreadCache.class);
+    private ChatRateLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        for (long threadId = 1; threadId <= 3; threadId++) {
+            when(chatThreadCache.get(threadId)).thenReturn(Optional.of(
+                    new ChatThreadSnapshot(threadId, 10L, "C", "채널", "고객", "owner", "10.0.0.1")));
+        }
+        properties.setThread(new ChatRateLimitProperties.Limit(100, 1));
+        properties.setUser(new ChatRateLimitProperties.Limit(2, 1));
+        properties.setIp(new ChatRateLimitProperties.Limit(100, 1));
+        limiter = new ChatRateLimiter(properties, chatThreadCache, mockProvider(), mockRegistry());
+    }
+
+    @Test
+    void adminSendsAreNotLimited() {
+        for (int i = 0; i < 50; i++) {
+            assertNull(limiter.tryAcquireSend(1L, true, "agent", "10.0.0.9", "stomp"));
+        }
+        // 관리자 전송이 스레드 사용자 버킷을 소모하지 않았다
+        assertNull(limiter.tryAcquireSend(1L, false, null, "10.0.0.1", "http"));
+        assertNull(limiter.tryAcquireSend(1L, false, null, "10.0.0.1", "http"));
+    }
+
+    @Test
+    void anonymousSenderIsChargedToThreadOwner() {
+        assertNull(limiter.tryAcquireSend(1L, false, null, "10.0.0.1", "http"));
+        assertNull(limiter.tryAcquireSend(2L, false, null, "10.0.0.2", "stomp"));
+
+        ChatRateLimiter.Rejection rejection = limiter.tryAcquireSend(3L, false, null, "10.0.0.3", "http");
+        assertNotNull(rejection);
+        assertEquals(ChatRateLimiter.SCOPE_USER, rejection.getScope());
+    }
+
+    @Test
+    void authenticatedSenderIsChargedToOwnIdentity() {
+        assertNull(limiter.tryAcquireSend(1L, false, null, "10.0.0.1", "http"));
+        assertNull(limiter.tryAcquireSend(1L, false, null, "10.0.0.1", "http"));
+        assertNotNull(limiter.tryAcquireSend(1L, false, null, "10.0.0.1", "http"));
+
+        // 스레드 사용자 버킷이 비어도 다른 인증 사용자는 자기 버킷으로 센다
+        assertNull(limiter.tryAcquireSend(1L, false, "member-7", "10.0.0.7", "http"));
+    }
+
+    @Test
+    void rejectedSendRefundsTokensTakenFromOtherScopes() {
+        properties.setThread(new ChatRateLimitProperties.Limit(1, 1));
+        properties.setUser(new ChatRateLimitProperties.Limit(100, 1));
+        properties.setIp(new ChatRateLimitProperties.Limit(3, 1));
+        limiter = new ChatRateLimiter(properties, chatThreadCache, mockProvider(), mockRegistry());
+
+        assertNull(limiter.tryAcquireSend(1L, false, null, "10.0.0.1", "http"));
+        for (int i = 0; i < 5; i++) {
+            ChatRateLimiter.Rejection rejection = limiter.tryAcquireSend(1L, false, null, "10.0.0.1", "http");
+            assertNotNull(rejection);
+            assertEquals(ChatRateLimiter.SCOPE_THREAD, rejection.getScope());
+        }
+
+        // 스레드 한도에 걸린 5건은 IP 토큰을 쓰지 않았으므로 남은 2건이 그대로 허용된다
+        assertNull(limiter.tryAcquireSend(2L, false, null, "10.0.0.1", "http"));
+        assertNull(limiter.tryAcquireSend(3L, false, null, "10.0.0.1", "http"));
+        ChatRateLimiter.Rejection ip = limiter.tryAcquireSend(4L, false, "member-1", "10.0.0.1", "http");
+        assertNotNull(ip);
+        assertEquals(ChatRateLimiter.SCOPE_IP, ip.getScope());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ObjectProvider<ChatChannelSettingRepository> mockProvider() {
+        return mock(ObjectProvider.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ObjectProvider<MeterRegistry> mockRegistry() {
+        ObjectProvider<MeterRegistry> registry = mock(ObjectProvider.class);
+        when(registry.getIfAvailable(any(Supplier.class))).thenReturn(new SimpleMeterRegistry());
+        return registry;
+    }
+}
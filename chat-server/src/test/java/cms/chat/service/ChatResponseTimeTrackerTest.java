@@ -0,0 +1,87 @@
+package cms.chat.service;
+
+import cms.chat.repository.ChatThreadRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 상담원 태그는 호출 측이 넘긴 인증된 관리자 id 만 쓰고, SLA 알림은 선점한 노드만 보낸다
+ */
+class ChatResponseTimeTrackerTest {
+
+    private final ChatThreadRepository repository = mock(ChatThreadRepository.class);
+    private final ChatBroadcaster broadcaster = mock(ChatBroadcaster.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    // DB 의 sla_alerted_since 선점을 흉내: 먼저 넣은 쪽만 1
+    private final Set<Long> claimed = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+    @BeforeEach
+    void setUp() {
+        when(repository.findAwaitingReplyBefore(any(LocalDateTime.class), anyInt())).thenReturn(Collections.singletonList(
+                new Object[]{11L, 3L, Timestamp.valueOf(LocalDateTime.now().minusMinutes(30)), "홍길동", "user-1"}));
+        when(repository.claimSlaAlert(anyLong(), any(LocalDateTime.class)))
+                .thenAnswer(inv -> claimed.add(inv.getArgument(0)) ? 1 : 0);
+    }
+
+    @Test
+    void agentTagComesOnlyFromTheAuthenticatedAdmin() {
+        ChatResponseTimeTracker tracker = tracker();
+
+        tracker.record(3L, "admin-1", 1_000);
+        tracker.record(3L, null, 2_000);
+        tracker.record(3L, "", 3_000);
+
+        assertEquals(1L, registry.get("chat.response.first.agent").tag("agent", "admin-1").timer().count());
+        assertEquals(2L, registry.get("chat.response.first.agent").tag("agent", "unknown").timer().count());
+        assertEquals(3L, registry.get("chat.response.first").tag("channel", "3").timer().count());
+    }
+
+    @Test
+    void breachIsAlertedOnceAcrossNodes() {
+        ChatResponseTimeTracker nodeA = tracker();
+        ChatResponseTimeTracker nodeB = tracker();
+
+        int sentA = nodeA.checkBreaches();
+        int sentB = nodeB.checkBreaches();
+
+        assertEquals(1, sentA + sentB);
+        verify(broadcaster, times(1)).broadcast(any(), eq("/sub/chat/sla"), eq("/sub/chat/channel/3"));
+        verify(repository, times(2)).claimSlaAlert(anyLong(), any(LocalDateTime.class));
+    }
+
+    @Test
+    void sameNodeDoesNotRepeatTheAlert() {
+        ChatResponseTimeTracker tracker = tracker();
+
+        assertEquals(1, tracker.checkBreaches());
+        assertEquals(0, tracker.checkBreaches());
+        verify(broadcaster, times(1)).broadcast(any(), eq("/sub/chat/sla"), eq("/sub/chat/channel/3"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private ChatResponseTimeTracker tracker() {
+        ObjectProvider<MeterRegistry> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable(any(Supplier.class))).thenReturn(registry);
+        return new ChatResponseTimeTracker(provider, repository, broadcaster, 10, 60);
+    }
+}
@@ -0,0 +1,270 @@
+package cms.chat.service;
+
+import cms.chat.dto.ChatSearchHitDto;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * LIKE '%단어%' 스캔과 bigram 역색인 조회 비교 (같은 합성 말뭉치, 첫 페이지 20건).
+ * - 읽는 행 수: LIKE 는 id 역순으로 훑다가 size+1 건을 찾으면 멈추는 chat_message 행 수,
+ *   색인은 (token, channel_id, message_id) 인덱스에서 읽는 토큰 행 수 + 본문 재확인 행 수. 항상 실행
+ * - 실행 시간: -Dchat.search.benchmark=true 일 때만 (메시지 수는 -Dchat.search.benchmark.messages, 기본 200000)
+ * 드문 단어는 LIKE 가 채널 전체를 훑어야 하므로 색인이 훨씬 적게 읽는다. 자주 나오는 단어는 LIKE 가 첫 페이지에서 일찍 멈추고
+ * 색인은 토큰 행을 모두 집계하므로 LIKE 쪽이 적게 읽는다 (두 경우 모두 결과는 같아야 한다)
+ */
+class ChatSearchBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatSearchBenchmarkTest.class);
+
+    private static final int PAGE = 20;
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final String[] COMMON = {"문의", "안녕하세요", "확인", "부탁드립니다", "감사합니다", "주문", "배송"};
+    private static final String[] MEDIUM = {"환불", "요청", "교환", "취소", "결제", "쿠폰", "포인트", "회원가입",
+            "비밀번호", "주소", "변경", "지연", "파손", "누락", "재발송", "영수증"};
+    private static final String[] RARE = {"세금계산서", "해외배송", "대량구매", "법인카드", "개인통관고유부호"};
+
+    private static final class Posting {
+        final long messageId;
+        final long threadId;
+        final int tf;
+
+        Posting(long messageId, long threadId, int tf) {
+            this.messageId = messageId;
+            this.threadId = threadId;
+            this.tf = tf;
+        }
+    }
+
+    private static final class Corpus {
+        final List<String> contents = new ArrayList<>();
+        final List<Long> channels = new ArrayList<>();
+        /** token -> channel -> message_id 역순 posting (복합 인덱스 순서) */
+        final Map<String, Map<Long, TreeMap<Long, Posting>>> index = new HashMap<>();
+        final AtomicLong tokenRowsRead = new AtomicLong();
+        final AtomicLong messageRowsRead = new AtomicLong();
+
+        String content(long id) {
+            return contents.get((int) id - 1);
+        }
+    }
+
+    @Test
+    void indexReadsFarFewerRowsThanLikeForRareWords() {
+        Corpus corpus = corpus(20_000);
+        ChatSearchService service = service(corpus);
+
+        // A-4821 은 일치하는 메시지가 없다 (LIKE 는 채널 전체를 훑는다)
+        for (String q : Arrays.asList("세금계산서", "대량구매", "A-4821")) {
+            for (Long channelId : Arrays.asList(null, 3L)) {
+                long[] likeRows = new long[1];
+                List<Long> expected = like(corpus, q, channelId, likeRows);
+                long indexRows = read(corpus, () -> assertEquals(expected, ids(service, q, channelId), q));
+
+                logger.info("q={} channel={} like rows={} index rows={}", q, channelId, likeRows[0], indexRows);
+                assertTrue(indexRows * 5 <= likeRows[0],
+                        "q=" + q + " like rows=" + likeRows[0] + " index rows=" + indexRows);
+            }
+        }
+    }
+
+    @Test
+    void earlyStoppingLikeScanReadsLessForFrequentWords() {
+        Corpus corpus = corpus(20_000);
+        ChatSearchService service = service(corpus);
+
+        for (String q : Arrays.asList("문의", "환불 요청")) {
+            long[] likeRows = new long[1];
+            List<Long> expected = like(corpus, q, null, likeRows);
+            long indexRows = read(corpus, () -> assertEquals(expected, ids(service, q, null), q));
+
+            // 자주 나오는 단어는 LIKE 가 첫 페이지를 금방 채우지만 색인은 토큰 행 전체를 집계한다 (GROUP BY)
+            logger.info("q={} like rows={} index rows={}", q, likeRows[0], indexRows);
+            assertTrue(likeRows[0] < indexRows, "q=" + q);
+        }
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "chat.search.benchmark", matches = "true")
+    void timeLikeScanAgainstIndex() {
+        int messages = Integer.getInteger("chat.search.benchmark.messages", 200_000);
+        Corpus corpus = corpus(messages);
+        ChatSearchService service = service(corpus);
+        List<String> queries = Arrays.asList("세금계산서", "대량구매", "A-4821", "환불 요청", "해외배송 문의", "문의");
+
+        for (String q : queries) {
+            long likeNanos = time(() -> like(corpus, q, null, new long[1]));
+            long indexNanos = time(() -> ids(service, q, null));
+            logger.info(String.format(Locale.ROOT, "%-12s messages=%d  LIKE %8.3f ms  index %8.3f ms  (x%.1f)",
+                    q, messages, likeNanos / 1e6, indexNanos / 1e6, (double) likeNanos / Math.max(1, indexNanos)));
+        }
+    }
+
+    private static long time(Runnable query) {
+        for (int i = 0; i < 5; i++) {
+            query.run();
+        }
+        int runs = 20;
+        long start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            query.run();
+        }
+        return (System.nanoTime() - start) / runs;
+    }
+
+    private static long read(Corpus corpus, Runnable query) {
+        corpus.tokenRowsRead.set(0);
+        corpus.messageRowsRead.set(0);
+        query.run();
+        return corpus.tokenRowsRead.get() + corpus.messageRowsRead.get();
+    }
+
+    /**
+     * 단어 빈도가 흔함/보통/드묾 으로 나뉜 합성 채팅 말뭉치 (고정 seed). 채널 5개, 스레드 500개
+     */
+    private static Corpus corpus(int size) {
+        Random random = new Random(42);
+        Corpus corpus = new Corpus();
+        for (long id = 1; id <= size; id++) {
+            StringBuilder content = new StringBuilder();
+            int words = 4 + random.nextInt(7);
+            for (int w = 0; w < words; w++) {
+                int bucket = random.nextInt(1000);
+                String word = bucket < 700 ? COMMON[random.nextInt(COMMON.length)]
+                        : bucket < 995 ? MEDIUM[random.nextInt(MEDIUM.length)]
+                        : bucket < 998 ? RARE[random.nextInt(RARE.length)]
+                        : "A-" + (1000 + random.nextInt(9000));
+                content.append(w == 0 ? "" : " ").append(word);
+            }
+            long channelId = 1 + id % 5;
+            corpus.contents.add(content.toString());
+            corpus.channels.add(channelId);
+            for (Map.Entry<String, Integer> token : ChatSearchTokenizer.tokenize(content.toString()).entrySet()) {
+                corpus.index.computeIfAbsent(token.getKey(), k -> new HashMap<>())
+                        .computeIfAbsent(channelId, k -> new TreeMap<>(Collections.reverseOrder()))
+                        .put(id, new Posting(id, id % 500, token.getValue()));
+            }
+        }
+        return corpus;
+    }
+
+    /**
+     * LIKE '%w1%' AND '%w2%' ... ORDER BY id DESC LIMIT size+1 (id 역순으로 훑다가 충분히 찾으면 멈춤)
+     */
+    private static List<Long> like(Corpus corpus, String q, Long channelId, long[] rowsRead) {
+        List<String> words = ChatSearchTokenizer.terms(q, true);
+        List<Long> hits = new ArrayList<>();
+        for (long id = corpus.contents.size(); id >= 1 && hits.size() <= PAGE; id--) {
+            if (channelId != null && !channelId.equals(corpus.channels.get((int) id - 1))) {
+                continue;
+            }
+            rowsRead[0]++;
+            String lower = corpus.content(id).toLowerCase(Locale.ROOT);
+            if (words.stream().allMatch(lower::contains)) {
+                hits.add(id);
+            }
+        }
+        return hits.size() > PAGE ? hits.subList(0, PAGE) : hits;
+    }
+
+    private static List<Long> ids(ChatSearchService service, String q, Long channelId) {
+        return service.search(q, channelId, null, null, null, null, PAGE, null).getContent().stream()
+                .map(ChatSearchHitDto::getMessageId).collect(Collectors.toList());
+    }
+
+    private static ChatSearchService service(Corpus corpus) {
+        NamedParameterJdbcTemplate jdbc = mock(NamedParameterJdbcTemplate.class);
+        when(jdbc.queryForList(anyString(), any(SqlParameterSource.class))).thenAnswer(inv -> {
+            String sql = inv.getArgument(0);
+            SqlParameterSource params = inv.getArgument(1);
+            return sql.contains("chat_message_token") ? candidates(corpus, params) : rows(corpus, params);
+        });
+        return new ChatSearchService(jdbc);
+    }
+
+    /**
+     * 후보 SQL: token IN (:tokens) [AND channel_id] GROUP BY message_id HAVING COUNT(*) = :tokenCount
+     * ORDER BY message_id DESC LIMIT. 질의 토큰의 (채널) posting 을 모두 읽어 집계한다
+     */
+    private static List<Map<String, Object>> candidates(Corpus corpus, SqlParameterSource params) {
+        Collection<?> tokens = (Collection<?>) params.getValue("tokens");
+        Long channelId = params.hasValue("channelId") ? (Long) params.getValue("channelId") : null;
+        int limit = (Integer) params.getValue("limit");
+        TreeMap<Long, long[]> grouped = new TreeMap<>(Collections.reverseOrder());
+        Map<Long, Long> threads = new HashMap<>();
+        Map<Long, Long> channels = new HashMap<>();
+        for (Object token : tokens) {
+            Map<Long, TreeMap<Long, Posting>> byChannel = corpus.index.getOrDefault(token, Collections.emptyMap());
+            for (Map.Entry<Long, TreeMap<Long, Posting>> e : byChannel.entrySet()) {
+                if (channelId != null && !channelId.equals(e.getKey())) {
+                    continue;
+                }
+                for (Posting p : e.getValue().values()) {
+                    corpus.tokenRowsRead.incrementAndGet();
+                    long[] agg = grouped.computeIfAbsent(p.messageId, k -> new long[2]);
+                    agg[0]++;
+                    agg[1] += p.tf;
+                    threads.put(p.messageId, p.threadId);
+                    channels.put(p.messageId, e.getKey());
+                }
+            }
+        }
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (Map.Entry<Long, long[]> e : grouped.entrySet()) {
+            if (e.getValue()[0] != tokens.size()) {
+                continue;
+            }
+            Map<String, Object> row = new HashMap<>();
+            row.put("message_id", e.getKey());
+            row.put("thread_id", threads.get(e.getKey()));
+            row.put("channel_id", channels.get(e.getKey()));
+            row.put("score", e.getValue()[1]);
+            result.add(row);
+            if (result.size() == limit) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    private static List<Map<String, Object>> rows(Corpus corpus, SqlParameterSource params) {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (Object id : (Collection<?>) params.getValue("ids")) {
+            corpus.messageRowsRead.incrementAndGet();
+            Map<String, Object> row = new HashMap<>();
+            row.put("id", id);
+            row.put("content", corpus.content((Long) id));
+            row.put("sender_type", "USER");
+            row.put("sender_name", "user");
+            row.put("message_type", "TEXT");
+            row.put("created_at", Timestamp.valueOf(BASE.plusMinutes((Long) id)));
+            result.add(row);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,266 @@
+package cms.chat.service;
+
+import cms.chat.dto.ChatSearchHitDto;
+import cms.common.dto.CursorPageResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * bigram 후보 조회 + 본문 재확인 결과가 LIKE '%단어%' (AND) 스캔과 같은지 확인한다.
+ * chat_message_token / chat_message 는 메모리 색인으로 흉내낸다 (SQL 의 GROUP BY/HAVING/ORDER/LIMIT 의미 그대로).
+ */
+class ChatSearchServiceTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 5, 1, 9, 0);
+
+    private final NamedParameterJdbcTemplate jdbc = mock(NamedParameterJdbcTemplate.class);
+    private final ChatSearchService service = new ChatSearchService(jdbc);
+    private final List<Doc> docs = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        add(1, 10, "환불 요청드립니다. 주문번호 A-1001");
+        add(1, 10, "배송이 너무 늦어요");
+        add(1, 11, "환불해주세요 환불이요 환불!");
+        add(2, 12, "Refund please, order #1002");
+        add(2, 12, "환불 불요 (환불요 아님)");
+        add(2, 13, "환 불 요청");
+        add(1, 10, "배송 지연 안내: 환불 가능합니다");
+        add(2, 12, "REFUND 문의");
+        add(1, 11, "주문 취소 후 환불");
+        add(1, 10, "환불").deleted = true;
+        add(2, 13, "<b>환불</b> 처리 완료");
+        add(1, 11, "a 환불 b");
+        for (int i = 0; i < 30; i++) {
+            add(1 + i % 2, 20 + i % 3, (i % 4 == 0 ? "환불 " : "") + "일반 문의 " + i);
+        }
+
+        when(jdbc.queryForList(anyString(), any(SqlParameterSource.class))).thenAnswer(inv -> {
+            String sql = inv.getArgument(0);
+            SqlParameterSource params = inv.getArgument(1);
+            return sql.contains("chat_message_token") ? candidates(sql, params) : rows(params);
+        });
+    }
+
+    @Test
+    void matchesLikeScanForEveryQuery() {
+        for (String q : Arrays.asList("환불", "환불 요청", "refund", "Refund 문의", "배송 지연", "주문번호",
+                "환불요", "불요", "a 환불", "일반 문의 12", "없는단어")) {
+            for (Long channelId : Arrays.asList(null, 1L, 2L)) {
+                List<Long> expected = like(q, channelId, null);
+                List<Long> actual = ids(service.search(q, channelId, null, null, null, null, 1000, null));
+                assertEquals(expected, actual, "q=" + q + " channel=" + channelId);
+            }
+        }
+    }
+
+    @Test
+    void recheckDropsCandidatesThatOnlyShareBigrams() {
+        // "환불 불요" 는 환불/불요 bigram 을 모두 갖지만 "환불요" 가 연속으로 들어있는 건 괄호 안뿐
+        // "환 불 요청" 은 1글자 단어라 환불 bigram 자체가 없다
+        List<Long> hits = ids(service.search("환불요", null, null, null, null, null, 100, null));
+        assertEquals(Collections.singletonList(5L), hits);
+
+        docs.get(4).content = "환불 불요";
+        assertTrue(ids(service.search("환불요", null, null, null, null, null, 100, null)).isEmpty());
+    }
+
+    @Test
+    void excludesDeletedMessagesAndFiltersByThread() {
+        assertFalse(ids(service.search("환불", null, null, null, null, null, 100, null)).contains(10L));
+        assertEquals(like("환불", null, 11L),
+                ids(service.search("환불", null, 11L, null, null, null, 100, null)));
+    }
+
+    @Test
+    void recentKeysetWalkCoversLikeResultsOnce() {
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPageResponse<ChatSearchHitDto> page = service.search("환불", null, null, null, null, cursor, 3, "recent");
+            seen.addAll(ids(page));
+            cursor = page.getNextCursor();
+            if (!page.isHasMore()) {
+                assertNull(cursor);
+            }
+        } while (cursor != null);
+
+        assertEquals(like("환불", null, null), seen);
+    }
+
+    @Test
+    void relevanceKeysetWalkOrdersByScoreThenId() {
+        List<ChatSearchHitDto> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPageResponse<ChatSearchHitDto> page = service.search("환불", null, null, null, null, cursor, 2, "relevance");
+            seen.addAll(page.getContent());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(like("환불", null, null).size(), seen.size());
+        // 환불이 세 번 나오는 메시지가 가장 먼저
+        assertEquals(Long.valueOf(3L), seen.get(0).getMessageId());
+        assertEquals(3L, seen.get(0).getScore());
+        for (int i = 1; i < seen.size(); i++) {
+            ChatSearchHitDto prev = seen.get(i - 1);
+            ChatSearchHitDto cur = seen.get(i);
+            assertTrue(prev.getScore() > cur.getScore()
+                    || (prev.getScore() == cur.getScore() && prev.getMessageId() > cur.getMessageId()));
+        }
+    }
+
+    @Test
+    void highlightsMatchesInEscapedSnippet() {
+        ChatSearchHitDto hit = service.search("환불", null, 13L, null, null, null, 10, null).getContent().stream()
+                .filter(h -> h.getMessageId() == 11L).findFirst().orElseThrow(IllegalStateException::new);
+
+        assertEquals("&lt;b&gt;<mark>환불</mark>&lt;/b&gt; 처리 완료", hit.getSnippet());
+    }
+
+    @Test
+    void rejectsQueriesWithoutIndexableWordsAndBadCursors() {
+        assertThrows(IllegalArgumentException.class, () -> service.search("a b", null, null, null, null, null, 10, null));
+        assertThrows(IllegalArgumentException.class, () -> service.search("환불", null, null, null, null, "x", 10, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.search("환불", null, null, null, null, "12", 10, "relevance"));
+    }
+
+    /**
+     * 기준: 삭제되지 않은 메시지 중 모든 단어를 (대소문자 무시) 포함하는 것, id 역순
+     */
+    private List<Long> like(String q, Long channelId, Long threadId) {
+        List<String> words = ChatSearchTokenizer.terms(q, true);
+        return docs.stream()
+                .filter(d -> !d.deleted)
+                .filter(d -> channelId == null || channelId.equals(d.channelId))
+                .filter(d -> threadId == null || threadId.equals(d.threadId))
+                .filter(d -> words.stream().allMatch(w -> d.content.toLowerCase(Locale.ROOT).contains(w)))
+                .map(d -> d.id)
+                .sorted(Comparator.reverseOrder())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 후보 SQL 흉내: 질의 토큰을 모두 가진 메시지, score = tf 합, keyset 조건, 정렬, LIMIT
+     */
+    private List<Map<String, Object>> candidates(String sql, SqlParameterSource params) {
+        Collection<?> tokens = (Collection<?>) params.getValue("tokens");
+        boolean byRelevance = sql.contains("ORDER BY score");
+        Long channelId = (Long) value(params, "channelId");
+        Long threadId = (Long) value(params, "threadId");
+        Long cursorId = (Long) value(params, "cursorId");
+        Long cursorScore = (Long) value(params, "cursorScore");
+        int limit = (Integer) params.getValue("limit");
+
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (Doc d : docs) {
+            if ((channelId != null && !channelId.equals(d.channelId)) || (threadId != null && !threadId.equals(d.threadId))) {
+                continue;
+            }
+            // 삭제된 메시지도 색인 행은 남아 있을 수 있다 (본문 조회에서 걸러짐)
+            Map<String, Integer> index = ChatSearchTokenizer.tokenize(d.content);
+            long score = 0;
+            int matched = 0;
+            for (Object token : tokens) {
+                Integer tf = index.get(token);
+                if (tf != null) {
+                    matched++;
+                    score += tf;
+                }
+            }
+            if (matched != tokens.size()) {
+                continue;
+            }
+            if (cursorId != null) {
+                boolean after = byRelevance
+                        ? score < cursorScore || (score == cursorScore && d.id < cursorId)
+                        : d.id < cursorId;
+                if (!after) {
+                    continue;
+                }
+            }
+            Map<String, Object> row = new HashMap<>();
+            row.put("message_id", d.id);
+            row.put("thread_id", d.threadId);
+            row.put("channel_id", d.channelId);
+            row.put("score", score);
+            result.add(row);
+        }
+        Comparator<Map<String, Object>> byId = Comparator.comparing(r -> (Long) r.get("message_id"));
+        Comparator<Map<String, Object>> order = byRelevance
+                ? Comparator.<Map<String, Object>, Long>comparing(r -> (Long) r.get("score")).thenComparing(byId).reversed()
+                : byId.reversed();
+        result.sort(order);
+        return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+
+    private List<Map<String, Object>> rows(SqlParameterSource params) {
+        Collection<?> ids = (Collection<?>) params.getValue("ids");
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (Doc d : docs) {
+            if (!d.deleted && ids.contains(d.id)) {
+                Map<String, Object> row = new HashMap<>();
+                row.put("id", d.id);
+                row.put("content", d.content);
+                row.put("sender_type", "USER");
+                row.put("sender_name", "user");
+                row.put("message_type", "TEXT");
+                row.put("created_at", Timestamp.valueOf(BASE.plusMinutes(d.id)));
+                result.add(row);
+            }
+        }
+        return result;
+    }
+
+    private static Object value(SqlParameterSource params, String name) {
+        return params.hasValue(name) ? params.getValue(name) : null;
+    }
+
+    private static List<Long> ids(CursorPageResponse<ChatSearchHitDto> page) {
+        return page.getContent().stream().map(ChatSearchHitDto::getMessageId).collect(Collectors.toList());
+    }
+
+    private Doc add(long channelId, long threadId, String content) {
+        Doc d = new Doc();
+        d.id = docs.size() + 1L;
+        d.channelId = channelId;
+        d.threadId = threadId;
+        d.content = content;
+        docs.add(d);
+        return d;
+    }
+
+    private static final class Doc {
+        private Long id;
+        private Long channelId;
+        private Long threadId;
+        private String content;
+        private boolean deleted;
+    }
+}
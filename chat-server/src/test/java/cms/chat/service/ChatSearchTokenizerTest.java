@@ -0,0 +1,75 @@
+package cms.chat.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 색인/질의 토큰 분해 규칙
+ */
+class ChatSearchTokenizerTest {
+
+    @Test
+    void splitsWordsOnNonLetterOrDigitAndLowercases() {
+        assertEquals(Arrays.asList("환불", "요청합니다", "order", "123"),
+                ChatSearchTokenizer.terms("환불, 요청합니다! ORDER#123", false));
+        assertEquals(Arrays.asList("환불", "요청"),
+                ChatSearchTokenizer.terms("환불 요청 환불", true));
+        assertTrue(ChatSearchTokenizer.terms(null, false).isEmpty());
+        assertTrue(ChatSearchTokenizer.terms("  ?! ", false).isEmpty());
+    }
+
+    @Test
+    void indexesBigramsWithinWordsOnly() {
+        Map<String, Integer> tokens = ChatSearchTokenizer.tokenize("환불요청 가 ab");
+
+        assertEquals(new LinkedHashSet<>(Arrays.asList("환불", "불요", "요청", "ab")), tokens.keySet());
+        // 단어 경계를 넘는 bigram 과 1글자 단어는 만들지 않는다
+        assertFalse(tokens.containsKey("청가"));
+        assertFalse(tokens.containsKey("가"));
+    }
+
+    @Test
+    void countsTermFrequency() {
+        Map<String, Integer> tokens = ChatSearchTokenizer.tokenize("환불 환불 환불해주세요");
+
+        assertEquals(Integer.valueOf(3), tokens.get("환불"));
+        assertEquals(Integer.valueOf(1), tokens.get("불해"));
+    }
+
+    @Test
+    void keepsSupplementaryCharactersWhole() {
+        // U+20000 (CJK 확장 B) 는 서로게이트 쌍이지만 한 글자로 다룬다
+        String ext = new String(Character.toChars(0x20000));
+        Map<String, Integer> tokens = ChatSearchTokenizer.tokenize("가" + ext + "나");
+
+        assertEquals(new LinkedHashSet<>(Arrays.asList("가" + ext, ext + "나")), tokens.keySet());
+    }
+
+    @Test
+    void capsDistinctTokensPerMessage() {
+        StringBuilder text = new StringBuilder();
+        for (int cp = 0xAC00; cp < 0xAC00 + ChatSearchTokenizer.MAX_TOKENS_PER_MESSAGE + 500; cp++) {
+            text.appendCodePoint(cp);
+        }
+        Map<String, Integer> tokens = ChatSearchTokenizer.tokenize(text.toString());
+
+        assertEquals(ChatSearchTokenizer.MAX_TOKENS_PER_MESSAGE, tokens.size());
+    }
+
+    @Test
+    void queryTokensAreDistinctAndSkipSingleCharacterWords() {
+        Set<String> tokens = ChatSearchTokenizer.queryTokens(Arrays.asList("환불", "a", "불환불"));
+
+        assertEquals(new LinkedHashSet<>(Arrays.asList("환불", "불환")), tokens);
+        assertTrue(ChatSearchTokenizer.queryTokens(Collections.singletonList("a")).isEmpty());
+    }
+}
@@ -0,0 +1,206 @@
+package cms.chat.service;
+
+import cms.chat.domain.ChatMessage;
+import cms.chat.domain.ChatMessageArchive;
+import cms.chat.domain.ChatThread;
+import cms.chat.repository.ChatMessageArchiveRepository;
+import cms.chat.repository.ChatMessageRepository;
+import cms.common.dto.CursorPageResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * before/after keyset 페이지 경계: 보관/핫 테이블 경계, 정확히 size 배수, 빈 스레드, 삭제로 생긴 id 공백
+ */
+class ChatServiceCursorPageTest {
+
+    private final ChatMessageRepository messageRepository = mock(ChatMessageRepository.class);
+    private final ChatMessageArchiveRepository archiveRepository = mock(ChatMessageArchiveRepository.class);
+    private final ChatThread thread = new ChatThread();
+
+    private List<Long> hotIds = new ArrayList<>();
+    private List<Long> archivedIds = new ArrayList<>();
+    private ChatService chatService;
+
+    @BeforeEach
+    void setUp() {
+        thread.setId(1L);
+        chatService = new ChatService(null, null, messageRepository, null, null, null, null, null, null,
+                archiveRepository, null);
+
+        when(messageRepository.findByThreadAndDeletedYnOrderByIdDesc(eq(thread), eq("N"), any(Pageable.class)))
+                .thenAnswer(inv -> messages(slice(hotIds, id -> true, true, inv.getArgument(2))));
+        when(messageRepository.findByThreadAndDeletedYnAndIdLessThanOrderByIdDesc(eq(thread), eq("N"), anyLong(), any(Pageable.class)))
+                .thenAnswer(inv -> {
+                    long before = inv.getArgument(2);
+                    return messages(slice(hotIds, id -> id < before, true, inv.getArgument(3)));
+                });
+        when(messageRepository.findByThreadAndDeletedYnAndIdGreaterThanOrderByIdAsc(eq(thread), eq("N"), anyLong(), any(Pageable.class)))
+                .thenAnswer(inv -> {
+                    long after = inv.getArgument(2);
+                    return messages(slice(hotIds, id -> id > after, false, inv.getArgument(3)));
+                });
+        when(archiveRepository.findByThreadIdOrderByIdDesc(eq(1L), any(Pageable.class)))
+                .thenAnswer(inv -> archived(slice(archivedIds, id -> true, true, inv.getArgument(1))));
+        when(archiveRepository.findByThreadIdAndIdLessThanOrderByIdDesc(eq(1L), anyLong(), any(Pageable.class)))
+                .thenAnswer(inv -> {
+                    long before = inv.getArgument(1);
+                    return archived(slice(archivedIds, id -> id < before, true, inv.getArgument(2)));
+                });
+        when(archiveRepository.findByThreadIdAndIdGreaterThanOrderByIdAsc(eq(1L), anyLong(), any(Pageable.class)))
+                .thenAnswer(inv -> {
+                    long after = inv.getArgument(1);
+                    return archived(slice(archivedIds, id -> id > after, false, inv.getArgument(2)));
+                });
+    }
+
+    @Test
+    void backwardWalkFromLatestCrossesIntoArchiveWithoutGapsOrDuplicates() {
+        archivedIds = range(1, 10);
+        hotIds = range(11, 25);
+
+        List<Long> seen = new ArrayList<>();
+        Long before = 0L;
+        int pages = 0;
+        while (true) {
+            CursorPageResponse<ChatMessage> page = chatService.getMessagesByCursor(thread, before, null, 4);
+            List<Long> ids = ids(page);
+            assertAscending(ids);
+            seen.addAll(0, ids);
+            pages++;
+            if (!page.isHasMore()) {
+                assertNull(page.getNextCursor());
+                break;
+            }
+            assertEquals(String.valueOf(ids.get(0)), page.getNextCursor());
+            before = Long.valueOf(page.getNextCursor());
+        }
+        assertEquals(range(1, 25), seen);
+        assertEquals(7, pages);
+    }
+
+    @Test
+    void forwardWalkFromArchiveCrossesIntoHotTable() {
+        archivedIds = range(1, 10);
+        hotIds = range(11, 25);
+
+        List<Long> seen = new ArrayList<>();
+        Long after = 0L;
+        while (true) {
+            CursorPageResponse<ChatMessage> page = chatService.getMessagesByCursor(thread, null, after, 4);
+            List<Long> ids = ids(page);
+            assertAscending(ids);
+            seen.addAll(ids);
+            if (!page.isHasMore()) {
+                assertNull(page.getNextCursor());
+                break;
+            }
+            assertEquals(String.valueOf(ids.get(ids.size() - 1)), page.getNextCursor());
+            after = Long.valueOf(page.getNextCursor());
+        }
+        assertEquals(range(1, 25), seen);
+    }
+
+    @Test
+    void exactMultipleOfPageSizeEndsWithoutEmptyTrailingPage() {
+        hotIds = range(1, 8);
+
+        CursorPageResponse<ChatMessage> first = chatService.getMessagesByCursor(thread, 0L, null, 4);
+        assertEquals(range(5, 8), ids(first));
+        assertTrue(first.isHasMore());
+        assertEquals("5", first.getNextCursor());
+
+        CursorPageResponse<ChatMessage> second = chatService.getMessagesByCursor(thread, 5L, null, 4);
+        assertEquals(range(1, 4), ids(second));
+        assertFalse(second.isHasMore());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    void cursorOnDeletedIdStillReturnsNeighbours() {
+        hotIds = new ArrayList<>(Arrays.asList(2L, 5L, 9L, 14L));
+
+        assertEquals(Arrays.asList(2L, 5L), ids(chatService.getMessagesByCursor(thread, 7L, null, 10)));
+        assertEquals(Arrays.asList(9L, 14L), ids(chatService.getMessagesByCursor(thread, null, 7L, 10)));
+    }
+
+    @Test
+    void emptyThreadAndCursorPastTheEnd() {
+        CursorPageResponse<ChatMessage> empty = chatService.getMessagesByCursor(thread, 0L, null, 20);
+        assertTrue(empty.getContent().isEmpty());
+        assertFalse(empty.isHasMore());
+        assertNull(empty.getNextCursor());
+
+        hotIds = range(1, 3);
+        CursorPageResponse<ChatMessage> pastEnd = chatService.getMessagesByCursor(thread, null, 3L, 20);
+        assertTrue(pastEnd.getContent().isEmpty());
+        assertFalse(pastEnd.isHasMore());
+        CursorPageResponse<ChatMessage> beforeFirst = chatService.getMessagesByCursor(thread, 1L, null, 20);
+        assertTrue(beforeFirst.getContent().isEmpty());
+        assertFalse(beforeFirst.isHasMore());
+    }
+
+    private static List<Long> slice(List<Long> ids, Predicate<Long> filter, boolean descending, Pageable pageable) {
+        Comparator<Long> order = descending ? Comparator.reverseOrder() : Comparator.naturalOrder();
+        return ids.stream().filter(filter).sorted(order).limit(pageable.getPageSize()).collect(Collectors.toList());
+    }
+
+    private static List<ChatMessage> messages(List<Long> ids) {
+        List<ChatMessage> result = new ArrayList<>();
+        for (Long id : ids) {
+            result.add(message(id));
+        }
+        return result;
+    }
+
+    private static List<ChatMessageArchive> archived(List<Long> ids) {
+        List<ChatMessageArchive> result = new ArrayList<>();
+        for (Long id : ids) {
+            ChatMessageArchive archive = new ChatMessageArchive();
+            ReflectionTestUtils.setField(archive, "id", id);
+            result.add(archive);
+        }
+        return result;
+    }
+
+    private static ChatMessage message(Long id) {
+        ChatMessage message = new ChatMessage();
+        message.setId(id);
+        return message;
+    }
+
+    private static List<Long> ids(CursorPageResponse<ChatMessage> page) {
+        return page.getContent().stream().map(ChatMessage::getId).collect(Collectors.toList());
+    }
+
+    private static List<Long> range(long from, long to) {
+        return LongStream.rangeClosed(from, to).boxed().collect(Collectors.toList());
+    }
+
+    private static void assertAscending(List<Long> ids) {
+        List<Long> sorted = new ArrayList<>(ids);
+        Collections.sort(sorted);
+        assertEquals(sorted, ids);
+    }
+}
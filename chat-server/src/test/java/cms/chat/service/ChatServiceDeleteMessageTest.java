@@ -0,0 +1,79 @@
+package cms.chat.service;
+
+import cms.chat.domain.ChatMessage;
+import cms.chat.domain.ChatThread;
+import cms.chat.repository.ChatMessageRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 소프트 삭제는 엔티티 setter 로 삭제 필드를 채우고, 처음 삭제될 때만 안읽음 카운터를 줄인다
+ */
+class ChatServiceDeleteMessageTest {
+
+    private final ChatMessageRepository messageRepository = mock(ChatMessageRepository.class);
+    private final ChatUnreadCounterService unreadCounterService = mock(ChatUnreadCounterService.class);
+    private ChatService chatService;
+
+    @BeforeEach
+    void setUp() {
+        chatService = new ChatService(null, null, messageRepository, null, null, null, null, null,
+                unreadCounterService, null, null);
+        when(messageRepository.saveAndFlush(any(ChatMessage.class))).thenAnswer(inv -> inv.getArgument(0));
+    }
+
+    @Test
+    void softDeleteSetsDeletedFieldsAndAdjustsUnread() {
+        ChatMessage message = message(1L);
+        LocalDateTime before = LocalDateTime.now();
+
+        ChatMessage deleted = chatService.deleteMessage(1L, "admin-1");
+
+        assertEquals("Y", deleted.getDeletedYn());
+        assertEquals("admin-1", deleted.getDeletedBy());
+        assertNotNull(deleted.getDeletedAt());
+        assertFalse(deleted.getDeletedAt().isBefore(before));
+        verify(messageRepository).saveAndFlush(message);
+        verify(unreadCounterService).onMessageDeleted(message);
+    }
+
+    @Test
+    void deletingTwiceDoesNotAdjustUnreadAgain() {
+        ChatMessage message = message(2L);
+        message.setDeletedYn("Y");
+
+        chatService.deleteMessage(2L, "admin-2");
+
+        assertEquals("admin-2", message.getDeletedBy());
+        verify(unreadCounterService, never()).onMessageDeleted(any(ChatMessage.class));
+    }
+
+    @Test
+    void unknownMessageIsRejected() {
+        when(messageRepository.findById(3L)).thenReturn(Optional.empty());
+
+        assertThrows(IllegalArgumentException.class, () -> chatService.deleteMessage(3L, "admin"));
+    }
+
+    private ChatMessage message(Long id) {
+        ChatThread thread = new ChatThread();
+        thread.setId(10L);
+        ChatMessage message = ChatMessage.createText(thread, "USER", "hello", "user");
+        message.setId(id);
+        when(messageRepository.findById(id)).thenReturn(Optional.of(message));
+        return message;
+    }
+}
@@ -0,0 +1,185 @@
+package cms.chat.service;
+
+import cms.chat.web.ChatSocketController;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * 발신자별 coalesce, typing=false 즉시 전송, TTL 만료 시 자동 typing=false, DB 를 거치지 않는 부하 경로
+ */
+class ChatTypingCoalescerTest {
+
+    private final SimpMessagingTemplate template = mock(SimpMessagingTemplate.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final List<Map<String, Object>> sent = Collections.synchronizedList(new ArrayList<>());
+    private ChatTypingCoalescer coalescer;
+
+    @AfterEach
+    void tearDown() {
+        if (coalescer != null) {
+            coalescer.destroy();
+        }
+    }
+
+    @Test
+    void repeatedSignalsWithinWindowAreEmittedOnce() {
+        coalescer = create(10_000, 60_000, 1000);
+
+        assertTrue(coalescer.signal(1L, "user", "u-1", true));
+        for (int i = 0; i < 20; i++) {
+            assertFalse(coalescer.signal(1L, "USER", "u-1", true));
+        }
+
+        assertEquals(1, sent.size());
+        Map<String, Object> event = sent.get(0);
+        assertEquals("typing", event.get("type"));
+        assertEquals(1L, event.get("threadId"));
+        // senderType 은 대문자로 정규화되어 같은 발신자로 묶인다
+        assertEquals("USER", event.get("senderType"));
+        assertEquals(Boolean.TRUE, event.get("typing"));
+        assertEquals(60_000L, event.get("ttlMs"));
+        assertEquals(21.0, registry.get("chat.typing.received").counter().count());
+        assertEquals(20.0, registry.get("chat.typing.suppressed").counter().count());
+    }
+
+    @Test
+    void signalAfterWindowIsEmittedAgain() throws InterruptedException {
+        coalescer = create(50, 60_000, 1000);
+
+        assertTrue(coalescer.signal(1L, "USER", "u-1", true));
+        Thread.sleep(120);
+        assertTrue(coalescer.signal(1L, "USER", "u-1", true));
+
+        assertEquals(2, sent.size());
+    }
+
+    @Test
+    void sendersAndThreadsAreCoalescedIndependently() {
+        coalescer = create(10_000, 60_000, 1000);
+
+        assertTrue(coalescer.signal(1L, "USER", "u-1", true));
+        assertTrue(coalescer.signal(1L, "ADMIN", "u-1", true));
+        assertTrue(coalescer.signal(1L, "USER", "u-2", true));
+        assertTrue(coalescer.signal(2L, "USER", "u-1", true));
+
+        assertEquals(4, sent.size());
+    }
+
+    @Test
+    void stopIsSentImmediatelyOnlyForActiveSender() {
+        coalescer = create(10_000, 60_000, 1000);
+
+        assertFalse(coalescer.signal(1L, "USER", "u-1", false));
+        assertTrue(sent.isEmpty());
+
+        coalescer.signal(1L, "USER", "u-1", true);
+        assertTrue(coalescer.signal(1L, "USER", "u-1", false));
+        assertEquals(2, sent.size());
+        assertEquals(Boolean.FALSE, sent.get(1).get("typing"));
+        assertEquals(0L, sent.get(1).get("ttlMs"));
+
+        // 멈춘 뒤 다시 입력하면 coalesce 창과 무관하게 바로 전송
+        assertTrue(coalescer.signal(1L, "USER", "u-1", true));
+    }
+
+    @Test
+    void silentSenderExpiresWithSingleStopEvent() throws InterruptedException {
+        coalescer = create(100, 150, 1000);
+
+        coalescer.signal(1L, "USER", "u-1", true);
+        long deadline = System.currentTimeMillis() + 3000;
+        while (sent.size() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(2, sent.size());
+        assertEquals(Boolean.FALSE, sent.get(1).get("typing"));
+        assertEquals(0.0, registry.get("chat.typing.active").gauge().value());
+
+        // 만료 후 sweeper 가 더 보내지 않고, 뒤늦은 stop 은 버려진다
+        Thread.sleep(400);
+        assertFalse(coalescer.signal(1L, "USER", "u-1", false));
+        assertEquals(2, sent.size());
+    }
+
+    @Test
+    void refreshedSignalsKeepSenderActivePastTtl() throws InterruptedException {
+        coalescer = create(10_000, 300, 1000);
+
+        coalescer.signal(1L, "USER", "u-1", true);
+        for (int i = 0; i < 6; i++) {
+            Thread.sleep(100);
+            coalescer.signal(1L, "USER", "u-1", true);
+        }
+
+        // 600ms 동안 TTL(300ms) 안에서 계속 갱신했으므로 자동 stop 없이 최초 1건만
+        assertEquals(1, sent.size());
+    }
+
+    @Test
+    void activeSendersAreCapped() {
+        coalescer = create(10_000, 60_000, 2);
+
+        assertTrue(coalescer.signal(1L, "USER", "u-1", true));
+        assertTrue(coalescer.signal(1L, "USER", "u-2", true));
+        assertFalse(coalescer.signal(1L, "USER", "u-3", true));
+
+        assertEquals(2, sent.size());
+    }
+
+    @Test
+    void typingFramesUnderLoadNeverTouchPersistence() {
+        coalescer = create(10_000, 60_000, 100_000);
+        ChatService chatService = mock(ChatService.class);
+        ChatThreadCache chatThreadCache = mock(ChatThreadCache.class);
+        ChatMessageIngestor ingestor = mock(ChatMessageIngestor.class);
+        ChatSocketController controller = new ChatSocketController(chatService, chatThreadCache, template, ingestor, coalescer);
+
+        int senders = 500;
+        int framesPerSender = 50;
+        for (int round = 0; round < framesPerSender; round++) {
+            for (int s = 0; s < senders; s++) {
+                ChatSocketController.TypingSignal frame = new ChatSocketController.TypingSignal();
+                frame.setSenderType("USER");
+                frame.setSenderId("u-" + s);
+                frame.setTyping(true);
+                controller.typing((long) (s % 50), frame);
+            }
+        }
+
+        assertEquals(senders, sent.size());
+        assertEquals((double) senders * framesPerSender, registry.get("chat.typing.received").counter().count());
+        assertEquals((double) senders * (framesPerSender - 1), registry.get("chat.typing.suppressed").counter().count());
+        verifyNoInteractions(chatService, chatThreadCache, ingestor);
+    }
+
+    @SuppressWarnings("unchecked")
+    private ChatTypingCoalescer create(long coalesceMs, long ttlMs, int maxActive) {
+        doAnswer(inv -> {
+            sent.add(inv.getArgument(1));
+            return null;
+        }).when(template).convertAndSend(anyString(), any(Object.class));
+        ObjectProvider<MeterRegistry> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable(any(Supplier.class))).thenReturn(registry);
+        return new ChatTypingCoalescer(template, provider, coalesceMs, ttlMs, maxActive);
+    }
+}
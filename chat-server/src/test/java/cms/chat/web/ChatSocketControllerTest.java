@@ -0,0 +1,196 @@
+package cms.chat.web;
+
+import cms.chat.config.ChatIngestProperties;
+import cms.chat.domain.ChatMessage;
+import cms.chat.domain.ChatThread;
+import cms.chat.repository.ChatMessageRepository;
+import cms.chat.service.ChatMessageIngestor;
+import cms.chat.service.ChatService;
+import cms.chat.service.ChatThreadCache;
+import cms.chat.service.ChatTypingCoalescer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 소켓 전송의 브로드캐스트 형태: write-behind 는 pending + clientMessageId 로 먼저 보내고
+ * 커밋 후 같은 clientMessageId 의 message.persisted ack 로 id 를 확정한다
+ */
+class ChatSocketControllerTest {
+
+    private final ChatMessageRepository repository = mock(ChatMessageRepository.class);
+    private final ChatService chatService = mock(ChatService.class);
+    private final ChatThreadCache chatThreadCache = mock(ChatThreadCache.class);
+    private final SimpMessagingTemplate template = mock(SimpMessagingTemplate.class);
+    private final ChatIngestProperties properties = new ChatIngestProperties();
+    private final AtomicLong sequence = new AtomicLong(100);
+    private final List<Object> sent = Collections.synchronizedList(new ArrayList<>());
+
+    private ChatMessageIngestor ingestor;
+    private ChatSocketController controller;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ChatThread thread = new ChatThread();
+        thread.setId(7L);
+        thread.setUserIdentifier("user-7");
+        when(chatThreadCache.getThreadRef(7L)).thenReturn(Optional.of(thread));
+        when(repository.saveAll(anyList())).thenAnswer(inv -> {
+            List<ChatMessage> batch = inv.getArgument(0);
+            for (ChatMessage m : batch) {
+                m.setId(sequence.incrementAndGet());
+            }
+            return batch;
+        });
+        doAnswer(inv -> {
+            sent.add(inv.getArgument(1));
+            return null;
+        }).when(template).convertAndSend(eq("/sub/chat/7"), any(Object.class));
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+
+        properties.setFlushIntervalMs(1);
+        ingestor = new ChatMessageIngestor(repository, transactionManager, mock(ApplicationEventPublisher.class),
+                template, properties, chatService);
+        controller = new ChatSocketController(chatService, chatThreadCache, template, ingestor,
+                mock(ChatTypingCoalescer.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        ingestor.stop();
+    }
+
+    @Test
+    void writeBehindBroadcastIsPendingAndAckCarriesTheId() {
+        ingestor.start();
+
+        controller.send(7L, payload("hello", "c-1"), null);
+        assertTrue(ingestor.awaitPersisted(7L));
+
+        assertEquals(2, sent.size());
+        ChatSocketController.OutboundMessage broadcast = (ChatSocketController.OutboundMessage) sent.get(0);
+        assertNull(broadcast.getId());
+        assertTrue(broadcast.isPending());
+        assertEquals("c-1", broadcast.getClientMessageId());
+        assertEquals("hello", broadcast.getContent());
+        assertEquals(Long.valueOf(7L), broadcast.getThreadId());
+        assertNotNull(broadcast.getCreatedAt());
+
+        Map<?, ?> ack = (Map<?, ?>) sent.get(1);
+        assertEquals("message.persisted", ack.get("type"));
+        assertEquals("c-1", ack.get("clientMessageId"));
+        assertEquals(101L, ack.get("id"));
+        assertEquals(7L, ack.get("threadId"));
+    }
+
+    @Test
+    void missingClientMessageIdIsGeneratedSoTheAckCanBeMatched() {
+        ingestor.start();
+
+        controller.send(7L, payload("hi", null), null);
+        assertTrue(ingestor.awaitPersisted(7L));
+
+        ChatSocketController.OutboundMessage broadcast = (ChatSocketController.OutboundMessage) sent.get(0);
+        Map<?, ?> ack = (Map<?, ?>) sent.get(1);
+        assertNotNull(broadcast.getClientMessageId());
+        assertFalse(broadcast.getClientMessageId().isEmpty());
+        assertEquals(broadcast.getClientMessageId(), ack.get("clientMessageId"));
+        assertEquals(101L, ack.get("id"));
+    }
+
+    @Test
+    void failedWriteIsReportedWithTheSameClientMessageId() {
+        when(repository.saveAll(anyList())).thenThrow(new IllegalStateException("db down"));
+        when(repository.save(any(ChatMessage.class))).thenThrow(new IllegalStateException("db down"));
+        ingestor.start();
+
+        controller.send(7L, payload("lost", "c-2"), null);
+        assertTrue(ingestor.awaitPersisted(7L));
+
+        Map<?, ?> ack = (Map<?, ?>) sent.get(1);
+        assertEquals("message.failed", ack.get("type"));
+        assertEquals("c-2", ack.get("clientMessageId"));
+        assertNull(ack.get("id"));
+    }
+
+    @Test
+    void synchronousPathBroadcastsThePersistedMessage() {
+        // ingestor 가 시작되지 않았으면 바로 저장하고 id 를 담아 보낸다
+        when(chatService.sendTextMessage(any(ChatThread.class), anyString(), anyString(), anyString(), any()))
+                .thenAnswer(inv -> {
+                    ChatMessage m = ChatMessage.createText(inv.getArgument(0), inv.getArgument(1), inv.getArgument(2),
+                            inv.getArgument(3));
+                    m.setId(55L);
+                    return m;
+                });
+
+        controller.send(7L, payload("sync", "c-3"), null);
+
+        assertEquals(1, sent.size());
+        ChatSocketController.OutboundMessage broadcast = (ChatSocketController.OutboundMessage) sent.get(0);
+        assertEquals(Long.valueOf(55L), broadcast.getId());
+        assertFalse(broadcast.isPending());
+        assertEquals("c-3", broadcast.getClientMessageId());
+    }
+
+    @Test
+    void respondingAgentIsTheSessionAdminNotThePayloadActor() {
+        ingestor.start();
+        List<ChatMessage> tracked = Collections.synchronizedList(new ArrayList<>());
+        doAnswer(inv -> {
+            tracked.add(inv.getArgument(0));
+            return null;
+        }).when(chatService).trackReplyState(any(ChatMessage.class));
+        ChatSocketController.ChatTextMessage reply = payload("answer", "c-4");
+        reply.setSenderType("ADMIN");
+        reply.setActor("someone-else");
+
+        controller.send(7L, reply, new UsernamePasswordAuthenticationToken("admin-1", null,
+                Collections.singletonList(new SimpleGrantedAuthority("ROLE_ADMIN"))));
+        controller.send(7L, payload("question", "c-5"), new UsernamePasswordAuthenticationToken("user-7", null,
+                Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER"))));
+        assertTrue(ingestor.awaitPersisted(7L));
+
+        assertEquals(2, tracked.size());
+        assertEquals("admin-1", tracked.get(0).getRespondingAgent());
+        assertEquals("someone-else", tracked.get(0).getCreatedBy());
+        assertNull(tracked.get(1).getRespondingAgent());
+    }
+
+    private static ChatSocketController.ChatTextMessage payload(String content, String clientMessageId) {
+        ChatSocketController.ChatTextMessage payload = new ChatSocketController.ChatTextMessage();
+        payload.setSenderType("USER");
+        payload.setContent(content);
+        payload.setActor("user-7");
+        payload.setClientMessageId(clientMessageId);
+        return payload;
+    }
+}
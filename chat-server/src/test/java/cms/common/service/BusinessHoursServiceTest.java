@@ -0,0 +1,46 @@
+package cms.common.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 운영 요일 파싱은 정확한 요일 이름만 인정한다
+ */
+class BusinessHoursServiceTest {
+
+    @Test
+    void acceptsThreeLetterAndFullNamesCaseInsensitively() {
+        assertEquals(EnumSet.of(DayOfWeek.MONDAY, DayOfWeek.TUESDAY, DayOfWeek.SATURDAY),
+                BusinessHoursService.parseWorkdays(new String[]{"mon", " Tuesday ", "SAT"}));
+    }
+
+    @Test
+    void prefixesAndUnknownTokensEnableNoDays() {
+        assertTrue(BusinessHoursService.parseWorkdays(new String[]{"T", "S", "M", "TH", "MONDAYS", "", "월"}).isEmpty());
+        assertEquals(EnumSet.of(DayOfWeek.FRIDAY),
+                BusinessHoursService.parseWorkdays(new String[]{"F", "FRI"}));
+    }
+
+    @Test
+    void channelConfigWithOnlyUnknownDaysKeepsDefaultWorkdays() {
+        BusinessHoursService service = new BusinessHoursService(null, null, "09:00", "18:00", "MON,TUE,WED,THU,FRI", 30);
+        // 2025-03-18 화요일, 2025-03-20 목요일
+        LocalDateTime tuesday = LocalDateTime.of(2025, 3, 18, 10, 0);
+        LocalDateTime thursday = LocalDateTime.of(2025, 3, 20, 10, 0);
+
+        service.updateChannelConfig(1L, "{\"businessHours\":{\"workdays\":[\"T\"]}}");
+        assertTrue(service.isOpen(1L, tuesday));
+        assertTrue(service.isOpen(1L, thursday));
+
+        service.updateChannelConfig(2L, "{\"businessHours\":{\"workdays\":[\"TUE\"]}}");
+        assertTrue(service.isOpen(2L, tuesday));
+        assertFalse(service.isOpen(2L, thursday));
+    }
+}
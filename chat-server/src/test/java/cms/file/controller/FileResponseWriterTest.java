@@ -0,0 +1,259 @@
+package cms.file.controller;
+
+import cms.file.entity.CmsFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 조건부 요청(ETag/Last-Modified), Range/If-Range, 416, HEAD, sendfile 위임
+ */
+class FileResponseWriterTest {
+
+    private static final Instant MODIFIED = Instant.parse("2025-03-15T10:00:00Z");
+
+    @TempDir
+    Path dir;
+
+    private final byte[] content = new byte[100];
+    private FileResponseWriter writer;
+    private CmsFile file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+        Path stored = dir.resolve("stored.bin");
+        Files.write(stored, content);
+        Files.setLastModifiedTime(stored, FileTime.from(MODIFIED));
+        writer = new FileResponseWriter(dir.toString(), 3600, 1024);
+        file = new CmsFile();
+        file.setFileId(42L);
+        file.setVersion(1);
+        file.setSavedName("stored.bin");
+        file.setOriginName("report.bin");
+        file.setMimeType("application/octet-stream");
+        file.setPublicYn("Y");
+    }
+
+    @Test
+    void servesWholeFileWithValidators() throws IOException {
+        MockHttpServletResponse response = get(new MockHttpServletRequest("GET", "/f"));
+
+        assertEquals(200, response.getStatus());
+        assertArrayEquals(content, response.getContentAsByteArray());
+        assertEquals(100L, response.getContentLengthLong());
+        assertEquals("bytes", response.getHeader(HttpHeaders.ACCEPT_RANGES));
+        assertEquals("public, max-age=3600", response.getHeader(HttpHeaders.CACHE_CONTROL));
+        assertNotNull(response.getHeader(HttpHeaders.ETAG));
+        assertEquals(MODIFIED.toEpochMilli(), response.getDateHeader(HttpHeaders.LAST_MODIFIED));
+        assertTrue(response.getHeader(HttpHeaders.CONTENT_DISPOSITION).startsWith("attachment"));
+    }
+
+    @Test
+    void matchingIfNoneMatchIsNotModified() throws IOException {
+        String etag = etag();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/f");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, etag);
+
+        MockHttpServletResponse response = get(request);
+
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+        assertEquals(etag, response.getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void staleIfNoneMatchServesBody() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/f");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"2a-1-63-0\"");
+
+        MockHttpServletResponse response = get(request);
+
+        assertEquals(200, response.getStatus());
+        assertArrayEquals(content, response.getContentAsByteArray());
+    }
+
+    @Test
+    void ifModifiedSinceAtLastModifiedIsNotModified() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/f");
+        request.addHeader(HttpHeaders.IF_MODIFIED_SINCE, httpDate(MODIFIED));
+
+        assertEquals(304, get(request).getStatus());
+    }
+
+    @Test
+    void etagChangesWithVersion() throws IOException {
+        String before = etag();
+        file.setVersion(2);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/f");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, before);
+
+        MockHttpServletResponse response = get(request);
+
+        assertEquals(200, response.getStatus());
+        assertFalse(before.equals(response.getHeader(HttpHeaders.ETAG)));
+    }
+
+    @Test
+    void singleRangesArePartialContent() throws IOException {
+        assertPartial("bytes=10-19", 10, 19);
+        assertPartial("bytes=90-", 90, 99);
+        assertPartial("bytes=-5", 95, 99);
+        // 끝이 파일 길이를 넘으면 마지막 바이트까지
+        assertPartial("bytes=95-200", 95, 99);
+        assertPartial("bytes=0-0", 0, 0);
+    }
+
+    @Test
+    void unsatisfiableOrMalformedRangeIs416() throws IOException {
+        for (String range : Arrays.asList("bytes=100-", "bytes=100-150", "bytes=-0", "bytes=abc", "items=0-1")) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/f");
+            request.addHeader(HttpHeaders.RANGE, range);
+
+            MockHttpServletResponse response = get(request);
+
+            assertEquals(416, response.getStatus(), range);
+            assertEquals("bytes */100", response.getHeader(HttpHeaders.CONTENT_RANGE), range);
+            assertEquals(0, response.getContentAsByteArray().length, range);
+        }
+    }
+
+    @Test
+    void multipleRangesFallBackToWholeFile() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/f");
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-9,20-29");
+
+        MockHttpServletResponse response = get(request);
+
+        assertEquals(200, response.getStatus());
+        assertNull(response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertArrayEquals(content, response.getContentAsByteArray());
+    }
+
+    @Test
+    void ifRangeWithCurrentValidatorAppliesRange() throws IOException {
+        String etag = etag();
+        MockHttpServletRequest byEtag = new MockHttpServletRequest("GET", "/f");
+        byEtag.addHeader(HttpHeaders.RANGE, "bytes=10-19");
+        byEtag.addHeader(HttpHeaders.IF_RANGE, etag);
+        assertEquals(206, get(byEtag).getStatus());
+
+        MockHttpServletRequest byDate = new MockHttpServletRequest("GET", "/f");
+        byDate.addHeader(HttpHeaders.RANGE, "bytes=10-19");
+        byDate.addHeader(HttpHeaders.IF_RANGE, httpDate(MODIFIED));
+        assertEquals(206, get(byDate).getStatus());
+    }
+
+    @Test
+    void ifRangeWithStaleValidatorServesWholeFile() throws IOException {
+        for (String ifRange : Arrays.asList("\"2a-1-63-0\"", "W/" + etag(), httpDate(MODIFIED.minusSeconds(3600)), "not-a-date")) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/f");
+            request.addHeader(HttpHeaders.RANGE, "bytes=10-19");
+            request.addHeader(HttpHeaders.IF_RANGE, ifRange);
+
+            MockHttpServletResponse response = get(request);
+
+            assertEquals(200, response.getStatus(), ifRange);
+            assertArrayEquals(content, response.getContentAsByteArray(), ifRange);
+        }
+    }
+
+    @Test
+    void headSendsHeadersOnly() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("HEAD", "/f");
+        request.addHeader(HttpHeaders.RANGE, "bytes=10-19");
+
+        MockHttpServletResponse response = get(request);
+
+        assertEquals(206, response.getStatus());
+        assertEquals(10L, response.getContentLengthLong());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void largeRangeIsHandedToSendfile() throws IOException {
+        writer = new FileResponseWriter(dir.toString(), 3600, 16);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/f");
+        request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+        request.addHeader(HttpHeaders.RANGE, "bytes=20-59");
+
+        MockHttpServletResponse response = get(request);
+
+        assertEquals(206, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+        assertEquals(dir.resolve("stored.bin").toAbsolutePath().normalize().toString(),
+                request.getAttribute("org.apache.tomcat.sendfile.filename"));
+        assertEquals(20L, request.getAttribute("org.apache.tomcat.sendfile.start"));
+        // sendfile 끝 위치는 배타적
+        assertEquals(60L, request.getAttribute("org.apache.tomcat.sendfile.end"));
+    }
+
+    @Test
+    void privateOrRevalidatedFilesAreNoCache() throws IOException {
+        file.setPublicYn("N");
+        assertEquals("private, no-cache", get(new MockHttpServletRequest("GET", "/f")).getHeader(HttpHeaders.CACHE_CONTROL));
+
+        file.setPublicYn("Y");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertTrue(writer.write(file, true, true, new MockHttpServletRequest("GET", "/f"), response));
+        assertEquals("private, no-cache", response.getHeader(HttpHeaders.CACHE_CONTROL));
+        assertTrue(response.getHeader(HttpHeaders.CONTENT_DISPOSITION).startsWith("inline"));
+    }
+
+    @Test
+    void missingOrEscapingPathIsNotWritten() throws IOException {
+        file.setSavedName("missing.bin");
+        assertFalse(writer.write(file, false, new MockHttpServletRequest("GET", "/f"), new MockHttpServletResponse()));
+
+        // 기준 디렉터리 밖은 존재 여부와 무관하게 거부
+        file.setSavedName("../outside.bin");
+        assertFalse(writer.write(file, false, new MockHttpServletRequest("GET", "/f"), new MockHttpServletResponse()));
+    }
+
+    private void assertPartial(String range, int start, int end) throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/f");
+        request.addHeader(HttpHeaders.RANGE, range);
+
+        MockHttpServletResponse response = get(request);
+
+        assertEquals(206, response.getStatus(), range);
+        assertEquals("bytes " + start + "-" + end + "/100", response.getHeader(HttpHeaders.CONTENT_RANGE), range);
+        assertEquals(end - start + 1, response.getContentLengthLong(), range);
+        assertArrayEquals(Arrays.copyOfRange(content, start, end + 1), response.getContentAsByteArray(), range);
+    }
+
+    private String etag() throws IOException {
+        return get(new MockHttpServletRequest("GET", "/f")).getHeader(HttpHeaders.ETAG);
+    }
+
+    private MockHttpServletResponse get(MockHttpServletRequest request) throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertTrue(writer.write(file, false, request, response));
+        return response;
+    }
+
+    private static String httpDate(Instant instant) {
+        return DateTimeFormatter.RFC_1123_DATE_TIME.format(instant.atZone(ZoneId.of("GMT")));
+    }
+}
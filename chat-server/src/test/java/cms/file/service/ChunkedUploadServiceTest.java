@@ -0,0 +1,287 @@
+package cms.file.service;
+
+import cms.file.entity.CmsFile;
+import cms.file.repository.FileRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 분할 업로드: 순서 무관 파트 조립, 이어 올리기, 체크섬 필수/불일치, 세션 소유자, 열린 세션 수 제한, 동시 complete
+ */
+class ChunkedUploadServiceTest {
+
+    private static final int PART = 1024 * 1024;
+
+    @TempDir
+    Path basePath;
+
+    private final FakeUploadTables uploads = new FakeUploadTables();
+    private final FakeBlobTable blobs = new FakeBlobTable();
+    private final FileService fileService = mock(FileService.class);
+    private final FileRepository fileRepository = mock(FileRepository.class);
+    private final AtomicLong fileIds = new AtomicLong(900);
+    private final Map<Long, CmsFile> files = new ConcurrentHashMap<>();
+    private FileBlobStore blobStore;
+    private byte[] data;
+
+    @BeforeEach
+    void setUp() {
+        blobStore = blobs.newStore(basePath, 10);
+        data = new byte[PART * 2 + PART / 2];
+        new Random(7).nextBytes(data);
+        when(fileRepository.findById(anyLong())).thenAnswer(inv -> Optional.ofNullable(files.get(inv.<Long>getArgument(0))));
+        when(fileService.registerBlob(anyString(), any(), anyString(), any(), any(FileBlobStore.StoredBlob.class)))
+                .thenAnswer(inv -> {
+                    FileBlobStore.StoredBlob blob = inv.getArgument(4);
+                    CmsFile file = CmsFile.builder()
+                            .fileId(fileIds.incrementAndGet())
+                            .savedName(blob.getSavedName())
+                            .contentHash(blob.getHash())
+                            .build();
+                    files.put(file.getFileId(), file);
+                    return file;
+                });
+    }
+
+    @Test
+    void partsSentInAnyOrderAssembleTheOriginal() throws Exception {
+        ChunkedUploadService service = service(10);
+        String uploadId = begin(service, "alice", "sha256:" + sha256(data)).getUploadId();
+
+        writePart(service, uploadId, "alice", 2);
+        writePart(service, uploadId, "alice", 0);
+        writePart(service, uploadId, "alice", 1);
+        CmsFile file = service.complete(uploadId, "alice", null);
+
+        assertNotNull(file);
+        assertArrayEquals(data, Files.readAllBytes(basePath.resolve(file.getSavedName())));
+        assertEquals(ChunkedUploadService.STATUS_COMPLETED, uploads.status(uploadId));
+        assertFalse(Files.exists(blobStore.tempDirectory().resolve(uploadId + ".upload")));
+        // 완료된 세션에 다시 complete 하면 같은 파일
+        assertEquals(file.getFileId(), service.complete(uploadId, "alice", null).getFileId());
+    }
+
+    @Test
+    void resumeSendsOnlyTheMissingParts() throws Exception {
+        ChunkedUploadService service = service(10);
+        ChunkedUploadService.Session session = begin(service, "alice", sha256(data));
+        String uploadId = session.getUploadId();
+        writePart(service, uploadId, "alice", 0);
+        writePart(service, uploadId, "alice", 2);
+
+        List<Integer> received = service.receivedParts(uploadId);
+        assertEquals(Arrays.asList(0, 2), received);
+        assertEquals(PART, service.nextOffset(session, received));
+        IllegalStateException missing = assertThrows(IllegalStateException.class,
+                () -> service.complete(uploadId, "alice", null));
+        assertTrue(missing.getMessage().contains("missing parts: [1]"));
+        assertEquals(ChunkedUploadService.STATUS_UPLOADING, uploads.status(uploadId));
+
+        writePart(service, uploadId, "alice", 1);
+        assertNotNull(service.complete(uploadId, "alice", null));
+    }
+
+    @Test
+    void partOfTheWrongSizeIsRejected() throws Exception {
+        ChunkedUploadService service = service(10);
+        String uploadId = begin(service, "alice", sha256(data)).getUploadId();
+
+        assertThrows(IllegalArgumentException.class, () -> service.writePart(uploadId, "alice", 0,
+                new ByteArrayInputStream(new byte[PART - 1]), -1));
+        assertThrows(IllegalArgumentException.class, () -> service.writePart(uploadId, "alice", 3,
+                new ByteArrayInputStream(new byte[1]), 1));
+        assertTrue(service.receivedParts(uploadId).isEmpty());
+    }
+
+    @Test
+    void checksumMismatchKeepsTheSessionResumable() throws Exception {
+        ChunkedUploadService service = service(10);
+        String uploadId = begin(service, "alice", null).getUploadId();
+        writeAll(service, uploadId, "alice");
+
+        IllegalStateException mismatch = assertThrows(IllegalStateException.class,
+                () -> service.complete(uploadId, "alice", "sha256:" + repeat('0', 64)));
+        assertTrue(mismatch.getMessage().startsWith("checksum mismatch"));
+        assertEquals(ChunkedUploadService.STATUS_UPLOADING, uploads.status(uploadId));
+        assertEquals(3, service.receivedParts(uploadId).size());
+        verify(fileService, times(0)).registerBlob(anyString(), any(), anyString(), any(), any());
+
+        assertNotNull(service.complete(uploadId, "alice", sha256(data)));
+    }
+
+    @Test
+    void completeWithoutAnyDeclaredChecksumIsRejected() throws Exception {
+        ChunkedUploadService service = service(10);
+        String uploadId = begin(service, "alice", null).getUploadId();
+        writeAll(service, uploadId, "alice");
+
+        assertThrows(IllegalArgumentException.class, () -> service.complete(uploadId, "alice", null));
+        assertThrows(IllegalArgumentException.class, () -> service.complete(uploadId, "alice", "md5:abc"));
+        assertEquals(ChunkedUploadService.STATUS_UPLOADING, uploads.status(uploadId));
+    }
+
+    @Test
+    void sessionIsVisibleOnlyToItsCreator() throws Exception {
+        ChunkedUploadService service = service(10);
+        String uploadId = begin(service, "alice", sha256(data)).getUploadId();
+
+        assertNotNull(service.find(uploadId, "alice"));
+        assertNull(service.find(uploadId, "bob"));
+        assertNull(service.find(uploadId, null));
+        assertThrows(IllegalArgumentException.class, () -> writePart(service, uploadId, "bob", 0));
+        assertThrows(IllegalArgumentException.class, () -> writePart(service, uploadId, null, 0));
+        writeAll(service, uploadId, "alice");
+        assertNull(service.complete(uploadId, "bob", null));
+        assertFalse(service.abort(uploadId, "bob"));
+        assertEquals(ChunkedUploadService.STATUS_UPLOADING, uploads.status(uploadId));
+
+        assertTrue(service.abort(uploadId, "alice"));
+        assertNull(uploads.status(uploadId));
+    }
+
+    @Test
+    void openSessionsAreLimitedPerUserAndPerAnonymousIp() {
+        ChunkedUploadService service = service(2);
+        begin(service, "alice", null);
+        begin(service, "alice", null);
+        assertThrows(IllegalStateException.class, () -> begin(service, "alice", null));
+        assertNotNull(begin(service, "bob", null));
+
+        service.begin("CHAT", 1L, "a.bin", null, data.length, null, null, "10.0.0.1");
+        service.begin("CHAT", 1L, "a.bin", null, data.length, null, null, "10.0.0.1");
+        assertThrows(IllegalStateException.class,
+                () -> service.begin("CHAT", 1L, "a.bin", null, data.length, null, null, "10.0.0.1"));
+        assertNotNull(service.begin("CHAT", 1L, "a.bin", null, data.length, null, null, "10.0.0.2"));
+    }
+
+    @Test
+    void idleSessionExpiresSoonAndPartsExtendIt() throws Exception {
+        ChunkedUploadService service = service(10);
+        ChunkedUploadService.Session session = begin(service, "alice", null);
+        String uploadId = session.getUploadId();
+
+        assertTrue(session.getExpiresAt().isBefore(LocalDateTime.now().plusMinutes(31)));
+        LocalDateTime before = uploads.expiresAt(uploadId);
+        Thread.sleep(5);
+        writePart(service, uploadId, "alice", 0);
+        assertTrue(uploads.expiresAt(uploadId).isAfter(before));
+    }
+
+    @Test
+    void concurrentCompleteStoresTheFileOnce() throws Exception {
+        ChunkedUploadService service = service(10);
+        String uploadId = begin(service, "alice", sha256(data)).getUploadId();
+        writeAll(service, uploadId, "alice");
+
+        int callers = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<CmsFile>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit((Callable<CmsFile>) () -> {
+                    start.await();
+                    return service.complete(uploadId, "alice", null);
+                }));
+            }
+            start.countDown();
+            Long fileId = null;
+            for (Future<CmsFile> result : results) {
+                try {
+                    CmsFile file = result.get(30, TimeUnit.SECONDS);
+                    assertNotNull(file);
+                    assertTrue(fileId == null || fileId.equals(file.getFileId()));
+                    fileId = file.getFileId();
+                } catch (ExecutionException e) {
+                    // 다른 호출이 완료 처리 중일 때만 거부된다
+                    assertTrue(e.getCause() instanceof IllegalStateException);
+                    assertEquals("upload session is already completing", e.getCause().getMessage());
+                }
+            }
+            assertNotNull(fileId);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        verify(fileService, times(1)).registerBlob(anyString(), any(), anyString(), any(), any());
+        assertEquals(1, blobs.refCount(sha256(data)));
+        assertEquals(ChunkedUploadService.STATUS_COMPLETED, uploads.status(uploadId));
+        assertNotNull(service.complete(uploadId, "alice", null));
+    }
+
+    private ChunkedUploadService service(int maxOpenSessions) {
+        return new ChunkedUploadService(uploads.jdbc, uploads.transactionManager, blobStore, fileService,
+                fileRepository, PART, 16L * PART, 1440, 30, maxOpenSessions);
+    }
+
+    private ChunkedUploadService.Session begin(ChunkedUploadService service, String owner, String checksum) {
+        return service.begin("CHAT", 1L, "video.bin", "application/octet-stream", data.length, checksum, owner,
+                "127.0.0.1");
+    }
+
+    private void writeAll(ChunkedUploadService service, String uploadId, String owner) throws IOException {
+        for (int partNo = 0; partNo < 3; partNo++) {
+            writePart(service, uploadId, owner, partNo);
+        }
+    }
+
+    private void writePart(ChunkedUploadService service, String uploadId, String owner, int partNo)
+            throws IOException {
+        int offset = partNo * PART;
+        int len = Math.min(PART, data.length - offset);
+        service.writePart(uploadId, owner, partNo, new ByteArrayInputStream(data, offset, len), len);
+    }
+
+    private static String sha256(byte[] bytes) throws NoSuchAlgorithmException {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : MessageDigest.getInstance("SHA-256").digest(bytes)) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    private static String repeat(char c, int n) {
+        char[] chars = new char[n];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+}
@@ -0,0 +1,156 @@
+package cms.file.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * FileBlobStore 가 쓰는 file_blob 문장만 흉내 내는 메모리 테이블 (테스트용, 내장 DB 없음)
+ */
+class FakeBlobTable {
+
+    static final class Row {
+        final String savedName;
+        final long size;
+        int refCount;
+        LocalDateTime releasedAt;
+
+        Row(String savedName, long size) {
+            this.savedName = savedName;
+            this.size = size;
+        }
+    }
+
+    final Map<String, Row> rows = new ConcurrentHashMap<>();
+    final NamedParameterJdbcTemplate jdbc = mock(NamedParameterJdbcTemplate.class);
+    final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+
+    FakeBlobTable() {
+        when(transactionManager.getTransaction(any())).thenAnswer(inv -> new SimpleTransactionStatus());
+        when(jdbc.update(anyString(), any(SqlParameterSource.class)))
+                .thenAnswer(inv -> update(inv.getArgument(0), inv.getArgument(1)));
+        when(jdbc.batchUpdate(anyString(), any(SqlParameterSource[].class))).thenAnswer(inv -> {
+            SqlParameterSource[] batch = inv.getArgument(1);
+            int[] counts = new int[batch.length];
+            for (int i = 0; i < batch.length; i++) {
+                counts[i] = update(inv.getArgument(0), batch[i]);
+            }
+            return counts;
+        });
+        when(jdbc.queryForObject(anyString(), any(SqlParameterSource.class), eq(String.class)))
+                .thenAnswer(inv -> rows.get(hash(inv.getArgument(1))).savedName);
+        when(jdbc.queryForList(anyString(), any(SqlParameterSource.class), eq(String.class)))
+                .thenAnswer(inv -> queryStrings(inv.getArgument(0), inv.getArgument(1)));
+        when(jdbc.queryForList(anyString(), any(SqlParameterSource.class)))
+                .thenAnswer(inv -> queryRows(inv.getArgument(1)));
+    }
+
+    @SuppressWarnings("unchecked")
+    FileBlobStore newStore(Path basePath, long gcGraceMinutes) {
+        ObjectProvider<MeterRegistry> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable(any(Supplier.class))).thenReturn(new SimpleMeterRegistry());
+        return new FileBlobStore(jdbc, transactionManager, provider, basePath.toString(), gcGraceMinutes);
+    }
+
+    int refCount(String hash) {
+        Row row = rows.get(hash);
+        return row != null ? row.refCount : -1;
+    }
+
+    private synchronized int update(String sql, SqlParameterSource params) {
+        String hash = hash(params);
+        Row row = rows.get(hash);
+        if (sql.startsWith("INSERT INTO file_blob")) {
+            if (row == null) {
+                row = new Row((String) params.getValue("savedName"), ((Number) params.getValue("size")).longValue());
+                rows.put(hash, row);
+            }
+            row.refCount++;
+            row.releasedAt = null;
+            return 1;
+        }
+        if (row == null) {
+            return 0;
+        }
+        if (sql.contains("ref_count = ref_count + 1")) {
+            row.refCount++;
+            row.releasedAt = null;
+            return 1;
+        }
+        if (sql.contains("GREATEST(ref_count - 1, 0)")) {
+            if (row.refCount <= 1) {
+                row.releasedAt = LocalDateTime.now();
+            }
+            row.refCount = Math.max(row.refCount - 1, 0);
+            return 1;
+        }
+        if (sql.startsWith("DELETE FROM file_blob") && row.refCount == 0) {
+            rows.remove(hash);
+            return 1;
+        }
+        return 0;
+    }
+
+    private synchronized List<String> queryStrings(String sql, SqlParameterSource params) {
+        if (sql.contains("released_at IS NULL OR released_at < :before")) {
+            LocalDateTime before = ((Timestamp) params.getValue("before")).toLocalDateTime();
+            int limit = ((Number) params.getValue("limit")).intValue();
+            List<String> hashes = new ArrayList<>();
+            for (Map.Entry<String, Row> e : rows.entrySet()) {
+                Row row = e.getValue();
+                if (row.refCount == 0 && (row.releasedAt == null || row.releasedAt.isBefore(before))
+                        && hashes.size() < limit) {
+                    hashes.add(e.getKey());
+                }
+            }
+            return hashes;
+        }
+        Row row = rows.get(hash(params));
+        if (row == null) {
+            return Collections.emptyList();
+        }
+        if (sql.startsWith("SELECT saved_name") && sql.contains("ref_count = 0")) {
+            return row.refCount == 0 ? Collections.singletonList(row.savedName) : Collections.<String>emptyList();
+        }
+        if (sql.startsWith("SELECT content_hash")) {
+            return Collections.singletonList(hash(params));
+        }
+        throw new IllegalArgumentException("unexpected query: " + sql);
+    }
+
+    private synchronized List<Map<String, Object>> queryRows(SqlParameterSource params) {
+        Row row = rows.get(hash(params));
+        if (row == null) {
+            return Collections.emptyList();
+        }
+        Map<String, Object> map = new HashMap<>();
+        map.put("saved_name", row.savedName);
+        map.put("size", row.size);
+        return Collections.singletonList(map);
+    }
+
+    private static String hash(SqlParameterSource params) {
+        return (String) params.getValue("hash");
+    }
+}
@@ -0,0 +1,197 @@
+package cms.file.service;
+
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * ChunkedUploadService 가 쓰는 file_upload_session / file_upload_part 문장만 흉내 내는 메모리 테이블.
+ * 트랜잭션은 전역 락 하나로 직렬화해 SELECT ... FOR UPDATE 의 행 잠금을 대신한다
+ */
+class FakeUploadTables {
+
+    final Map<String, Map<String, Object>> sessions = new HashMap<>();
+    final Map<String, TreeMap<Integer, Long>> parts = new HashMap<>();
+    final NamedParameterJdbcTemplate jdbc = mock(NamedParameterJdbcTemplate.class);
+    final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final ReentrantLock txLock = new ReentrantLock();
+
+    @SuppressWarnings("unchecked")
+    FakeUploadTables() {
+        when(transactionManager.getTransaction(any())).thenAnswer(inv -> {
+            txLock.lock();
+            return new SimpleTransactionStatus();
+        });
+        doAnswer(inv -> {
+            txLock.unlock();
+            return null;
+        }).when(transactionManager).commit(any(TransactionStatus.class));
+        doAnswer(inv -> {
+            txLock.unlock();
+            return null;
+        }).when(transactionManager).rollback(any(TransactionStatus.class));
+
+        when(jdbc.update(anyString(), any(SqlParameterSource.class)))
+                .thenAnswer(inv -> update(inv.getArgument(0), inv.getArgument(1)));
+        when(jdbc.queryForObject(anyString(), any(SqlParameterSource.class), eq(Integer.class)))
+                .thenAnswer(inv -> countOpen(inv.getArgument(0), inv.getArgument(1)));
+        when(jdbc.queryForList(anyString(), any(SqlParameterSource.class), eq(Integer.class)))
+                .thenAnswer(inv -> partNumbers(inv.getArgument(1)));
+        when(jdbc.queryForList(anyString(), any(SqlParameterSource.class)))
+                .thenAnswer(inv -> queryRows(inv.getArgument(0), inv.getArgument(1)));
+        when(jdbc.query(anyString(), any(SqlParameterSource.class), any(RowMapper.class)))
+                .thenAnswer(inv -> find(inv.getArgument(1), inv.getArgument(2)));
+    }
+
+    synchronized String status(String uploadId) {
+        Map<String, Object> row = sessions.get(uploadId);
+        return row != null ? (String) row.get("status") : null;
+    }
+
+    synchronized LocalDateTime expiresAt(String uploadId) {
+        return ((Timestamp) sessions.get(uploadId).get("expires_at")).toLocalDateTime();
+    }
+
+    private synchronized int update(String sql, SqlParameterSource params) {
+        if (sql.startsWith("INSERT INTO file_upload_session")) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("upload_id", params.getValue("uploadId"));
+            row.put("menu", params.getValue("menu"));
+            row.put("menu_id", params.getValue("menuId"));
+            row.put("owner", params.getValue("owner"));
+            row.put("created_ip", params.getValue("createdIp"));
+            row.put("file_name", params.getValue("fileName"));
+            row.put("content_type", params.getValue("contentType"));
+            row.put("size", params.getValue("size"));
+            row.put("part_size", params.getValue("partSize"));
+            row.put("part_count", params.getValue("partCount"));
+            row.put("checksum", params.getValue("checksum"));
+            row.put("status", params.getValue("status"));
+            row.put("expires_at", params.getValue("expiresAt"));
+            row.put("created_at", Timestamp.valueOf(LocalDateTime.now()));
+            sessions.put((String) params.getValue("uploadId"), row);
+            return 1;
+        }
+        String uploadId = (String) params.getValue("uploadId");
+        Map<String, Object> row = sessions.get(uploadId);
+        if (sql.startsWith("INSERT INTO file_upload_part")) {
+            if (row == null || !Objects.equals(row.get("status"), params.getValue("status"))) {
+                return 0;
+            }
+            parts.computeIfAbsent(uploadId, k -> new TreeMap<>())
+                    .put(((Number) params.getValue("partNo")).intValue(), ((Number) params.getValue("size")).longValue());
+            return 1;
+        }
+        if (sql.startsWith("DELETE FROM file_upload_part")) {
+            parts.remove(uploadId);
+            return 1;
+        }
+        if (row == null) {
+            return 0;
+        }
+        if (sql.startsWith("DELETE FROM file_upload_session")) {
+            if (sql.contains("AND status = :status") && !Objects.equals(row.get("status"), params.getValue("status"))) {
+                return 0;
+            }
+            sessions.remove(uploadId);
+            parts.remove(uploadId);
+            return 1;
+        }
+        if (sql.contains("SET expires_at = LEAST")) {
+            LocalDateTime slide = ((Timestamp) params.getValue("slide")).toLocalDateTime();
+            LocalDateTime cap = ((Timestamp) row.get("created_at")).toLocalDateTime()
+                    .plusMinutes(((Number) params.getValue("ttl")).longValue());
+            row.put("expires_at", Timestamp.valueOf(slide.isBefore(cap) ? slide : cap));
+            return 1;
+        }
+        if (sql.contains("file_id = :fileId")) {
+            row.put("status", params.getValue("status"));
+            row.put("file_id", params.getValue("fileId"));
+            row.put("completing_at", null);
+            return 1;
+        }
+        if (sql.contains("completing_at = :now")) {
+            row.put("status", params.getValue("status"));
+            row.put("completing_at", params.getValue("now"));
+            return 1;
+        }
+        if (sql.contains("AND status = :completing")) {
+            if (!Objects.equals(row.get("status"), params.getValue("completing"))) {
+                return 0;
+            }
+            row.put("status", params.getValue("status"));
+            row.put("completing_at", null);
+            return 1;
+        }
+        throw new IllegalArgumentException("unexpected update: " + sql);
+    }
+
+    private synchronized Integer countOpen(String sql, SqlParameterSource params) {
+        Timestamp now = (Timestamp) params.getValue("now");
+        boolean byOwner = sql.contains("owner = :owner");
+        int count = 0;
+        for (Map<String, Object> row : sessions.values()) {
+            boolean mine = byOwner
+                    ? Objects.equals(row.get("owner"), params.getValue("owner"))
+                    : row.get("owner") == null && Objects.equals(row.get("created_ip"), params.getValue("createdIp"));
+            if (mine && Objects.equals(row.get("status"), params.getValue("status"))
+                    && ((Timestamp) row.get("expires_at")).after(now)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private synchronized List<Integer> partNumbers(SqlParameterSource params) {
+        TreeMap<Integer, Long> received = parts.get((String) params.getValue("uploadId"));
+        return received != null ? new ArrayList<>(received.keySet()) : Collections.<Integer>emptyList();
+    }
+
+    private synchronized List<Map<String, Object>> queryRows(String sql, SqlParameterSource params) {
+        if (!sql.startsWith("SELECT status, file_id")) {
+            throw new IllegalArgumentException("unexpected query: " + sql);
+        }
+        Map<String, Object> row = sessions.get((String) params.getValue("uploadId"));
+        return row != null ? Collections.singletonList(new HashMap<>(row)) : Collections.<Map<String, Object>>emptyList();
+    }
+
+    private <T> List<T> find(SqlParameterSource params, RowMapper<T> mapper) throws Exception {
+        Map<String, Object> row;
+        synchronized (this) {
+            Map<String, Object> stored = sessions.get((String) params.getValue("uploadId"));
+            if (stored == null) {
+                return Collections.emptyList();
+            }
+            row = new HashMap<>(stored);
+        }
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getString(anyString())).thenAnswer(inv -> (String) row.get(inv.<String>getArgument(0)));
+        when(rs.getLong(anyString())).thenAnswer(inv -> ((Number) row.get(inv.<String>getArgument(0))).longValue());
+        when(rs.getInt(anyString())).thenAnswer(inv -> ((Number) row.get(inv.<String>getArgument(0))).intValue());
+        when(rs.getObject(anyString())).thenAnswer(inv -> row.get(inv.<String>getArgument(0)));
+        when(rs.getTimestamp(anyString())).thenAnswer(inv -> (Timestamp) row.get(inv.<String>getArgument(0)));
+        return Collections.singletonList(mapper.mapRow(rs, 0));
+    }
+}
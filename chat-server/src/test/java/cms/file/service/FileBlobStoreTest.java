@@ -0,0 +1,177 @@
+package cms.file.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * blob 참조 수(ref_count) 증감, 롤백 시 새 파일 정리, 참조 0 인 blob GC
+ */
+class FileBlobStoreTest {
+
+    @TempDir
+    Path basePath;
+
+    private final FakeBlobTable table = new FakeBlobTable();
+    private FileBlobStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = table.newStore(basePath, 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void sameContentIsStoredOnceAndCountsReferences() throws IOException {
+        FileBlobStore.StoredBlob first = store.store(bytes("hello"), "txt");
+        FileBlobStore.StoredBlob second = store.store(bytes("hello"), "txt");
+
+        assertEquals(first.getHash(), second.getHash());
+        assertEquals(first.getSavedName(), second.getSavedName());
+        assertFalse(first.isDeduplicated());
+        assertTrue(second.isDeduplicated());
+        assertEquals(2, table.refCount(first.getHash()));
+        assertTrue(Files.exists(basePath.resolve(first.getSavedName())));
+    }
+
+    @Test
+    void retainAddsReferenceOnlyForAnExistingBlobOfTheSameSize() throws IOException {
+        FileBlobStore.StoredBlob blob = store.store(bytes("hello"), "txt");
+
+        assertNotNull(store.retain("sha256:" + blob.getHash(), blob.getSize()));
+        assertEquals(2, table.refCount(blob.getHash()));
+
+        assertNull(store.retain(blob.getHash(), blob.getSize() + 1));
+        assertNull(store.retain(repeat('0', 64), 5));
+        assertNull(store.retain("not-a-hash", 5));
+        assertEquals(2, table.refCount(blob.getHash()));
+    }
+
+    @Test
+    void releasingTheLastReferenceCollectsTheBlob() throws IOException {
+        FileBlobStore.StoredBlob blob = store.store(bytes("hello"), "txt");
+        store.store(bytes("hello"), "txt");
+        Path file = basePath.resolve(blob.getSavedName());
+
+        store.release(blob.getHash());
+        assertEquals(1, table.refCount(blob.getHash()));
+        assertTrue(Files.exists(file));
+
+        store.release(blob.getHash());
+        assertEquals(-1, table.refCount(blob.getHash()));
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    void releaseInsideTransactionCollectsOnlyAfterCommit() throws IOException {
+        FileBlobStore.StoredBlob blob = store.store(bytes("hello"), "txt");
+        Path file = basePath.resolve(blob.getSavedName());
+        TransactionSynchronizationManager.initSynchronization();
+
+        store.release(blob.getHash());
+        assertEquals(0, table.refCount(blob.getHash()));
+        assertTrue(Files.exists(file));
+
+        for (TransactionSynchronization sync : TransactionSynchronizationManager.getSynchronizations()) {
+            sync.afterCommit();
+        }
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    void rolledBackPlacementDeletesTheNewFile() throws IOException {
+        TransactionSynchronizationManager.initSynchronization();
+        FileBlobStore.StoredBlob blob = store.store(bytes("rolled back"), "bin");
+        Path file = basePath.resolve(blob.getSavedName());
+        assertTrue(Files.exists(file));
+
+        // file_blob 삽입도 함께 롤백됨
+        table.rows.remove(blob.getHash());
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    void rollbackKeepsTheFileWhenAnotherTransactionOwnsTheRow() throws IOException {
+        TransactionSynchronizationManager.initSynchronization();
+        FileBlobStore.StoredBlob blob = store.store(bytes("shared"), "bin");
+        Path file = basePath.resolve(blob.getSavedName());
+
+        // 같은 해시를 다른 트랜잭션이 커밋해 행이 남아 있다
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertTrue(Files.exists(file));
+    }
+
+    @Test
+    void committedPlacementIsNotDiscarded() throws IOException {
+        TransactionSynchronizationManager.initSynchronization();
+        FileBlobStore.StoredBlob blob = store.store(bytes("kept"), "bin");
+
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertTrue(Files.exists(basePath.resolve(blob.getSavedName())));
+    }
+
+    @Test
+    void gcSkipsReferencedAndRecentlyReleasedBlobs() throws IOException {
+        FileBlobStore.StoredBlob orphan = store.store(bytes("orphan"), "txt");
+        FileBlobStore.StoredBlob shared = store.store(bytes("shared"), "txt");
+        store.store(bytes("shared"), "txt");
+
+        store.releaseAll(Arrays.asList(orphan.getHash(), shared.getHash()));
+        assertEquals(0, table.refCount(orphan.getHash()));
+        assertEquals(1, table.refCount(shared.getHash()));
+        assertFalse(store.collect(shared.getHash()));
+
+        // 유예 시간 안에 해제된 blob 은 아직 지우지 않는다
+        assertEquals(0, store.collectReleased(10));
+        assertTrue(Files.exists(basePath.resolve(orphan.getSavedName())));
+
+        table.rows.get(orphan.getHash()).releasedAt = LocalDateTime.now().minusMinutes(11);
+        assertEquals(1, store.collectReleased(10));
+        assertFalse(Files.exists(basePath.resolve(orphan.getSavedName())));
+        assertTrue(Files.exists(basePath.resolve(shared.getSavedName())));
+        assertEquals(1, table.refCount(shared.getHash()));
+    }
+
+    private static void complete(int status) {
+        for (TransactionSynchronization sync : TransactionSynchronizationManager.getSynchronizations()) {
+            sync.afterCompletion(status);
+        }
+    }
+
+    private static ByteArrayInputStream bytes(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String repeat(char c, int n) {
+        char[] chars = new char[n];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+}
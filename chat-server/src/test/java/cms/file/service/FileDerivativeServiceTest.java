@@ -0,0 +1,89 @@
+package cms.file.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * EXIF Orientation 읽기와 방향 적용 (축소본은 메타데이터 없이 저장되므로 픽셀을 돌려야 한다)
+ */
+class FileDerivativeServiceTest {
+
+    private static final int TL = 0xFF0000;
+    private static final int TR = 0x00FF00;
+    private static final int BL = 0x0000FF;
+    private static final int BR = 0xFFFFFF;
+
+    @Test
+    void readsOrientationFromBothByteOrders() {
+        assertEquals(6, FileDerivativeService.exifOrientation(app1(ByteOrder.BIG_ENDIAN, 6)));
+        assertEquals(8, FileDerivativeService.exifOrientation(app1(ByteOrder.LITTLE_ENDIAN, 8)));
+    }
+
+    @Test
+    void missingOrInvalidOrientationIsIdentity() {
+        assertEquals(1, FileDerivativeService.exifOrientation(new byte[]{'J', 'F', 'I', 'F', 0, 0, 0, 0, 0, 0, 0, 0, 0, 0}));
+        assertEquals(1, FileDerivativeService.exifOrientation(app1(ByteOrder.BIG_ENDIAN, 9)));
+        byte[] truncated = app1(ByteOrder.BIG_ENDIAN, 6);
+        assertEquals(1, FileDerivativeService.exifOrientation(Arrays.copyOf(truncated, 16)));
+    }
+
+    @Test
+    void appliesEveryOrientation() {
+        BufferedImage src = corners();
+        assertSame(src, FileDerivativeService.orient(src, 1));
+
+        assertCorners(FileDerivativeService.orient(src, 2), 3, 2, TR, TL, BR, BL);
+        assertCorners(FileDerivativeService.orient(src, 3), 3, 2, BR, BL, TR, TL);
+        assertCorners(FileDerivativeService.orient(src, 4), 3, 2, BL, BR, TL, TR);
+        assertCorners(FileDerivativeService.orient(src, 5), 2, 3, TL, BL, TR, BR);
+        // 6: 시계 방향 90도 -> 원래 왼쪽 아래가 위 왼쪽으로
+        assertCorners(FileDerivativeService.orient(src, 6), 2, 3, BL, TL, BR, TR);
+        assertCorners(FileDerivativeService.orient(src, 7), 2, 3, BR, TR, BL, TL);
+        assertCorners(FileDerivativeService.orient(src, 8), 2, 3, TR, BR, TL, BL);
+    }
+
+    /**
+     * 3x2 이미지, 네 모서리를 서로 다른 색으로
+     */
+    private static BufferedImage corners() {
+        BufferedImage image = new BufferedImage(3, 2, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, TL);
+        image.setRGB(2, 0, TR);
+        image.setRGB(0, 1, BL);
+        image.setRGB(2, 1, BR);
+        return image;
+    }
+
+    private static void assertCorners(BufferedImage image, int width, int height, int tl, int tr, int bl, int br) {
+        assertEquals(width, image.getWidth());
+        assertEquals(height, image.getHeight());
+        assertEquals(tl, image.getRGB(0, 0) & 0xFFFFFF);
+        assertEquals(tr, image.getRGB(width - 1, 0) & 0xFFFFFF);
+        assertEquals(bl, image.getRGB(0, height - 1) & 0xFFFFFF);
+        assertEquals(br, image.getRGB(width - 1, height - 1) & 0xFFFFFF);
+    }
+
+    /**
+     * "Exif\0\0" + TIFF 헤더 + IFD0 (다른 태그 하나 뒤에 Orientation)
+     */
+    private static byte[] app1(ByteOrder order, int orientation) {
+        ByteBuffer buf = ByteBuffer.allocate(6 + 8 + 2 + 2 * 12 + 4).order(order);
+        buf.put(new byte[]{'E', 'x', 'i', 'f', 0, 0});
+        buf.put(order == ByteOrder.LITTLE_ENDIAN ? new byte[]{'I', 'I'} : new byte[]{'M', 'M'});
+        buf.putShort((short) 42);
+        buf.putInt(8);
+        buf.putShort((short) 2);
+        // 0x010F Make (ASCII, 값 위치만 채움)
+        buf.putShort((short) 0x010F).putShort((short) 2).putInt(4).putInt(0);
+        buf.putShort((short) 0x0112).putShort((short) 3).putInt(1).putShort((short) orientation).putShort((short) 0);
+        buf.putInt(0);
+        return buf.array();
+    }
+}
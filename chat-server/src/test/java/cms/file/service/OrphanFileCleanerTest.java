@@ -0,0 +1,254 @@
+package cms.file.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 고아 파일 정리: 메뉴별 소유 테이블 anti-join, file_id keyset 청크, dryRun, 공유 blob 보존
+ */
+class OrphanFileCleanerTest {
+
+    private static final Pattern ANTI_JOIN = Pattern.compile("LEFT JOIN (\\w+) o ON o\\.(\\w+) = f\\.menu_id");
+
+    @TempDir
+    Path basePath;
+
+    private final FakeBlobTable blobs = new FakeBlobTable();
+    private final NamedParameterJdbcTemplate jdbc = mock(NamedParameterJdbcTemplate.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    /** file 테이블 (file_id 순) */
+    private final TreeMap<Long, Map<String, Object>> files = new TreeMap<>();
+    /** 소유 리소스 테이블 -> 존재하는 PK */
+    private final Map<String, Set<Long>> owners = new HashMap<>();
+    /** anti-join 조회마다 (메뉴, 조인 테이블.컬럼, after) */
+    private final List<String> scans = new ArrayList<>();
+    private FileBlobStore blobStore;
+    private long nextFileId = 1;
+
+    @BeforeEach
+    void setUp() {
+        blobStore = blobs.newStore(basePath, 10);
+        when(transactionManager.getTransaction(any())).thenAnswer(inv -> new SimpleTransactionStatus());
+        when(jdbc.queryForList(anyString(), any(SqlParameterSource.class)))
+                .thenAnswer(inv -> query(inv.getArgument(0), inv.getArgument(1)));
+        when(jdbc.update(anyString(), any(SqlParameterSource.class)))
+                .thenAnswer(inv -> delete(inv.getArgument(0), inv.getArgument(1)));
+    }
+
+    @Test
+    void eachMenuIsAntiJoinedAgainstItsOwnerTable() {
+        owner("bbs_article", 10L);
+        owner("popup", 20L);
+        owner("chat_thread", 30L);
+        long liveArticle = file("ARTICLE_ATTACHMENT", 10L, 100, null);
+        long orphanArticle = file("ARTICLE_ATTACHMENT", 11L, 100, null);
+        long liveEmbedded = file("EDITOR_EMBEDDED_MEDIA", 10L, 100, null);
+        long livePopup = file("POPUP_CONTENT", 20L, 100, null);
+        // 게시글 10 이 있어도 팝업 10 의 소유자가 되지 않는다
+        long orphanPopup = file("POPUP_CONTENT", 10L, 100, null);
+        long orphanChat = file("CHAT", 31L, 100, null);
+        // 지원하지 않는 메뉴는 건너뛴다
+        long otherMenu = file("UNKNOWN_MENU", 99L, 100, null);
+
+        OrphanFileCleaner.Report report = cleaner(500).clean(Arrays.asList(
+                "ARTICLE_ATTACHMENT", "EDITOR_EMBEDDED_MEDIA", "POPUP_CONTENT", "CHAT", "UNKNOWN_MENU"), false);
+
+        assertEquals(new HashSet<>(Arrays.asList(liveArticle, liveEmbedded, livePopup, otherMenu)), files.keySet());
+        assertEquals(1, report.getMenus().get("ARTICLE_ATTACHMENT").getDeleted());
+        assertEquals(0, report.getMenus().get("EDITOR_EMBEDDED_MEDIA").getFound());
+        assertEquals(1, report.getMenus().get("POPUP_CONTENT").getDeleted());
+        assertEquals(1, report.getMenus().get("CHAT").getDeleted());
+        assertFalse(report.getMenus().containsKey("UNKNOWN_MENU"));
+        assertEquals(3, report.getTotalDeleted());
+        assertEquals(Arrays.asList(
+                "ARTICLE_ATTACHMENT bbs_article.ntt_id 0",
+                "EDITOR_EMBEDDED_MEDIA bbs_article.ntt_id 0",
+                "POPUP_CONTENT popup.id 0",
+                "CHAT chat_thread.id 0"), scans);
+    }
+
+    @Test
+    void keysetPagingWalksPastChunkBoundaries() {
+        owner("chat_thread", 1L);
+        List<Long> orphans = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            file("CHAT", 1L, 10, null);
+            orphans.add(file("CHAT", 100L + i, 10, null));
+        }
+
+        OrphanFileCleaner.Report report = cleaner(2).clean(Collections.singletonList("CHAT"), false);
+
+        assertEquals(5, report.getTotalFound());
+        assertEquals(5, report.getTotalDeleted());
+        assertEquals(orphans, report.getMenus().get("CHAT").getSampleFileIds());
+        // 2, 2, 1 건: 마지막 청크가 chunkSize 보다 작으면 더 조회하지 않는다
+        assertEquals(Arrays.asList("CHAT chat_thread.id 0",
+                "CHAT chat_thread.id " + orphans.get(1),
+                "CHAT chat_thread.id " + orphans.get(3)), scans);
+        assertEquals(5, files.size());
+    }
+
+    @Test
+    void dryRunReportsWithoutDeleting() throws IOException {
+        FileBlobStore.StoredBlob blob = blobStore.store(bytes("orphan"), "txt");
+        long hashed = file("CHAT", 7L, blob.getSize(), blob);
+        Path legacy = legacyFile("legacy.txt");
+        long plain = file("CHAT", 8L, 40, null);
+        files.get(plain).put("saved_name", "legacy.txt");
+
+        OrphanFileCleaner.Report report = cleaner(1).clean(Collections.singletonList("CHAT"), true);
+
+        assertTrue(report.isDryRun());
+        assertEquals(2, report.getTotalFound());
+        assertEquals(0, report.getTotalDeleted());
+        assertEquals(blob.getSize() + 40, report.getMenus().get("CHAT").getBytes());
+        assertEquals(Arrays.asList(hashed, plain), report.getMenus().get("CHAT").getSampleFileIds());
+        verify(jdbc, never()).update(anyString(), any(SqlParameterSource.class));
+        assertEquals(2, files.size());
+        assertEquals(1, blobs.refCount(blob.getHash()));
+        assertTrue(Files.exists(basePath.resolve(blob.getSavedName())));
+        assertTrue(Files.exists(legacy));
+    }
+
+    @Test
+    void blobSharedWithALiveFileSurvives() throws IOException {
+        owner("chat_thread", 1L);
+        FileBlobStore.StoredBlob shared = blobStore.store(bytes("shared"), "png");
+        blobStore.store(bytes("shared"), "png");
+        FileBlobStore.StoredBlob alone = blobStore.store(bytes("alone"), "png");
+        FileBlobStore.StoredBlob variant = blobStore.store(bytes("thumbnail"), "jpg");
+        long live = file("CHAT", 1L, shared.getSize(), shared);
+        long orphanShared = file("CHAT", 2L, shared.getSize(), shared);
+        long orphanAlone = file("CHAT", 2L, alone.getSize(), alone);
+        // 고아 파일의 파생본도 같은 청크에서 지워진다
+        file(FileDerivativeService.VARIANT_MENU, orphanAlone, variant.getSize(), variant);
+        Path legacy = legacyFile("legacy.bin");
+        long orphanLegacy = file("CHAT", 3L, 10, null);
+        files.get(orphanLegacy).put("saved_name", "legacy.bin");
+
+        OrphanFileCleaner.Report report = cleaner(500).clean(Collections.singletonList("CHAT"), false);
+
+        assertEquals(3, report.getTotalDeleted());
+        assertEquals(Collections.singleton(live), files.keySet());
+        assertEquals(1, blobs.refCount(shared.getHash()));
+        assertTrue(Files.exists(basePath.resolve(shared.getSavedName())));
+        assertEquals(-1, blobs.refCount(alone.getHash()));
+        assertFalse(Files.exists(basePath.resolve(alone.getSavedName())));
+        assertEquals(-1, blobs.refCount(variant.getHash()));
+        assertFalse(Files.exists(basePath.resolve(variant.getSavedName())));
+        assertFalse(Files.exists(legacy));
+        assertFalse(files.containsKey(orphanShared));
+    }
+
+    @SuppressWarnings("unchecked")
+    private OrphanFileCleaner cleaner(int chunkSize) {
+        ObjectProvider<MeterRegistry> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable(any(Supplier.class))).thenReturn(new SimpleMeterRegistry());
+        return new OrphanFileCleaner(jdbc, transactionManager, blobStore, provider, basePath.toString(), chunkSize, 2);
+    }
+
+    private void owner(String table, Long id) {
+        owners.computeIfAbsent(table, t -> new HashSet<>()).add(id);
+    }
+
+    private long file(String menu, Long menuId, long size, FileBlobStore.StoredBlob blob) {
+        long fileId = nextFileId++;
+        Map<String, Object> row = new HashMap<>();
+        row.put("file_id", fileId);
+        row.put("menu", menu);
+        row.put("menu_id", menuId);
+        row.put("size", size);
+        row.put("saved_name", blob != null ? blob.getSavedName() : "file-" + fileId);
+        row.put("content_hash", blob != null ? blob.getHash() : null);
+        files.put(fileId, row);
+        return fileId;
+    }
+
+    private Path legacyFile(String name) throws IOException {
+        return Files.write(basePath.resolve(name), new byte[]{1, 2, 3});
+    }
+
+    private synchronized List<Map<String, Object>> query(String sql, SqlParameterSource params) {
+        List<Map<String, Object>> result = new ArrayList<>();
+        Matcher join = ANTI_JOIN.matcher(sql);
+        if (join.find()) {
+            String menu = (String) params.getValue("menu");
+            long after = ((Number) params.getValue("after")).longValue();
+            int limit = ((Number) params.getValue("limit")).intValue();
+            scans.add(menu + " " + join.group(1) + "." + join.group(2) + " " + after);
+            Set<Long> ownerIds = "file".equals(join.group(1)) ? files.keySet() : owners.getOrDefault(join.group(1),
+                    Collections.<Long>emptySet());
+            for (Map<String, Object> row : files.tailMap(after, false).values()) {
+                if (menu.equals(row.get("menu")) && !ownerIds.contains(row.get("menu_id")) && result.size() < limit) {
+                    result.add(new HashMap<>(row));
+                }
+            }
+            return result;
+        }
+        if (sql.contains("WHERE menu = :variantMenu AND menu_id IN (:ids)")) {
+            Collection<?> ids = (Collection<?>) params.getValue("ids");
+            for (Map<String, Object> row : files.values()) {
+                if (params.getValue("variantMenu").equals(row.get("menu")) && ids.contains(row.get("menu_id"))) {
+                    result.add(new HashMap<>(row));
+                }
+            }
+            return result;
+        }
+        throw new IllegalArgumentException("unexpected query: " + sql);
+    }
+
+    private synchronized int delete(String sql, SqlParameterSource params) {
+        Collection<?> ids = (Collection<?>) params.getValue("ids");
+        int before = files.size();
+        if (sql.equals("DELETE FROM file WHERE menu = :variantMenu AND menu_id IN (:ids)")) {
+            files.values().removeIf(row -> params.getValue("variantMenu").equals(row.get("menu"))
+                    && ids.contains(row.get("menu_id")));
+        } else if (sql.equals("DELETE FROM file WHERE file_id IN (:ids)")) {
+            files.keySet().removeAll(ids);
+        } else {
+            throw new IllegalArgumentException("unexpected update: " + sql);
+        }
+        return before - files.size();
+    }
+
+    private static ByteArrayInputStream bytes(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,100 @@
+package cms.file.service.impl;
+
+import cms.file.entity.CmsFile;
+import cms.file.repository.FileRepository;
+import cms.file.service.FileBlobStore;
+import cms.file.service.FileDerivativeService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.lang.reflect.Constructor;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * presign 업로드 생략은 같은 내용의 공개 파일이나 호출자가 올린 파일이 있을 때만 (해시만으로 남의 blob 참조 불가)
+ */
+class FileServiceImplAttachExistingBlobTest {
+
+    private static final String HASH = String.join("", Collections.nCopies(8, "0123abcd"));
+
+    private final FileRepository fileRepository = mock(FileRepository.class);
+    private final FileBlobStore fileBlobStore = mock(FileBlobStore.class);
+    private final FileServiceImpl fileService = new FileServiceImpl(fileRepository, null, fileBlobStore,
+            mock(FileDerivativeService.class), null);
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void unknownOrForeignBlobRequiresUpload() {
+        login("mallory");
+        when(fileRepository.countReusableByContentHash(HASH, "mallory")).thenReturn(0L);
+
+        assertNull(fileService.attachExistingBlob("CHAT", 1L, "a.pdf", "application/pdf", "sha256:" + HASH, 10));
+        verify(fileBlobStore, never()).retain(anyString(), anyLong());
+        verify(fileRepository, never()).save(any(CmsFile.class));
+    }
+
+    @Test
+    void anonymousCallerCanOnlyReusePublicFiles() {
+        when(fileRepository.countReusableByContentHash(HASH, null)).thenReturn(0L);
+
+        assertNull(fileService.attachExistingBlob("CHAT", 1L, "a.pdf", "application/pdf", HASH, 10));
+        verify(fileRepository).countReusableByContentHash(eq(HASH), isNull());
+        verify(fileBlobStore, never()).retain(anyString(), anyLong());
+    }
+
+    @Test
+    void ownedOrPublicBlobIsReferencedWithoutUpload() throws Exception {
+        login("alice");
+        when(fileRepository.countReusableByContentHash(HASH, "alice")).thenReturn(1L);
+        when(fileBlobStore.retain(HASH, 10)).thenReturn(storedBlob(HASH, "blobs/01/23/" + HASH + ".pdf", 10));
+        when(fileRepository.save(any(CmsFile.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        CmsFile file = fileService.attachExistingBlob("CHAT", 1L, "a.pdf", "application/pdf", "sha256:" + HASH, 10);
+
+        assertNotNull(file);
+        assertEquals(HASH, file.getContentHash());
+        assertEquals("alice", file.getCreatedBy());
+        verify(fileBlobStore).retain(HASH, 10);
+    }
+
+    @Test
+    void malformedChecksumIsIgnored() {
+        login("alice");
+
+        assertNull(fileService.attachExistingBlob("CHAT", 1L, "a.pdf", "application/pdf", "md5:abc", 10));
+        verify(fileRepository, never()).countReusableByContentHash(anyString(), anyString());
+    }
+
+    private static void login(String name) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(name, null,
+                Arrays.asList(new SimpleGrantedAuthority("ROLE_USER"))));
+    }
+
+    private static FileBlobStore.StoredBlob storedBlob(String hash, String savedName, long size) throws Exception {
+        Constructor<FileBlobStore.StoredBlob> constructor = FileBlobStore.StoredBlob.class
+                .getDeclaredConstructor(String.class, String.class, long.class, boolean.class);
+        constructor.setAccessible(true);
+        return constructor.newInstance(hash, savedName, size, true);
+    }
+}
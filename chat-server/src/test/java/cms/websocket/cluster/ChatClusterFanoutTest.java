@@ -0,0 +1,197 @@
+package cms.websocket.cluster;
+
+import cms.websocket.config.ChatBrokerProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 두 노드(각자 TcpChatClusterBus + brokerChannel)를 loopback TCP 로 연결해 팬아웃을 확인한다
+ */
+class ChatClusterFanoutTest {
+
+    private Node nodeA;
+    private Node nodeB;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        int portA = freePort();
+        int portB = freePort();
+        nodeA = new Node("node-a", portA, portB, "s3cret");
+        nodeB = new Node("node-b", portB, portA, "s3cret");
+    }
+
+    @AfterEach
+    void tearDown() {
+        nodeA.close();
+        nodeB.close();
+    }
+
+    @Test
+    void broadcastOnOneNodeReachesTheOtherNode() throws Exception {
+        nodeA.channel.send(brokerMessage("/sub/chat/room/1", "{\"id\":1}"));
+
+        Message<?> local = nodeA.received.poll(5, TimeUnit.SECONDS);
+        assertNotNull(local);
+
+        Message<?> remote = nodeB.received.poll(5, TimeUnit.SECONDS);
+        assertNotNull(remote, "node-b should receive the broadcast published on node-a");
+        assertEquals("/sub/chat/room/1", SimpMessageHeaderAccessor.getDestination(remote.getHeaders()));
+        assertArrayEquals("{\"id\":1}".getBytes(StandardCharsets.UTF_8), (byte[]) remote.getPayload());
+        assertEquals("node-a", remote.getHeaders().get(ChatClusterFanout.ORIGIN_HEADER));
+
+        // 재주입된 메시지는 다시 팬아웃되지 않는다
+        assertNull(nodeA.received.poll(500, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void messagesKeepPublishOrderAcrossNodes() throws Exception {
+        for (int i = 0; i < 200; i++) {
+            nodeA.channel.send(brokerMessage("/sub/chat/room/2", String.valueOf(i)));
+        }
+        for (int i = 0; i < 200; i++) {
+            Message<?> remote = nodeB.received.poll(5, TimeUnit.SECONDS);
+            assertNotNull(remote);
+            assertEquals(String.valueOf(i), new String((byte[]) remote.getPayload(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void peerWithWrongSecretIsIgnored() throws Exception {
+        nodeB.close();
+        nodeB = new Node("node-b", nodeB.port, nodeA.port, "other");
+
+        nodeA.channel.send(brokerMessage("/sub/chat/room/3", "x"));
+
+        assertNull(nodeB.received.poll(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void clusterModeRequiresSecret() throws IOException {
+        for (String secret : new String[]{"", "  "}) {
+            ChatBrokerProperties properties = new ChatBrokerProperties();
+            properties.setMode(ChatBrokerProperties.MODE_CLUSTER);
+            properties.getCluster().setPort(freePort());
+            properties.getCluster().setSecret(secret);
+            TcpChatClusterBus bus = new TcpChatClusterBus(properties);
+
+            assertThrows(IllegalStateException.class, bus::start);
+            bus.stop();
+        }
+    }
+
+    @Test
+    void defaultsToLoopbackBind() {
+        assertEquals("127.0.0.1", new ChatBrokerProperties().getCluster().getBindHost());
+    }
+
+    @Test
+    void silentConnectionIsDroppedAfterHandshakeTimeout() throws Exception {
+        nodeB.close();
+        nodeB = new Node("node-b", nodeB.port, nodeA.port, "s3cret", 200, 32);
+
+        try (Socket idle = new Socket("127.0.0.1", nodeB.port)) {
+            idle.setSoTimeout(3000);
+            // 비밀값을 보내지 않으면 서버가 연결을 닫는다 (read 가 -1)
+            assertEquals(-1, idle.getInputStream().read());
+        }
+    }
+
+    @Test
+    void inboundConnectionsAreCapped() throws Exception {
+        nodeB.close();
+        nodeB = new Node("node-b", nodeB.port, nodeA.port, "s3cret", 10_000, 2);
+        List<Socket> idle = new ArrayList<>();
+        try {
+            // node-a 의 송신 연결이 아직 없으므로 두 자리를 유휴 연결로 채운다
+            for (int i = 0; i < 2; i++) {
+                idle.add(new Socket("127.0.0.1", nodeB.port));
+            }
+            Thread.sleep(200);
+            try (Socket extra = new Socket("127.0.0.1", nodeB.port)) {
+                extra.setSoTimeout(3000);
+                assertEquals(-1, extra.getInputStream().read());
+            }
+        } finally {
+            for (Socket socket : idle) {
+                socket.close();
+            }
+        }
+    }
+
+    private static Message<byte[]> brokerMessage(String destination, String body) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(destination);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        return MessageBuilder.createMessage(body.getBytes(StandardCharsets.UTF_8), accessor.getMessageHeaders());
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static final class Node {
+
+        final int port;
+        final TcpChatClusterBus bus;
+        final ChatClusterFanout fanout;
+        final ExecutorSubscribableChannel channel = new ExecutorSubscribableChannel();
+        final BlockingQueue<Message<?>> received = new LinkedBlockingQueue<>();
+
+        Node(String nodeId, int port, int peerPort, String secret) throws IOException {
+            this(nodeId, port, peerPort, secret, 5000, 32);
+        }
+
+        Node(String nodeId, int port, int peerPort, String secret, int handshakeTimeoutMs, int maxInbound)
+                throws IOException {
+            this.port = port;
+            ChatBrokerProperties properties = new ChatBrokerProperties();
+            properties.setMode(ChatBrokerProperties.MODE_CLUSTER);
+            properties.getCluster().setNodeId(nodeId);
+            properties.getCluster().setBindHost("127.0.0.1");
+            properties.getCluster().setPort(port);
+            properties.getCluster().setPeers(Collections.singletonList("127.0.0.1:" + peerPort));
+            properties.getCluster().setSecret(secret);
+            properties.getCluster().setReconnectBackoffMs(0);
+            properties.getCluster().setHandshakeTimeoutMs(handshakeTimeoutMs);
+            properties.getCluster().setMaxInboundConnections(maxInbound);
+
+            bus = new TcpChatClusterBus(properties);
+            bus.start();
+            fanout = new ChatClusterFanout(bus, properties, channel);
+            channel.addInterceptor(fanout);
+            channel.subscribe(received::add);
+            fanout.join();
+        }
+
+        void close() {
+            fanout.leave();
+            bus.stop();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package cms.websocket.config;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+/**
+ * chat.stomp.handle 의 destination 태그는 허용 템플릿 또는 "other" 만 갖는다
+ */
+class StompChannelMetricsInterceptorTest {
+
+    @Test
+    void knownDestinationsMapToTheirTemplate() {
+        assertEquals("/pub/chat/{threadId}/send", StompChannelMetricsInterceptor.normalize("/pub/chat/42/send"));
+        assertEquals("/pub/chat/read", StompChannelMetricsInterceptor.normalize("/pub/chat/read"));
+        assertEquals("/pub/chat/{threadId}/typing", StompChannelMetricsInterceptor.normalize("/pub/chat/7/typing"));
+        assertEquals("/sub/chat/{threadId}", StompChannelMetricsInterceptor.normalize("/sub/chat/123456"));
+        assertEquals("/sub/chat/channel/{channelId}", StompChannelMetricsInterceptor.normalize("/sub/chat/channel/3"));
+        assertEquals("/sub/chat/sla", StompChannelMetricsInterceptor.normalize("/sub/chat/sla"));
+        assertEquals("/sub/dashboard", StompChannelMetricsInterceptor.normalize("/sub/dashboard"));
+        assertEquals("/sub/unread-count/{owner}",
+                StompChannelMetricsInterceptor.normalize("/sub/unread-count/" + UUID.randomUUID()));
+    }
+
+    @Test
+    void unknownDestinationsCollapseToOther() {
+        assertEquals("other", StompChannelMetricsInterceptor.normalize("/pub/" + UUID.randomUUID()));
+        assertEquals("other", StompChannelMetricsInterceptor.normalize("/pub/chat/abc/send"));
+        assertEquals("other", StompChannelMetricsInterceptor.normalize("/pub/chat/1/send/extra"));
+        assertEquals("other", StompChannelMetricsInterceptor.normalize("/sub/chat/" + UUID.randomUUID()));
+        assertEquals("other", StompChannelMetricsInterceptor.normalize("/sub/unread-count/a/b"));
+    }
+
+    @Test
+    void clientChosenPathsDoNotGrowTheMeterCount() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        StompChannelMetricsInterceptor interceptor =
+                new StompChannelMetricsInterceptor(registry, "inbound", MessageHandler.class);
+        MessageChannel channel = mock(MessageChannel.class);
+        MessageHandler handler = mock(MessageHandler.class);
+
+        for (int i = 0; i < 100; i++) {
+            handle(interceptor, channel, handler, "/pub/" + UUID.randomUUID() + "/" + i);
+            handle(interceptor, channel, handler, "/pub/chat/" + i + "/send");
+        }
+
+        Set<String> destinations = new HashSet<>();
+        for (Timer timer : registry.find("chat.stomp.handle").timers()) {
+            destinations.add(timer.getId().getTag("destination"));
+        }
+        assertEquals(2, destinations.size());
+        assertEquals(100L, registry.get("chat.stomp.handle").tag("destination", "other").timer().count());
+        assertEquals(100L, registry.get("chat.stomp.handle").tag("destination", "/pub/chat/{threadId}/send")
+                .timer().count());
+    }
+
+    private static void handle(StompChannelMetricsInterceptor interceptor, MessageChannel channel,
+            MessageHandler handler, String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create();
+        accessor.setDestination(destination);
+        Message<byte[]> message = MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+        interceptor.beforeHandle(message, channel, handler);
+        interceptor.afterMessageHandled(message, channel, handler, null);
+    }
+}